@@ -0,0 +1,34 @@
+package graphql.nadel;
+
+import graphql.PublicSpi;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * A {@link ServiceExecution} that can send several operations to the service in one call, for example as an array of
+ * GraphQL requests in one HTTP request.
+ * <p>
+ * Nadel collects the calls to the service that are made together: the calls for the top level fields of a request and
+ * the hydration calls of one level of a result. A single call is still made with {@link #execute(ServiceExecutionParameters)}.
+ * <p>
+ * The calls are only collected if the service execution isn't replaced by
+ * {@link graphql.nadel.instrumentation.NadelInstrumentation#instrumentServiceExecution(ServiceExecution, graphql.nadel.instrumentation.parameters.NadelInstrumentationServiceExecutionParameters)}.
+ */
+@PublicSpi
+public interface BatchingServiceExecution extends ServiceExecution {
+
+    /**
+     * @param serviceExecutionParameters the parameters of the calls
+     *
+     * @return the results of the calls, in the order of the parameters
+     */
+    CompletableFuture<List<ServiceExecutionResult>> executeBatch(List<ServiceExecutionParameters> serviceExecutionParameters);
+
+    @Override
+    default CompletableFuture<ServiceExecutionResult> execute(ServiceExecutionParameters serviceExecutionParameters) {
+        return executeBatch(singletonList(serviceExecutionParameters)).thenApply(results -> results.get(0));
+    }
+}
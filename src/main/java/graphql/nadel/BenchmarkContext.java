@@ -9,8 +9,13 @@ import graphql.execution.MergedField;
 import graphql.execution.instrumentation.InstrumentationState;
 import graphql.execution.nextgen.FieldSubSelection;
 import graphql.language.Document;
+import graphql.nadel.engine.HydrationBatchWindow;
 import graphql.nadel.engine.NadelContext;
+import graphql.nadel.engine.ParallelListConversion;
+import graphql.nadel.engine.TopLevelFieldCache;
+import graphql.nadel.engine.UnderlyingToOverallMapping;
 import graphql.nadel.engine.transformation.FieldTransformation;
+import graphql.nadel.engine.transformation.HydrationDescriptors;
 import graphql.nadel.engine.transformation.TransformationMetadata;
 import graphql.nadel.hooks.ServiceExecutionHooks;
 import graphql.nadel.instrumentation.NadelInstrumentation;
@@ -23,6 +28,7 @@ import graphql.schema.GraphQLSchema;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 @Internal
 public class BenchmarkContext {
@@ -34,7 +40,7 @@ public class BenchmarkContext {
         public GraphQLSchema overallSchema;
         public RootExecutionResultNode correctRootNode;
         public Map<String, FieldTransformation> fieldIdToTransformation;
-        public Map<String, String> typeRenameMappings;
+        public UnderlyingToOverallMapping underlyingToOverallMapping;
         public NadelContext nadelContext;
         public TransformationMetadata transformationMetadata;
     }
@@ -43,9 +49,17 @@ public class BenchmarkContext {
 
         public List<Service> services;
         public GraphQLSchema overallSchema;
+        public Map<String, UnderlyingToOverallMapping> underlyingToOverallMappings;
+        public HydrationDescriptors hydrationDescriptors;
         public NadelInstrumentation instrumentation;
         public IntrospectionRunner introspectionRunner;
         public ServiceExecutionHooks serviceExecutionHooks;
+        public ParallelListConversion parallelListConversion;
+        public Executor executor;
+        public HydrationBatchWindow hydrationBatchWindow;
+        public TopLevelFieldCache topLevelFieldCache;
+        public QueryCostLimits queryCostLimits;
+        public ResultSizeLimits resultSizeLimits;
         public Object context;
         public ExecutionInput executionInput;
         public Document document;
@@ -59,6 +73,8 @@ public class BenchmarkContext {
         public List<Service> services;
         public FieldInfos fieldInfos;
         public GraphQLSchema overallSchema;
+        public Map<String, UnderlyingToOverallMapping> underlyingToOverallMappings;
+        public HydrationDescriptors hydrationDescriptors;
         public NadelInstrumentation instrumentation;
         public ServiceExecutionHooks serviceExecutionHooks;
         public ExecutionContext executionContext;
@@ -0,0 +1,129 @@
+package graphql.nadel;
+
+import graphql.PublicApi;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.Assert.assertTrue;
+
+/**
+ * A {@link ServiceExecution} for service clients that block until the service has answered.
+ * <p>
+ * The blocking calls run on an executor so that Nadel can carry on with other services in the meantime. By default
+ * that is a new virtual thread per call if the Java runtime supports virtual threads, otherwise a shared pool with at
+ * most {@link #DEFAULT_MAX_POOL_THREADS} threads. Calls that don't get a thread of the pool straight away wait for one.
+ */
+@PublicApi
+public class BlockingServiceExecution implements ServiceExecution {
+
+    public static final int DEFAULT_MAX_POOL_THREADS = 200;
+
+    /**
+     * A service call that blocks until the service has answered
+     */
+    @FunctionalInterface
+    public interface BlockingCall {
+        /**
+         * @param serviceExecutionParameters the parameters of the service call
+         *
+         * @return the result of the service
+         *
+         * @throws Exception if the service call failed, which is turned into an error of the service call
+         */
+        ServiceExecutionResult execute(ServiceExecutionParameters serviceExecutionParameters) throws Exception;
+    }
+
+    private final BlockingCall blockingCall;
+    private final Executor executor;
+
+    /**
+     * @param blockingCall the blocking service call
+     * @param executor     the executor to run the blocking calls on
+     */
+    public BlockingServiceExecution(BlockingCall blockingCall, Executor executor) {
+        this.blockingCall = assertNotNull(blockingCall);
+        this.executor = assertNotNull(executor);
+    }
+
+    /**
+     * @param blockingCall the blocking service call
+     *
+     * @return a service execution that runs the blocking calls on virtual threads if possible or on a shared bounded pool
+     */
+    public static BlockingServiceExecution blocking(BlockingCall blockingCall) {
+        return new BlockingServiceExecution(blockingCall, DefaultExecutor.INSTANCE);
+    }
+
+    @Override
+    public CompletableFuture<ServiceExecutionResult> execute(ServiceExecutionParameters serviceExecutionParameters) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return blockingCall.execute(serviceExecutionParameters);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * @return true if the blocking calls of {@link #blocking(BlockingCall)} run on virtual threads
+     */
+    public static boolean usesVirtualThreads() {
+        return !(DefaultExecutor.INSTANCE instanceof ThreadPoolExecutor);
+    }
+
+    /**
+     * @param maxThreads the maximum number of threads of the pool
+     *
+     * @return a pool for blocking service calls, whose threads are stopped when they have been idle for a minute
+     */
+    public static ExecutorService newBoundedPool(int maxThreads) {
+        assertTrue(maxThreads > 0, () -> "the pool needs at least one thread");
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new DaemonThreadFactory());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /*
+     * Executors.newVirtualThreadPerTaskExecutor() is looked up at runtime, so this still runs on Java 8
+     */
+    private static class DefaultExecutor {
+        private static final ExecutorService INSTANCE = create();
+
+        private static ExecutorService create() {
+            try {
+                MethodHandle newVirtualThreadPerTaskExecutor = MethodHandles.publicLookup().findStatic(java.util.concurrent.Executors.class,
+                        "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+                return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke();
+            } catch (Throwable e) {
+                // no virtual threads before Java 21
+                return newBoundedPool(DEFAULT_MAX_POOL_THREADS);
+            }
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "nadel-blocking-service-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package graphql.nadel;
+
+import graphql.PublicApi;
+
+/**
+ * How well the batch hydration calls of different requests have been merged by the hydration batch window of a
+ * Nadel instance, see {@link Nadel.Builder#hydrationBatchWindow(java.time.Duration, java.util.function.Function)}
+ */
+@PublicApi
+public class HydrationBatchingStatistics {
+
+    private final long hydrationCalls;
+    private final long downstreamCalls;
+    private final long windowNanos;
+
+    public HydrationBatchingStatistics(long hydrationCalls, long downstreamCalls, long windowNanos) {
+        this.hydrationCalls = hydrationCalls;
+        this.downstreamCalls = downstreamCalls;
+        this.windowNanos = windowNanos;
+    }
+
+    /**
+     * @return the number of batch hydration calls that went through the window
+     */
+    public long getHydrationCalls() {
+        return hydrationCalls;
+    }
+
+    /**
+     * @return the number of calls made to the services for them
+     */
+    public long getDownstreamCalls() {
+        return downstreamCalls;
+    }
+
+    /**
+     * @return the number of batch hydration calls per call to a service, 1 if nothing has been merged
+     */
+    public double getBatchingRatio() {
+        return downstreamCalls == 0 ? 1 : (double) hydrationCalls / downstreamCalls;
+    }
+
+    /**
+     * The latency cost of a window is the time from the first call joining the window until the window is sent
+     *
+     * @return the latency cost of all the windows added up
+     */
+    public long getWindowNanos() {
+        return windowNanos;
+    }
+
+    /**
+     * @return the average latency cost of a window
+     */
+    public long getAverageWindowNanos() {
+        return downstreamCalls == 0 ? 0 : windowNanos / downstreamCalls;
+    }
+
+    @Override
+    public String toString() {
+        return "HydrationBatchingStatistics{" +
+                "hydrationCalls=" + hydrationCalls +
+                ", downstreamCalls=" + downstreamCalls +
+                ", windowNanos=" + windowNanos +
+                '}';
+    }
+}
@@ -0,0 +1,95 @@
+package graphql.nadel;
+
+import graphql.PublicApi;
+import graphql.nadel.util.JsonTokenReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static graphql.Assert.assertNotNull;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+
+/**
+ * A service result which is still in its raw JSON form, for example the body of the HTTP response of the service.
+ * <p>
+ * Nadel reads the JSON and creates the result nodes directly, guided by the query that was sent to the service,
+ * without first building the whole response as nested maps and lists.
+ * <p>
+ * {@link #getData()}, {@link #getErrors()} and {@link #getExtensions()} still work but have to parse the JSON into maps
+ * to do so.
+ */
+@PublicApi
+public class JsonServiceExecutionResult extends ServiceExecutionResult {
+
+    private final byte[] json;
+    private final Charset charset;
+
+    private volatile ServiceExecutionResult parsedResult;
+
+    public JsonServiceExecutionResult(byte[] json, Charset charset) {
+        super(null);
+        this.json = assertNotNull(json);
+        this.charset = assertNotNull(charset);
+    }
+
+    public JsonServiceExecutionResult(byte[] json) {
+        this(json, StandardCharsets.UTF_8);
+    }
+
+    public JsonServiceExecutionResult(String json) {
+        this(json.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the number of bytes of the JSON of this result
+     */
+    public int getLength() {
+        return json.length;
+    }
+
+    /**
+     * @return a new reader over the JSON of this result
+     */
+    public Reader newReader() {
+        if (charset == StandardCharsets.UTF_8 || charset == StandardCharsets.ISO_8859_1) {
+            return new InputStreamReader(new ByteArrayInputStream(json), charset);
+        }
+        return new StringReader(new String(json, charset));
+    }
+
+    @Override
+    public Map<String, Object> getData() {
+        return parse().getData();
+    }
+
+    @Override
+    public List<Map<String, Object>> getErrors() {
+        return parse().getErrors();
+    }
+
+    @Override
+    public Map<String, Object> getExtensions() {
+        return parse().getExtensions();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ServiceExecutionResult parse() {
+        if (parsedResult == null) {
+            Object value = new JsonTokenReader(newReader()).nextValue();
+            Map<String, Object> result = value instanceof Map ? (Map<String, Object>) value : emptyMap();
+            Object errors = result.get("errors");
+            Object extensions = result.get("extensions");
+            parsedResult = new ServiceExecutionResult((Map<String, Object>) result.get("data"),
+                    errors instanceof List ? (List<Map<String, Object>>) errors : emptyList(),
+                    extensions instanceof Map ? (Map<String, Object>) extensions : emptyMap());
+        }
+        return parsedResult;
+    }
+}
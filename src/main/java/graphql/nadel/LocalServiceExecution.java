@@ -0,0 +1,124 @@
+package graphql.nadel;
+
+import graphql.AssertException;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.GraphQLError;
+import graphql.PublicApi;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.language.Document;
+import graphql.schema.GraphQLSchema;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static graphql.Assert.assertNotNull;
+
+/**
+ * A {@link ServiceExecution} for a service whose schema is executed by graphql-java in the same process.
+ * <p>
+ * The query Nadel created for the service is executed as it is: it isn't printed and parsed again, and it isn't
+ * validated again either, because Nadel only sends queries that are valid for the underlying schema of the service.
+ * The {@link GraphQL} instance for the schema is created once and used for all the calls.
+ */
+@PublicApi
+public class LocalServiceExecution implements ServiceExecution {
+
+    private final GraphQL graphQL;
+    private final AtomicLong callCount = new AtomicLong();
+    // the documents of the calls in progress by the placeholder query of the call
+    private final Map<String, Document> documentsByPlaceholder = new ConcurrentHashMap<>();
+
+    /**
+     * @param schema the executable schema of the service
+     */
+    public LocalServiceExecution(GraphQLSchema schema) {
+        this(schema, builder -> {
+        });
+    }
+
+    /**
+     * @param schema    the executable schema of the service
+     * @param customize can change the {@link GraphQL} instance for the schema, for example to add instrumentation. It
+     *                  can't set a {@link PreparsedDocumentProvider}, as the documents of the calls are never parsed.
+     *
+     * @throws AssertException if the customization sets a preparsed document provider
+     */
+    public LocalServiceExecution(GraphQLSchema schema, Consumer<GraphQL.Builder> customize) {
+        CustomizedBuilder builder = new CustomizedBuilder(assertNotNull(schema));
+        customize.accept(builder);
+        this.graphQL = builder
+                .placeholderDocumentProvider((executionInput, parseAndValidate) -> {
+                    Document document = documentsByPlaceholder.get(executionInput.getQuery());
+                    return document != null ? new PreparsedDocumentEntry(document) : parseAndValidate.apply(executionInput);
+                })
+                .build();
+    }
+
+    /*
+     * the documents of the calls are served for their placeholder queries, which no other provider can do
+     */
+    private static class CustomizedBuilder extends GraphQL.Builder {
+
+        CustomizedBuilder(GraphQLSchema schema) {
+            super(schema);
+        }
+
+        @Override
+        public GraphQL.Builder preparsedDocumentProvider(PreparsedDocumentProvider preparsedDocumentProvider) {
+            throw new AssertException("A LocalServiceExecution executes the documents of the calls without parsing them, it can't have a preparsed document provider");
+        }
+
+        GraphQL.Builder placeholderDocumentProvider(PreparsedDocumentProvider preparsedDocumentProvider) {
+            return super.preparsedDocumentProvider(preparsedDocumentProvider);
+        }
+    }
+
+    @Override
+    public CompletableFuture<ServiceExecutionResult> execute(ServiceExecutionParameters serviceExecutionParameters) {
+        // graphql-java needs a query string: a placeholder stands in for the document of the call
+        String placeholder = "# nadel local service call " + callCount.incrementAndGet();
+        ExecutionInput.Builder executionInput = ExecutionInput.newExecutionInput()
+                .query(placeholder)
+                .operationName(serviceExecutionParameters.getOperationDefinition().getName())
+                .variables(serviceExecutionParameters.getVariables())
+                .context(serviceExecutionParameters.getContext());
+        if (serviceExecutionParameters.getExecutionId() != null) {
+            executionInput.executionId(serviceExecutionParameters.getExecutionId());
+        }
+        if (serviceExecutionParameters.getCacheControl() != null) {
+            executionInput.cacheControl(serviceExecutionParameters.getCacheControl());
+        }
+
+        documentsByPlaceholder.put(placeholder, serviceExecutionParameters.getQuery());
+        CompletableFuture<ExecutionResult> result;
+        try {
+            // the document is looked up before executeAsync returns
+            result = graphQL.executeAsync(executionInput.build());
+        } finally {
+            documentsByPlaceholder.remove(placeholder);
+        }
+        return result.thenApply(this::toServiceExecutionResult);
+    }
+
+    private ServiceExecutionResult toServiceExecutionResult(ExecutionResult executionResult) {
+        List<Map<String, Object>> errors = new ArrayList<>(executionResult.getErrors().size());
+        for (GraphQLError error : executionResult.getErrors()) {
+            errors.add(error.toSpecification());
+        }
+        Map<String, Object> data = executionResult.getData();
+        return new ServiceExecutionResult(data, errors, toExtensions(executionResult.getExtensions()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> toExtensions(Map<Object, Object> extensions) {
+        return (Map<String, Object>) (Map<?, ?>) extensions;
+    }
+}
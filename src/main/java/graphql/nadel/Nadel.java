@@ -1,5 +1,6 @@
 package graphql.nadel;
 
+import graphql.Directives;
 import graphql.ExecutionInput;
 import graphql.ExecutionResult;
 import graphql.ExecutionResultImpl;
@@ -15,10 +16,18 @@ import graphql.execution.preparsed.NoOpPreparsedDocumentProvider;
 import graphql.execution.preparsed.PreparsedDocumentEntry;
 import graphql.execution.preparsed.PreparsedDocumentProvider;
 import graphql.language.Document;
+import graphql.nadel.cache.ResponseCache;
 import graphql.nadel.dsl.CommonDefinition;
 import graphql.nadel.dsl.ServiceDefinition;
 import graphql.nadel.dsl.StitchingDsl;
 import graphql.nadel.engine.Execution;
+import graphql.nadel.engine.HydrationBatchWindow;
+import graphql.nadel.engine.ParallelListConversion;
+import graphql.nadel.engine.RequestCoalescer;
+import graphql.nadel.engine.ResponseCaching;
+import graphql.nadel.engine.TopLevelFieldCache;
+import graphql.nadel.engine.UnderlyingToOverallMapping;
+import graphql.nadel.engine.transformation.HydrationDescriptors;
 import graphql.nadel.hooks.ServiceExecutionHooks;
 import graphql.nadel.instrumentation.NadelInstrumentation;
 import graphql.nadel.instrumentation.parameters.NadelInstrumentationCreateStateParameters;
@@ -43,9 +52,14 @@ import org.slf4j.LoggerFactory;
 
 import java.io.Reader;
 import java.io.StringReader;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
@@ -61,11 +75,23 @@ public class Nadel {
     private static final Logger logNotSafe = LogKit.getNotPrivacySafeLogger(Nadel.class);
     private static final Logger log = LoggerFactory.getLogger(Nadel.class);
 
+    private static final int DEFAULT_PARALLEL_LIST_CONVERSION_THRESHOLD = 256;
+
     private final StitchingDsl stitchingDsl;
     private final ServiceExecutionFactory serviceExecutionFactory;
     private final NSDLParser NSDLParser = new NSDLParser();
     private final List<Service> services;
     private final GraphQLSchema overallSchema;
+    private final Map<String, UnderlyingToOverallMapping> underlyingToOverallMappings;
+    private final HydrationDescriptors hydrationDescriptors;
+    private final ParallelListConversion parallelListConversion;
+    private final Executor executor;
+    private final HydrationBatchWindow hydrationBatchWindow;
+    private final TopLevelFieldCache topLevelFieldCache;
+    private final QueryCostLimits queryCostLimits;
+    private final ResultSizeLimits resultSizeLimits;
+    private final RequestCoalescer requestCoalescer;
+    private final ResponseCaching responseCaching;
     private final NadelInstrumentation instrumentation;
     private final ServiceExecutionHooks serviceExecutionHooks;
     private final PreparsedDocumentProvider preparsedDocumentProvider;
@@ -86,13 +112,29 @@ public class Nadel {
                   ServiceExecutionHooks serviceExecutionHooks,
                   WiringFactory overallWiringFactory,
                   WiringFactory underlyingWiringFactory,
-                  SchemaTransformationHook schemaTransformationHook) {
+                  SchemaTransformationHook schemaTransformationHook,
+                  ParallelListConversion parallelListConversion,
+                  Executor executor,
+                  HydrationBatchWindow hydrationBatchWindow,
+                  TopLevelFieldCache topLevelFieldCache,
+                  QueryCostLimits queryCostLimits,
+                  ResultSizeLimits resultSizeLimits,
+                  RequestCoalescer requestCoalescer,
+                  ResponseCaching responseCaching) {
         this.serviceExecutionFactory = serviceExecutionFactory;
         this.instrumentation = instrumentation;
         this.serviceExecutionHooks = serviceExecutionHooks;
         this.preparsedDocumentProvider = preparsedDocumentProvider;
         this.executionIdProvider = executionIdProvider;
         this.schemaTransformationHook = schemaTransformationHook;
+        this.parallelListConversion = parallelListConversion;
+        this.executor = executor;
+        this.hydrationBatchWindow = hydrationBatchWindow;
+        this.topLevelFieldCache = topLevelFieldCache;
+        this.queryCostLimits = queryCostLimits;
+        this.resultSizeLimits = resultSizeLimits;
+        this.requestCoalescer = requestCoalescer;
+        this.responseCaching = responseCaching;
 
         this.stitchingDsl = this.NSDLParser.parseDSL(nsdl);
         this.introspectionRunner = introspectionRunner;
@@ -101,6 +143,8 @@ public class Nadel {
         this.services = createServices();
         this.commonTypes = createCommonTypes();
         this.overallSchema = createOverallSchema();
+        this.underlyingToOverallMappings = UnderlyingToOverallMapping.forServices(services, overallSchema);
+        this.hydrationDescriptors = HydrationDescriptors.compile(services, overallSchema);
     }
 
     private DefinitionRegistry createCommonTypes() {
@@ -142,7 +186,14 @@ public class Nadel {
         //
         // make sure that the overall schema has the standard scalars in it since he underlying may use them EVEN if the overall does not
         // make direct use of them, we still have to map between them
-        return newSchema.transform(builder -> ScalarInfo.GRAPHQL_SPECIFICATION_SCALARS.forEach(builder::additionalType));
+        //
+        // @defer is resolved by Nadel itself so it is always available in the overall schema
+        return newSchema.transform(builder -> {
+            ScalarInfo.GRAPHQL_SPECIFICATION_SCALARS.forEach(builder::additionalType);
+            if (newSchema.getDirective(Directives.DeferDirective.getName()) == null) {
+                builder.additionalDirective(Directives.DeferDirective);
+            }
+        });
     }
 
     public List<Service> getServices() {
@@ -153,6 +204,17 @@ public class Nadel {
         return overallSchema;
     }
 
+    /**
+     * @return how well batch hydration calls of different requests have been merged so far, see
+     * {@link Builder#hydrationBatchWindow(Duration, Function)}
+     */
+    public HydrationBatchingStatistics getHydrationBatchingStatistics() {
+        if (hydrationBatchWindow == null) {
+            return new HydrationBatchingStatistics(0, 0, 0);
+        }
+        return hydrationBatchWindow.getStatistics();
+    }
+
     public CompletableFuture<ExecutionResult> execute(NadelExecutionInput.Builder nadelExecutionInput) {
         return execute(nadelExecutionInput.build());
     }
@@ -162,6 +224,13 @@ public class Nadel {
     }
 
     public CompletableFuture<ExecutionResult> execute(NadelExecutionInput nadelExecutionInput) {
+        if (requestCoalescer != null) {
+            return requestCoalescer.execute(nadelExecutionInput, this::executeRequest);
+        }
+        return executeRequest(nadelExecutionInput);
+    }
+
+    private CompletableFuture<ExecutionResult> executeRequest(NadelExecutionInput nadelExecutionInput) {
         long startTime = System.currentTimeMillis();
         ExecutionInput executionInput = ExecutionInput.newExecutionInput()
                 .query(nadelExecutionInput.getQuery())
@@ -183,13 +252,17 @@ public class Nadel {
 
             InstrumentationContext<ExecutionResult> executionInstrumentation = instrumentation.beginQueryExecution(instrumentationParameters);
 
-            CompletableFuture<ExecutionResult> executionResult = parseValidateAndExecute(executionInput, overallSchema, instrumentationState, nadelExecutionParams);
+            ResponseCaching.Request responseCachingRequest = responseCaching != null ? responseCaching.newRequest() : null;
+            CompletableFuture<ExecutionResult> executionResult = parseValidateAndExecute(executionInput, overallSchema, instrumentationState, nadelExecutionParams, responseCachingRequest);
             //
             // finish up instrumentation
             executionResult = executionResult.whenComplete(executionInstrumentation::onCompleted);
             //
             // allow instrumentation to tweak the result
             executionResult = executionResult.thenCompose(result -> instrumentation.instrumentExecutionResult(result, instrumentationParameters));
+            if (responseCachingRequest != null) {
+                executionResult = executionResult.thenApply(responseCachingRequest::cache);
+            }
             return executionResult.whenComplete((executionResult1, throwable) -> {
                 long elapsedTime = System.currentTimeMillis() - startTime;
                 log.debug("Finished execution in {} ms, executionId: {}", elapsedTime, nadelExecutionInput.getExecutionId());
@@ -202,7 +275,8 @@ public class Nadel {
     private CompletableFuture<ExecutionResult> parseValidateAndExecute(ExecutionInput executionInput,
                                                                        GraphQLSchema graphQLSchema,
                                                                        InstrumentationState instrumentationState,
-                                                                       NadelExecutionParams nadelExecutionParams) {
+                                                                       NadelExecutionParams nadelExecutionParams,
+                                                                       ResponseCaching.Request responseCachingRequest) {
         AtomicReference<ExecutionInput> executionInputRef = new AtomicReference<>(executionInput);
         Function<ExecutionInput, PreparsedDocumentEntry> computeFunction = transformedInput -> {
             // if they change the original query in the pre-parser, then we want to see it downstream from then on
@@ -213,7 +287,12 @@ public class Nadel {
         if (preparsedDoc.hasErrors()) {
             return CompletableFuture.completedFuture(new ExecutionResultImpl(preparsedDoc.getErrors()));
         }
-        return executeImpl(executionInputRef.get(), preparsedDoc.getDocument(), instrumentationState, nadelExecutionParams);
+        ExecutionInput validExecutionInput = executionInputRef.get();
+        if (responseCachingRequest != null) {
+            return responseCachingRequest.execute(validExecutionInput, preparsedDoc.getDocument(), cacheHints -> executeImpl(validExecutionInput, preparsedDoc.getDocument(), instrumentationState,
+                    new NadelExecutionParams(nadelExecutionParams.getArtificialFieldsUUID(), cacheHints)));
+        }
+        return executeImpl(validExecutionInput, preparsedDoc.getDocument(), instrumentationState, nadelExecutionParams);
     }
 
     private PreparsedDocumentEntry parseAndValidate(AtomicReference<ExecutionInput> executionInputRef, GraphQLSchema graphQLSchema, InstrumentationState instrumentationState) {
@@ -291,9 +370,17 @@ public class Nadel {
             BenchmarkContext.ExecutionArgs executionArgs = ((BenchmarkContext) executionInput.getContext()).executionArgs;
             executionArgs.services = getServices();
             executionArgs.overallSchema = overallSchema;
+            executionArgs.underlyingToOverallMappings = underlyingToOverallMappings;
+            executionArgs.hydrationDescriptors = hydrationDescriptors;
             executionArgs.instrumentation = instrumentation;
             executionArgs.introspectionRunner = introspectionRunner;
             executionArgs.serviceExecutionHooks = serviceExecutionHooks;
+            executionArgs.parallelListConversion = parallelListConversion;
+            executionArgs.executor = executor;
+            executionArgs.hydrationBatchWindow = hydrationBatchWindow;
+            executionArgs.topLevelFieldCache = topLevelFieldCache;
+            executionArgs.queryCostLimits = queryCostLimits;
+            executionArgs.resultSizeLimits = resultSizeLimits;
             executionArgs.context = executionInput.getContext();
             executionArgs.executionInput = executionInput;
             executionArgs.document = document;
@@ -302,7 +389,7 @@ public class Nadel {
             executionArgs.nadelExecutionParams = nadelExecutionParams;
         }
 
-        Execution execution = new Execution(getServices(), overallSchema, instrumentation, introspectionRunner, serviceExecutionHooks, executionInput.getContext());
+        Execution execution = new Execution(getServices(), overallSchema, underlyingToOverallMappings, hydrationDescriptors, instrumentation, introspectionRunner, serviceExecutionHooks, parallelListConversion, executor, hydrationBatchWindow, topLevelFieldCache, queryCostLimits, resultSizeLimits, executionInput.getContext());
 
         return execution.execute(executionInput, document, executionId, instrumentationState, nadelExecutionParams);
     }
@@ -319,14 +406,25 @@ public class Nadel {
         private ServiceExecutionFactory serviceExecutionFactory;
         private NadelInstrumentation instrumentation = new NadelInstrumentation() {
         };
-        private ServiceExecutionHooks serviceExecutionHooks = new ServiceExecutionHooks() {
+        private final ServiceExecutionHooks defaultServiceExecutionHooks = new ServiceExecutionHooks() {
         };
+        private ServiceExecutionHooks serviceExecutionHooks = defaultServiceExecutionHooks;
         private PreparsedDocumentProvider preparsedDocumentProvider = NoOpPreparsedDocumentProvider.INSTANCE;
         private ExecutionIdProvider executionIdProvider = ExecutionIdProvider.DEFAULT_EXECUTION_ID_PROVIDER;
         private IntrospectionRunner introspectionRunner = new DefaultIntrospectionRunner();
         private WiringFactory overallWiringFactory = new NeverWiringFactory();
         private WiringFactory underlyingWiringFactory = new NeverWiringFactory();
         private SchemaTransformationHook schemaTransformationHook = SchemaTransformationHook.IDENTITY;
+        private ForkJoinPool listConversionPool;
+        private int parallelListConversionThreshold = DEFAULT_PARALLEL_LIST_CONVERSION_THRESHOLD;
+        private Executor executor;
+        private HydrationBatchWindow hydrationBatchWindow;
+        private TopLevelFieldCache topLevelFieldCache;
+        private QueryCostLimits queryCostLimits;
+        private ResultSizeLimits resultSizeLimits;
+        private RequestCoalescer requestCoalescer;
+        private ResponseCache responseCache;
+        private Function<Object, Object> privatePartitionOfContext;
 
 
         public Builder dsl(Reader nsdl) {
@@ -383,6 +481,157 @@ public class Nadel {
             return this;
         }
 
+        /**
+         * Lists in service results with at least {@link #parallelListConversionThreshold(int)} elements are converted
+         * into result nodes on this pool, split into chunks that are converted in parallel. Without a pool all lists
+         * are converted on the thread that completed the service call. Without an {@link #executor(Executor)} the
+         * results of the service calls are converted on this pool as well, so the thread that completed a service
+         * call never waits for the conversion of a list.
+         *
+         * @param listConversionPool the pool to convert large lists on
+         *
+         * @return this builder
+         */
+        public Builder listConversionPool(ForkJoinPool listConversionPool) {
+            this.listConversionPool = requireNonNull(listConversionPool);
+            return this;
+        }
+
+        /**
+         * @param parallelListConversionThreshold the minimum size of a list to be converted on the {@link #listConversionPool(ForkJoinPool)}
+         *
+         * @return this builder
+         */
+        public Builder parallelListConversionThreshold(int parallelListConversionThreshold) {
+            this.parallelListConversionThreshold = parallelListConversionThreshold;
+            return this;
+        }
+
+        /**
+         * The CPU bound stages of a service call, creating the query for the service and converting its result, run on
+         * this executor instead of the thread that completed the previous stage, which is often an I/O thread of the
+         * service call. How long the stages wait for the executor is reported to
+         * {@link NadelInstrumentation#beginPipelineStage(graphql.nadel.instrumentation.parameters.NadelInstrumentationPipelineStageParameters)}.
+         *
+         * @param executor the executor for the CPU bound stages
+         *
+         * @return this builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = requireNonNull(executor);
+            return this;
+        }
+
+        /**
+         * Batch hydration calls of different requests to the same service that are made within this window of each
+         * other are merged into one call, up to the batch size of the hydration. Calls are only merged if the contexts
+         * of their requests are in the same partition, for example the partition of a user, and if their queries,
+         * variables and service contexts are the same. The merged call is made with the context of one of the requests,
+         * so the partition has to include everything from the context that the service calls depend on. This adds up
+         * to the window to the latency of each batch hydration, in exchange for fewer calls to busy services, see
+         * {@link Nadel#getHydrationBatchingStatistics()}.
+         *
+         * @param window             how long batch hydration calls wait for calls of other requests
+         * @param partitionOfContext the partition of the context of a request or null if its calls must not be merged
+         *
+         * @return this builder
+         */
+        public Builder hydrationBatchWindow(Duration window, Function<Object, Object> partitionOfContext) {
+            this.hydrationBatchWindow = new HydrationBatchWindow(requireNonNull(window), requireNonNull(partitionOfContext));
+            return this;
+        }
+
+        /**
+         * Like {@link #hydrationBatchWindow(Duration, Function)} but the windows are sent by the given scheduler
+         *
+         * @param window             how long batch hydration calls wait for calls of other requests
+         * @param partitionOfContext the partition of the context of a request or null if its calls must not be merged
+         * @param scheduler          sends the windows once they are over
+         *
+         * @return this builder
+         */
+        public Builder hydrationBatchWindow(Duration window, Function<Object, Object> partitionOfContext, ScheduledExecutorService scheduler) {
+            this.hydrationBatchWindow = new HydrationBatchWindow(requireNonNull(window), requireNonNull(partitionOfContext), requireNonNull(scheduler));
+            return this;
+        }
+
+        /**
+         * Requests that arrive while an identical request is executing share the execution and the result of that
+         * request instead of being executed again. Which requests are identical is decided by the given key, which
+         * must keep apart the requests that are not allowed to see each other's results.
+         *
+         * @param coalescingKey the key of the requests, for example {@link RequestCoalescingKey#byQueryAndPartition(java.util.function.Function)}
+         *
+         * @return this builder
+         */
+        public Builder requestCoalescing(RequestCoalescingKey coalescingKey) {
+            this.requestCoalescer = new RequestCoalescer(requireNonNull(coalescingKey));
+            return this;
+        }
+
+        /**
+         * The results of queries are put into the cache for as long as the {@link graphql.cachecontrol.CacheControl}
+         * hints of all their underlying service calls allow, and identical queries are served from the cache without
+         * calling the services again. Results with a private hint are only served to requests whose context is in the
+         * same partition, for example the partition of a user. Results with errors are not cached. If
+         * {@link #serviceExecutionHooks(ServiceExecutionHooks)} are given, results are only cached per partition of
+         * {@link ServiceExecutionHooks#getResponseCachePartition(graphql.nadel.hooks.ResponseCacheParams)}, as the hooks
+         * can shape the result per user.
+         *
+         * @param responseCache             the cache, for example an {@link graphql.nadel.cache.InMemoryResponseCache}
+         * @param privatePartitionOfContext the partition of the context of a request or null if private results of the request must not be cached
+         *
+         * @return this builder
+         */
+        public Builder responseCache(ResponseCache responseCache, Function<Object, Object> privatePartitionOfContext) {
+            this.responseCache = requireNonNull(responseCache);
+            this.privatePartitionOfContext = requireNonNull(privatePartitionOfContext);
+            return this;
+        }
+
+        /**
+         * The results of top level fields are cached if
+         * {@link ServiceExecutionHooks#getTopLevelFieldCachePartition(graphql.nadel.hooks.TopLevelFieldCacheParams)}
+         * returns a partition for them. Requests for the same field with the same arguments in the same partition get
+         * the cached result without calling the service.
+         *
+         * @param maxEntries the maximum number of field results in the cache
+         * @param maxAge     how long a field result is served from the cache
+         *
+         * @return this builder
+         */
+        public Builder topLevelFieldCache(int maxEntries, Duration maxAge) {
+            this.topLevelFieldCache = new TopLevelFieldCache(maxEntries, requireNonNull(maxAge));
+            return this;
+        }
+
+        /**
+         * The cost of every query is estimated before any service is called, see {@link QueryCost}, and queries over
+         * the limits are rejected or executed without their hydrations. The estimate is given to
+         * {@link NadelInstrumentation#instrumentQueryCost(QueryCost, graphql.nadel.instrumentation.parameters.NadelInstrumentationQueryCostParameters)}.
+         *
+         * @param queryCostLimits the limits
+         *
+         * @return this builder
+         */
+        public Builder queryCostLimits(QueryCostLimits queryCostLimits) {
+            this.queryCostLimits = requireNonNull(queryCostLimits);
+            return this;
+        }
+
+        /**
+         * The size of the result of every request is counted while it is created. Once it is over the limits the
+         * remaining fields are null, no more hydrations are resolved and the partial result has an error.
+         *
+         * @param resultSizeLimits the limits
+         *
+         * @return this builder
+         */
+        public Builder resultSizeLimits(ResultSizeLimits resultSizeLimits) {
+            this.resultSizeLimits = requireNonNull(resultSizeLimits);
+            return this;
+        }
+
         public Nadel build() {
             return new Nadel(
                     nsdl,
@@ -394,7 +643,19 @@ public class Nadel {
                     serviceExecutionHooks,
                     overallWiringFactory,
                     underlyingWiringFactory,
-                    schemaTransformationHook);
+                    schemaTransformationHook,
+                    listConversionPool != null
+                            ? new ParallelListConversion(listConversionPool, parallelListConversionThreshold)
+                            : ParallelListConversion.SEQUENTIAL,
+                    executor,
+                    hydrationBatchWindow,
+                    topLevelFieldCache,
+                    queryCostLimits,
+                    resultSizeLimits,
+                    requestCoalescer,
+                    responseCache != null
+                            ? new ResponseCaching(responseCache, privatePartitionOfContext, serviceExecutionHooks != defaultServiceExecutionHooks ? serviceExecutionHooks : null)
+                            : null);
         }
     }
 }
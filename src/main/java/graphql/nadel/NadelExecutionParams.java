@@ -1,18 +1,32 @@
 package graphql.nadel;
 
 import graphql.Internal;
+import graphql.nadel.engine.CacheHints;
 
 
 @Internal
 public class NadelExecutionParams {
 
     private final String artificialFieldsUUID;
+    private final CacheHints cacheHints;
 
     public NadelExecutionParams(String artificialFieldsUUID) {
+        this(artificialFieldsUUID, null);
+    }
+
+    public NadelExecutionParams(String artificialFieldsUUID, CacheHints cacheHints) {
         this.artificialFieldsUUID = artificialFieldsUUID;
+        this.cacheHints = cacheHints;
     }
 
     public String getArtificialFieldsUUID() {
         return artificialFieldsUUID;
     }
+
+    /**
+     * @return where the cache hints of the service calls are recorded or null if they are not needed
+     */
+    public CacheHints getCacheHints() {
+        return cacheHints;
+    }
 }
@@ -0,0 +1,66 @@
+package graphql.nadel;
+
+import graphql.PublicApi;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The cost of a query estimated from the overall schema before any service is called: how many calls the services
+ * get and how many fields the result has. List fields are assumed to have {@link QueryCostLimits#getAssumedListSize()}
+ * elements unless a {@code @cost(listSize: Int)} directive on the field says otherwise.
+ */
+@PublicApi
+public class QueryCost {
+
+    private final long downstreamCalls;
+    private final long hydrationCalls;
+    private final long nodes;
+
+    public QueryCost(long downstreamCalls, long hydrationCalls, long nodes) {
+        this.downstreamCalls = downstreamCalls;
+        this.hydrationCalls = hydrationCalls;
+        this.nodes = nodes;
+    }
+
+    /**
+     * @return the estimated number of calls to the services, including the hydration calls
+     */
+    public long getDownstreamCalls() {
+        return downstreamCalls;
+    }
+
+    /**
+     * @return the estimated number of calls to the services made to resolve hydrated fields
+     */
+    public long getHydrationCalls() {
+        return hydrationCalls;
+    }
+
+    /**
+     * @return the estimated number of fields in the result, weighted by the {@code @cost(weight: Int)} directives
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the estimate in the form it is added to errors
+     */
+    public Map<String, Object> toSpecification() {
+        Map<String, Object> specification = new LinkedHashMap<>();
+        specification.put("downstreamCalls", downstreamCalls);
+        specification.put("hydrationCalls", hydrationCalls);
+        specification.put("nodes", nodes);
+        return specification;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCost{" +
+                "downstreamCalls=" + downstreamCalls +
+                ", hydrationCalls=" + hydrationCalls +
+                ", nodes=" + nodes +
+                '}';
+    }
+}
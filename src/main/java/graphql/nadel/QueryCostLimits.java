@@ -0,0 +1,112 @@
+package graphql.nadel;
+
+import graphql.PublicApi;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.Assert.assertTrue;
+
+/**
+ * The budgets the estimated {@link QueryCost} of a query has to stay within, see
+ * {@link Nadel.Builder#queryCostLimits(QueryCostLimits)}. The estimate is checked before any service is called.
+ */
+@PublicApi
+public class QueryCostLimits {
+
+    public static final int DEFAULT_ASSUMED_LIST_SIZE = 10;
+
+    /**
+     * What happens to a query whose estimated cost is over a budget
+     */
+    public enum Action {
+        /**
+         * the query is not executed and the result has an error with the estimate
+         */
+        REJECT,
+        /**
+         * the query is executed without its hydrated fields, which are null with an error. This only helps if the
+         * estimate without the hydration calls is within the budgets, otherwise the query is rejected.
+         */
+        SKIP_HYDRATIONS
+    }
+
+    private final long maxDownstreamCalls;
+    private final long maxNodes;
+    private final int assumedListSize;
+    private final Action action;
+
+    private QueryCostLimits(long maxDownstreamCalls, long maxNodes, int assumedListSize, Action action) {
+        this.maxDownstreamCalls = maxDownstreamCalls;
+        this.maxNodes = maxNodes;
+        this.assumedListSize = assumedListSize;
+        this.action = action;
+    }
+
+    public long getMaxDownstreamCalls() {
+        return maxDownstreamCalls;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * @return the number of elements assumed for list fields without a {@code @cost(listSize: Int)} directive
+     */
+    public int getAssumedListSize() {
+        return assumedListSize;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    /**
+     * @param queryCost an estimate
+     *
+     * @return true if the estimate is over one of the budgets
+     */
+    public boolean isExceededBy(QueryCost queryCost) {
+        return queryCost.getDownstreamCalls() > maxDownstreamCalls || queryCost.getNodes() > maxNodes;
+    }
+
+    public static Builder newQueryCostLimits() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private long maxDownstreamCalls = Long.MAX_VALUE;
+        private long maxNodes = Long.MAX_VALUE;
+        private int assumedListSize = DEFAULT_ASSUMED_LIST_SIZE;
+        private Action action = Action.REJECT;
+
+        private Builder() {
+        }
+
+        public Builder maxDownstreamCalls(long maxDownstreamCalls) {
+            assertTrue(maxDownstreamCalls > 0, () -> "a query makes at least one downstream call");
+            this.maxDownstreamCalls = maxDownstreamCalls;
+            return this;
+        }
+
+        public Builder maxNodes(long maxNodes) {
+            assertTrue(maxNodes > 0, () -> "a query has at least one node");
+            this.maxNodes = maxNodes;
+            return this;
+        }
+
+        public Builder assumedListSize(int assumedListSize) {
+            assertTrue(assumedListSize >= 0, () -> "the assumed list size can't be negative");
+            this.assumedListSize = assumedListSize;
+            return this;
+        }
+
+        public Builder action(Action action) {
+            this.action = assertNotNull(action);
+            return this;
+        }
+
+        public QueryCostLimits build() {
+            return new QueryCostLimits(maxDownstreamCalls, maxNodes, assumedListSize, action);
+        }
+    }
+}
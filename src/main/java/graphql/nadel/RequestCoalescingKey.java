@@ -0,0 +1,50 @@
+package graphql.nadel;
+
+import graphql.PublicSpi;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Decides which requests are identical, so that a request that arrives while an identical one is executing shares
+ * the execution and the result of that request instead of being executed again, see
+ * {@link Nadel.Builder#requestCoalescing(RequestCoalescingKey)}.
+ * <p>
+ * Requests must only have the same key if they are allowed to see the same result, so the key has to include
+ * everything from the context that the result depends on, like the user.
+ */
+@PublicSpi
+@FunctionalInterface
+public interface RequestCoalescingKey {
+
+    /**
+     * Requests are identical if they have the same query, operation name, variables and context, where the
+     * contexts are compared with {@link Object#equals(Object)}
+     */
+    RequestCoalescingKey DEFAULT = byQueryAndPartition(Function.identity());
+
+    /**
+     * @param executionInput the request
+     *
+     * @return the key of the request or null if the request must not share an execution with other requests
+     */
+    Object getKey(NadelExecutionInput executionInput);
+
+    /**
+     * Requests are identical if they have the same query, operation name and variables and their contexts are in the
+     * same partition, for example the partition of a user or a partition for anonymous users.
+     *
+     * @param partitionOfContext the partition of the context of a request or null if the request must not share an execution
+     *
+     * @return a key made of the query, operation name, variables and partition of a request
+     */
+    static RequestCoalescingKey byQueryAndPartition(Function<Object, Object> partitionOfContext) {
+        return executionInput -> {
+            Object partition = partitionOfContext.apply(executionInput.getContext());
+            if (partition == null) {
+                return null;
+            }
+            return Arrays.asList(executionInput.getQuery(), executionInput.getOperationName(), executionInput.getVariables(), partition);
+        };
+    }
+}
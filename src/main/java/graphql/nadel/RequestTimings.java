@@ -0,0 +1,114 @@
+package graphql.nadel;
+
+import graphql.PublicApi;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Where the time of a request went, per service: waiting for the services, waiting for a thread of the executor
+ * given to {@link Nadel.Builder#executor(java.util.concurrent.Executor)} and converting the results of the services.
+ * All of it is measured with {@link System#nanoTime()}.
+ * <p>
+ * The timings are recorded from the threads that complete the service calls, which can run at the same time. They
+ * are complete once the result nodes are, see
+ * {@link graphql.nadel.instrumentation.parameters.NadelInstrumentRootExecutionResultParameters#getRequestTimings()}.
+ */
+@PublicApi
+public class RequestTimings {
+
+    public enum Timing {
+        /**
+         * from the call of a service until its result is there
+         */
+        SERVICE_CALL,
+        /**
+         * the stages of the service calls waiting for a thread of the executor
+         */
+        QUEUED,
+        /**
+         * the results of the service calls being converted into the result nodes of the overall result
+         */
+        RESULT_CONVERSION
+    }
+
+    private final Map<String, Map<Timing, LongAdder>> nanosByService = new ConcurrentHashMap<>();
+
+    /**
+     * Records the nanoseconds a service spent on a timing
+     *
+     * @param serviceName the name of the service
+     * @param timing      what the time was spent on
+     * @param nanos       the nanoseconds spent
+     */
+    public void record(String serviceName, Timing timing, long nanos) {
+        nanosByService.computeIfAbsent(serviceName, key -> {
+            Map<Timing, LongAdder> timings = new EnumMap<>(Timing.class);
+            for (Timing value : Timing.values()) {
+                timings.put(value, new LongAdder());
+            }
+            return timings;
+        }).get(timing).add(nanos);
+    }
+
+    /**
+     * Runs the given code on the current thread and records the time it took
+     *
+     * @param serviceName the name of the service
+     * @param timing      what the time is spent on
+     * @param code        the code to run
+     * @param <T>         the type of the result of the code
+     *
+     * @return the result of the code
+     */
+    public <T> T time(String serviceName, Timing timing, Supplier<T> code) {
+        long startNanos = System.nanoTime();
+        try {
+            return code.get();
+        } finally {
+            record(serviceName, timing, System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * @return the nanoseconds a service spent on a timing or 0 if none were recorded
+     */
+    public long getNanos(String serviceName, Timing timing) {
+        Map<Timing, LongAdder> nanos = nanosByService.get(serviceName);
+        return nanos != null ? nanos.get(timing).sum() : 0;
+    }
+
+    /**
+     * @return the nanoseconds all services spent on a timing
+     */
+    public long getTotalNanos(Timing timing) {
+        long total = 0;
+        for (Map<Timing, LongAdder> nanos : nanosByService.values()) {
+            total += nanos.get(timing).sum();
+        }
+        return total;
+    }
+
+    /**
+     * @return the nanoseconds of each timing by service, sorted by the names of the services
+     */
+    public Map<String, Map<String, Long>> toSpecification() {
+        Map<String, Map<String, Long>> specification = new TreeMap<>();
+        nanosByService.forEach((serviceName, nanos) -> {
+            Map<String, Long> serviceNanos = new LinkedHashMap<>();
+            nanos.forEach((timing, sum) -> serviceNanos.put(timing.name(), sum.sum()));
+            specification.put(serviceName, serviceNanos);
+        });
+        return specification;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestTimings{" + toSpecification() + '}';
+    }
+}
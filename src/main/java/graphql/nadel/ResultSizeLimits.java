@@ -0,0 +1,61 @@
+package graphql.nadel;
+
+import graphql.PublicApi;
+
+import static graphql.Assert.assertTrue;
+
+/**
+ * The maximum size of the result of a request, see {@link Nadel.Builder#resultSizeLimits(ResultSizeLimits)}. The
+ * size is counted while the service results are converted: once it is over a limit the remaining fields are null,
+ * the hydrations that are not resolved yet are not resolved anymore and the result has an error.
+ * <p>
+ * The bytes are an estimate of the size of the result as JSON: the names of the fields and the values of the leaf
+ * fields.
+ */
+@PublicApi
+public class ResultSizeLimits {
+
+    private final long maxNodes;
+    private final long maxBytes;
+
+    private ResultSizeLimits(long maxNodes, long maxBytes) {
+        this.maxNodes = maxNodes;
+        this.maxBytes = maxBytes;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public static Builder newResultSizeLimits() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private long maxNodes = Long.MAX_VALUE;
+        private long maxBytes = Long.MAX_VALUE;
+
+        private Builder() {
+        }
+
+        public Builder maxNodes(long maxNodes) {
+            assertTrue(maxNodes > 0, () -> "a result has at least one node");
+            this.maxNodes = maxNodes;
+            return this;
+        }
+
+        public Builder maxBytes(long maxBytes) {
+            assertTrue(maxBytes > 0, () -> "a result has at least one byte");
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        public ResultSizeLimits build() {
+            return new ResultSizeLimits(maxNodes, maxBytes);
+        }
+    }
+}
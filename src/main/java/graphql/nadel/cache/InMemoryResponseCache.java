@@ -0,0 +1,80 @@
+package graphql.nadel.cache;
+
+import graphql.ExecutionResult;
+import graphql.PublicApi;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static graphql.Assert.assertTrue;
+
+/**
+ * A {@link ResponseCache} that keeps at most a given number of results in memory and drops the least recently used
+ * results first.
+ */
+@PublicApi
+public class InMemoryResponseCache implements ResponseCache {
+
+    private final int maxEntries;
+    private final LongSupplier nanoTime;
+    private final Map<ResponseCacheKey, Entry> entries;
+
+    private static class Entry {
+        final ExecutionResult result;
+        final long expiresAt;
+
+        Entry(ExecutionResult result, long expiresAt) {
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * @param maxEntries the maximum number of results in the cache
+     */
+    public InMemoryResponseCache(int maxEntries) {
+        this(maxEntries, System::nanoTime);
+    }
+
+    InMemoryResponseCache(int maxEntries, LongSupplier nanoTime) {
+        assertTrue(maxEntries > 0, () -> "the cache needs room for at least one result");
+        this.maxEntries = maxEntries;
+        this.nanoTime = nanoTime;
+        this.entries = new LinkedHashMap<ResponseCacheKey, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ResponseCacheKey, Entry> eldest) {
+                return size() > InMemoryResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized ExecutionResult get(ResponseCacheKey key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (nanoTime.getAsLong() - entry.expiresAt >= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.result;
+    }
+
+    @Override
+    public synchronized void put(ResponseCacheKey key, ExecutionResult result, int maxAgeSeconds) {
+        if (maxAgeSeconds <= 0) {
+            return;
+        }
+        entries.put(key, new Entry(result, nanoTime.getAsLong() + TimeUnit.SECONDS.toNanos(maxAgeSeconds)));
+    }
+
+    /**
+     * @return the number of results in the cache, including the ones older than their max age that haven't been dropped yet
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+}
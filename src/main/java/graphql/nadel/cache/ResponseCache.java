@@ -0,0 +1,29 @@
+package graphql.nadel.cache;
+
+import graphql.ExecutionResult;
+import graphql.PublicSpi;
+
+/**
+ * Stores the results of requests for as long as the underlying services allow them to be cached, see
+ * {@link graphql.nadel.Nadel.Builder#responseCache(ResponseCache, java.util.function.Function)}.
+ * <p>
+ * Nadel only puts results into the cache if all the underlying service calls of the request have recorded a max age
+ * with {@link graphql.cachecontrol.CacheControl} hints. The result can be cached for the shortest of these max ages.
+ */
+@PublicSpi
+public interface ResponseCache {
+
+    /**
+     * @param key the key of the request
+     *
+     * @return the cached result or null if there is none, or it is older than its max age
+     */
+    ExecutionResult get(ResponseCacheKey key);
+
+    /**
+     * @param key           the key of the request
+     * @param result        the result of the request
+     * @param maxAgeSeconds how long the result can be served from the cache
+     */
+    void put(ResponseCacheKey key, ExecutionResult result, int maxAgeSeconds);
+}
@@ -0,0 +1,76 @@
+package graphql.nadel.cache;
+
+import graphql.PublicApi;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Identifies the requests that get the same result from a {@link ResponseCache}: requests with the same query,
+ * operation name and variables, and for results that are private to a user, the same partition of their context. If
+ * the {@link graphql.nadel.hooks.ServiceExecutionHooks} can shape the results per user, the requests need the same
+ * partition of the hooks as well.
+ */
+@PublicApi
+public class ResponseCacheKey {
+
+    private final String query;
+    private final String operationName;
+    private final Map<String, Object> variables;
+    private final Object partition;
+
+    public ResponseCacheKey(String query, String operationName, Map<String, Object> variables, Object partition) {
+        this.query = query;
+        this.operationName = operationName;
+        this.variables = variables;
+        this.partition = partition;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public String getOperationName() {
+        return operationName;
+    }
+
+    public Map<String, Object> getVariables() {
+        return variables;
+    }
+
+    /**
+     * @return the partition of the context for private results, the partition of the {@link graphql.nadel.hooks.ServiceExecutionHooks}
+     * or both, or null for results that all users can see
+     */
+    public Object getPartition() {
+        return partition;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ResponseCacheKey that = (ResponseCacheKey) o;
+        return Objects.equals(query, that.query) &&
+                Objects.equals(operationName, that.operationName) &&
+                Objects.equals(variables, that.variables) &&
+                Objects.equals(partition, that.partition);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(query, operationName, variables, partition);
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseCacheKey{" +
+                "operationName='" + operationName + '\'' +
+                ", partition=" + partition +
+                '}';
+    }
+}
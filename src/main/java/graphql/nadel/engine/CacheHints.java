@@ -0,0 +1,81 @@
+package graphql.nadel.engine;
+
+import graphql.ExecutionResultImpl;
+import graphql.Internal;
+import graphql.cachecontrol.CacheControl;
+import graphql.execution.ExecutionPath;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The cache hints the underlying service calls of a request have recorded, added up to the max age and scope of the
+ * whole result: the result can be cached for the shortest max age of the calls, and only for one user if any hint has
+ * the private scope. A result can't be cached if any call has not recorded a max age. The hints don't know about the
+ * errors of the result, results with errors are never cached by {@link ResponseCaching}.
+ */
+@Internal
+public class CacheHints {
+
+    private int serviceCalls;
+    private boolean uncacheable;
+    private int maxAge = Integer.MAX_VALUE;
+    private boolean privateScope;
+
+    /**
+     * @param serviceCallCacheControl the cache control of one service call
+     * @param requestCacheControl     the cache control of the request, which gets the hints of the call as well
+     */
+    public synchronized void recordServiceCall(CacheControl serviceCallCacheControl, CacheControl requestCacheControl) {
+        serviceCalls++;
+        boolean hasMaxAge = false;
+        for (Map<String, Object> hint : getHints(serviceCallCacheControl)) {
+            Object hintMaxAge = hint.get("maxAge");
+            CacheControl.Scope scope = "PRIVATE".equals(String.valueOf(hint.get("scope"))) ? CacheControl.Scope.PRIVATE : CacheControl.Scope.PUBLIC;
+            if (hintMaxAge instanceof Number) {
+                hasMaxAge = true;
+                maxAge = Math.min(maxAge, ((Number) hintMaxAge).intValue());
+            }
+            privateScope |= scope == CacheControl.Scope.PRIVATE;
+            if (requestCacheControl != null) {
+                requestCacheControl.hint(ExecutionPath.fromList((List<?>) hint.get("path")), hintMaxAge instanceof Number ? ((Number) hintMaxAge).intValue() : null, scope);
+            }
+        }
+        uncacheable |= !hasMaxAge;
+    }
+
+    /**
+     * A failed service call makes the result uncacheable
+     */
+    public synchronized void recordFailedServiceCall() {
+        serviceCalls++;
+        uncacheable = true;
+    }
+
+    /**
+     * @return the max age in seconds the result can be cached for, 0 if it can't be cached
+     */
+    public synchronized int getMaxAge() {
+        return uncacheable || serviceCalls == 0 ? 0 : Math.max(maxAge, 0);
+    }
+
+    /**
+     * @return true if the result can only be cached for the user of the request
+     */
+    public synchronized boolean isPrivate() {
+        return privateScope;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> getHints(CacheControl cacheControl) {
+        // the hints are only readable in the form they are sent to clients
+        Map<String, Object> extensions = (Map<String, Object>) cacheControl.addTo(ExecutionResultImpl.newExecutionResult().build())
+                .getExtensions().get(CacheControl.CACHE_CONTROL_EXTENSION_KEY);
+        if (extensions == null) {
+            return Collections.emptyList();
+        }
+        List<Map<String, Object>> hints = (List<Map<String, Object>>) extensions.get("hints");
+        return hints != null ? hints : Collections.emptyList();
+    }
+}
@@ -1,12 +1,16 @@
 package graphql.nadel.engine;
 
+import graphql.ErrorType;
 import graphql.ExecutionInput;
 import graphql.ExecutionResult;
 import graphql.ExecutionResultImpl;
+import graphql.GraphQL;
 import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
 import graphql.Internal;
 import graphql.execution.ExecutionContext;
 import graphql.execution.ExecutionId;
+import graphql.execution.defer.DeferSupport;
 import graphql.execution.instrumentation.InstrumentationContext;
 import graphql.execution.instrumentation.InstrumentationState;
 import graphql.execution.nextgen.ExecutionHelper;
@@ -18,26 +22,35 @@ import graphql.nadel.BenchmarkContext;
 import graphql.nadel.FieldInfo;
 import graphql.nadel.FieldInfos;
 import graphql.nadel.NadelExecutionParams;
+import graphql.nadel.QueryCost;
+import graphql.nadel.QueryCostLimits;
+import graphql.nadel.ResultSizeLimits;
 import graphql.nadel.Service;
 import graphql.nadel.hooks.ServiceExecutionHooks;
 import graphql.nadel.instrumentation.NadelInstrumentation;
 import graphql.nadel.instrumentation.parameters.NadelInstrumentRootExecutionResultParameters;
 import graphql.nadel.instrumentation.parameters.NadelInstrumentationExecuteOperationParameters;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationNormalizationParameters;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationQueryCostParameters;
 import graphql.nadel.introspection.IntrospectionRunner;
+import graphql.nadel.engine.transformation.HydrationDescriptors;
 import graphql.nadel.normalized.NormalizedQueryFactory;
 import graphql.nadel.normalized.NormalizedQueryFromAst;
 import graphql.nadel.result.ResultComplexityAggregator;
-import graphql.nadel.result.ResultNodesUtil;
+import graphql.nadel.result.ResultNodesExecutionResult;
 import graphql.nadel.result.RootExecutionResultNode;
 import graphql.schema.GraphQLFieldDefinition;
 import graphql.schema.GraphQLObjectType;
 import graphql.schema.GraphQLSchema;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+import static java.util.Collections.singletonMap;
 import static java.util.concurrent.CompletableFuture.completedFuture;
 
 @Internal
@@ -49,6 +62,13 @@ public class Execution {
     private final IntrospectionRunner introspectionRunner;
     private final ExecutionHelper executionHelper = new ExecutionHelper();
     private final NadelExecutionStrategy nadelExecutionStrategy;
+    private final ParallelListConversion parallelListConversion;
+    private final Executor executor;
+    private final HydrationBatchWindow hydrationBatchWindow;
+    private final TopLevelFieldCache topLevelFieldCache;
+    private final HydrationDescriptors hydrationDescriptors;
+    private final QueryCostLimits queryCostLimits;
+    private final ResultSizeLimits resultSizeLimits;
 
     private NormalizedQueryFactory normalizedQueryFactory = new NormalizedQueryFactory();
 
@@ -58,21 +78,74 @@ public class Execution {
                      IntrospectionRunner introspectionRunner,
                      ServiceExecutionHooks serviceExecutionHooks,
                      Object userSuppliedContext) {
+        this(services, overallSchema, UnderlyingToOverallMapping.forServices(services, overallSchema), HydrationDescriptors.compile(services, overallSchema),
+                instrumentation, introspectionRunner, serviceExecutionHooks, userSuppliedContext);
+    }
+
+    public Execution(List<Service> services,
+                     GraphQLSchema overallSchema,
+                     Map<String, UnderlyingToOverallMapping> underlyingToOverallMappings,
+                     HydrationDescriptors hydrationDescriptors,
+                     NadelInstrumentation instrumentation,
+                     IntrospectionRunner introspectionRunner,
+                     ServiceExecutionHooks serviceExecutionHooks,
+                     Object userSuppliedContext) {
+        this(services, overallSchema, underlyingToOverallMappings, hydrationDescriptors, instrumentation, introspectionRunner, serviceExecutionHooks,
+                ParallelListConversion.SEQUENTIAL, null, userSuppliedContext);
+    }
+
+    public Execution(List<Service> services,
+                     GraphQLSchema overallSchema,
+                     Map<String, UnderlyingToOverallMapping> underlyingToOverallMappings,
+                     HydrationDescriptors hydrationDescriptors,
+                     NadelInstrumentation instrumentation,
+                     IntrospectionRunner introspectionRunner,
+                     ServiceExecutionHooks serviceExecutionHooks,
+                     ParallelListConversion parallelListConversion,
+                     Executor executor,
+                     Object userSuppliedContext) {
+        this(services, overallSchema, underlyingToOverallMappings, hydrationDescriptors, instrumentation, introspectionRunner, serviceExecutionHooks,
+                parallelListConversion, executor, null, null, null, null, userSuppliedContext);
+    }
+
+    public Execution(List<Service> services,
+                     GraphQLSchema overallSchema,
+                     Map<String, UnderlyingToOverallMapping> underlyingToOverallMappings,
+                     HydrationDescriptors hydrationDescriptors,
+                     NadelInstrumentation instrumentation,
+                     IntrospectionRunner introspectionRunner,
+                     ServiceExecutionHooks serviceExecutionHooks,
+                     ParallelListConversion parallelListConversion,
+                     Executor executor,
+                     HydrationBatchWindow hydrationBatchWindow,
+                     TopLevelFieldCache topLevelFieldCache,
+                     QueryCostLimits queryCostLimits,
+                     ResultSizeLimits resultSizeLimits,
+                     Object userSuppliedContext) {
         this.services = services;
         this.overallSchema = overallSchema;
         this.instrumentation = instrumentation;
         this.introspectionRunner = introspectionRunner;
+        this.parallelListConversion = parallelListConversion;
+        this.executor = executor;
+        this.hydrationBatchWindow = hydrationBatchWindow;
+        this.topLevelFieldCache = topLevelFieldCache;
+        this.hydrationDescriptors = hydrationDescriptors;
+        this.queryCostLimits = queryCostLimits;
+        this.resultSizeLimits = resultSizeLimits;
         FieldInfos fieldsInfos = createFieldsInfos();
         if (userSuppliedContext instanceof BenchmarkContext) {
             BenchmarkContext.NadelExecutionStrategyArgs args = ((BenchmarkContext) userSuppliedContext).nadelExecutionStrategyArgs;
             args.services = services;
             args.fieldInfos = fieldsInfos;
             args.overallSchema = overallSchema;
+            args.underlyingToOverallMappings = underlyingToOverallMappings;
+            args.hydrationDescriptors = hydrationDescriptors;
             args.instrumentation = instrumentation;
             args.serviceExecutionHooks = serviceExecutionHooks;
         }
 
-        this.nadelExecutionStrategy = new NadelExecutionStrategy(services, fieldsInfos, overallSchema, instrumentation, serviceExecutionHooks);
+        this.nadelExecutionStrategy = new NadelExecutionStrategy(services, fieldsInfos, overallSchema, instrumentation, serviceExecutionHooks, underlyingToOverallMappings, hydrationDescriptors);
     }
 
     public CompletableFuture<ExecutionResult> execute(ExecutionInput executionInput,
@@ -81,13 +154,24 @@ public class Execution {
                                                       InstrumentationState instrumentationState,
                                                       NadelExecutionParams nadelExecutionParams) {
 
-        NormalizedQueryFromAst normalizedQueryFromAst = normalizedQueryFactory.createNormalizedQuery(overallSchema, document, executionInput.getOperationName(), executionInput.getVariables());
+        String operationName = executionInput.getOperationName();
+        Map<String, Object> variables = executionInput.getVariables();
+        InstrumentationContext<NormalizedQueryFromAst> normalizationCtx = instrumentation.beginNormalization(new NadelInstrumentationNormalizationParameters(executionInput, document, overallSchema, instrumentationState));
+        NormalizedQueryFromAst normalizedQueryFromAst = PhaseInstrumentation.run(normalizationCtx, () -> normalizedQueryFactory.createNormalizedQuery(overallSchema, document, operationName, variables));
 
+        ResultComplexityAggregator resultComplexityAggregator = new ResultComplexityAggregator();
         NadelContext nadelContext = NadelContext.newContext()
                 .userSuppliedContext(executionInput.getContext())
                 .originalOperationName(document, executionInput.getOperationName())
                 .artificialFieldsUUID(nadelExecutionParams.getArtificialFieldsUUID())
                 .normalizedOverallQuery(normalizedQueryFromAst)
+                .parallelListConversion(parallelListConversion)
+                .executor(executor)
+                .hydrationBatchWindow(hydrationBatchWindow)
+                .cacheHints(nadelExecutionParams.getCacheHints())
+                .topLevelFieldCache(topLevelFieldCache)
+                .resultSizeBudget(resultSizeLimits != null ? new ResultSizeBudget(resultSizeLimits) : null)
+                .resultComplexityAggregator(resultComplexityAggregator)
                 .build();
 
         executionInput = executionInput.transform(builder -> builder.context(nadelContext));
@@ -110,9 +194,12 @@ public class Execution {
         InstrumentationContext<ExecutionResult> instrumentationCtx = instrumentation.beginExecute(new NadelInstrumentationExecuteOperationParameters(executionContext, instrumentationState));
 
         CompletableFuture<ExecutionResult> result;
-        ResultComplexityAggregator resultComplexityAggregator = new ResultComplexityAggregator();
-        if (introspectionRunner.isIntrospectionQuery(executionContext, fieldSubSelection)) {
+        boolean introspectionQuery = introspectionRunner.isIntrospectionQuery(executionContext, fieldSubSelection);
+        GraphQLError queryCostError = introspectionQuery ? null : checkQueryCost(executionContext, normalizedQueryFromAst, nadelContext, instrumentationState);
+        if (introspectionQuery) {
             result = introspectionRunner.runIntrospection(executionContext, fieldSubSelection, executionInput);
+        } else if (queryCostError != null) {
+            result = completedFuture(new ExecutionResultImpl(queryCostError));
         } else {
             if (nadelContext.getUserSuppliedContext() instanceof BenchmarkContext) {
                 BenchmarkContext.NadelExecutionStrategyArgs args = ((BenchmarkContext) nadelContext.getUserSuppliedContext()).nadelExecutionStrategyArgs;
@@ -125,9 +212,17 @@ public class Execution {
                 if (nadelContext.getUserSuppliedContext() instanceof BenchmarkContext) {
                     ((BenchmarkContext) nadelContext.getUserSuppliedContext()).overallResult = rootResultNode;
                 }
-                rootResultNode = instrumentation.instrumentRootExecutionResult(rootResultNode, new NadelInstrumentRootExecutionResultParameters(executionContext, instrumentationState));
-                ExecutionResult executionResult = withNodeComplexity(ResultNodesUtil.toExecutionResult(rootResultNode), resultComplexityAggregator);
-                return executionResult;
+                ResultSizeBudget resultSizeBudget = nadelContext.getResultSizeBudget();
+                if (resultSizeBudget != null && resultSizeBudget.isExceeded()) {
+                    List<GraphQLError> errors = new ArrayList<>(rootResultNode.getErrors());
+                    errors.add(resultSizeBudget.createError());
+                    rootResultNode = (RootExecutionResultNode) rootResultNode.withNewErrors(errors);
+                }
+                rootResultNode = instrumentation.instrumentRootExecutionResult(rootResultNode, new NadelInstrumentRootExecutionResultParameters(executionContext, nadelContext.getRequestTimings(),
+                        resultComplexityAggregator.snapshotResultComplexityDetails(), instrumentationState));
+                ExecutionResult executionResult = withNodeComplexity(new ResultNodesExecutionResult(rootResultNode,
+                        () -> instrumentation.beginExecutionResultCreation(new NadelInstrumentationExecuteOperationParameters(executionContext, instrumentationState))), resultComplexityAggregator);
+                return withDeferredResults(executionResult, executionContext);
             });
         }
 
@@ -137,6 +232,33 @@ public class Execution {
         return result;
     }
 
+    /**
+     * Estimates the cost of the query before any service is called. A query over the limits is either rejected, in
+     * which case the returned error is the result, or executed without its hydrations.
+     */
+    private GraphQLError checkQueryCost(ExecutionContext executionContext, NormalizedQueryFromAst normalizedQuery, NadelContext nadelContext, InstrumentationState instrumentationState) {
+        if (queryCostLimits == null) {
+            return null;
+        }
+        QueryCostAnalyzer queryCostAnalyzer = new QueryCostAnalyzer(hydrationDescriptors, queryCostLimits.getAssumedListSize());
+        NadelInstrumentationQueryCostParameters parameters = new NadelInstrumentationQueryCostParameters(normalizedQuery, queryCostLimits, executionContext, instrumentationState);
+        QueryCost queryCost = instrumentation.instrumentQueryCost(queryCostAnalyzer.analyze(normalizedQuery, true), parameters);
+        if (!queryCostLimits.isExceededBy(queryCost)) {
+            return null;
+        }
+        if (queryCostLimits.getAction() == QueryCostLimits.Action.SKIP_HYDRATIONS && queryCost.getHydrationCalls() > 0
+                && !queryCostLimits.isExceededBy(queryCostAnalyzer.analyze(normalizedQuery, false))) {
+            nadelContext.stopHydrations("The hydrated field was not resolved because the estimated cost of the query is over the limits");
+            return null;
+        }
+        return GraphqlErrorBuilder.newError()
+                .message("The estimated cost of the query is over the limits: %d downstream calls (max %d), %d nodes (max %d)",
+                        queryCost.getDownstreamCalls(), queryCostLimits.getMaxDownstreamCalls(), queryCost.getNodes(), queryCostLimits.getMaxNodes())
+                .errorType(ErrorType.ExecutionAborted)
+                .extensions(singletonMap("queryCost", queryCost.toSpecification()))
+                .build();
+    }
+
     private FieldInfos createFieldsInfos() {
         Map<GraphQLFieldDefinition, FieldInfo> fieldInfoByDefinition = new LinkedHashMap<>();
 
@@ -167,9 +289,26 @@ public class Execution {
         return new FieldInfos(fieldInfoByDefinition);
     }
 
+    private ExecutionResult withDeferredResults(ExecutionResult executionResult, ExecutionContext executionContext) {
+        DeferSupport deferSupport = executionContext.getDeferSupport();
+        if (!deferSupport.isDeferDetected()) {
+            return executionResult;
+        }
+        // same extension key as graphql-java uses, the publisher emits one result per deferred field
+        return addExtension(executionResult, GraphQL.DEFERRED_RESULTS, deferSupport.startDeferredCalls());
+    }
+
     public ExecutionResult withNodeComplexity(ExecutionResult executionResult, ResultComplexityAggregator resultComplexityAggregator) {
+        return addExtension(executionResult, "resultComplexity", resultComplexityAggregator.snapshotResultComplexityData());
+    }
+
+    private ExecutionResult addExtension(ExecutionResult executionResult, String key, Object value) {
+        if (executionResult instanceof ResultNodesExecutionResult) {
+            // keeps the result based on the nodes so the data is not created unless needed
+            return ((ResultNodesExecutionResult) executionResult).addExtension(key, value);
+        }
         return ExecutionResultImpl.newExecutionResult().from(executionResult)
-                .addExtension("resultComplexity", resultComplexityAggregator.snapshotResultComplexityData())
+                .addExtension(key, value)
                 .build();
     }
 }
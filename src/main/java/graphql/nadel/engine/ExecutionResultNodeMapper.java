@@ -3,13 +3,14 @@ package graphql.nadel.engine;
 import graphql.Internal;
 import graphql.execution.ExecutionPath;
 import graphql.nadel.result.ExecutionResultNode;
+import graphql.nadel.result.ResultNodeFieldInfo;
 import graphql.schema.GraphQLCompositeType;
 import graphql.schema.GraphQLFieldDefinition;
 import graphql.schema.GraphQLFieldsContainer;
 import graphql.schema.GraphQLObjectType;
 import graphql.schema.GraphQLSchema;
 
-import java.util.Map;
+import java.util.IdentityHashMap;
 
 import static graphql.Assert.assertNotNull;
 import static graphql.introspection.Introspection.SchemaMetaFieldDef;
@@ -23,31 +24,27 @@ public class ExecutionResultNodeMapper {
 
     public ExecutionResultNode mapERNFromUnderlyingToOverall(ExecutionResultNode node, UnapplyEnvironment environment) {
 
-        Map<String, String> typeRenameMappings = environment.typeRenameMappings;
-        GraphQLSchema overallSchema = environment.overallSchema;
         ExecutionPath mappedPath = pathMapper.mapPath(node.getExecutionPath(), node.getResultKey(), environment);
-        GraphQLObjectType mappedObjectType = mapObjectType(node, typeRenameMappings, overallSchema);
-        GraphQLFieldDefinition mappedFieldDefinition = getFieldDef(overallSchema, mappedObjectType, node.getFieldName());
+        if (environment.overallFieldInfoByUnderlying == null) {
+            environment.overallFieldInfoByUnderlying = new IdentityHashMap<>();
+        }
+        // all the nodes of a field share the same field info, so it only needs to be mapped once
+        ResultNodeFieldInfo mappedFieldInfo = environment.overallFieldInfoByUnderlying.computeIfAbsent(node.getFieldInfo(),
+                fieldInfo -> mapFieldInfo(fieldInfo, environment.underlyingToOverallMapping));
         return node.transform(builder -> builder
                 .executionPath(mappedPath)
-                .objectType(mappedObjectType)
-                .fieldDefinition(mappedFieldDefinition)
+                .fieldInfo(mappedFieldInfo)
         );
 
     }
 
-    private GraphQLObjectType mapObjectType(ExecutionResultNode node, Map<String, String> typeRenameMappings, GraphQLSchema overallSchema) {
-        String objectTypeName = mapTypeName(typeRenameMappings, node.getObjectType().getName());
-        GraphQLObjectType mappedObjectType = overallSchema.getObjectType(objectTypeName);
-        assertNotNull(mappedObjectType, () -> String.format("object type %s not found in overall schema", objectTypeName));
-        return mappedObjectType;
-    }
-
-    private String mapTypeName(Map<String, String> typeRenameMappings, String name) {
-        return typeRenameMappings.getOrDefault(name, name);
+    ResultNodeFieldInfo mapFieldInfo(ResultNodeFieldInfo fieldInfo, UnderlyingToOverallMapping underlyingToOverallMapping) {
+        GraphQLObjectType underlyingObjectType = fieldInfo.getObjectType();
+        GraphQLObjectType mappedObjectType = underlyingToOverallMapping.getOverallObjectType(underlyingObjectType);
+        GraphQLFieldDefinition mappedFieldDefinition = underlyingToOverallMapping.getOverallFieldDefinition(underlyingObjectType, mappedObjectType, fieldInfo.getFieldDefinition().getName());
+        return new ResultNodeFieldInfo(fieldInfo.getAlias(), fieldInfo.getFieldIds(), mappedFieldDefinition, mappedObjectType);
     }
 
-
     public static GraphQLFieldDefinition getFieldDef(GraphQLSchema schema, GraphQLCompositeType parentType, String fieldName) {
         if (schema.getQueryType() == parentType) {
             if (fieldName.equals(SchemaMetaFieldDef.getName())) {
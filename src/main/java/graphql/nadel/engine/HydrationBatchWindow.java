@@ -0,0 +1,458 @@
+package graphql.nadel.engine;
+
+import graphql.AssertException;
+import graphql.Internal;
+import graphql.language.Argument;
+import graphql.language.ArrayValue;
+import graphql.language.AstPrinter;
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.OperationDefinition;
+import graphql.language.SelectionSet;
+import graphql.language.StringValue;
+import graphql.language.Value;
+import graphql.nadel.HydrationBatchingStatistics;
+import graphql.nadel.Service;
+import graphql.nadel.ServiceExecutionParameters;
+import graphql.nadel.ServiceExecutionResult;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.Assert.assertTrue;
+import static graphql.nadel.ServiceExecutionParameters.newServiceExecutionParameters;
+import static graphql.nadel.util.FpKit.map;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+
+/**
+ * Merges the batch hydration calls of different requests to the same service into one call. A call opens a window
+ * that other calls can join until the window is over. Calls can only join a window if their contexts are in the same
+ * partition, if their queries are the same apart from the ids to hydrate and the aliases Nadel generates for each
+ * request, and if they have the same variables and service context. Calls whose context has no partition are never
+ * merged. A window is sent early once it holds as many ids as the batch size of the hydration.
+ * <p>
+ * The merged call is made with the query, context, execution id and service execution of the first call of the
+ * window, which is why only calls of the same partition are merged. Each call gets the objects for its own ids back,
+ * together with the errors of the merged call that are about its own ids and the errors that are about none of the
+ * ids. The extensions of the merged call only go to the first call.
+ */
+@Internal
+public class HydrationBatchWindow {
+
+    private static final String TYPE_NAME_ALIAS_PLACEHOLDER = "typename__";
+    private static final String OBJECT_IDENTIFIER_ALIAS_PLACEHOLDER = "object_identifier__";
+
+    private final long windowNanos;
+    private final Function<Object, Object> partitionOfContext;
+    private final ScheduledExecutorService scheduler;
+    private final Map<Object, Window> openWindows = new HashMap<>();
+
+    private final LongAdder hydrationCalls = new LongAdder();
+    private final LongAdder downstreamCalls = new LongAdder();
+    private final LongAdder totalWindowNanos = new LongAdder();
+
+    private static class Window {
+        final Object key;
+        final long openedAt = System.nanoTime();
+        final List<Call> calls = new ArrayList<>();
+        final Set<String> ids = new LinkedHashSet<>();
+        ScheduledFuture<?> timer;
+
+        Window(Object key) {
+            this.key = key;
+        }
+    }
+
+    private static class Call {
+        final ServiceExecutionParameters parameters;
+        final Field topLevelField;
+        final Argument sourceArgument;
+        final Set<String> ids;
+        final String typeNameAlias;
+        final String objectIdentifierAlias;
+        final Function<ServiceExecutionParameters, CompletableFuture<ServiceExecutionResult>> serviceCall;
+        final CompletableFuture<ServiceExecutionResult> result = new CompletableFuture<>();
+
+        Call(ServiceExecutionParameters parameters,
+             Field topLevelField,
+             Argument sourceArgument,
+             Set<String> ids,
+             NadelContext nadelContext,
+             Function<ServiceExecutionParameters, CompletableFuture<ServiceExecutionResult>> serviceCall) {
+            this.parameters = parameters;
+            this.topLevelField = topLevelField;
+            this.sourceArgument = sourceArgument;
+            this.ids = ids;
+            this.typeNameAlias = nadelContext.getUnderscoreTypeNameAlias();
+            this.objectIdentifierAlias = nadelContext.getObjectIdentifierAlias();
+            this.serviceCall = serviceCall;
+        }
+    }
+
+    /**
+     * @param window             how long calls can join a window
+     * @param partitionOfContext the partition of the context of a request or null if its calls must not be merged
+     */
+    public HydrationBatchWindow(Duration window, Function<Object, Object> partitionOfContext) {
+        this(window, partitionOfContext, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "nadel-hydration-batch-window");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * @param window             how long calls can join a window
+     * @param partitionOfContext the partition of the context of a request or null if its calls must not be merged
+     * @param scheduler          sends the windows once they are over
+     */
+    public HydrationBatchWindow(Duration window, Function<Object, Object> partitionOfContext, ScheduledExecutorService scheduler) {
+        assertTrue(!window.isNegative() && !window.isZero(), () -> "the hydration batch window must be longer than zero");
+        this.windowNanos = window.toNanos();
+        this.partitionOfContext = assertNotNull(partitionOfContext);
+        this.scheduler = assertNotNull(scheduler);
+    }
+
+    /**
+     * @param service            the service of the batch hydration
+     * @param parameters         the parameters of the batch hydration call
+     * @param sourceArgumentName the argument of the top level field that holds the ids to hydrate
+     * @param batchSize          the maximum number of ids in one call or null if there is no maximum
+     * @param nadelContext       the context of the request
+     * @param serviceCall        makes a call to the service
+     *
+     * @return the result for the ids of this call
+     */
+    public CompletableFuture<ServiceExecutionResult> execute(Service service,
+                                                             ServiceExecutionParameters parameters,
+                                                             String sourceArgumentName,
+                                                             Integer batchSize,
+                                                             NadelContext nadelContext,
+                                                             Function<ServiceExecutionParameters, CompletableFuture<ServiceExecutionResult>> serviceCall) {
+        Field topLevelField = (Field) parameters.getOperationDefinition().getSelectionSet().getSelections().get(0);
+        Argument sourceArgument = topLevelField.getArguments().stream()
+                .filter(argument -> argument.getName().equals(sourceArgumentName))
+                .findFirst()
+                .orElse(null);
+        Set<String> ids = sourceArgument != null ? getIds(sourceArgument.getValue()) : null;
+        Object partition = partitionOfContext.apply(parameters.getContext());
+        hydrationCalls.increment();
+        if (ids == null || partition == null || (batchSize != null && ids.size() >= batchSize)) {
+            // nothing can be added to this call
+            downstreamCalls.increment();
+            return serviceCall.apply(parameters);
+        }
+
+        Call call = new Call(parameters, topLevelField, sourceArgument, ids, nadelContext, serviceCall);
+        Object key = Arrays.asList(service.getName(), printWithoutIds(call), parameters.getVariables(), parameters.getServiceContext(), partition);
+
+        List<Window> windowsToSend = new ArrayList<>();
+        synchronized (this) {
+            Window window = openWindows.get(key);
+            if (window != null && batchSize != null && countIds(window, ids) > batchSize) {
+                openWindows.remove(key);
+                windowsToSend.add(window);
+                window = null;
+            }
+            if (window == null) {
+                window = new Window(key);
+                openWindows.put(key, window);
+                Window newWindow = window;
+                window.timer = scheduler.schedule(() -> windowOver(newWindow), windowNanos, TimeUnit.NANOSECONDS);
+            }
+            window.calls.add(call);
+            window.ids.addAll(ids);
+            if (batchSize != null && window.ids.size() >= batchSize) {
+                openWindows.remove(key);
+                windowsToSend.add(window);
+            }
+        }
+        for (Window window : windowsToSend) {
+            window.timer.cancel(false);
+            send(window);
+        }
+        return call.result;
+    }
+
+    /**
+     * @return how well the calls have been merged so far
+     */
+    public HydrationBatchingStatistics getStatistics() {
+        return new HydrationBatchingStatistics(hydrationCalls.sum(), downstreamCalls.sum(), totalWindowNanos.sum());
+    }
+
+    private void windowOver(Window window) {
+        synchronized (this) {
+            if (!openWindows.remove(window.key, window)) {
+                // it was full and has been sent already
+                return;
+            }
+        }
+        send(window);
+    }
+
+    private int countIds(Window window, Set<String> ids) {
+        int count = window.ids.size();
+        for (String id : ids) {
+            if (!window.ids.contains(id)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void send(Window window) {
+        totalWindowNanos.add(System.nanoTime() - window.openedAt);
+        downstreamCalls.increment();
+        Call firstCall = window.calls.get(0);
+        if (window.calls.size() == 1) {
+            callService(() -> firstCall.serviceCall.apply(firstCall.parameters), firstCall.result);
+            return;
+        }
+        CompletableFuture<ServiceExecutionResult> mergedResult = new CompletableFuture<>();
+        callService(() -> firstCall.serviceCall.apply(mergeCalls(firstCall, window.ids)), mergedResult);
+        mergedResult.whenComplete((serviceExecutionResult, throwable) -> {
+            for (Call call : window.calls) {
+                if (throwable != null) {
+                    call.result.completeExceptionally(throwable);
+                    continue;
+                }
+                try {
+                    call.result.complete(resultForCall(serviceExecutionResult, window, call));
+                } catch (RuntimeException e) {
+                    call.result.completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    private void callService(Supplier<CompletableFuture<ServiceExecutionResult>> serviceCall, CompletableFuture<ServiceExecutionResult> result) {
+        try {
+            CompletableFuture<ServiceExecutionResult> serviceResult = serviceCall.get();
+            if (serviceResult == null) {
+                throw new AssertException("service execution returned null");
+            }
+            serviceResult.whenComplete((serviceExecutionResult, throwable) -> {
+                if (throwable != null) {
+                    result.completeExceptionally(throwable);
+                } else {
+                    result.complete(serviceExecutionResult);
+                }
+            });
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private ServiceExecutionParameters mergeCalls(Call firstCall, Set<String> ids) {
+        List<Value> values = new ArrayList<>();
+        for (String id : ids) {
+            values.add(StringValue.newStringValue(id).build());
+        }
+        OperationDefinition operationDefinition = replaceSourceArgument(firstCall, new ArrayValue(values));
+        Document document = replaceOperationDefinition(firstCall.parameters, operationDefinition);
+        ServiceExecutionParameters parameters = firstCall.parameters;
+        return newServiceExecutionParameters()
+                .query(document)
+                .context(parameters.getContext())
+                .variables(parameters.getVariables())
+                .fragments(parameters.getFragments())
+                .operationDefinition(operationDefinition)
+                .executionId(parameters.getExecutionId())
+                .cacheControl(parameters.getCacheControl())
+                .serviceContext(parameters.getServiceContext())
+                .hydrationCall(parameters.isHydrationCall())
+                .build();
+    }
+
+    private String printWithoutIds(Call call) {
+        OperationDefinition operationDefinition = replaceSourceArgument(call, new ArrayValue(new ArrayList<>()))
+                .transform(builder -> builder.name(null));
+        String query = AstPrinter.printAst(replaceOperationDefinition(call.parameters, operationDefinition));
+        return query
+                .replace(call.typeNameAlias, TYPE_NAME_ALIAS_PLACEHOLDER)
+                .replace(call.objectIdentifierAlias, OBJECT_IDENTIFIER_ALIAS_PLACEHOLDER);
+    }
+
+    private OperationDefinition replaceSourceArgument(Call call, ArrayValue ids) {
+        List<Argument> arguments = new ArrayList<>();
+        for (Argument argument : call.topLevelField.getArguments()) {
+            arguments.add(argument == call.sourceArgument ? argument.transform(builder -> builder.value(ids)) : argument);
+        }
+        Field topLevelField = call.topLevelField.transform(builder -> builder.arguments(arguments));
+        SelectionSet selectionSet = SelectionSet.newSelectionSet(singletonList(topLevelField)).build();
+        return call.parameters.getOperationDefinition().transform(builder -> builder.selectionSet(selectionSet));
+    }
+
+    private Document replaceOperationDefinition(ServiceExecutionParameters parameters, OperationDefinition operationDefinition) {
+        OperationDefinition original = parameters.getOperationDefinition();
+        Document document = parameters.getQuery();
+        return document.transform(builder -> builder.definitions(map(document.getDefinitions(),
+                definition -> definition == original ? operationDefinition : definition)));
+    }
+
+    private Set<String> getIds(Value<?> value) {
+        if (!(value instanceof ArrayValue)) {
+            return null;
+        }
+        Set<String> ids = new LinkedHashSet<>();
+        for (Value<?> id : ((ArrayValue) value).getValues()) {
+            if (!(id instanceof StringValue)) {
+                return null;
+            }
+            ids.add(((StringValue) id).getValue());
+        }
+        return ids;
+    }
+
+    /*
+     * the objects for the ids of the call, with the aliases of the first call changed to the aliases of the call,
+     * and the errors about the ids of the call, with their paths pointing to the objects of the call
+     */
+    @SuppressWarnings("unchecked")
+    private ServiceExecutionResult resultForCall(ServiceExecutionResult mergedResult, Window window, Call call) {
+        Call firstCall = window.calls.get(0);
+        Map<String, String> aliases = new HashMap<>();
+        aliases.put(firstCall.typeNameAlias, call.typeNameAlias);
+        aliases.put(firstCall.objectIdentifierAlias, call.objectIdentifierAlias);
+
+        Field topLevelField = firstCall.topLevelField;
+        String resultKey = topLevelField.getAlias() != null ? topLevelField.getAlias() : topLevelField.getName();
+        Map<String, Object> mergedData = mergedResult.getData();
+        List<Object> mergedObjects = null;
+        Map<Integer, Integer> indexes = new HashMap<>();
+        Map<String, Object> data = null;
+        if (mergedData != null) {
+            data = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : mergedData.entrySet()) {
+                Object value = entry.getValue();
+                if (entry.getKey().equals(resultKey) && value instanceof List) {
+                    mergedObjects = (List<Object>) value;
+                    List<Object> objects = new ArrayList<>();
+                    for (int i = 0; i < mergedObjects.size(); i++) {
+                        Object object = mergedObjects.get(i);
+                        if (object instanceof Map && isForCall((Map<String, Object>) object, firstCall, call)) {
+                            indexes.put(i, objects.size());
+                            objects.add(renameAliases(object, aliases));
+                        }
+                    }
+                    value = objects;
+                } else {
+                    value = renameAliases(value, aliases);
+                }
+                data.put(entry.getKey(), value);
+            }
+        }
+
+        List<Map<String, Object>> errors = new ArrayList<>();
+        for (Map<String, Object> error : mergedResult.getErrors()) {
+            Map<String, Object> errorForCall = errorForCall(error, resultKey, mergedObjects, indexes, window, call);
+            if (errorForCall != null) {
+                errors.add(errorForCall);
+            }
+        }
+        Map<String, Object> extensions = call == firstCall ? mergedResult.getExtensions() : emptyMap();
+        return new ServiceExecutionResult(data, errors, extensions);
+    }
+
+    private boolean isForCall(Map<String, Object> object, Call firstCall, Call call) {
+        Object id = object.get(firstCall.objectIdentifierAlias);
+        return id != null && call.ids.contains(id.toString());
+    }
+
+    /*
+     * the error if it is about the ids of the call or about none of the ids, or null if it is about the ids of other
+     * calls only. An error is about the id of the object its path points to, otherwise about the ids in its extensions.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> errorForCall(Map<String, Object> error,
+                                             String resultKey,
+                                             List<Object> mergedObjects,
+                                             Map<Integer, Integer> indexes,
+                                             Window window,
+                                             Call call) {
+        Call firstCall = window.calls.get(0);
+        Object path = error.get("path");
+        Integer mergedIndex = null;
+        if (path instanceof List && ((List<Object>) path).size() > 1 && resultKey.equals(((List<Object>) path).get(0))
+                && ((List<Object>) path).get(1) instanceof Number) {
+            mergedIndex = ((Number) ((List<Object>) path).get(1)).intValue();
+        }
+        if (mergedIndex != null && indexes.containsKey(mergedIndex)) {
+            List<Object> pathForCall = new ArrayList<>((List<Object>) path);
+            pathForCall.set(1, indexes.get(mergedIndex));
+            Map<String, Object> errorForCall = new LinkedHashMap<>(error);
+            errorForCall.put("path", pathForCall);
+            return errorForCall;
+        }
+
+        Set<String> errorIds = new LinkedHashSet<>();
+        if (mergedIndex != null && mergedObjects != null && mergedIndex >= 0 && mergedIndex < mergedObjects.size()
+                && mergedObjects.get(mergedIndex) instanceof Map) {
+            Object id = ((Map<String, Object>) mergedObjects.get(mergedIndex)).get(firstCall.objectIdentifierAlias);
+            if (id != null) {
+                errorIds.add(id.toString());
+            }
+        }
+        if (errorIds.isEmpty() && error.get("extensions") instanceof Map) {
+            collectIds(((Map<String, Object>) error.get("extensions")).values(), window, errorIds);
+        }
+        if (errorIds.isEmpty()) {
+            return error;
+        }
+        for (String id : errorIds) {
+            if (call.ids.contains(id)) {
+                return error;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void collectIds(Collection<Object> values, Window window, Set<String> ids) {
+        for (Object value : values) {
+            if (value instanceof Collection) {
+                collectIds((Collection<Object>) value, window, ids);
+            } else if (value != null && window.ids.contains(value.toString())) {
+                ids.add(value.toString());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object renameAliases(Object value, Map<String, String> aliases) {
+        if (value instanceof Map) {
+            Map<String, Object> renamed = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                renamed.put(aliases.getOrDefault(entry.getKey(), entry.getKey()), renameAliases(entry.getValue(), aliases));
+            }
+            return renamed;
+        }
+        if (value instanceof List) {
+            List<Object> renamed = new ArrayList<>();
+            for (Object element : (List<Object>) value) {
+                renamed.add(renameAliases(element, aliases));
+            }
+            return renamed;
+        }
+        return value;
+    }
+}
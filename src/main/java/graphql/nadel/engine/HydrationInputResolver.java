@@ -1,36 +1,47 @@
 package graphql.nadel.engine;
 
+import graphql.ErrorType;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
 import graphql.Internal;
 import graphql.execution.Async;
 import graphql.execution.ExecutionContext;
 import graphql.execution.ExecutionId;
+import graphql.execution.MergedField;
+import graphql.execution.defer.DeferredCall;
+import graphql.execution.defer.DeferredErrorSupport;
+import graphql.execution.instrumentation.InstrumentationContext;
 import graphql.language.Argument;
 import graphql.language.ArrayValue;
 import graphql.language.Field;
-import graphql.language.FieldDefinition;
 import graphql.language.StringValue;
 import graphql.language.Value;
 import graphql.nadel.Operation;
+import graphql.nadel.RequestTimings.Timing;
 import graphql.nadel.Service;
-import graphql.nadel.dsl.ExtendedFieldDefinition;
 import graphql.nadel.dsl.NodeId;
 import graphql.nadel.dsl.RemoteArgumentDefinition;
-import graphql.nadel.dsl.RemoteArgumentSource;
-import graphql.nadel.dsl.UnderlyingServiceHydration;
 import graphql.nadel.engine.transformation.FieldTransformation;
+import graphql.nadel.engine.transformation.HydrationDescriptor;
+import graphql.nadel.engine.transformation.HydrationDescriptors;
 import graphql.nadel.engine.transformation.HydrationTransformation;
 import graphql.nadel.hooks.ServiceExecutionHooks;
+import graphql.nadel.instrumentation.NadelInstrumentation;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationHydrationBatchParameters;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationHydrationWaveParameters;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationServicePhaseParameters;
 import graphql.nadel.normalized.NormalizedQueryField;
+import graphql.nadel.normalized.NormalizedQueryFromAst;
 import graphql.nadel.result.ElapsedTime;
 import graphql.nadel.result.ExecutionResultNode;
 import graphql.nadel.result.LeafExecutionResultNode;
 import graphql.nadel.result.ListExecutionResultNode;
 import graphql.nadel.result.ObjectExecutionResultNode;
 import graphql.nadel.result.ResultComplexityAggregator;
+import graphql.nadel.result.ResultNodesUtil;
 import graphql.nadel.result.RootExecutionResultNode;
 import graphql.nadel.util.FpKit;
 import graphql.schema.GraphQLCompositeType;
-import graphql.schema.GraphQLFieldDefinition;
 import graphql.schema.GraphQLSchema;
 import graphql.util.NodeMultiZipper;
 import graphql.util.NodeZipper;
@@ -41,6 +52,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static graphql.Assert.assertNotNull;
 import static graphql.Assert.assertTrue;
@@ -55,33 +68,38 @@ import static graphql.nadel.util.FpKit.filter;
 import static graphql.nadel.util.FpKit.findOneOrNull;
 import static graphql.nadel.util.FpKit.flatList;
 import static graphql.nadel.util.FpKit.map;
-import static graphql.schema.GraphQLTypeUtil.isList;
+import static graphql.schema.GraphQLTypeUtil.isNonNull;
 import static graphql.schema.GraphQLTypeUtil.unwrapAll;
-import static graphql.schema.GraphQLTypeUtil.unwrapNonNull;
 import static java.lang.String.format;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 
 @Internal
 public class HydrationInputResolver {
 
-    private final OverallQueryTransformer queryTransformer = new OverallQueryTransformer();
+    private final OverallQueryTransformer queryTransformer;
 
     private final ServiceResultNodesToOverallResult serviceResultNodesToOverallResult = new ServiceResultNodesToOverallResult();
 
 
-    private final List<Service> services;
     private final GraphQLSchema overallSchema;
     private final ServiceExecutor serviceExecutor;
+    private final NadelInstrumentation instrumentation;
     private final ServiceExecutionHooks serviceExecutionHooks;
+    private final Map<String, UnderlyingToOverallMapping> underlyingToOverallMappings;
 
-    public HydrationInputResolver(List<Service> services,
-                                  GraphQLSchema overallSchema,
+    public HydrationInputResolver(GraphQLSchema overallSchema,
                                   ServiceExecutor serviceExecutor,
-                                  ServiceExecutionHooks serviceExecutionHooks) {
-        this.services = services;
+                                  NadelInstrumentation instrumentation,
+                                  ServiceExecutionHooks serviceExecutionHooks,
+                                  Map<String, UnderlyingToOverallMapping> underlyingToOverallMappings,
+                                  HydrationDescriptors hydrationDescriptors) {
+        this.queryTransformer = new OverallQueryTransformer(hydrationDescriptors);
         this.overallSchema = overallSchema;
         this.serviceExecutor = serviceExecutor;
+        this.instrumentation = instrumentation;
         this.serviceExecutionHooks = serviceExecutionHooks;
+        this.underlyingToOverallMappings = underlyingToOverallMappings;
     }
 
 
@@ -89,33 +107,115 @@ public class HydrationInputResolver {
                                                                             ExecutionResultNode node,
                                                                             Map<Service, Object> serviceContexts,
                                                                             ResultComplexityAggregator resultComplexityAggregator) {
+        return resolveAllHydrationInputs(context, node, serviceContexts, resultComplexityAggregator, true);
+    }
+
+    private CompletableFuture<ExecutionResultNode> resolveAllHydrationInputs(ExecutionContext context,
+                                                                             ExecutionResultNode node,
+                                                                             Map<Service, Object> serviceContexts,
+                                                                             ResultComplexityAggregator resultComplexityAggregator,
+                                                                             boolean deferAllowed) {
         Set<NodeZipper<ExecutionResultNode>> hydrationInputZippers = getHydrationInputNodes(node);
         if (hydrationInputZippers.size() == 0) {
             return CompletableFuture.completedFuture(node);
         }
+        NadelContext nadelContext = getNadelContext(context);
+        ResultSizeBudget resultSizeBudget = nadelContext.getResultSizeBudget();
+        if (resultSizeBudget != null && resultSizeBudget.isExceeded()) {
+            nadelContext.stopHydrations(resultSizeBudget.getHydrationsStoppedReason());
+        }
+        String hydrationsStoppedReason = nadelContext.getHydrationsStoppedReason();
+        if (hydrationsStoppedReason != null) {
+            return CompletableFuture.completedFuture(stopHydrationInputs(node, hydrationInputZippers, hydrationsStoppedReason));
+        }
+        if (deferAllowed) {
+            List<NodeZipper<ExecutionResultNode>> deferredZippers = filter(hydrationInputZippers, zipper -> isDeferred(context, (HydrationInputNode) zipper.getCurNode()));
+            if (deferredZippers.size() > 0) {
+                ExecutionResultNode nodeWithoutDeferred = deferHydrationInputs(context, node, deferredZippers, serviceContexts, resultComplexityAggregator);
+                return resolveAllHydrationInputs(context, nodeWithoutDeferred, serviceContexts, resultComplexityAggregator, true);
+            }
+        }
 
         List<NodeMultiZipper<ExecutionResultNode>> hydrationInputBatches = groupNodesIntoBatchesByField(hydrationInputZippers, node);
-
-        List<CompletableFuture<List<NodeZipper<ExecutionResultNode>>>> resolvedNodeCFs = new ArrayList<>();
-
-        for (NodeMultiZipper<ExecutionResultNode> batch : hydrationInputBatches) {
-            if (isBatchHydrationField((HydrationInputNode) batch.getZippers().get(0).getCurNode())) {
-                resolveInputNodesAsBatch(context, resolvedNodeCFs, batch, serviceContexts, resultComplexityAggregator);
-            } else {
-                resolveInputNodes(context, resolvedNodeCFs, batch, serviceContexts, resultComplexityAggregator);
+        InstrumentationContext<Object> waveInstrumentationCtx = instrumentation.beginHydrationWave(
+                new NadelInstrumentationHydrationWaveParameters(hydrationInputZippers.size(), context, context.getInstrumentationState()));
+
+        // the hydration calls of this level to the same service can be sent together
+        List<CompletableFuture<List<NodeZipper<ExecutionResultNode>>>> resolvedNodeCFs = serviceExecutor.batchCalls(() -> {
+            List<CompletableFuture<List<NodeZipper<ExecutionResultNode>>>> result = new ArrayList<>();
+            for (NodeMultiZipper<ExecutionResultNode> batch : hydrationInputBatches) {
+                if (isBatchHydrationField((HydrationInputNode) batch.getZippers().get(0).getCurNode())) {
+                    resolveInputNodesAsBatch(context, result, batch, serviceContexts, resultComplexityAggregator);
+                } else {
+                    resolveInputNodes(context, result, batch, serviceContexts, resultComplexityAggregator);
+                }
             }
-
-        }
-        return Async
+            return result;
+        });
+        CompletableFuture<ExecutionResultNode> waveResult = Async
                 .each(resolvedNodeCFs)
-                .thenCompose(resolvedNodes -> {
+                .thenApply(resolvedNodes -> {
                     NodeMultiZipper<ExecutionResultNode> multiZipper = new NodeMultiZipper<>(node, flatList(resolvedNodes), RESULT_NODE_ADAPTER);
-                    ExecutionResultNode newRoot = multiZipper.toRootNode();
-                    return resolveAllHydrationInputs(context, newRoot, serviceContexts, resultComplexityAggregator);
-                })
+                    return multiZipper.toRootNode();
+                });
+        return PhaseInstrumentation.whenCompleted(waveInstrumentationCtx, waveResult)
+                .thenCompose(newRoot -> resolveAllHydrationInputs(context, newRoot, serviceContexts, resultComplexityAggregator, deferAllowed))
                 .whenComplete(this::possiblyLogException);
     }
 
+    private boolean isDeferred(ExecutionContext context, HydrationInputNode hydrationInputNode) {
+        if (isNonNull(hydrationInputNode.getFieldDefinition().getType())) {
+            //
+            // the initial result can't have null for a non null field, so it is resolved inline
+            return false;
+        }
+        NormalizedQueryFromAst normalizedOverallQuery = getNadelContext(context).getNormalizedOverallQuery();
+        MergedField mergedField = normalizedOverallQuery.getMergedFieldByNormalizedFields().get(hydrationInputNode.getNormalizedField());
+        return mergedField != null && context.getDeferSupport().checkForDeferDirective(mergedField, context.getVariables());
+    }
+
+    /**
+     * The deferred hydration inputs are resolved straight away (together, so they still batch) but are delivered as
+     * deferred results. Everything hydrated below them is part of the same deferred result and is not deferred again.
+     * In the main result the deferred fields are null.
+     */
+    private ExecutionResultNode deferHydrationInputs(ExecutionContext context,
+                                                     ExecutionResultNode node,
+                                                     List<NodeZipper<ExecutionResultNode>> deferredZippers,
+                                                     Map<Service, Object> serviceContexts,
+                                                     ResultComplexityAggregator resultComplexityAggregator) {
+        List<ExecutionResultNode> deferredNodes = map(deferredZippers, NodeZipper::getCurNode);
+        RootExecutionResultNode deferredRoot = RootExecutionResultNode.newRootExecutionResultNode()
+                .children(deferredNodes)
+                .build();
+        CompletableFuture<ExecutionResultNode> deferredResult = resolveAllHydrationInputs(context, deferredRoot, serviceContexts, resultComplexityAggregator, false);
+
+        for (int i = 0; i < deferredNodes.size(); i++) {
+            int index = i;
+            DeferredCall deferredCall = new DeferredCall(deferredNodes.get(i).getExecutionPath(),
+                    () -> deferredResult.thenApply(resolvedRoot -> ResultNodesUtil.toDeferredExecutionResult(resolvedRoot.getChildren().get(index))),
+                    new DeferredErrorSupport());
+            context.getDeferSupport().enqueue(deferredCall);
+        }
+
+        List<NodeZipper<ExecutionResultNode>> nullZippers = map(deferredZippers, zipper -> zipper.withNewNode(createNullValue((HydrationInputNode) zipper.getCurNode())));
+        return new NodeMultiZipper<>(node, nullZippers, RESULT_NODE_ADAPTER).toRootNode();
+    }
+
+    private ExecutionResultNode stopHydrationInputs(ExecutionResultNode node, Set<NodeZipper<ExecutionResultNode>> hydrationInputZippers, String reason) {
+        List<NodeZipper<ExecutionResultNode>> nullZippers = new ArrayList<>();
+        for (NodeZipper<ExecutionResultNode> zipper : hydrationInputZippers) {
+            HydrationInputNode hydrationInputNode = (HydrationInputNode) zipper.getCurNode();
+            GraphQLError error = GraphqlErrorBuilder.newError()
+                    .message(reason)
+                    .path(hydrationInputNode.getExecutionPath())
+                    .errorType(ErrorType.ExecutionAborted)
+                    .build();
+            nullZippers.add(zipper.withNewNode(createNullValue(hydrationInputNode, singletonList(error))));
+        }
+        return new NodeMultiZipper<>(node, nullZippers, RESULT_NODE_ADAPTER).toRootNode();
+    }
+
     private void resolveInputNodes(ExecutionContext context,
                                    List<CompletableFuture<List<NodeZipper<ExecutionResultNode>>>> resolvedNodeCFs,
                                    NodeMultiZipper<ExecutionResultNode> batch, Map<Service, Object> serviceContexts,
@@ -140,27 +240,9 @@ public class HydrationInputResolver {
         }
     }
 
-    private Integer getDefaultBatchSize(UnderlyingServiceHydration underlyingServiceHydration) {
-        String topLevelField = underlyingServiceHydration.getTopLevelField();
-
-        GraphQLFieldDefinition graphQLFieldDefinition = overallSchema.getQueryType().getFieldDefinition(topLevelField);
-        // the field we use to hydrate doesn't need to be exposed, therefore can be null
-        if (graphQLFieldDefinition == null) {
-            return null;
-        }
-        FieldDefinition fieldDefinition = graphQLFieldDefinition.getDefinition();
-        if (!(fieldDefinition instanceof ExtendedFieldDefinition)) {
-            return null;
-        }
-        return ((ExtendedFieldDefinition) fieldDefinition).getDefaultBatchSize();
-    }
-
     private List<NodeMultiZipper<ExecutionResultNode>> groupIntoCorrectBatchSizes(NodeMultiZipper<ExecutionResultNode> batch) {
         HydrationInputNode node = (HydrationInputNode) batch.getZippers().get(0).getCurNode();
-        Integer batchSize = node.getHydrationTransformation().getUnderlyingServiceHydration().getBatchSize();
-        if (batchSize == null) {
-            batchSize = getDefaultBatchSize(node.getHydrationTransformation().getUnderlyingServiceHydration());
-        }
+        Integer batchSize = node.getHydrationTransformation().getHydrationDescriptor().getBatchSize();
         if (batchSize == null) {
             return singletonList(batch);
         }
@@ -184,11 +266,7 @@ public class HydrationInputResolver {
 
 
     private boolean isBatchHydrationField(HydrationInputNode hydrationInputNode) {
-        HydrationTransformation hydrationTransformation = hydrationInputNode.getHydrationTransformation();
-        Service service = getService(hydrationTransformation.getUnderlyingServiceHydration());
-        String topLevelFieldName = hydrationTransformation.getUnderlyingServiceHydration().getTopLevelField();
-        GraphQLFieldDefinition topLevelFieldDefinition = service.getUnderlyingSchema().getQueryType().getFieldDefinition(topLevelFieldName);
-        return isList(unwrapNonNull(topLevelFieldDefinition.getType()));
+        return hydrationInputNode.getHydrationTransformation().getHydrationDescriptor().isBatched();
     }
 
     private CompletableFuture<List<NodeZipper<ExecutionResultNode>>> replaceNodesInZipper(NodeMultiZipper<ExecutionResultNode> batch,
@@ -212,59 +290,62 @@ public class HydrationInputResolver {
         HydrationTransformation hydrationTransformation = hydrationInputNode.getHydrationTransformation();
 
         Field originalField = hydrationTransformation.getOriginalField();
-        UnderlyingServiceHydration underlyingServiceHydration = hydrationTransformation.getUnderlyingServiceHydration();
-        String topLevelFieldName = underlyingServiceHydration.getTopLevelField();
+        HydrationDescriptor hydrationDescriptor = hydrationTransformation.getHydrationDescriptor();
 
-        Field topLevelField = createSingleHydrationTopLevelField(hydrationInputNode, originalField, underlyingServiceHydration, topLevelFieldName);
+        Field topLevelField = createSingleHydrationTopLevelField(hydrationInputNode, originalField, hydrationDescriptor);
 
-        Service service = getService(underlyingServiceHydration);
+        Service service = hydrationDescriptor.getService();
+        InstrumentationContext<Object> batchInstrumentationCtx = beginHydrationBatch(executionContext, service, hydrationInputNode, 1);
 
         Operation operation = Operation.QUERY;
         String operationName = buildOperationName(service, executionContext);
         GraphQLCompositeType topLevelFieldType = (GraphQLCompositeType) unwrapAll(hydrationTransformation.getOriginalFieldType());
 
-        QueryTransformationResult queryTransformationResult = queryTransformer
-                .transformHydratedTopLevelField(
-                        executionContext,
-                        service.getUnderlyingSchema(),
-                        operationName,
-                        operation,
-                        topLevelField,
-                        topLevelFieldType,
-                        serviceExecutionHooks,
-                        service,
-                        serviceContexts.get(service)
-                );
+        QueryTransformationResult queryTransformationResult = PhaseInstrumentation.run(beginHydrationPhase(executionContext, service, instrumentation::beginQueryTransformation),
+                () -> queryTransformer
+                        .transformHydratedTopLevelField(
+                                executionContext,
+                                service.getUnderlyingSchema(),
+                                operationName,
+                                operation,
+                                topLevelField,
+                                topLevelFieldType,
+                                serviceExecutionHooks,
+                                service,
+                                serviceContexts.get(service)
+                        ));
 
 
         CompletableFuture<RootExecutionResultNode> serviceResult = serviceExecutor
                 .execute(executionContext, queryTransformationResult, service, operation,
                         serviceContexts.get(service), true);
 
-        return serviceResult
-                .thenApply(resultNode -> convertSingleHydrationResultIntoOverallResult(executionContext.getExecutionId(),
-                        hydrationInputNode,
-                        hydrationTransformation,
-                        resultNode,
-                        hydrationInputNode.getNormalizedField(),
-                        queryTransformationResult,
-                        getNadelContext(executionContext),
-                        resultComplexityAggregator
-                ))
+        CompletableFuture<ExecutionResultNode> convertedResult = serviceResult
+                .thenApply(resultNode -> convertHydrationResult(executionContext, service,
+                        () -> convertSingleHydrationResultIntoOverallResult(executionContext.getExecutionId(),
+                                hydrationInputNode,
+                                hydrationTransformation,
+                                resultNode,
+                                hydrationInputNode.getNormalizedField(),
+                                queryTransformationResult,
+                                getNadelContext(executionContext),
+                                resultComplexityAggregator
+                        )));
+        return PhaseInstrumentation.whenCompleted(batchInstrumentationCtx, convertedResult)
                 .whenComplete(this::possiblyLogException);
 
     }
 
 
-    private Field createSingleHydrationTopLevelField(HydrationInputNode hydrationInputNode, Field originalField, UnderlyingServiceHydration underlyingServiceHydration, String topLevelFieldName) {
-        RemoteArgumentDefinition remoteArgumentDefinition = underlyingServiceHydration.getArguments().get(0);
+    private Field createSingleHydrationTopLevelField(HydrationInputNode hydrationInputNode, Field originalField, HydrationDescriptor hydrationDescriptor) {
+        RemoteArgumentDefinition remoteArgumentDefinition = hydrationDescriptor.getArguments().get(0);
         Object value = hydrationInputNode.getCompletedValue();
         Argument argument = Argument.newArgument()
                 .name(remoteArgumentDefinition.getName())
                 .value(new StringValue(value.toString()))
                 .build();
 
-        return newField(topLevelFieldName)
+        return newField(hydrationDescriptor.getTopLevelField())
                 .selectionSet(originalField.getSelectionSet())
                 .arguments(singletonList(argument))
                 .additionalData(NodeId.ID, UUID.randomUUID().toString())
@@ -283,7 +364,7 @@ public class HydrationInputResolver {
 
 
         Map<String, FieldTransformation> transformationByResultField = queryTransformationResult.getFieldIdToTransformation();
-        Map<String, String> typeRenameMappings = queryTransformationResult.getTypeRenameMappings();
+        String serviceName = hydrationTransformation.getUnderlyingServiceHydration().getServiceName();
         ExecutionResultNode firstTopLevelResultNode = serviceResultNodesToOverallResult
                 .convertChildren(executionId,
                         rootResultNode.getChildren().get(0),
@@ -293,11 +374,11 @@ public class HydrationInputResolver {
                         true,
                         false,
                         transformationByResultField,
-                        typeRenameMappings,
+                        underlyingToOverallMappings.get(serviceName),
                         nadelContext,
                         queryTransformationResult.getRemovedFieldMap());
-        String serviceName = hydrationTransformation.getUnderlyingServiceHydration().getServiceName();
         resultComplexityAggregator.incrementServiceNodeCount(serviceName, firstTopLevelResultNode.getTotalNodeCount());
+        resultComplexityAggregator.incrementHydrationNodeCount(getHydrationSite(hydrationInputNode), firstTopLevelResultNode.getTotalNodeCount());
         firstTopLevelResultNode = firstTopLevelResultNode.withNewErrors(rootResultNode.getErrors());
         firstTopLevelResultNode = StrategyUtil.copyFieldInformation(hydrationInputNode, firstTopLevelResultNode);
 
@@ -314,22 +395,27 @@ public class HydrationInputResolver {
 
         HydrationTransformation hydrationTransformation = hydrationTransformations.get(0);
         Field originalField = hydrationTransformation.getOriginalField();
-        UnderlyingServiceHydration underlyingServiceHydration = hydrationTransformation.getUnderlyingServiceHydration();
-        Service service = getService(underlyingServiceHydration);
+        HydrationDescriptor hydrationDescriptor = hydrationTransformation.getHydrationDescriptor();
+        Service service = hydrationDescriptor.getService();
+        InstrumentationContext<Object> batchInstrumentationCtx = beginHydrationBatch(executionContext, service, hydrationInputs.get(0), hydrationInputs.size());
 
-        Field topLevelField = createBatchHydrationTopLevelField(executionContext, hydrationInputs, originalField, underlyingServiceHydration);
+        Field topLevelField = createBatchHydrationTopLevelField(executionContext, hydrationInputs, originalField, hydrationDescriptor);
 
         Operation operation = Operation.QUERY;
         String operationName = buildOperationName(service, executionContext);
 
         GraphQLCompositeType topLevelFieldType = (GraphQLCompositeType) unwrapAll(hydrationTransformation.getOriginalFieldType());
-        QueryTransformationResult queryTransformationResult = queryTransformer
-                .transformHydratedTopLevelField(executionContext, service.getUnderlyingSchema(), operationName, operation, topLevelField, topLevelFieldType, serviceExecutionHooks, service, serviceContexts.get(service));
+        QueryTransformationResult queryTransformationResult = PhaseInstrumentation.run(beginHydrationPhase(executionContext, service, instrumentation::beginQueryTransformation),
+                () -> queryTransformer
+                        .transformHydratedTopLevelField(executionContext, service.getUnderlyingSchema(), operationName, operation, topLevelField, topLevelFieldType, serviceExecutionHooks, service, serviceContexts.get(service)));
 
 
-        return serviceExecutor
-                .execute(executionContext, queryTransformationResult, service, operation, serviceContexts.get(service), true)
-                .thenApply(resultNode -> convertHydrationBatchResultIntoOverallResult(executionContext, hydrationInputs, resultNode, queryTransformationResult, resultComplexityAggregator))
+        CompletableFuture<List<ExecutionResultNode>> convertedResult = serviceExecutor
+                .executeBatchHydration(executionContext, queryTransformationResult, service, serviceContexts.get(service),
+                        hydrationDescriptor.getSourceArgument().getName(), hydrationDescriptor.getBatchSize())
+                .thenApply(resultNode -> convertHydrationResult(executionContext, service,
+                        () -> convertHydrationBatchResultIntoOverallResult(executionContext, hydrationInputs, resultNode, queryTransformationResult, resultComplexityAggregator)));
+        return PhaseInstrumentation.whenCompleted(batchInstrumentationCtx, convertedResult)
                 .whenComplete(this::possiblyLogException);
 
     }
@@ -337,11 +423,9 @@ public class HydrationInputResolver {
     private Field createBatchHydrationTopLevelField(ExecutionContext executionContext,
                                                     List<HydrationInputNode> hydrationInputs,
                                                     Field originalField,
-                                                    UnderlyingServiceHydration underlyingServiceHydration) {
-        String topLevelFieldName = underlyingServiceHydration.getTopLevelField();
-        List<RemoteArgumentDefinition> arguments = underlyingServiceHydration.getArguments();
-        RemoteArgumentDefinition argumentFromSourceObject = findOneOrNull(arguments, argument -> argument.getRemoteArgumentSource().getSourceType() == RemoteArgumentSource.SourceType.OBJECT_FIELD);
-        List<RemoteArgumentDefinition> extraArguments = filter(arguments, argument -> argument.getRemoteArgumentSource().getSourceType() == RemoteArgumentSource.SourceType.FIELD_ARGUMENT);
+                                                    HydrationDescriptor hydrationDescriptor) {
+        RemoteArgumentDefinition argumentFromSourceObject = hydrationDescriptor.getSourceArgument();
+        List<RemoteArgumentDefinition> extraArguments = hydrationDescriptor.getFieldArguments();
 
         List<Value> values = new ArrayList<>();
         for (ExecutionResultNode hydrationInputNode : hydrationInputs) {
@@ -359,12 +443,12 @@ public class HydrationInputResolver {
             }
         }
 
-        Field topLevelField = newField(topLevelFieldName)
+        Field topLevelField = newField(hydrationDescriptor.getTopLevelField())
                 .selectionSet(originalField.getSelectionSet())
                 .additionalData(NodeId.ID, UUID.randomUUID().toString())
                 .arguments(allArguments)
                 .build();
-        return addObjectIdentifier(getNadelContext(executionContext), topLevelField, underlyingServiceHydration.getObjectIdentifier());
+        return addObjectIdentifier(getNadelContext(executionContext), topLevelField, hydrationDescriptor.getObjectIdentifier());
     }
 
 
@@ -396,7 +480,8 @@ public class HydrationInputResolver {
 
         List<ExecutionResultNode> result = new ArrayList<>();
         Map<String, FieldTransformation> transformationByResultField = queryTransformationResult.getFieldIdToTransformation();
-        Map<String, String> typeRenameMappings = queryTransformationResult.getTypeRenameMappings();
+        String serviceName = hydrationInputNodes.get(0).getHydrationTransformation().getUnderlyingServiceHydration().getServiceName();
+        UnderlyingToOverallMapping underlyingToOverallMapping = underlyingToOverallMappings.get(serviceName);
 
         boolean first = true;
         for (HydrationInputNode hydrationInputNode : hydrationInputNodes) {
@@ -412,12 +497,12 @@ public class HydrationInputResolver {
                         true,
                         true,
                         transformationByResultField,
-                        typeRenameMappings,
+                        underlyingToOverallMapping,
                         getNadelContext(executionContext),
                         queryTransformationResult.getRemovedFieldMap());
 
-                String serviceName = hydrationInputNode.getHydrationTransformation().getUnderlyingServiceHydration().getServiceName();
                 resultComplexityAggregator.incrementServiceNodeCount(serviceName, overallResultNode.getTotalNodeCount());
+                resultComplexityAggregator.incrementHydrationNodeCount(getHydrationSite(hydrationInputNode), overallResultNode.getTotalNodeCount());
 
                 resultNode = copyFieldInformation(hydrationInputNode, overallResultNode);
             } else {
@@ -433,7 +518,32 @@ public class HydrationInputResolver {
 
     }
 
+    private InstrumentationContext<Object> beginHydrationBatch(ExecutionContext executionContext, Service service, HydrationInputNode inputNode, int batchSize) {
+        return instrumentation.beginHydrationBatch(new NadelInstrumentationHydrationBatchParameters(service, inputNode.getObjectType(), inputNode.getFieldDefinition(),
+                batchSize, executionContext, executionContext.getInstrumentationState()));
+    }
+
+    private InstrumentationContext<Object> beginHydrationPhase(ExecutionContext executionContext,
+                                                               Service service,
+                                                               Function<NadelInstrumentationServicePhaseParameters, InstrumentationContext<Object>> beginPhase) {
+        return beginPhase.apply(new NadelInstrumentationServicePhaseParameters(service, true, executionContext, executionContext.getInstrumentationState()));
+    }
+
+    private <T> T convertHydrationResult(ExecutionContext executionContext, Service service, Supplier<T> conversion) {
+        InstrumentationContext<Object> instrumentationContext = beginHydrationPhase(executionContext, service, instrumentation::beginOverallResultConversion);
+        return getNadelContext(executionContext).getRequestTimings().time(service.getName(), Timing.RESULT_CONVERSION,
+                () -> PhaseInstrumentation.run(instrumentationContext, conversion));
+    }
+
+    private String getHydrationSite(HydrationInputNode inputNode) {
+        return inputNode.getObjectType().getName() + "." + inputNode.getFieldDefinition().getName();
+    }
+
     private LeafExecutionResultNode createNullValue(HydrationInputNode inputNode) {
+        return createNullValue(inputNode, emptyList());
+    }
+
+    private LeafExecutionResultNode createNullValue(HydrationInputNode inputNode, List<GraphQLError> errors) {
         ElapsedTime elapsedTime = inputNode.getElapsedTime();
         return LeafExecutionResultNode.newLeafExecutionResultNode()
                 .objectType(inputNode.getObjectType())
@@ -443,6 +553,7 @@ public class HydrationInputResolver {
                 .fieldDefinition(inputNode.getFieldDefinition())
                 .completedValue(null)
                 .elapsedTime(elapsedTime)
+                .errors(errors)
                 .build();
     }
 
@@ -451,6 +562,10 @@ public class HydrationInputResolver {
         String objectIdentifier = nadelContext.getObjectIdentifierAlias();
         String inputNodeId = (String) inputNode.getCompletedValue();
         for (ExecutionResultNode resolvedNode : resolvedNodes) {
+            if (!(resolvedNode instanceof ObjectExecutionResultNode)) {
+                // left out because the result is over its size limits
+                continue;
+            }
             LeafExecutionResultNode idNode = getFieldByResultKey((ObjectExecutionResultNode) resolvedNode, objectIdentifier);
             assertNotNull(idNode, () -> String.format("no value found for object identifier: %s", objectIdentifier));
             Object id = idNode.getCompletedValue();
@@ -475,11 +590,6 @@ public class HydrationInputResolver {
         }
     }
 
-    @SuppressWarnings("OptionalGetWithoutIsPresent")
-    private Service getService(UnderlyingServiceHydration underlyingServiceHydration) {
-        return FpKit.findOne(services, service -> service.getName().equals(underlyingServiceHydration.getServiceName())).get();
-    }
-
     private String buildOperationName(Service service, ExecutionContext executionContext) {
         // to help with downstream debugging we put our name and their name in the operation
         NadelContext nadelContext = (NadelContext) executionContext.getContext();
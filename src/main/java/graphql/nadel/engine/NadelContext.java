@@ -3,10 +3,13 @@ package graphql.nadel.engine;
 import graphql.Internal;
 import graphql.language.Document;
 import graphql.language.OperationDefinition;
+import graphql.nadel.RequestTimings;
 import graphql.nadel.normalized.NormalizedQueryFromAst;
+import graphql.nadel.result.ResultComplexityAggregator;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 
 /**
  * We use a wrapper Nadel context object over top of the calling users supplied one
@@ -20,17 +23,42 @@ public class NadelContext {
     private final String originalOperationName;
     private final String objectIdentifierAlias;
     private final NormalizedQueryFromAst normalizedOverallQuery;
+    private final ParallelListConversion parallelListConversion;
+    private final Executor executor;
+    private final HydrationBatchWindow hydrationBatchWindow;
+    private final CacheHints cacheHints;
+    private final TopLevelFieldCache topLevelFieldCache;
+    private final ResultSizeBudget resultSizeBudget;
+    private final ResultComplexityAggregator resultComplexityAggregator;
+    private final RequestTimings requestTimings;
+    private volatile String hydrationsStoppedReason;
 
     private NadelContext(Object userSuppliedContext,
                          String underscoreTypeNameAlias,
                          String originalOperationName,
                          String objectIdentifierAlias,
-                         NormalizedQueryFromAst normalizedOverallQuery) {
+                         NormalizedQueryFromAst normalizedOverallQuery,
+                         ParallelListConversion parallelListConversion,
+                         Executor executor,
+                         HydrationBatchWindow hydrationBatchWindow,
+                         CacheHints cacheHints,
+                         TopLevelFieldCache topLevelFieldCache,
+                         ResultSizeBudget resultSizeBudget,
+                         ResultComplexityAggregator resultComplexityAggregator,
+                         RequestTimings requestTimings) {
         this.userSuppliedContext = userSuppliedContext;
         this.underscoreTypeNameAlias = underscoreTypeNameAlias;
         this.originalOperationName = originalOperationName;
         this.objectIdentifierAlias = objectIdentifierAlias;
         this.normalizedOverallQuery = normalizedOverallQuery;
+        this.parallelListConversion = parallelListConversion;
+        this.executor = executor;
+        this.hydrationBatchWindow = hydrationBatchWindow;
+        this.cacheHints = cacheHints;
+        this.topLevelFieldCache = topLevelFieldCache;
+        this.resultSizeBudget = resultSizeBudget;
+        this.resultComplexityAggregator = resultComplexityAggregator;
+        this.requestTimings = requestTimings;
     }
 
     public Object getUserSuppliedContext() {
@@ -67,11 +95,88 @@ public class NadelContext {
         return normalizedOverallQuery;
     }
 
+    public ParallelListConversion getParallelListConversion() {
+        return parallelListConversion;
+    }
+
+    /**
+     * @return the executor for the CPU bound stages of the service calls or null if they run on the threads that complete the service calls
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return the window that merges the batch hydration calls of different requests or null if they are not merged
+     */
+    public HydrationBatchWindow getHydrationBatchWindow() {
+        return hydrationBatchWindow;
+    }
+
+    /**
+     * @return where the cache hints of the service calls are recorded or null if the result isn't cached
+     */
+    public CacheHints getCacheHints() {
+        return cacheHints;
+    }
+
+    /**
+     * @return the cache for the results of top level fields or null if they are not cached
+     */
+    public TopLevelFieldCache getTopLevelFieldCache() {
+        return topLevelFieldCache;
+    }
+
+    /**
+     * @return the budget the size of the result is counted against or null if the size is not limited
+     */
+    public ResultSizeBudget getResultSizeBudget() {
+        return resultSizeBudget;
+    }
+
+    /**
+     * @return where the service calls of the request are recorded or null if they are not recorded
+     */
+    public ResultComplexityAggregator getResultComplexityAggregator() {
+        return resultComplexityAggregator;
+    }
+
+    /**
+     * @return where the time of the request is recorded
+     */
+    public RequestTimings getRequestTimings() {
+        return requestTimings;
+    }
+
+    /**
+     * The hydrated fields that are not resolved yet are left null from now on, with an error with the given message
+     *
+     * @param reason the message of the errors
+     */
+    public void stopHydrations(String reason) {
+        this.hydrationsStoppedReason = reason;
+    }
+
+    /**
+     * @return why hydrated fields are left null or null if they are resolved
+     */
+    public String getHydrationsStoppedReason() {
+        return hydrationsStoppedReason;
+    }
+
     public static class Builder {
         private Object userSuppliedContext;
         private String originalOperationName;
         private String artificialFieldsUUID;
         private NormalizedQueryFromAst normalizedOverallQuery;
+        private ParallelListConversion parallelListConversion = ParallelListConversion.SEQUENTIAL;
+        private Executor executor;
+        private HydrationBatchWindow hydrationBatchWindow;
+        private CacheHints cacheHints;
+        private TopLevelFieldCache topLevelFieldCache;
+        private ResultSizeBudget resultSizeBudget;
+        private ResultComplexityAggregator resultComplexityAggregator;
+        private RequestTimings requestTimings = new RequestTimings();
 
 
         public Builder normalizedOverallQuery(NormalizedQueryFromAst normalizedQueryFromAst) {
@@ -102,9 +207,49 @@ public class NadelContext {
         }
 
 
+        public Builder parallelListConversion(ParallelListConversion parallelListConversion) {
+            this.parallelListConversion = parallelListConversion;
+            return this;
+        }
+
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public Builder hydrationBatchWindow(HydrationBatchWindow hydrationBatchWindow) {
+            this.hydrationBatchWindow = hydrationBatchWindow;
+            return this;
+        }
+
+        public Builder cacheHints(CacheHints cacheHints) {
+            this.cacheHints = cacheHints;
+            return this;
+        }
+
+        public Builder topLevelFieldCache(TopLevelFieldCache topLevelFieldCache) {
+            this.topLevelFieldCache = topLevelFieldCache;
+            return this;
+        }
+
+        public Builder resultSizeBudget(ResultSizeBudget resultSizeBudget) {
+            this.resultSizeBudget = resultSizeBudget;
+            return this;
+        }
+
+        public Builder resultComplexityAggregator(ResultComplexityAggregator resultComplexityAggregator) {
+            this.resultComplexityAggregator = resultComplexityAggregator;
+            return this;
+        }
+
+        public Builder requestTimings(RequestTimings requestTimings) {
+            this.requestTimings = requestTimings;
+            return this;
+        }
+
         public NadelContext build() {
             String uuid = artificialFieldsUUID != null ? artificialFieldsUUID : UUID.randomUUID().toString().replaceAll("-", "_");
-            return new NadelContext(userSuppliedContext, mkUnderscoreTypeNameAlias(uuid), originalOperationName, createObjectIdentifierAlias(uuid), normalizedOverallQuery);
+            return new NadelContext(userSuppliedContext, mkUnderscoreTypeNameAlias(uuid), originalOperationName, createObjectIdentifierAlias(uuid), normalizedOverallQuery, parallelListConversion, executor, hydrationBatchWindow, cacheHints, topLevelFieldCache, resultSizeBudget, resultComplexityAggregator, requestTimings);
         }
     }
 }
@@ -12,12 +12,17 @@ import graphql.nadel.BenchmarkContext;
 import graphql.nadel.FieldInfo;
 import graphql.nadel.FieldInfos;
 import graphql.nadel.Operation;
+import graphql.nadel.RequestTimings.Timing;
 import graphql.nadel.Service;
 import graphql.nadel.engine.transformation.FieldTransformation;
+import graphql.nadel.engine.transformation.HydrationDescriptors;
 import graphql.nadel.hooks.CreateServiceContextParams;
 import graphql.nadel.hooks.ResultRewriteParams;
 import graphql.nadel.hooks.ServiceExecutionHooks;
+import graphql.nadel.hooks.TopLevelFieldCacheParams;
 import graphql.nadel.instrumentation.NadelInstrumentation;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationPipelineStageParameters.Stage;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationServicePhaseParameters;
 import graphql.nadel.result.ExecutionResultNode;
 import graphql.nadel.result.ResultComplexityAggregator;
 import graphql.nadel.result.RootExecutionResultNode;
@@ -30,6 +35,7 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 import static graphql.Assert.assertNotEmpty;
@@ -38,21 +44,24 @@ import static graphql.nadel.result.RootExecutionResultNode.newRootExecutionResul
 import static graphql.nadel.util.FpKit.map;
 import static java.lang.String.format;
 import static java.util.Collections.singletonList;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 
 @Internal
 public class NadelExecutionStrategy {
 
     private final ExecutionStepInfoFactory executionStepInfoFactory = new ExecutionStepInfoFactory();
     private final ServiceResultNodesToOverallResult serviceResultNodesToOverallResult = new ServiceResultNodesToOverallResult();
-    private final OverallQueryTransformer queryTransformer = new OverallQueryTransformer();
+    private final OverallQueryTransformer queryTransformer;
 
 
     private final FieldInfos fieldInfos;
     private final GraphQLSchema overallSchema;
     private final NadelInstrumentation instrumentation;
     private final ServiceExecutor serviceExecutor;
+    private final PipelineStages pipelineStages;
     private final HydrationInputResolver hydrationInputResolver;
     private final ServiceExecutionHooks serviceExecutionHooks;
+    private final Map<String, UnderlyingToOverallMapping> underlyingToOverallMappings;
 
     private static final Logger log = LoggerFactory.getLogger(NadelExecutionStrategy.class);
 
@@ -61,13 +70,27 @@ public class NadelExecutionStrategy {
                                   GraphQLSchema overallSchema,
                                   NadelInstrumentation instrumentation,
                                   ServiceExecutionHooks serviceExecutionHooks) {
+        this(services, fieldInfos, overallSchema, instrumentation, serviceExecutionHooks,
+                UnderlyingToOverallMapping.forServices(services, overallSchema), HydrationDescriptors.compile(services, overallSchema));
+    }
+
+    public NadelExecutionStrategy(List<Service> services,
+                                  FieldInfos fieldInfos,
+                                  GraphQLSchema overallSchema,
+                                  NadelInstrumentation instrumentation,
+                                  ServiceExecutionHooks serviceExecutionHooks,
+                                  Map<String, UnderlyingToOverallMapping> underlyingToOverallMappings,
+                                  HydrationDescriptors hydrationDescriptors) {
         this.overallSchema = overallSchema;
         this.instrumentation = instrumentation;
         assertNotEmpty(services);
         this.fieldInfos = fieldInfos;
         this.serviceExecutionHooks = serviceExecutionHooks;
+        this.underlyingToOverallMappings = underlyingToOverallMappings;
+        this.queryTransformer = new OverallQueryTransformer(hydrationDescriptors);
         this.serviceExecutor = new ServiceExecutor(instrumentation);
-        this.hydrationInputResolver = new HydrationInputResolver(services, overallSchema, serviceExecutor, serviceExecutionHooks);
+        this.pipelineStages = new PipelineStages(instrumentation);
+        this.hydrationInputResolver = new HydrationInputResolver(overallSchema, serviceExecutor, instrumentation, serviceExecutionHooks, underlyingToOverallMappings, hydrationDescriptors);
     }
 
     public CompletableFuture<RootExecutionResultNode> execute(ExecutionContext executionContext, FieldSubSelection fieldSubSelection, ResultComplexityAggregator resultComplexityAggregator) {
@@ -78,8 +101,8 @@ public class NadelExecutionStrategy {
         CompletableFuture<List<OneServiceExecution>> oneServiceExecutionsCF = prepareServiceExecution(executionContext, fieldSubSelection, rootExecutionStepInfo);
         return oneServiceExecutionsCF.thenCompose(oneServiceExecutions -> {
             Map<Service, Object> serviceContextsByService = serviceContextsByService(oneServiceExecutions);
-            List<CompletableFuture<RootExecutionResultNode>> resultNodes =
-                    executeTopLevelFields(executionContext, nadelContext, operation, oneServiceExecutions, resultComplexityAggregator);
+            List<CompletableFuture<RootExecutionResultNode>> resultNodes = serviceExecutor.batchCalls(() ->
+                    executeTopLevelFields(executionContext, nadelContext, operation, oneServiceExecutions, resultComplexityAggregator));
 
             CompletableFuture<RootExecutionResultNode> rootResult = mergeTrees(resultNodes);
             return rootResult
@@ -137,73 +160,153 @@ public class NadelExecutionStrategy {
         List<CompletableFuture<RootExecutionResultNode>> resultNodes = new ArrayList<>();
         for (OneServiceExecution oneServiceExecution : oneServiceExecutions) {
             Service service = oneServiceExecution.service;
-            ExecutionStepInfo esi = oneServiceExecution.stepInfo;
             Object serviceContext = oneServiceExecution.serviceContext;
 
             String operationName = buildOperationName(service, executionContext);
-            MergedField mergedField = esi.getField();
+            MergedField mergedField = oneServiceExecution.stepInfo.getField();
 
             //
             // take the original query and transform it into the underlying query needed for that top level field
             //
             GraphQLSchema underlyingSchema = service.getUnderlyingSchema();
-            QueryTransformationResult queryTransform = queryTransformer
-                    .transformMergedFields(executionContext, underlyingSchema, operationName, operation, singletonList(mergedField), serviceExecutionHooks, service, serviceContext);
-
-
-            Map<String, FieldTransformation> fieldIdToTransformation = queryTransform.getFieldIdToTransformation();
-            Map<String, String> typeRenameMappings = queryTransform.getTypeRenameMappings();
-
-            ExecutionContext newExecutionContext = buildServiceVariableOverrides(executionContext, queryTransform.getVariableValues());
-
-
-            CompletableFuture<RootExecutionResultNode> serviceCallResult = serviceExecutor
-                    .execute(newExecutionContext, queryTransform, service, operation, serviceContext, false);
-
-            CompletableFuture<RootExecutionResultNode> convertedResult = serviceCallResult
-                    .thenApply(resultNode -> {
-                        if (nadelContext.getUserSuppliedContext() instanceof BenchmarkContext) {
-                            BenchmarkContext benchmarkContext = (BenchmarkContext) nadelContext.getUserSuppliedContext();
-                            benchmarkContext.serviceResultNodesToOverallResult.executionId = newExecutionContext.getExecutionId();
-                            benchmarkContext.serviceResultNodesToOverallResult.resultNode = resultNode;
-                            benchmarkContext.serviceResultNodesToOverallResult.overallSchema = overallSchema;
-                            benchmarkContext.serviceResultNodesToOverallResult.correctRootNode = resultNode;
-                            benchmarkContext.serviceResultNodesToOverallResult.fieldIdToTransformation = fieldIdToTransformation;
-                            benchmarkContext.serviceResultNodesToOverallResult.typeRenameMappings = typeRenameMappings;
-                            benchmarkContext.serviceResultNodesToOverallResult.nadelContext = nadelContext;
-                            benchmarkContext.serviceResultNodesToOverallResult.transformationMetadata = queryTransform.getRemovedFieldMap();
-                        }
-                        return (RootExecutionResultNode) serviceResultNodesToOverallResult
-                                .convert(newExecutionContext.getExecutionId(),
-                                        resultNode,
-                                        overallSchema,
-                                        resultNode,
-                                        fieldIdToTransformation,
-                                        typeRenameMappings,
-                                        nadelContext,
-                                        queryTransform.getRemovedFieldMap());
-                    });
+            CompletableFuture<QueryTransformationResult> queryTransformCF = pipelineStages.supply(Stage.QUERY_TRANSFORMATION, service, executionContext, () -> PhaseInstrumentation
+                    .run(instrumentation.beginQueryTransformation(new NadelInstrumentationServicePhaseParameters(service, false, executionContext, executionContext.getInstrumentationState())),
+                            () -> queryTransformer.transformMergedFields(executionContext, underlyingSchema, operationName, operation, singletonList(mergedField), serviceExecutionHooks, service, serviceContext)));
 
-            //set the result node count for this service
-            convertedResult.thenAccept(rootExecutionResultNode -> resultComplexityAggregator.incrementServiceNodeCount(service.getName(), rootExecutionResultNode.getTotalNodeCount()));
-
-            CompletableFuture<RootExecutionResultNode> serviceResult = convertedResult
-                    .thenCompose(rootResultNode -> {
-                        ResultRewriteParams resultRewriteParams = ResultRewriteParams.newParameters()
-                                .from(executionContext)
-                                .service(service)
-                                .serviceContext(serviceContext)
-                                .executionStepInfo(esi)
-                                .resultNode(rootResultNode)
-                                .build();
-                        return serviceExecutionHooks.resultRewrite(resultRewriteParams);
-                    });
+            resultNodes.add(queryTransformCF.thenCompose(queryTransform ->
+                    executeTopLevelField(executionContext, nadelContext, operation, oneServiceExecution, queryTransform, resultComplexityAggregator)));
+        }
+        return resultNodes;
+    }
+
+    private CompletableFuture<RootExecutionResultNode> executeTopLevelField(ExecutionContext executionContext,
+                                                                            NadelContext nadelContext,
+                                                                            Operation operation,
+                                                                            OneServiceExecution oneServiceExecution,
+                                                                            QueryTransformationResult queryTransform,
+                                                                            ResultComplexityAggregator resultComplexityAggregator) {
+        Service service = oneServiceExecution.service;
+        ExecutionStepInfo esi = oneServiceExecution.stepInfo;
+        Object serviceContext = oneServiceExecution.serviceContext;
+
+        Map<String, FieldTransformation> fieldIdToTransformation = queryTransform.getFieldIdToTransformation();
+        UnderlyingToOverallMapping underlyingToOverallMapping = underlyingToOverallMappings.get(service.getName());
+
+        ExecutionContext newExecutionContext = buildServiceVariableOverrides(executionContext, queryTransform.getVariableValues());
+
+
+        if (nadelContext.getUserSuppliedContext() instanceof BenchmarkContext) {
+            BenchmarkContext benchmarkContext = (BenchmarkContext) nadelContext.getUserSuppliedContext();
+            benchmarkContext.serviceResultNodesToOverallResult.executionId = newExecutionContext.getExecutionId();
+            benchmarkContext.serviceResultNodesToOverallResult.overallSchema = overallSchema;
+            benchmarkContext.serviceResultNodesToOverallResult.fieldIdToTransformation = fieldIdToTransformation;
+            benchmarkContext.serviceResultNodesToOverallResult.underlyingToOverallMapping = underlyingToOverallMapping;
+            benchmarkContext.serviceResultNodesToOverallResult.nadelContext = nadelContext;
+            benchmarkContext.serviceResultNodesToOverallResult.transformationMetadata = queryTransform.getRemovedFieldMap();
+        }
+
+        //
+        // cached results of the field skip the service call and the conversion
+        Object topLevelFieldCacheKey = getTopLevelFieldCacheKey(executionContext, newExecutionContext, nadelContext, operation, oneServiceExecution, queryTransform);
+        RootExecutionResultNode cachedResult = topLevelFieldCacheKey != null ? nadelContext.getTopLevelFieldCache().get(topLevelFieldCacheKey) : null;
+        CompletableFuture<RootExecutionResultNode> convertedResult;
+        if (cachedResult != null) {
+            convertedResult = completedFuture(cachedResult);
+        } else {
+            convertedResult = executeAndConvert(newExecutionContext, nadelContext, operation, oneServiceExecution, queryTransform, underlyingToOverallMapping);
+            if (topLevelFieldCacheKey != null) {
+                convertedResult = convertedResult.thenApply(rootResultNode -> {
+                    nadelContext.getTopLevelFieldCache().put(topLevelFieldCacheKey, rootResultNode);
+                    return rootResultNode;
+                });
+            }
+        }
 
+        CompletableFuture<RootExecutionResultNode> serviceResult = convertedResult
+                .thenCompose(rootResultNode -> {
+                    //set the result node count for this service and field, before the result is passed on
+                    resultComplexityAggregator.incrementServiceNodeCount(service.getName(), rootResultNode.getTotalNodeCount());
+                    resultComplexityAggregator.incrementFieldNodeCount(esi.getField().getName(), rootResultNode.getTotalNodeCount());
+
+                    ResultRewriteParams resultRewriteParams = ResultRewriteParams.newParameters()
+                            .from(executionContext)
+                            .service(service)
+                            .serviceContext(serviceContext)
+                            .executionStepInfo(esi)
+                            .resultNode(rootResultNode)
+                            .build();
+                    return serviceExecutionHooks.resultRewrite(resultRewriteParams);
+                });
+        return serviceResult;
+    }
 
-            resultNodes.add(serviceResult);
+    private CompletableFuture<RootExecutionResultNode> executeAndConvert(ExecutionContext newExecutionContext,
+                                                                         NadelContext nadelContext,
+                                                                         Operation operation,
+                                                                         OneServiceExecution oneServiceExecution,
+                                                                         QueryTransformationResult queryTransform,
+                                                                         UnderlyingToOverallMapping underlyingToOverallMapping) {
+        Service service = oneServiceExecution.service;
+        Object serviceContext = oneServiceExecution.serviceContext;
+        Map<String, FieldTransformation> fieldIdToTransformation = queryTransform.getFieldIdToTransformation();
+
+        //
+        // unless the query has hydrated fields the result nodes are created for the overall schema straight away,
+        // the second pass only converts the results of queries the plan of the converter doesn't cover
+        ServiceResultToOverallResultNodes resultToOverallResultNodes = ServiceResultToOverallResultNodes.forQuery(queryTransform.getRemovedFieldMap(),
+                underlyingToOverallMapping, nadelContext);
+        CompletableFuture<RootExecutionResultNode> serviceCallResult = resultToOverallResultNodes != null
+                ? serviceExecutor.execute(newExecutionContext, queryTransform, service, operation, serviceContext, false, resultToOverallResultNodes)
+                : serviceExecutor.execute(newExecutionContext, queryTransform, service, operation, serviceContext, false);
+
+        // runs on the thread that created the underlying result nodes, see ServiceExecutor
+        return serviceCallResult
+                .thenApply(resultNode -> {
+                    if (resultToOverallResultNodes != null && resultToOverallResultNodes.isOverallResult()) {
+                        return resultNode;
+                    }
+                    if (nadelContext.getUserSuppliedContext() instanceof BenchmarkContext) {
+                        BenchmarkContext benchmarkContext = (BenchmarkContext) nadelContext.getUserSuppliedContext();
+                        benchmarkContext.serviceResultNodesToOverallResult.resultNode = resultNode;
+                        benchmarkContext.serviceResultNodesToOverallResult.correctRootNode = resultNode;
+                    }
+                    NadelInstrumentationServicePhaseParameters parameters = new NadelInstrumentationServicePhaseParameters(service, false, newExecutionContext,
+                            newExecutionContext.getInstrumentationState());
+                    return nadelContext.getRequestTimings().time(service.getName(), Timing.RESULT_CONVERSION, () -> PhaseInstrumentation
+                            .run(instrumentation.beginOverallResultConversion(parameters), () -> (RootExecutionResultNode) serviceResultNodesToOverallResult
+                                    .convert(newExecutionContext.getExecutionId(),
+                                            resultNode,
+                                            overallSchema,
+                                            resultNode,
+                                            fieldIdToTransformation,
+                                            underlyingToOverallMapping,
+                                            nadelContext,
+                                            queryTransform.getRemovedFieldMap())));
+                });
+    }
 
+    private Object getTopLevelFieldCacheKey(ExecutionContext executionContext,
+                                            ExecutionContext newExecutionContext,
+                                            NadelContext nadelContext,
+                                            Operation operation,
+                                            OneServiceExecution oneServiceExecution,
+                                            QueryTransformationResult queryTransform) {
+        TopLevelFieldCache topLevelFieldCache = nadelContext.getTopLevelFieldCache();
+        if (topLevelFieldCache == null || operation != Operation.QUERY) {
+            return null;
         }
-        return resultNodes;
+        TopLevelFieldCacheParams params = TopLevelFieldCacheParams.newParameters()
+                .from(executionContext)
+                .service(oneServiceExecution.service)
+                .serviceContext(oneServiceExecution.serviceContext)
+                .executionStepInfo(oneServiceExecution.stepInfo)
+                .build();
+        Optional<Object> partition = serviceExecutionHooks.getTopLevelFieldCachePartition(params);
+        if (!partition.isPresent()) {
+            return null;
+        }
+        Map<String, Object> variables = serviceExecutor.buildReferencedVariables(newExecutionContext, queryTransform);
+        return topLevelFieldCache.createKey(oneServiceExecution.service, queryTransform, variables, partition.get(), nadelContext);
     }
 
 
@@ -15,6 +15,7 @@ import graphql.nadel.Operation;
 import graphql.nadel.Service;
 import graphql.nadel.dsl.TypeMappingDefinition;
 import graphql.nadel.engine.transformation.FieldTransformation;
+import graphql.nadel.engine.transformation.HydrationDescriptors;
 import graphql.nadel.engine.transformation.OverallTypeInformation;
 import graphql.nadel.engine.transformation.RecordOverallTypeInformation;
 import graphql.nadel.engine.transformation.TransformationMetadata;
@@ -53,7 +54,18 @@ public class OverallQueryTransformer {
     private static final Logger log = LoggerFactory.getLogger(OverallQueryTransformer.class);
 
     private final RecordOverallTypeInformation recordOverallTypeInformation = new RecordOverallTypeInformation();
+    private final HydrationDescriptors hydrationDescriptors;
 
+    public OverallQueryTransformer() {
+        this(null);
+    }
+
+    /**
+     * @param hydrationDescriptors the compiled hydrations or null if they should be compiled whenever a hydration is transformed
+     */
+    public OverallQueryTransformer(HydrationDescriptors hydrationDescriptors) {
+        this.hydrationDescriptors = hydrationDescriptors;
+    }
 
     QueryTransformationResult transformHydratedTopLevelField(
             ExecutionContext executionContext,
@@ -69,7 +81,6 @@ public class OverallQueryTransformer {
         long startTime = System.currentTimeMillis();
         Set<String> referencedFragmentNames = new LinkedHashSet<>();
         Map<String, FieldTransformation> fieldIdToTransformation = new LinkedHashMap<>();
-        Map<String, String> typeRenameMappings = new LinkedHashMap<>();
         Map<String, VariableDefinition> referencedVariables = new LinkedHashMap<>();
         Map<String, Object> variableValues = new LinkedHashMap<>(executionContext.getVariables());
         TransformationMetadata removedFieldMap = new TransformationMetadata();
@@ -83,7 +94,6 @@ public class OverallQueryTransformer {
                 topLevelField.getSelectionSet(),
                 topLevelFieldTypeOverall,
                 fieldIdToTransformation,
-                typeRenameMappings,
                 referencedFragmentNames,
                 referencedVariables,
                 nadelContext,
@@ -98,14 +108,13 @@ public class OverallQueryTransformer {
 
         transformedTopLevelField = ArtificialFieldUtils.maybeAddUnderscoreTypeName(nadelContext, transformedTopLevelField, topLevelFieldTypeOverall);
 
-        List<VariableDefinition> variableDefinitions = buildReferencedVariableDefinitions(referencedVariables, executionContext.getGraphQLSchema(), typeRenameMappings);
+        List<VariableDefinition> variableDefinitions = buildReferencedVariableDefinitions(referencedVariables, executionContext.getGraphQLSchema());
         List<String> referencedVariableNames = new ArrayList<>(referencedVariables.keySet());
 
         Map<String, FragmentDefinition> transformedFragments = transformFragments(executionContext,
                 underlyingSchema,
                 executionContext.getFragmentsByName(),
                 fieldIdToTransformation,
-                typeRenameMappings,
                 referencedFragmentNames,
                 referencedVariables,
                 serviceExecutionHooks,
@@ -127,11 +136,11 @@ public class OverallQueryTransformer {
         MergedField transformedMergedField = MergedField.newMergedField(transformedTopLevelField).build();
         long elapsedTime = System.currentTimeMillis() - startTime;
         log.debug("OverallQueryTransformer.transformHydratedTopLevelField time: {}, executionId: {}", elapsedTime, executionContext.getExecutionId());
+        removedFieldMap.compileUnapplyPlan(fieldIdToTransformation);
         return new QueryTransformationResult(
                 newDocument,
                 operationDefinition,
                 Collections.singletonList(transformedMergedField),
-                typeRenameMappings,
                 referencedVariableNames,
                 fieldIdToTransformation,
                 transformedFragments,
@@ -153,7 +162,6 @@ public class OverallQueryTransformer {
         NadelContext nadelContext = executionContext.getContext();
         Set<String> fragmentsDirectlyReferenced = new LinkedHashSet<>();
         Map<String, FieldTransformation> fieldIdToTransformation = new LinkedHashMap<>();
-        Map<String, String> typeRenameMappings = new LinkedHashMap<>();
         Map<String, VariableDefinition> referencedVariables = new LinkedHashMap<>();
         Map<String, Object> variableValues = new LinkedHashMap<>(executionContext.getVariables());
         TransformationMetadata removedFieldMap = new TransformationMetadata();
@@ -172,8 +180,7 @@ public class OverallQueryTransformer {
                         field,
                         rootType,
                         fieldIdToTransformation,
-                        typeRenameMappings,
-                        fragmentsDirectlyReferenced,
+                                fragmentsDirectlyReferenced,
                         referencedVariables,
                         nadelContext,
                         serviceExecutionHooks,
@@ -197,7 +204,7 @@ public class OverallQueryTransformer {
             transformedMergedFields.add(transformedMergedField);
 
         }
-        List<VariableDefinition> variableDefinitions = buildReferencedVariableDefinitions(referencedVariables, executionContext.getGraphQLSchema(), typeRenameMappings);
+        List<VariableDefinition> variableDefinitions = buildReferencedVariableDefinitions(referencedVariables, executionContext.getGraphQLSchema());
         List<String> referencedVariableNames = new ArrayList<>(referencedVariables.keySet());
 
         // create a new Document including referenced Fragments
@@ -215,7 +222,6 @@ public class OverallQueryTransformer {
                 underlyingSchema,
                 executionContext.getFragmentsByName(),
                 fieldIdToTransformation,
-                typeRenameMappings,
                 fragmentsDirectlyReferenced,
                 referencedVariables,
                 serviceExecutionHooks,
@@ -228,11 +234,11 @@ public class OverallQueryTransformer {
 
         long elapsedTime = System.currentTimeMillis() - startTime;
         log.debug("OverallQueryTransformer.transformMergedFields time: {}, executionId: {}", elapsedTime, executionContext.getExecutionId());
+        removedFieldMap.compileUnapplyPlan(fieldIdToTransformation);
         return new QueryTransformationResult(
                 newDocument,
                 operationDefinition,
                 transformedMergedFields,
-                typeRenameMappings,
                 referencedVariableNames,
                 fieldIdToTransformation,
                 transformedFragments,
@@ -254,7 +260,6 @@ public class OverallQueryTransformer {
                                                                GraphQLSchema underlyingSchema,
                                                                Map<String, FragmentDefinition> fragments,
                                                                Map<String, FieldTransformation> transformationByResultField,
-                                                               Map<String, String> typeRenameMappings,
                                                                Set<String> referencedFragmentNames,
                                                                Map<String, VariableDefinition> referencedVariables,
                                                                ServiceExecutionHooks serviceExecutionHooks,
@@ -273,8 +278,7 @@ public class OverallQueryTransformer {
                     underlyingSchema,
                     fragments.get(fragmentName),
                     transformationByResultField,
-                    typeRenameMappings,
-                    newReferencedFragments,
+                        newReferencedFragments,
                     referencedVariables,
                     serviceExecutionHooks,
                     variableValues,
@@ -293,7 +297,6 @@ public class OverallQueryTransformer {
                                                            GraphQLSchema underlyingSchema,
                                                            FragmentDefinition fragmentDefinitionWithoutTypeInfo,
                                                            Map<String, FieldTransformation> transformationByResultField,
-                                                           Map<String, String> typeRenameMappings,
                                                            Set<String> referencedFragmentNames,
                                                            Map<String, VariableDefinition> referencedVariables,
                                                            ServiceExecutionHooks serviceExecutionHooks,
@@ -314,7 +317,6 @@ public class OverallQueryTransformer {
                 executionContext,
                 underlyingSchema,
                 transformationByResultField,
-                typeRenameMappings,
                 referencedFragmentNames,
                 referencedVariables,
                 nadelContext,
@@ -323,7 +325,8 @@ public class OverallQueryTransformer {
                 variableValues,
                 service,
                 serviceContext,
-                removedFieldMap
+                removedFieldMap,
+                hydrationDescriptors
         );
         Map<Class<?>, Object> rootVars = new LinkedHashMap<>();
         rootVars.put(UnderlyingTypeContext.class, newUnderlyingTypeContext().build());
@@ -341,8 +344,7 @@ public class OverallQueryTransformer {
     }
 
     private List<VariableDefinition> buildReferencedVariableDefinitions(Map<String, VariableDefinition> referencedVariables,
-                                                                        GraphQLSchema graphQLSchema,
-                                                                        Map<String, String> typeRenameMappings) {
+                                                                        GraphQLSchema graphQLSchema) {
         List<VariableDefinition> variableDefinitions = new ArrayList<>();
         for (VariableDefinition vd : referencedVariables.values()) {
             TypeInfo typeInfo = TypeInfo.typeInfo(vd.getType());
@@ -350,7 +352,6 @@ public class OverallQueryTransformer {
             GraphQLType type = graphQLSchema.getType(typeInfo.getName());
             TypeMappingDefinition mappingDefinition = getTypeMappingDefinitionFor(type);
             if (mappingDefinition != null) {
-                typeRenameMappings.put(mappingDefinition.getUnderlyingName(), mappingDefinition.getOverallName());
                 String newName = mappingDefinition.getUnderlyingName();
                 TypeInfo newTypeInfo = typeInfo.renameAs(newName);
                 vd = vd.transform(builder -> builder.type(newTypeInfo.getRawType()));
@@ -365,7 +366,6 @@ public class OverallQueryTransformer {
                                              T nodeWithoutTypeInfo,
                                              GraphQLCompositeType parentTypeOverall,
                                              Map<String, FieldTransformation> fieldIdToTransformation,
-                                             Map<String, String> typeRenameMappings,
                                              Set<String> referencedFragmentNames,
                                              Map<String, VariableDefinition> referencedVariables,
                                              NadelContext nadelContext,
@@ -384,7 +384,6 @@ public class OverallQueryTransformer {
                 executionContext,
                 underlyingSchema,
                 fieldIdToTransformation,
-                typeRenameMappings,
                 referencedFragmentNames,
                 referencedVariables,
                 nadelContext,
@@ -393,10 +392,11 @@ public class OverallQueryTransformer {
                 variableValues,
                 service,
                 serviceContext,
-                removedFieldMap
+                removedFieldMap,
+                hydrationDescriptors
         );
         Map<Class<?>, Object> rootVars = new LinkedHashMap<>();
-        String underlyingParentName = getUnderlyingTypeNameAndRecordMapping(parentTypeOverall, typeRenameMappings);
+        String underlyingParentName = getUnderlyingTypeName(parentTypeOverall);
         GraphQLOutputType underlyingSchemaParent = (GraphQLOutputType) underlyingSchema.getType(underlyingParentName);
         rootVars.put(UnderlyingTypeContext.class, newUnderlyingTypeContext()
                 .outputTypeUnderlying(underlyingSchemaParent)
@@ -415,12 +415,11 @@ public class OverallQueryTransformer {
         return (T) newNode;
     }
 
-    private String getUnderlyingTypeNameAndRecordMapping(GraphQLCompositeType typeOverall, Map<String, String> typeRenameMappings) {
+    private String getUnderlyingTypeName(GraphQLCompositeType typeOverall) {
         TypeMappingDefinition mappingDefinition = getTypeMappingDefinitionFor(typeOverall);
         if (mappingDefinition == null) {
             return typeOverall.getName();
         }
-        typeRenameMappings.put(mappingDefinition.getUnderlyingName(), mappingDefinition.getOverallName());
         return mappingDefinition.getUnderlyingName();
     }
 
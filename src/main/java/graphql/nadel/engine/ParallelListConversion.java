@@ -0,0 +1,123 @@
+package graphql.nadel.engine;
+
+import graphql.Internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import static graphql.Assert.assertTrue;
+
+/**
+ * Converts the elements of large lists in a service result on a {@link ForkJoinPool} instead of one after the other on
+ * the thread that completed the service call.
+ * <p>
+ * The elements of a list are split into chunks which are converted in parallel. The converted elements are returned
+ * in the order of the list. Lists smaller than the threshold are always converted sequentially: for them the overhead
+ * of the tasks is bigger than the gain.
+ * <p>
+ * The conversion of a list waits for all of its chunks. The result conversion of a service call runs on the pool
+ * or on the executor of Nadel, see {@link PipelineStages}, so it is never an I/O thread that waits.
+ */
+@Internal
+public class ParallelListConversion {
+
+    public static final ParallelListConversion SEQUENTIAL = new ParallelListConversion(null, Integer.MAX_VALUE);
+
+    // every worker of the pool gets a few chunks so that uneven chunks are balanced out
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * @param pool      the pool to convert large lists on or null to convert all lists sequentially
+     * @param threshold the minimum size of a list to be converted in parallel
+     */
+    public ParallelListConversion(ForkJoinPool pool, int threshold) {
+        assertTrue(threshold > 0, () -> "the threshold for parallel list conversion must be positive");
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @param size the size of a list
+     *
+     * @return true if a list of this size is converted in parallel
+     */
+    public boolean isParallel(int size) {
+        return pool != null && size >= threshold;
+    }
+
+    /**
+     * Converts the elements 0 to size - 1 of a list. On a thread of the pool the chunks are forked onto the pool and
+     * the thread helps to convert them, on any other thread the call blocks until the pool has converted them.
+     *
+     * @param size              the size of the list
+     * @param converterPerChunk creates the converter for a chunk of the list. Every chunk gets its own converter, so the
+     *                          converters don't have to be thread safe.
+     * @param <R>               the type of the converted elements
+     *
+     * @return the converted elements in the order of the list, which can contain null
+     */
+    @SuppressWarnings("unchecked")
+    public <R> List<R> convert(int size, Supplier<IntFunction<R>> converterPerChunk) {
+        Object[] results = new Object[size];
+        if (!isParallel(size)) {
+            new ConvertChunk(results, converterPerChunk, 0, size, size).compute();
+        } else {
+            int chunkSize = Math.max(1, size / (pool.getParallelism() * CHUNKS_PER_WORKER));
+            ConvertChunk task = new ConvertChunk(results, converterPerChunk, 0, size, chunkSize);
+            if (ForkJoinTask.getPool() == pool) {
+                // a list inside a list that is already converted on the pool
+                task.invoke();
+            } else {
+                pool.invoke(task);
+            }
+        }
+        return (List<R>) new ArrayList<>(Arrays.asList(results));
+    }
+
+    private static class ConvertChunk extends RecursiveAction {
+        private final Object[] results;
+        private final Supplier<? extends IntFunction<?>> converterPerChunk;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        ConvertChunk(Object[] results, Supplier<? extends IntFunction<?>> converterPerChunk, int from, int to, int chunkSize) {
+            this.results = results;
+            this.converterPerChunk = converterPerChunk;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > chunkSize) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ConvertChunk(results, converterPerChunk, from, middle, chunkSize),
+                        new ConvertChunk(results, converterPerChunk, middle, to, chunkSize));
+                return;
+            }
+            IntFunction<?> converter = converterPerChunk.get();
+            for (int i = from; i < to; i++) {
+                results[i] = converter.apply(i);
+            }
+        }
+    }
+}
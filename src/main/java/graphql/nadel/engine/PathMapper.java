@@ -10,6 +10,10 @@ import java.util.List;
 public class PathMapper {
 
     public ExecutionPath mapPath(ExecutionPath executionPath, String resultKey, UnapplyEnvironment environment) {
+        if (!environment.isHydrationTransformation && resultKey.equals(lastFieldName(executionPath))) {
+            // nothing to change: keep the path which shares its parents with the paths of the sibling nodes
+            return executionPath;
+        }
         List<Object> fieldSegments = patchLastFieldName(executionPath, resultKey);
 
         if (environment.isHydrationTransformation) {
@@ -28,6 +32,13 @@ public class PathMapper {
         return ExecutionPath.fromList(fieldSegments);
     }
 
+    private String lastFieldName(ExecutionPath executionPath) {
+        while (executionPath.isListSegment()) {
+            executionPath = executionPath.getParent();
+        }
+        return executionPath.isRootPath() ? null : executionPath.getSegmentName();
+    }
+
     private List<Object> patchLastFieldName(ExecutionPath executionPath, String resultKey) {
         List<Object> fieldSegments = executionPath.toList();
         for (int i = fieldSegments.size() - 1; i >= 0; i--) {
@@ -0,0 +1,37 @@
+package graphql.nadel.engine;
+
+import graphql.Internal;
+import graphql.execution.instrumentation.InstrumentationContext;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Completes the {@link InstrumentationContext}s of the phases of an execution, like the query transformation or the
+ * conversion of a service result, once the phase has run.
+ */
+@Internal
+public class PhaseInstrumentation {
+
+    /**
+     * Runs a phase on the current thread
+     */
+    public static <T> T run(InstrumentationContext<? super T> instrumentationContext, Supplier<T> phase) {
+        T result;
+        try {
+            result = phase.get();
+        } catch (RuntimeException e) {
+            instrumentationContext.onCompleted(null, e);
+            throw e;
+        }
+        instrumentationContext.onCompleted(result, null);
+        return result;
+    }
+
+    /**
+     * Completes the context of a phase that has been started once its result is completed
+     */
+    public static <T> CompletableFuture<T> whenCompleted(InstrumentationContext<? super T> instrumentationContext, CompletableFuture<T> result) {
+        return result.whenComplete(instrumentationContext::onCompleted);
+    }
+}
@@ -0,0 +1,85 @@
+package graphql.nadel.engine;
+
+import graphql.Internal;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.nadel.RequestTimings.Timing;
+import graphql.nadel.Service;
+import graphql.nadel.instrumentation.NadelInstrumentation;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationPipelineStageParameters;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationPipelineStageParameters.Stage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs the CPU bound stages of a service call. Without an executor a stage runs on the thread that completed the
+ * previous stage, which is often an I/O thread of the service call. With an executor the stage is handed over to
+ * the executor and the time it waits there is reported to the instrumentation.
+ * <p>
+ * Without an executor but with a pool for {@link ParallelListConversion} the result conversion runs on that pool, so
+ * the conversion of large lists never blocks the thread that completed the service call.
+ */
+@Internal
+public class PipelineStages {
+
+    private final NadelInstrumentation instrumentation;
+
+    public PipelineStages(NadelInstrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
+
+    /**
+     * Runs a stage that doesn't depend on a previous one
+     */
+    public <T> CompletableFuture<T> supply(Stage stage, Service service, ExecutionContext executionContext, Supplier<T> supplier) {
+        Executor executor = getExecutor(stage, executionContext);
+        if (executor == null) {
+            return CompletableFuture.completedFuture(runStage(stage, service, 0, executionContext, supplier));
+        }
+        long[] queuedAt = new long[1];
+        return CompletableFuture.supplyAsync(() -> runStage(stage, service, System.nanoTime() - queuedAt[0], executionContext, supplier),
+                timed(executor, queuedAt));
+    }
+
+    /**
+     * Runs a stage once the previous one is completed
+     */
+    public <T, R> CompletableFuture<R> thenApply(CompletableFuture<T> previous, Stage stage, Service service, ExecutionContext executionContext, Function<T, R> function) {
+        Executor executor = getExecutor(stage, executionContext);
+        if (executor == null) {
+            return previous.thenApply(value -> runStage(stage, service, 0, executionContext, () -> function.apply(value)));
+        }
+        long[] queuedAt = new long[1];
+        return previous.thenApplyAsync(value -> runStage(stage, service, System.nanoTime() - queuedAt[0], executionContext, () -> function.apply(value)),
+                timed(executor, queuedAt));
+    }
+
+    private <T> T runStage(Stage stage, Service service, long queuedNanos, ExecutionContext executionContext, Supplier<T> supplier) {
+        NadelInstrumentationPipelineStageParameters parameters = new NadelInstrumentationPipelineStageParameters(stage, service, queuedNanos,
+                executionContext, executionContext.getInstrumentationState());
+        ((NadelContext) executionContext.getContext()).getRequestTimings().record(service.getName(), Timing.QUEUED, queuedNanos);
+        InstrumentationContext<Object> instrumentationContext = instrumentation.beginPipelineStage(parameters);
+        return PhaseInstrumentation.run(instrumentationContext, supplier);
+    }
+
+    /*
+     * the executor publishes the time the stage is queued to the thread running it
+     */
+    private static Executor timed(Executor executor, long[] queuedAt) {
+        return runnable -> {
+            queuedAt[0] = System.nanoTime();
+            executor.execute(runnable);
+        };
+    }
+
+    private static Executor getExecutor(Stage stage, ExecutionContext executionContext) {
+        NadelContext nadelContext = (NadelContext) executionContext.getContext();
+        if (nadelContext.getExecutor() != null) {
+            return nadelContext.getExecutor();
+        }
+        return stage == Stage.RESULT_CONVERSION ? nadelContext.getParallelListConversion().getPool() : null;
+    }
+}
@@ -0,0 +1,149 @@
+package graphql.nadel.engine;
+
+import graphql.Internal;
+import graphql.nadel.QueryCost;
+import graphql.nadel.engine.transformation.HydrationDescriptor;
+import graphql.nadel.engine.transformation.HydrationDescriptors;
+import graphql.nadel.normalized.NormalizedQueryField;
+import graphql.nadel.normalized.NormalizedQueryFromAst;
+import graphql.schema.GraphQLArgument;
+import graphql.schema.GraphQLDirective;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Estimates the {@link QueryCost} of a normalized query from the overall schema.
+ * <p>
+ * Every top level field is one service call. A hydrated field is one call per object it is on, or one call per
+ * batch of objects if the hydration is batched. Every list field multiplies the fields below it by its assumed size,
+ * which is the {@code listSize} of a {@code @cost(weight: Int, listSize: Int)} directive on the field or the given
+ * default. A field counts as one node or as the {@code weight} of its directive.
+ * <p>
+ * The normalized query has the fields below an interface or union once per possible object type. An object only has
+ * one of these types, so the fields below it cost as much as the fields of the object type with the highest cost.
+ */
+@Internal
+public class QueryCostAnalyzer {
+
+    public static final String COST_DIRECTIVE = "cost";
+
+    private final HydrationDescriptors hydrationDescriptors;
+    private final int assumedListSize;
+
+    public QueryCostAnalyzer(HydrationDescriptors hydrationDescriptors, int assumedListSize) {
+        this.hydrationDescriptors = hydrationDescriptors;
+        this.assumedListSize = assumedListSize;
+    }
+
+    private static class Cost {
+        long downstreamCalls;
+        long hydrationCalls;
+        long nodes;
+
+        void add(Cost cost) {
+            downstreamCalls = QueryCostAnalyzer.add(downstreamCalls, cost.downstreamCalls);
+            hydrationCalls = QueryCostAnalyzer.add(hydrationCalls, cost.hydrationCalls);
+            nodes = QueryCostAnalyzer.add(nodes, cost.nodes);
+        }
+
+        void max(Cost cost) {
+            downstreamCalls = Math.max(downstreamCalls, cost.downstreamCalls);
+            hydrationCalls = Math.max(hydrationCalls, cost.hydrationCalls);
+            nodes = Math.max(nodes, cost.nodes);
+        }
+    }
+
+    /**
+     * @param normalizedQuery   the query
+     * @param includeHydrations false to estimate the cost of the query with the hydrated fields left null
+     *
+     * @return the estimated cost
+     */
+    public QueryCost analyze(NormalizedQueryFromAst normalizedQuery, boolean includeHydrations) {
+        Cost cost = new Cost();
+        for (NormalizedQueryField topLevelField : normalizedQuery.getTopLevelFields()) {
+            cost.downstreamCalls = add(cost.downstreamCalls, 1);
+            cost.add(analyzeField(topLevelField, 1, includeHydrations));
+        }
+        return new QueryCost(cost.downstreamCalls, cost.hydrationCalls, cost.nodes);
+    }
+
+    private Cost analyzeField(NormalizedQueryField field, long occurrences, boolean includeHydrations) {
+        GraphQLFieldDefinition fieldDefinition = field.getFieldDefinition();
+        Cost cost = new Cost();
+        cost.nodes = multiply(occurrences, getCostArgument(fieldDefinition, "weight", 1));
+
+        HydrationDescriptor hydrationDescriptor = hydrationDescriptors.getDescriptor(fieldDefinition);
+        if (hydrationDescriptor != null) {
+            if (!includeHydrations) {
+                return cost;
+            }
+            long calls = getHydrationCalls(hydrationDescriptor, occurrences);
+            cost.hydrationCalls = add(cost.hydrationCalls, calls);
+            cost.downstreamCalls = add(cost.downstreamCalls, calls);
+        }
+
+        long childOccurrences = multiply(occurrences, getElements(fieldDefinition));
+        Map<String, Cost> costByObjectType = new LinkedHashMap<>();
+        for (NormalizedQueryField child : field.getChildren()) {
+            costByObjectType.computeIfAbsent(child.getObjectType().getName(), objectType -> new Cost())
+                    .add(analyzeField(child, childOccurrences, includeHydrations));
+        }
+        Cost childrenCost = new Cost();
+        for (Cost objectTypeCost : costByObjectType.values()) {
+            childrenCost.max(objectTypeCost);
+        }
+        cost.add(childrenCost);
+        return cost;
+    }
+
+    private long getHydrationCalls(HydrationDescriptor hydrationDescriptor, long occurrences) {
+        if (!hydrationDescriptor.isBatched()) {
+            return occurrences;
+        }
+        Integer batchSize = hydrationDescriptor.getBatchSize();
+        if (batchSize == null || batchSize <= 0) {
+            return occurrences > 0 ? 1 : 0;
+        }
+        return (occurrences + batchSize - 1) / batchSize;
+    }
+
+    private long getElements(GraphQLFieldDefinition fieldDefinition) {
+        long elements = 1;
+        int listSize = getCostArgument(fieldDefinition, "listSize", assumedListSize);
+        GraphQLType type = fieldDefinition.getType();
+        while (GraphQLTypeUtil.isWrapped(type)) {
+            if (type instanceof GraphQLList) {
+                elements = multiply(elements, listSize);
+            }
+            type = GraphQLTypeUtil.unwrapOne(type);
+        }
+        return elements;
+    }
+
+    private int getCostArgument(GraphQLFieldDefinition fieldDefinition, String argumentName, int defaultValue) {
+        GraphQLDirective directive = fieldDefinition.getDirective(COST_DIRECTIVE);
+        GraphQLArgument argument = directive != null ? directive.getArgument(argumentName) : null;
+        if (argument == null || !(argument.getValue() instanceof Number)) {
+            return defaultValue;
+        }
+        return Math.max(((Number) argument.getValue()).intValue(), 0);
+    }
+
+    private static long add(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static long multiply(long a, long b) {
+        if (a == 0 || b == 0) {
+            return 0;
+        }
+        return a > Long.MAX_VALUE / b ? Long.MAX_VALUE : a * b;
+    }
+}
@@ -27,8 +27,6 @@ public class QueryTransformationResult {
 
     // needed when the underlying result tree is mapped back
     private final Map<String, FieldTransformation> fieldIdToTransformation;
-    // needed when the underlying result tree is mapped back
-    private final Map<String, String> typeRenameMappings;
 
     private final Map<String, Object> variableValues;
 
@@ -37,7 +35,6 @@ public class QueryTransformationResult {
     public QueryTransformationResult(Document document,
                                      OperationDefinition operationDefinition,
                                      List<MergedField> transformedMergedFields,
-                                     Map<String, String> typeRenameMappings,
                                      List<String> referencedVariables,
                                      Map<String, FieldTransformation> fieldIdToTransformation,
                                      Map<String, FragmentDefinition> transformedFragments,
@@ -49,7 +46,6 @@ public class QueryTransformationResult {
         this.referencedVariables = referencedVariables;
         this.fieldIdToTransformation = fieldIdToTransformation;
         this.transformedFragments = transformedFragments;
-        this.typeRenameMappings = typeRenameMappings;
         this.variableValues = variableValues;
         this.removedFieldMap = removedFieldMap;
     }
@@ -78,10 +74,6 @@ public class QueryTransformationResult {
         return transformedFragments;
     }
 
-    public Map<String, String> getTypeRenameMappings() {
-        return typeRenameMappings;
-    }
-
     public Map<String, Object> getVariableValues() {
         return variableValues;
     }
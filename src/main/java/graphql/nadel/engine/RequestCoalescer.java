@@ -0,0 +1,62 @@
+package graphql.nadel.engine;
+
+import graphql.ExecutionResult;
+import graphql.Internal;
+import graphql.nadel.NadelExecutionInput;
+import graphql.nadel.RequestCoalescingKey;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static graphql.Assert.assertNotNull;
+
+/**
+ * Lets identical requests that are executing at the same time share one execution and its result. The first request
+ * is executed and the requests with the same {@link RequestCoalescingKey} that arrive before it is completed get its
+ * result. Requests that arrive afterwards are executed again.
+ * <p>
+ * Requests with {@code @defer} are never shared because their deferred results can only be read once.
+ */
+@Internal
+public class RequestCoalescer {
+
+    private final RequestCoalescingKey coalescingKey;
+    private final Map<Object, CompletableFuture<ExecutionResult>> executionsInFlight = new ConcurrentHashMap<>();
+
+    public RequestCoalescer(RequestCoalescingKey coalescingKey) {
+        this.coalescingKey = assertNotNull(coalescingKey);
+    }
+
+    public CompletableFuture<ExecutionResult> execute(NadelExecutionInput executionInput, Function<NadelExecutionInput, CompletableFuture<ExecutionResult>> execution) {
+        Object key = isDeferred(executionInput) ? null : coalescingKey.getKey(executionInput);
+        if (key == null) {
+            return execution.apply(executionInput);
+        }
+        CompletableFuture<ExecutionResult> result = new CompletableFuture<>();
+        CompletableFuture<ExecutionResult> executionInFlight = executionsInFlight.putIfAbsent(key, result);
+        if (executionInFlight != null) {
+            // a new future so that the callers can't complete the shared one
+            return executionInFlight.thenApply(Function.identity());
+        }
+        try {
+            execution.apply(executionInput).whenComplete((executionResult, throwable) -> {
+                executionsInFlight.remove(key, result);
+                if (throwable != null) {
+                    result.completeExceptionally(throwable);
+                } else {
+                    result.complete(executionResult);
+                }
+            });
+        } catch (RuntimeException e) {
+            executionsInFlight.remove(key, result);
+            result.completeExceptionally(e);
+        }
+        return result.thenApply(Function.identity());
+    }
+
+    private boolean isDeferred(NadelExecutionInput executionInput) {
+        return executionInput.getQuery() != null && executionInput.getQuery().contains("@defer");
+    }
+}
@@ -12,8 +12,8 @@ public class ResolvedValueMapper {
     public ExecutionResultNode mapCompletedValue(ExecutionResultNode node, UnapplyEnvironment environment) {
         if (node.getFieldName().equals(UNDERSCORE_TYPENAME)) {
             String type = (String) node.getCompletedValue();
-            String renamed = environment.typeRenameMappings.get(type);
-            if (renamed != null) {
+            String renamed = environment.underlyingToOverallMapping.getOverallTypeName(type);
+            if (!renamed.equals(type)) {
                 return node.withNewCompletedValue(renamed);
             }
         }
@@ -0,0 +1,143 @@
+package graphql.nadel.engine;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.Internal;
+import graphql.language.Document;
+import graphql.language.NodeUtil;
+import graphql.language.OperationDefinition;
+import graphql.nadel.cache.ResponseCache;
+import graphql.nadel.cache.ResponseCacheKey;
+import graphql.nadel.hooks.ResponseCacheParams;
+import graphql.nadel.hooks.ServiceExecutionHooks;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static graphql.Assert.assertNotNull;
+
+/**
+ * Serves query results from a {@link ResponseCache} and puts the results of executed queries into it for the max age
+ * the {@link CacheHints} of their service calls allow. Private results are cached per partition of the context.
+ * <p>
+ * If the {@link ServiceExecutionHooks} are not the default ones they can shape the result per user, so results are
+ * then only cached per partition of {@link ServiceExecutionHooks#getResponseCachePartition(ResponseCacheParams)}.
+ * <p>
+ * Mutations, subscriptions and queries with {@code @defer} are always executed, and results with errors are not cached.
+ * The results are cached once they have been instrumented, as plain results that hold nothing of the request they
+ * were created for.
+ */
+@Internal
+public class ResponseCaching {
+
+    private final ResponseCache responseCache;
+    private final Function<Object, Object> privatePartitionOfContext;
+    private final ServiceExecutionHooks serviceExecutionHooks;
+
+    /**
+     * @param responseCache             the cache
+     * @param privatePartitionOfContext the partition of the context for private results
+     * @param serviceExecutionHooks     the hooks that can shape the result per user or null if they are the default ones
+     */
+    public ResponseCaching(ResponseCache responseCache, Function<Object, Object> privatePartitionOfContext, ServiceExecutionHooks serviceExecutionHooks) {
+        this.responseCache = assertNotNull(responseCache);
+        this.privatePartitionOfContext = assertNotNull(privatePartitionOfContext);
+        this.serviceExecutionHooks = serviceExecutionHooks;
+    }
+
+    /**
+     * @return the caching of the result of a new request
+     */
+    public Request newRequest() {
+        return new Request();
+    }
+
+    /**
+     * Serves one request from the cache or executes it, and caches its result once it has been instrumented
+     */
+    public class Request {
+
+        private ResponseCacheKey publicKey;
+        private ResponseCacheKey privateKey;
+        private CacheHints cacheHints;
+
+        /**
+         * @param executionInput the request
+         * @param document       the parsed and validated query of the request
+         * @param execution      executes the request, recording the cache hints of the service calls if they are given
+         *
+         * @return the cached or the new result
+         */
+        public CompletableFuture<ExecutionResult> execute(ExecutionInput executionInput, Document document, Function<CacheHints, CompletableFuture<ExecutionResult>> execution) {
+            if (!isCacheable(executionInput, document)) {
+                return execution.apply(null);
+            }
+            Object hooksPartition = null;
+            if (serviceExecutionHooks != null) {
+                Optional<Object> partition = serviceExecutionHooks.getResponseCachePartition(ResponseCacheParams.newParameters()
+                        .executionInput(executionInput)
+                        .build());
+                if (!partition.isPresent()) {
+                    return execution.apply(null);
+                }
+                hooksPartition = partition.get();
+            }
+            publicKey = new ResponseCacheKey(executionInput.getQuery(), executionInput.getOperationName(), executionInput.getVariables(), hooksPartition);
+            Object partition = privatePartitionOfContext.apply(executionInput.getContext());
+            if (partition != null) {
+                Object privatePartition = hooksPartition != null ? Arrays.asList(hooksPartition, partition) : partition;
+                privateKey = new ResponseCacheKey(executionInput.getQuery(), executionInput.getOperationName(), executionInput.getVariables(), privatePartition);
+            }
+
+            ExecutionResult cachedResult = responseCache.get(publicKey);
+            if (cachedResult == null && privateKey != null) {
+                cachedResult = responseCache.get(privateKey);
+            }
+            if (cachedResult != null) {
+                return CompletableFuture.completedFuture(copy(cachedResult));
+            }
+            cacheHints = new CacheHints();
+            return execution.apply(cacheHints);
+        }
+
+        /**
+         * @param result the instrumented result of the request
+         *
+         * @return the same result
+         */
+        public ExecutionResult cache(ExecutionResult result) {
+            if (cacheHints == null || !result.getErrors().isEmpty()) {
+                return result;
+            }
+            int maxAge = cacheHints.getMaxAge();
+            ResponseCacheKey key = cacheHints.isPrivate() ? privateKey : publicKey;
+            if (maxAge > 0 && key != null) {
+                responseCache.put(key, copy(result), maxAge);
+            }
+            return result;
+        }
+    }
+
+    /*
+     * a plain result with its own extensions, which instrumentation can add to without changing the cached result
+     */
+    private static ExecutionResult copy(ExecutionResult result) {
+        return ExecutionResultImpl.newExecutionResult()
+                .data(result.getData())
+                .errors(result.getErrors())
+                .extensions(result.getExtensions() != null ? new LinkedHashMap<>(result.getExtensions()) : null)
+                .build();
+    }
+
+    private boolean isCacheable(ExecutionInput executionInput, Document document) {
+        if (executionInput.getQuery() == null || executionInput.getQuery().contains("@defer")) {
+            return false;
+        }
+        OperationDefinition operationDefinition = NodeUtil.getOperation(document, executionInput.getOperationName()).operationDefinition;
+        return operationDefinition.getOperation() == OperationDefinition.Operation.QUERY;
+    }
+}
@@ -0,0 +1,97 @@
+package graphql.nadel.engine;
+
+import graphql.ErrorType;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.Internal;
+import graphql.execution.ExecutionPath;
+import graphql.nadel.ResultSizeLimits;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static graphql.Assert.assertNotNull;
+
+/**
+ * Counts the nodes and bytes of the result of one request against its {@link ResultSizeLimits}. The nodes of a
+ * request can be created on several threads at the same time.
+ */
+@Internal
+public class ResultSizeBudget {
+
+    private final ResultSizeLimits limits;
+    private final AtomicLong nodes = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicBoolean exceeded = new AtomicBoolean();
+
+    public ResultSizeBudget(ResultSizeLimits limits) {
+        this.limits = assertNotNull(limits);
+    }
+
+    /**
+     * @param executionPath the path of the node
+     * @param value         the value of the node, objects and lists only count for their field names
+     *
+     * @return false if the result is over the limits with this node, in which case the node must not be added
+     */
+    public boolean addNode(ExecutionPath executionPath, Object value) {
+        if (isExceeded()) {
+            return false;
+        }
+        long nodeBytes = estimateBytes(value);
+        if (executionPath.isNamedSegment()) {
+            // "name":
+            nodeBytes += executionPath.getSegmentName().length() + 3;
+        }
+        if (nodes.incrementAndGet() > limits.getMaxNodes() || bytes.addAndGet(nodeBytes) > limits.getMaxBytes()) {
+            exceeded.set(true);
+            return false;
+        }
+        return true;
+    }
+
+    public boolean isExceeded() {
+        return exceeded.get();
+    }
+
+    /**
+     * @return the error for a result that is over the limits. It has no path: the nodes are left out as they are
+     * created, partly in the results of hydration calls, which don't have the paths of the overall result yet.
+     */
+    public GraphQLError createError() {
+        return GraphqlErrorBuilder.newError()
+                .message("The result is over the size limits of %d nodes and %d bytes, the remaining fields are null", limits.getMaxNodes(), limits.getMaxBytes())
+                .errorType(ErrorType.ExecutionAborted)
+                .build();
+    }
+
+    /**
+     * @return the message of the errors of the hydrated fields that are left null
+     */
+    public String getHydrationsStoppedReason() {
+        return "The hydrated field was not resolved because the result is over the size limits";
+    }
+
+    public long getNodes() {
+        return nodes.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    private static long estimateBytes(Object value) {
+        if (value == null) {
+            return 4;
+        }
+        if (value instanceof CharSequence) {
+            return ((CharSequence) value).length() + 2;
+        }
+        if (value instanceof Map || value instanceof List || value == ServiceResultToResultNodes.VALUE_IN_CHILDREN) {
+            return 2;
+        }
+        return String.valueOf(value).length();
+    }
+}
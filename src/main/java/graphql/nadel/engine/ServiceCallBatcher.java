@@ -0,0 +1,127 @@
+package graphql.nadel.engine;
+
+import graphql.AssertException;
+import graphql.Internal;
+import graphql.nadel.BatchingServiceExecution;
+import graphql.nadel.ServiceExecution;
+import graphql.nadel.ServiceExecutionParameters;
+import graphql.nadel.ServiceExecutionResult;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static graphql.nadel.util.FpKit.map;
+
+/**
+ * Collects the calls to {@link BatchingServiceExecution}s that are made during a wave of calls, for example for all
+ * the top level fields of a request, and sends the calls to the same service together once the wave is over.
+ * <p>
+ * Calls made outside of a wave are sent straight away.
+ */
+@Internal
+public class ServiceCallBatcher {
+
+    private final Map<BatchingServiceExecution, List<PendingCall>> pendingCalls = new LinkedHashMap<>();
+    private int openWaves;
+
+    private static class PendingCall {
+        final ServiceExecutionParameters parameters;
+        final CompletableFuture<ServiceExecutionResult> result = new CompletableFuture<>();
+
+        PendingCall(ServiceExecutionParameters parameters) {
+            this.parameters = parameters;
+        }
+    }
+
+    /**
+     * Collects the calls made by the wave. Waves can be nested: the calls are sent when the outermost wave is over.
+     *
+     * @param wave makes the calls
+     * @param <T>  the result of the wave
+     *
+     * @return the result of the wave
+     */
+    public <T> T batchCalls(Supplier<T> wave) {
+        synchronized (this) {
+            openWaves++;
+        }
+        try {
+            return wave.get();
+        } finally {
+            Map<BatchingServiceExecution, List<PendingCall>> callsToSend;
+            synchronized (this) {
+                openWaves--;
+                if (openWaves > 0 || pendingCalls.isEmpty()) {
+                    callsToSend = null;
+                } else {
+                    callsToSend = new LinkedHashMap<>(pendingCalls);
+                    pendingCalls.clear();
+                }
+            }
+            if (callsToSend != null) {
+                callsToSend.forEach(this::send);
+            }
+        }
+    }
+
+    /**
+     * @param serviceExecution           the service execution to call
+     * @param serviceExecutionParameters the parameters of the call
+     *
+     * @return the result of the call, which is only made later if the call is batched
+     */
+    public CompletableFuture<ServiceExecutionResult> execute(ServiceExecution serviceExecution, ServiceExecutionParameters serviceExecutionParameters) {
+        if (serviceExecution instanceof BatchingServiceExecution) {
+            synchronized (this) {
+                if (openWaves > 0) {
+                    PendingCall pendingCall = new PendingCall(serviceExecutionParameters);
+                    pendingCalls.computeIfAbsent((BatchingServiceExecution) serviceExecution, key -> new ArrayList<>()).add(pendingCall);
+                    return pendingCall.result;
+                }
+            }
+        }
+        return serviceExecution.execute(serviceExecutionParameters);
+    }
+
+    private void send(BatchingServiceExecution serviceExecution, List<PendingCall> calls) {
+        try {
+            if (calls.size() == 1) {
+                PendingCall call = calls.get(0);
+                CompletableFuture<ServiceExecutionResult> result = serviceExecution.execute(call.parameters);
+                if (result == null) {
+                    throw new AssertException("service execution returned null");
+                }
+                result.whenComplete((serviceExecutionResult, throwable) -> complete(call, serviceExecutionResult, throwable));
+                return;
+            }
+            CompletableFuture<List<ServiceExecutionResult>> results = serviceExecution.executeBatch(map(calls, call -> call.parameters));
+            if (results == null) {
+                throw new AssertException("batching service execution returned null");
+            }
+            results.whenComplete((serviceExecutionResults, throwable) -> {
+                if (throwable == null && serviceExecutionResults.size() != calls.size()) {
+                    throwable = new AssertException(String.format("batching service execution returned %d results for %d calls", serviceExecutionResults.size(), calls.size()));
+                }
+                for (int i = 0; i < calls.size(); i++) {
+                    complete(calls.get(i), throwable == null ? serviceExecutionResults.get(i) : null, throwable);
+                }
+            });
+        } catch (Exception e) {
+            for (PendingCall call : calls) {
+                call.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void complete(PendingCall call, ServiceExecutionResult serviceExecutionResult, Throwable throwable) {
+        if (throwable != null) {
+            call.result.completeExceptionally(throwable);
+        } else {
+            call.result.complete(serviceExecutionResult);
+        }
+    }
+}
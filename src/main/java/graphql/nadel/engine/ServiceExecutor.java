@@ -3,23 +3,30 @@ package graphql.nadel.engine;
 import graphql.Assert;
 import graphql.ErrorType;
 import graphql.GraphQLError;
+import graphql.GraphQLException;
 import graphql.GraphqlErrorBuilder;
 import graphql.Internal;
+import graphql.cachecontrol.CacheControl;
 import graphql.execution.ExecutionContext;
 import graphql.execution.ExecutionStepInfo;
 import graphql.execution.MergedField;
 import graphql.language.FragmentDefinition;
 import graphql.nadel.BenchmarkContext;
+import graphql.nadel.JsonServiceExecutionResult;
 import graphql.nadel.Operation;
 import graphql.nadel.Service;
+import graphql.nadel.RequestTimings.Timing;
 import graphql.nadel.ServiceExecution;
 import graphql.nadel.ServiceExecutionParameters;
 import graphql.nadel.ServiceExecutionResult;
 import graphql.nadel.instrumentation.NadelInstrumentation;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationPipelineStageParameters.Stage;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationServicePhaseParameters;
 import graphql.nadel.instrumentation.parameters.NadelInstrumentationServiceExecutionParameters;
 import graphql.nadel.normalized.NormalizedQueryFactory;
 import graphql.nadel.normalized.NormalizedQueryFromAst;
 import graphql.nadel.result.ElapsedTime;
+import graphql.nadel.result.ResultComplexityAggregator;
 import graphql.nadel.result.RootExecutionResultNode;
 import graphql.nadel.util.Data;
 import graphql.nadel.util.LogKit;
@@ -27,12 +34,14 @@ import graphql.schema.GraphQLSchema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.UncheckedIOException;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 import static graphql.nadel.ServiceExecutionParameters.newServiceExecutionParameters;
 import static graphql.nadel.engine.StrategyUtil.createRootExecutionStepInfo;
@@ -49,9 +58,12 @@ public class ServiceExecutor {
     private final ServiceResultToResultNodes resultToResultNode = new ServiceResultToResultNodes();
 
     private final NadelInstrumentation instrumentation;
+    private final PipelineStages pipelineStages;
+    private final ServiceCallBatcher serviceCallBatcher = new ServiceCallBatcher();
 
     public ServiceExecutor(NadelInstrumentation instrumentation) {
         this.instrumentation = instrumentation;
+        this.pipelineStages = new PipelineStages(instrumentation);
     }
 
 
@@ -61,6 +73,48 @@ public class ServiceExecutor {
                                                               Operation operation,
                                                               Object serviceContext,
                                                               boolean isHydrationCall) {
+        return execute(executionContext, queryTransformerResult, service, operation, serviceContext, isHydrationCall, resultToResultNode);
+    }
+
+    /**
+     * Like {@link #execute(ExecutionContext, QueryTransformationResult, Service, Operation, Object, boolean)} but the
+     * result nodes are created by the given converter, see {@link ServiceResultToOverallResultNodes}
+     */
+    public CompletableFuture<RootExecutionResultNode> execute(ExecutionContext executionContext,
+                                                              QueryTransformationResult queryTransformerResult,
+                                                              Service service,
+                                                              Operation operation,
+                                                              Object serviceContext,
+                                                              boolean isHydrationCall,
+                                                              ServiceResultToResultNodes resultToResultNode) {
+        return execute(executionContext, queryTransformerResult, service, operation, serviceContext, isHydrationCall, resultToResultNode, null, null);
+    }
+
+    /**
+     * Executes a batch hydration call, which is merged with the batch hydration calls of other requests if Nadel has
+     * a hydration batch window, see {@link HydrationBatchWindow}
+     *
+     * @param sourceArgumentName the argument of the top level field that holds the ids to hydrate
+     * @param batchSize          the maximum number of ids in one call or null if there is no maximum
+     */
+    public CompletableFuture<RootExecutionResultNode> executeBatchHydration(ExecutionContext executionContext,
+                                                                            QueryTransformationResult queryTransformerResult,
+                                                                            Service service,
+                                                                            Object serviceContext,
+                                                                            String sourceArgumentName,
+                                                                            Integer batchSize) {
+        return execute(executionContext, queryTransformerResult, service, Operation.QUERY, serviceContext, true, resultToResultNode, sourceArgumentName, batchSize);
+    }
+
+    private CompletableFuture<RootExecutionResultNode> execute(ExecutionContext executionContext,
+                                                               QueryTransformationResult queryTransformerResult,
+                                                               Service service,
+                                                               Operation operation,
+                                                               Object serviceContext,
+                                                               boolean isHydrationCall,
+                                                               ServiceResultToResultNodes resultToResultNode,
+                                                               String sourceArgumentName,
+                                                               Integer batchSize) {
 
         List<MergedField> transformedMergedFields = queryTransformerResult.getTransformedMergedFields();
 
@@ -77,13 +131,32 @@ public class ServiceExecutor {
                 null,
                 serviceExecutionParameters.getVariables());
 
-        CompletableFuture<Data> result = executeImpl(service, serviceExecution, serviceExecutionParameters, underlyingRootStepInfo, executionContext);
-        return result
-                .thenApply(data -> serviceExecutionResultToResultNode(executionContextForService, underlyingRootStepInfo, transformedMergedFields, data, normalizedQuery));
+        CompletableFuture<Data> result = executeImpl(service, serviceExecution, serviceExecutionParameters, underlyingRootStepInfo, executionContext, sourceArgumentName, batchSize);
+        return pipelineStages.thenApply(result, Stage.RESULT_CONVERSION, service, executionContext,
+                data -> serviceExecutionResultToResultNode(resultToResultNode, service, isHydrationCall, executionContext, executionContextForService, underlyingRootStepInfo, transformedMergedFields, data, normalizedQuery));
     }
 
 
-    private CompletableFuture<Data> executeImpl(Service service, ServiceExecution serviceExecution, ServiceExecutionParameters serviceExecutionParameters, ExecutionStepInfo executionStepInfo, ExecutionContext executionContext) {
+    /**
+     * The calls to {@link graphql.nadel.BatchingServiceExecution}s made by the wave are sent together when it is over,
+     * see {@link ServiceCallBatcher}
+     *
+     * @param wave makes the service calls
+     * @param <T>  the result of the wave
+     *
+     * @return the result of the wave
+     */
+    public <T> T batchCalls(Supplier<T> wave) {
+        return serviceCallBatcher.batchCalls(wave);
+    }
+
+    private CompletableFuture<Data> executeImpl(Service service,
+                                                ServiceExecution serviceExecution,
+                                                ServiceExecutionParameters serviceExecutionParameters,
+                                                ExecutionStepInfo executionStepInfo,
+                                                ExecutionContext executionContext,
+                                                String sourceArgumentName,
+                                                Integer batchSize) {
 
         NadelInstrumentationServiceExecutionParameters instrumentationParams = new NadelInstrumentationServiceExecutionParameters(service, executionContext, executionContext.getInstrumentationState());
         serviceExecution = instrumentation.instrumentServiceExecution(serviceExecution, instrumentationParams);
@@ -91,12 +164,32 @@ public class ServiceExecutor {
         try {
             log.debug("service {} invocation started - executionId '{}'", service.getName(), executionContext.getExecutionId());
             ElapsedTime.Builder elapsedTimeBuilder = ElapsedTime.newElapsedTime().start();
-            CompletableFuture<ServiceExecutionResult> executeReturnValue = serviceExecution.execute(serviceExecutionParameters);
+            ServiceExecution instrumentedServiceExecution = serviceExecution;
+            HydrationBatchWindow hydrationBatchWindow = ((NadelContext) executionContext.getContext()).getHydrationBatchWindow();
+            CompletableFuture<ServiceExecutionResult> executeReturnValue;
+            if (sourceArgumentName != null && hydrationBatchWindow != null) {
+                executeReturnValue = hydrationBatchWindow.execute(service, serviceExecutionParameters, sourceArgumentName, batchSize, executionContext.getContext(),
+                        parameters -> serviceCallBatcher.execute(instrumentedServiceExecution, parameters));
+            } else {
+                executeReturnValue = serviceCallBatcher.execute(serviceExecution, serviceExecutionParameters);
+            }
             Assert.assertNotNull(executeReturnValue, () -> "service execution returned null");
 
+            CacheHints cacheHints = ((NadelContext) executionContext.getContext()).getCacheHints();
+            if (cacheHints != null) {
+                executeReturnValue = executeReturnValue.whenComplete((serviceExecutionResult, throwable) -> {
+                    if (throwable != null) {
+                        cacheHints.recordFailedServiceCall();
+                    } else {
+                        cacheHints.recordServiceCall(serviceExecutionParameters.getCacheControl(), executionContext.getCacheControl());
+                    }
+                });
+            }
+
             CompletableFuture<Data> result = executeReturnValue
                     .thenApply((serviceExecutionResult) -> {
                         ElapsedTime elapsedTime = elapsedTimeBuilder.stop().build();
+                        ((NadelContext) executionContext.getContext()).getRequestTimings().record(service.getName(), Timing.SERVICE_CALL, elapsedTime.getDurationNanos());
                         return Data.newData().set(ElapsedTime.class, elapsedTime).set(ServiceExecutionResult.class, serviceExecutionResult).build();
                     });
             log.debug("service {} invocation finished  - executionId '{}' ", service.getName(), executionContext.getExecutionId());
@@ -104,6 +197,10 @@ public class ServiceExecutor {
             // if they return an exceptional CF then we turn that into graphql errors as well
             return result.handle(handleServiceException(service, executionContext, executionStepInfo));
         } catch (Exception e) {
+            CacheHints cacheHints = ((NadelContext) executionContext.getContext()).getCacheHints();
+            if (cacheHints != null) {
+                cacheHints.recordFailedServiceCall();
+            }
             ServiceExecutionResult exceptionResult = mkExceptionResult(service, executionContext, executionStepInfo, e);
             return completedFuture(Data.newData().set(ServiceExecutionResult.class, exceptionResult).build());
         }
@@ -155,6 +252,9 @@ public class ServiceExecutor {
         NadelContext nadelContext = (NadelContext) executionContext.getContext();
         Object callerSuppliedContext = nadelContext.getUserSuppliedContext();
 
+        // each call gets its own cache control if the hints of the calls are needed one by one
+        CacheControl cacheControl = nadelContext.getCacheHints() != null ? CacheControl.newCacheControl() : executionContext.getCacheControl();
+
         return newServiceExecutionParameters()
                 .query(queryTransformerResult.getDocument())
                 .context(callerSuppliedContext)
@@ -162,7 +262,7 @@ public class ServiceExecutor {
                 .fragments(fragments)
                 .operationDefinition(queryTransformerResult.getOperationDefinition())
                 .executionId(executionContext.getExecutionId())
-                .cacheControl(executionContext.getCacheControl())
+                .cacheControl(cacheControl)
                 .serviceContext(serviceContext)
                 .hydrationCall(isHydrationCall)
                 .build();
@@ -188,6 +288,10 @@ public class ServiceExecutor {
     }
 
     private RootExecutionResultNode serviceExecutionResultToResultNode(
+            ServiceResultToResultNodes resultToResultNode,
+            Service service,
+            boolean isHydrationCall,
+            ExecutionContext executionContext,
             ExecutionContext executionContextForService,
             ExecutionStepInfo underlyingRootStepInfo,
             List<MergedField> transformedMergedFields,
@@ -196,6 +300,12 @@ public class ServiceExecutor {
         ElapsedTime elapsedTime = data.get(ElapsedTime.class);
         NadelContext nadelContext = executionContextForService.getContext();
 
+        ResultComplexityAggregator resultComplexityAggregator = nadelContext.getResultComplexityAggregator();
+        if (resultComplexityAggregator != null && elapsedTime != null) {
+            long bytes = serviceExecutionResult instanceof JsonServiceExecutionResult ? ((JsonServiceExecutionResult) serviceExecutionResult).getLength() : 0;
+            resultComplexityAggregator.recordServiceCall(service.getName(), bytes, elapsedTime.getDurationNanos());
+        }
+
         if (nadelContext.getUserSuppliedContext() instanceof BenchmarkContext) {
             BenchmarkContext.ServiceResultToResultNodesArgs serviceResultToResultNodesArgs = ((BenchmarkContext) nadelContext.getUserSuppliedContext()).serviceResultToResultNodesArgs;
             serviceResultToResultNodesArgs.executionContextForService = executionContextForService;
@@ -205,12 +315,44 @@ public class ServiceExecutor {
             serviceResultToResultNodesArgs.elapsedTime = elapsedTime;
             serviceResultToResultNodesArgs.normalizedQuery = normalizedQuery;
         }
-        return resultToResultNode.resultToResultNode(executionContextForService,
-                underlyingRootStepInfo,
-                transformedMergedFields,
-                serviceExecutionResult,
-                elapsedTime,
-                normalizedQuery);
+        NadelInstrumentationServicePhaseParameters parameters = new NadelInstrumentationServicePhaseParameters(service, isHydrationCall, executionContext,
+                executionContext.getInstrumentationState());
+        return nadelContext.getRequestTimings().time(service.getName(), Timing.RESULT_CONVERSION, () -> PhaseInstrumentation.run(instrumentation.beginServiceResultConversion(parameters),
+                () -> convertServiceExecutionResult(resultToResultNode, service, executionContext, executionContextForService, underlyingRootStepInfo, transformedMergedFields,
+                        serviceExecutionResult, elapsedTime, normalizedQuery)));
+    }
+
+    private RootExecutionResultNode convertServiceExecutionResult(
+            ServiceResultToResultNodes resultToResultNode,
+            Service service,
+            ExecutionContext executionContext,
+            ExecutionContext executionContextForService,
+            ExecutionStepInfo underlyingRootStepInfo,
+            List<MergedField> transformedMergedFields,
+            ServiceExecutionResult serviceExecutionResult,
+            ElapsedTime elapsedTime,
+            NormalizedQueryFromAst normalizedQuery) {
+        try {
+            return resultToResultNode.resultToResultNode(executionContextForService,
+                    underlyingRootStepInfo,
+                    transformedMergedFields,
+                    serviceExecutionResult,
+                    elapsedTime,
+                    normalizedQuery);
+        } catch (GraphQLException | UncheckedIOException e) {
+            if (!(serviceExecutionResult instanceof JsonServiceExecutionResult)) {
+                throw e;
+            }
+            //
+            // raw JSON is only read now, so a broken response is handled the same as a failed service call
+            ServiceExecutionResult exceptionResult = mkExceptionResult(service, executionContext, underlyingRootStepInfo, e);
+            return resultToResultNode.resultToResultNode(executionContextForService,
+                    underlyingRootStepInfo,
+                    transformedMergedFields,
+                    exceptionResult,
+                    elapsedTime,
+                    normalizedQuery);
+        }
     }
 
 }
@@ -4,21 +4,21 @@ import graphql.GraphQLError;
 import graphql.Internal;
 import graphql.execution.ExecutionId;
 import graphql.execution.ExecutionPath;
-import graphql.execution.MergedField;
 import graphql.language.AbstractNode;
 import graphql.nadel.Tuples;
 import graphql.nadel.TuplesTwo;
-import graphql.nadel.dsl.NodeId;
 import graphql.nadel.engine.transformation.FieldRenameTransformation;
 import graphql.nadel.engine.transformation.FieldTransformation;
 import graphql.nadel.engine.transformation.HydrationTransformation;
 import graphql.nadel.engine.transformation.TransformationMetadata;
 import graphql.nadel.engine.transformation.TransformationMetadata.NormalizedFieldAndError;
+import graphql.nadel.engine.transformation.UnapplyPlan;
 import graphql.nadel.engine.transformation.UnapplyResult;
 import graphql.nadel.normalized.NormalizedQueryField;
 import graphql.nadel.normalized.NormalizedQueryFromAst;
 import graphql.nadel.result.ExecutionResultNode;
 import graphql.nadel.result.LeafExecutionResultNode;
+import graphql.nadel.result.ListExecutionResultNode;
 import graphql.nadel.result.ObjectExecutionResultNode;
 import graphql.nadel.result.RootExecutionResultNode;
 import graphql.schema.GraphQLSchema;
@@ -31,22 +31,19 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
 
 import static graphql.Assert.assertNotNull;
 import static graphql.Assert.assertShouldNeverHappen;
 import static graphql.Assert.assertTrue;
 import static graphql.nadel.engine.StrategyUtil.changeFieldIsInResultNode;
 import static graphql.nadel.util.FpKit.getSingleMapValue;
-import static graphql.util.FpKit.groupingBy;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
-import static java.util.Collections.singletonList;
 
 @Internal
 public class ServiceResultNodesToOverallResult {
@@ -66,10 +63,10 @@ public class ServiceResultNodesToOverallResult {
                                        GraphQLSchema overallSchema,
                                        ExecutionResultNode correctRootNode,
                                        Map<String, FieldTransformation> fieldIdToTransformation,
-                                       Map<String, String> typeRenameMappings,
+                                       UnderlyingToOverallMapping underlyingToOverallMapping,
                                        NadelContext nadelContext,
                                        TransformationMetadata transformationMetadata) {
-        return convertImpl(executionId, resultNode, null, overallSchema, correctRootNode, false, false, fieldIdToTransformation, typeRenameMappings, false, nadelContext, transformationMetadata);
+        return convertImpl(executionId, resultNode, null, overallSchema, correctRootNode, false, false, fieldIdToTransformation, underlyingToOverallMapping, false, nadelContext, transformationMetadata);
     }
 
     public ExecutionResultNode convertChildren(ExecutionId executionId,
@@ -80,10 +77,10 @@ public class ServiceResultNodesToOverallResult {
                                                boolean isHydrationTransformation,
                                                boolean batched,
                                                Map<String, FieldTransformation> fieldIdToTransformation,
-                                               Map<String, String> typeRenameMappings,
+                                               UnderlyingToOverallMapping underlyingToOverallMapping,
                                                NadelContext nadelContext,
                                                TransformationMetadata transformationMetadata) {
-        return convertImpl(executionId, root, normalizedRootField, overallSchema, correctRootNode, isHydrationTransformation, batched, fieldIdToTransformation, typeRenameMappings, true, nadelContext, transformationMetadata);
+        return convertImpl(executionId, root, normalizedRootField, overallSchema, correctRootNode, isHydrationTransformation, batched, fieldIdToTransformation, underlyingToOverallMapping, true, nadelContext, transformationMetadata);
     }
 
     private ExecutionResultNode convertImpl(ExecutionId executionId,
@@ -94,20 +91,20 @@ public class ServiceResultNodesToOverallResult {
                                             boolean isHydrationTransformation,
                                             boolean batched,
                                             Map<String, FieldTransformation> fieldIdToTransformation,
-                                            Map<String, String> typeRenameMappings,
+                                            UnderlyingToOverallMapping underlyingToOverallMapping,
                                             boolean onlyChildren,
                                             NadelContext nadelContext,
                                             TransformationMetadata transformationMetadata) {
         final AtomicInteger nodeCount = new AtomicInteger();
 
-        HandleResult handleResult = convertSingleNode(root, null/*not for root*/, executionId, root, normalizedRootField, overallSchema, isHydrationTransformation, batched, fieldIdToTransformation, typeRenameMappings, onlyChildren, nadelContext, transformationMetadata, nodeCount);
+        HandleResult handleResult = convertSingleNode(root, null/*not for root*/, executionId, root, normalizedRootField, overallSchema, isHydrationTransformation, batched, fieldIdToTransformation, underlyingToOverallMapping, onlyChildren, nadelContext, transformationMetadata, nodeCount);
         assertNotNull(handleResult, () -> "can't delete root");
 
         ExecutionResultNode changedNode = handleResult.changedNode;
         List<ExecutionResultNode> newChildren = new ArrayList<>();
         for (ExecutionResultNode child : changedNode.getChildren()) {
             // pass in the correct root node as parent, not root
-            HandleResult handleResultChild = convertRecursively(child, correctRootNode, executionId, root, normalizedRootField, overallSchema, isHydrationTransformation, batched, fieldIdToTransformation, typeRenameMappings, onlyChildren, nadelContext, transformationMetadata, nodeCount);
+            HandleResult handleResultChild = convertRecursively(child, correctRootNode, executionId, root, normalizedRootField, overallSchema, isHydrationTransformation, batched, fieldIdToTransformation, underlyingToOverallMapping, onlyChildren, nadelContext, transformationMetadata, nodeCount);
             if (handleResultChild == null) {
                 continue;
             }
@@ -126,12 +123,17 @@ public class ServiceResultNodesToOverallResult {
                                             boolean isHydrationTransformation,
                                             boolean batched,
                                             Map<String, FieldTransformation> fieldIdToTransformation,
-                                            Map<String, String> typeRenameMappings,
+                                            UnderlyingToOverallMapping underlyingToOverallMapping,
                                             boolean onlyChildren,
                                             NadelContext nadelContext,
                                             TransformationMetadata transformationMetadata,
                                             AtomicInteger nodeCount) {
-        HandleResult handleResult = convertSingleNode(node, parentNode, executionId, root, normalizedRootField, overallSchema, isHydrationTransformation, batched, fieldIdToTransformation, typeRenameMappings, onlyChildren, nadelContext, transformationMetadata, nodeCount);
+        if (!isHydrationTransformation && transformationMetadata.isUntransformedSubtree(node.getFieldIds())) {
+            UnapplyEnvironment unapplyEnvironment = new UnapplyEnvironment(parentNode, false, false, underlyingToOverallMapping, overallSchema);
+            ExecutionResultNode convertedNode = convertUntransformedSubtree(node, unapplyEnvironment, nadelContext, nodeCount);
+            return convertedNode != null ? HandleResult.simple(convertedNode) : null;
+        }
+        HandleResult handleResult = convertSingleNode(node, parentNode, executionId, root, normalizedRootField, overallSchema, isHydrationTransformation, batched, fieldIdToTransformation, underlyingToOverallMapping, onlyChildren, nadelContext, transformationMetadata, nodeCount);
         if (handleResult == null) {
             return null;
         }
@@ -139,9 +141,20 @@ public class ServiceResultNodesToOverallResult {
             return handleResult;
         }
         ExecutionResultNode changedNode = handleResult.changedNode;
+        List<ExecutionResultNode> children = changedNode.getChildren();
+        List<HandleResult> handleResultChildren;
+        ParallelListConversion parallelListConversion = nadelContext.getParallelListConversion();
+        if (changedNode instanceof ListExecutionResultNode && parallelListConversion.isParallel(children.size())) {
+            handleResultChildren = parallelListConversion.convert(children.size(), () -> index ->
+                    convertRecursively(children.get(index), changedNode, executionId, root, normalizedRootField, overallSchema, isHydrationTransformation, batched, fieldIdToTransformation, underlyingToOverallMapping, onlyChildren, nadelContext, transformationMetadata, nodeCount));
+        } else {
+            handleResultChildren = new ArrayList<>(children.size());
+            for (ExecutionResultNode child : children) {
+                handleResultChildren.add(convertRecursively(child, changedNode, executionId, root, normalizedRootField, overallSchema, isHydrationTransformation, batched, fieldIdToTransformation, underlyingToOverallMapping, onlyChildren, nadelContext, transformationMetadata, nodeCount));
+            }
+        }
         List<ExecutionResultNode> newChildren = new ArrayList<>();
-        for (ExecutionResultNode child : changedNode.getChildren()) {
-            HandleResult handleResultChild = convertRecursively(child, changedNode, executionId, root, normalizedRootField, overallSchema, isHydrationTransformation, batched, fieldIdToTransformation, typeRenameMappings, onlyChildren, nadelContext, transformationMetadata, nodeCount);
+        for (HandleResult handleResultChild : handleResultChildren) {
             if (handleResultChild == null) {
                 continue;
             }
@@ -153,6 +166,42 @@ public class ServiceResultNodesToOverallResult {
         return handleResult;
     }
 
+    /*
+     * Nothing in this subtree was transformed or removed: every node only needs to be mapped onto the overall schema
+     */
+    private ExecutionResultNode convertUntransformedSubtree(ExecutionResultNode node,
+                                                            UnapplyEnvironment unapplyEnvironment,
+                                                            NadelContext nadelContext,
+                                                            AtomicInteger nodeCount) {
+        if (node instanceof LeafExecutionResultNode && ArtificialFieldUtils.isArtificialField(nadelContext, node.getAlias())) {
+            return null;
+        }
+        nodeCount.incrementAndGet();
+        ExecutionResultNode mappedNode = mapNode(node, unapplyEnvironment);
+        List<ExecutionResultNode> children = node.getChildren();
+        if (children.isEmpty()) {
+            return mappedNode;
+        }
+        ParallelListConversion parallelListConversion = nadelContext.getParallelListConversion();
+        if (node instanceof ListExecutionResultNode && parallelListConversion.isParallel(children.size())) {
+            // the environment caches the mapped field infos and is not thread safe: every chunk gets its own
+            List<ExecutionResultNode> convertedChildren = parallelListConversion.convert(children.size(), () -> {
+                UnapplyEnvironment chunkEnvironment = new UnapplyEnvironment(unapplyEnvironment.parentNode, false, false, unapplyEnvironment.underlyingToOverallMapping, unapplyEnvironment.overallSchema);
+                return index -> convertUntransformedSubtree(children.get(index), chunkEnvironment, nadelContext, nodeCount);
+            });
+            convertedChildren.removeIf(Objects::isNull);
+            return mappedNode.withNewChildren(convertedChildren);
+        }
+        List<ExecutionResultNode> newChildren = new ArrayList<>(children.size());
+        for (ExecutionResultNode child : children) {
+            ExecutionResultNode convertedChild = convertUntransformedSubtree(child, unapplyEnvironment, nadelContext, nodeCount);
+            if (convertedChild != null) {
+                newChildren.add(convertedChild);
+            }
+        }
+        return mappedNode.withNewChildren(newChildren);
+    }
+
     private HandleResult convertSingleNode(ExecutionResultNode node,
                                            ExecutionResultNode parentNode,
                                            ExecutionId executionId,
@@ -162,7 +211,7 @@ public class ServiceResultNodesToOverallResult {
                                            boolean isHydrationTransformation,
                                            boolean batched,
                                            Map<String, FieldTransformation> fieldIdTransformation,
-                                           Map<String, String> typeRenameMappings,
+                                           UnderlyingToOverallMapping underlyingToOverallMapping,
                                            boolean onlyChildren,
                                            NadelContext nadelContext,
                                            TransformationMetadata transformationMetadata,
@@ -190,16 +239,13 @@ public class ServiceResultNodesToOverallResult {
             }
         }
 
-        TuplesTwo<Set<FieldTransformation>, List<String>> transformationsAndNotTransformedFields =
-                getTransformationsAndNotTransformedFields(node, fieldIdTransformation, transformationMetadata);
-
-        List<FieldTransformation> transformations = new ArrayList<>(transformationsAndNotTransformedFields.getT1());
+        List<FieldTransformation> transformations = getTransformations(node, transformationMetadata);
 
         UnapplyEnvironment unapplyEnvironment = new UnapplyEnvironment(
                 parentNode,
                 isHydrationTransformation,
                 batched,
-                typeRenameMappings,
+                underlyingToOverallMapping,
                 overallSchema
         );
         HandleResult result;
@@ -220,35 +266,35 @@ public class ServiceResultNodesToOverallResult {
                                                    NadelContext nadelContext,
                                                    TransformationMetadata transformationMetadata
     ) {
+        if (!transformationMetadata.hasRemovedFields()) {
+            return resultNode;
+        }
         if (normalizedQueryField == null) {
             normalizedQueryField = getNormalizedQueryFieldForResultNode(resultNode, nadelContext.getNormalizedOverallQuery());
         }
         List<NormalizedFieldAndError> removedFields = transformationMetadata.getRemovedFieldsForParent(normalizedQueryField);
+        if (removedFields.isEmpty()) {
+            return resultNode;
+        }
+        List<ExecutionResultNode> newChildren = new ArrayList<>(resultNode.getChildren().size() + removedFields.size());
+        newChildren.addAll(resultNode.getChildren());
         for (NormalizedFieldAndError normalizedFieldAndError : removedFields) {
-            MergedField mergedField = nadelContext.getNormalizedOverallQuery().getMergedFieldByNormalizedFields().get(normalizedFieldAndError.getNormalizedField());
-            LeafExecutionResultNode newChild = createRemovedFieldResult(resultNode, mergedField, normalizedFieldAndError.getNormalizedField(), normalizedFieldAndError.getError());
-            resultNode = resultNode.transform(b -> b.addChild(newChild));
+            newChildren.add(createRemovedFieldResult(resultNode, normalizedFieldAndError, nadelContext.getNormalizedOverallQuery()));
         }
-        return resultNode;
+        return resultNode.withNewChildren(newChildren);
     }
 
     private LeafExecutionResultNode createRemovedFieldResult(ExecutionResultNode parent,
-                                                             MergedField mergedField,
-                                                             NormalizedQueryField normalizedQueryField,
-                                                             GraphQLError error) {
-        ExecutionPath parentPath = parent.getExecutionPath();
-        ExecutionPath executionPath = parentPath.segment(normalizedQueryField.getResultKey());
+                                                             NormalizedFieldAndError normalizedFieldAndError,
+                                                             NormalizedQueryFromAst normalizedOverallQuery) {
+        ExecutionPath executionPath = parent.getExecutionPath().segment(normalizedFieldAndError.getNormalizedField().getResultKey());
 
-        LeafExecutionResultNode removedNode = LeafExecutionResultNode.newLeafExecutionResultNode()
+        return LeafExecutionResultNode.newLeafExecutionResultNode()
                 .executionPath(executionPath)
-                .alias(mergedField.getSingleField().getAlias())
-                .fieldIds(NodeId.getIds(mergedField))
-                .objectType(normalizedQueryField.getObjectType())
-                .fieldDefinition(normalizedQueryField.getFieldDefinition())
+                .fieldInfo(normalizedFieldAndError.getFieldInfo(normalizedOverallQuery))
                 .completedValue(null)
-                .errors(singletonList(error))
+                .errors(normalizedFieldAndError.getErrors())
                 .build();
-        return removedNode;
     }
 
 
@@ -280,7 +326,7 @@ public class ServiceResultNodesToOverallResult {
                                             Map<String, FieldTransformation> fieldIdToTransformation,
                                             NadelContext nadelContext,
                                             TransformationMetadata transformationMetadata) {
-        Map<AbstractNode, List<FieldTransformation>> transformationByDefinition = groupingBy(transformations, FieldTransformation::getDefinition);
+        Map<AbstractNode, List<FieldTransformation>> transformationByDefinition = transformationMetadata.getUnapplyPlan().getNodePlan(node.getFieldIds()).getTransformationsByDefinition();
 
         TuplesTwo<ExecutionResultNode, Map<AbstractNode, ExecutionResultNode>> splittedNodes = splitTreeByTransformationDefinition(node, fieldIdToTransformation, transformationMetadata);
         ExecutionResultNode notTransformedTree = splittedNodes.getT1();
@@ -306,7 +352,7 @@ public class ServiceResultNodesToOverallResult {
                     unapplyEnvironment.isHydrationTransformation,
                     unapplyEnvironment.batched,
                     fieldIdToTransformation,
-                    unapplyEnvironment.typeRenameMappings,
+                    unapplyEnvironment.underlyingToOverallMapping,
                     nadelContext,
                     transformationMetadata);
             handleResult.changedNode = mappedNode;
@@ -328,7 +374,7 @@ public class ServiceResultNodesToOverallResult {
                         unapplyEnvironment.isHydrationTransformation,
                         unapplyEnvironment.batched,
                         fieldIdToTransformation,
-                        unapplyEnvironment.typeRenameMappings,
+                        unapplyEnvironment.underlyingToOverallMapping,
                         nadelContext,
                         transformationMetadata);
             }
@@ -380,17 +426,9 @@ public class ServiceResultNodesToOverallResult {
             return Tuples.of(executionResultNode, emptyMap());
         }
 
-        Map<AbstractNode, Set<String>> transformationIdsByTransformationDefinition = new LinkedHashMap<>();
-        List<String> fieldIds = executionResultNode.getFieldIds();
-        for (String fieldId : fieldIds) {
-            List<String> transformationIds = FieldMetadataUtil.getRootOfTransformationIds(fieldId, transformationMetadata.getMetadataByFieldId());
-            for (String transformationId : transformationIds) {
-                FieldTransformation fieldTransformation = assertNotNull(fieldIdToTransformation.get(transformationId));
-                AbstractNode definition = fieldTransformation.getDefinition();
-                transformationIdsByTransformationDefinition.putIfAbsent(definition, new LinkedHashSet<>());
-                transformationIdsByTransformationDefinition.get(definition).add(transformationId);
-            }
-        }
+        Map<AbstractNode, Set<String>> transformationIdsByTransformationDefinition = transformationMetadata.getUnapplyPlan()
+                .getNodePlan(executionResultNode.getFieldIds())
+                .getTransformationIdsByDefinition();
         Map<AbstractNode, ExecutionResultNode> treesByDefinition = new LinkedHashMap<>();
         for (AbstractNode definition : transformationIdsByTransformationDefinition.keySet()) {
             Set<String> transformationIds = transformationIdsByTransformationDefinition.get(definition);
@@ -427,15 +465,27 @@ public class ServiceResultNodesToOverallResult {
 
 
     private List<String> getFieldIdsWithoutTransformationId(ExecutionResultNode node, TransformationMetadata transformationMetadata) {
-        return node.getFieldIds().stream().filter(fieldId -> FieldMetadataUtil.getTransformationIds(fieldId, transformationMetadata.getMetadataByFieldId()).size() == 0).collect(Collectors.toList());
+        UnapplyPlan unapplyPlan = transformationMetadata.getUnapplyPlan();
+        List<String> fieldIds = node.getFieldIds();
+        List<String> result = new ArrayList<>(fieldIds.size());
+        for (String fieldId : fieldIds) {
+            if (unapplyPlan.getTransformationIds(fieldId).isEmpty()) {
+                result.add(fieldId);
+            }
+        }
+        return result;
     }
 
-    private List<String> getFieldIdsWithTransformationIds(ExecutionResultNode
-                                                                  node, Set<String> transformationIds, TransformationMetadata transformationMetadata) {
-        return node.getFieldIds().stream().filter(fieldId -> {
-            List<String> transformationIdsForField = FieldMetadataUtil.getTransformationIds(fieldId, transformationMetadata.getMetadataByFieldId());
-            return transformationIdsForField.containsAll(transformationIds);
-        }).collect(Collectors.toList());
+    private List<String> getFieldIdsWithTransformationIds(ExecutionResultNode node, Set<String> transformationIds, TransformationMetadata transformationMetadata) {
+        UnapplyPlan unapplyPlan = transformationMetadata.getUnapplyPlan();
+        List<String> fieldIds = node.getFieldIds();
+        List<String> result = new ArrayList<>(fieldIds.size());
+        for (String fieldId : fieldIds) {
+            if (unapplyPlan.getTransformationIds(fieldId).containsAll(transformationIds)) {
+                result.add(fieldId);
+            }
+        }
+        return result;
     }
 
     private ExecutionResultNode mapNode(ExecutionResultNode node, UnapplyEnvironment environment) {
@@ -445,31 +495,12 @@ public class ServiceResultNodesToOverallResult {
     }
 
 
-    private TuplesTwo<Set<FieldTransformation>, List<String>> getTransformationsAndNotTransformedFields(
-            ExecutionResultNode node,
-            Map<String, FieldTransformation> fieldIdToTransformation,
-            TransformationMetadata transformationMetadata
-    ) {
-        Set<FieldTransformation> transformations = new LinkedHashSet<>();
-        List<String> notTransformedFields = new ArrayList<>();
-        for (String fieldId : node.getFieldIds()) {
-
-            if (node.getExecutionPath().isListSegment()) {
-                notTransformedFields.add(fieldId);
-                continue;
-            }
-
-            List<String> rootTransformationIds = FieldMetadataUtil.getRootOfTransformationIds(fieldId, transformationMetadata.getMetadataByFieldId());
-            if (rootTransformationIds.size() == 0) {
-                notTransformedFields.add(fieldId);
-                continue;
-            }
-            for (String transformationId : rootTransformationIds) {
-                FieldTransformation fieldTransformation = fieldIdToTransformation.get(transformationId);
-                transformations.add(fieldTransformation);
-            }
+    private List<FieldTransformation> getTransformations(ExecutionResultNode node, TransformationMetadata transformationMetadata) {
+        // list elements have the field ids of their list but the transformation is unapplied on the list itself
+        if (node.getExecutionPath().isListSegment()) {
+            return emptyList();
         }
-        return Tuples.of(transformations, notTransformedFields);
+        return transformationMetadata.getUnapplyPlan().getNodePlan(node.getFieldIds()).getTransformations();
     }
 
     private RootExecutionResultNode mapRootResultNode(RootExecutionResultNode resultNode) {
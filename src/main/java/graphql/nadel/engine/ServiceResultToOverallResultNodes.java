@@ -0,0 +1,278 @@
+package graphql.nadel.engine;
+
+import graphql.Internal;
+import graphql.execution.ExecutionContext;
+import graphql.execution.ExecutionPath;
+import graphql.execution.ExecutionStepInfo;
+import graphql.execution.MergedField;
+import graphql.introspection.Introspection;
+import graphql.nadel.ServiceExecutionResult;
+import graphql.nadel.dsl.NodeId;
+import graphql.nadel.engine.transformation.FieldRenameTransformation;
+import graphql.nadel.engine.transformation.FieldTransformation;
+import graphql.nadel.engine.transformation.TransformationMetadata;
+import graphql.nadel.engine.transformation.TransformationMetadata.NormalizedFieldAndError;
+import graphql.nadel.normalized.NormalizedQueryField;
+import graphql.nadel.normalized.NormalizedQueryFromAst;
+import graphql.nadel.result.ElapsedTime;
+import graphql.nadel.result.ExecutionResultNode;
+import graphql.nadel.result.LeafExecutionResultNode;
+import graphql.nadel.result.ResultNodeFieldInfo;
+import graphql.nadel.result.RootExecutionResultNode;
+import graphql.schema.GraphQLCompositeType;
+import graphql.schema.GraphQLTypeUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.Assert.assertShouldNeverHappen;
+import static java.util.Collections.emptyList;
+
+/**
+ * Creates the result nodes of a service call straight in terms of the overall schema, so they don't have to be converted
+ * by {@link ServiceResultNodesToOverallResult} afterwards.
+ * <p>
+ * Before the result is read the fields of the query sent to the service are planned once: every field gets the overall
+ * field info shared by all its nodes and the removed fields to add to its object nodes. A renamed field gets the field
+ * info of the overall field it was renamed from, and if it was renamed from a path its nodes are created from the value
+ * of the field at the end of that path. Artificial fields are left out and __typename values are renamed.
+ * <p>
+ * This doesn't work for queries with hydrated fields. It also doesn't work for a field of the query sent to the service
+ * which merges fields of different renames, or renamed and not renamed fields: their result nodes are split into
+ * several overall nodes. Nor does it work for a rename from a path through an interface or union, which has a field
+ * for every object type at the end of the path. If the plan finds such a field the underlying result nodes are
+ * created instead, see {@link #isOverallResult()}, and converted by {@link ServiceResultNodesToOverallResult}.
+ * <p>
+ * A new instance is needed for every service call.
+ */
+@Internal
+public class ServiceResultToOverallResultNodes extends ServiceResultToResultNodes {
+
+    private static final String UNDERSCORE_TYPENAME = Introspection.TypeNameMetaFieldDef.getName();
+
+    private final ExecutionResultNodeMapper executionResultNodeMapper = new ExecutionResultNodeMapper();
+
+    private final TransformationMetadata transformationMetadata;
+    private final UnderlyingToOverallMapping underlyingToOverallMapping;
+    private final NadelContext nadelContext;
+
+    // by the fields of the query sent to the service, planned before the result is read and only read afterwards
+    private final Map<NormalizedQueryField, FieldPlan> fieldPlans = new IdentityHashMap<>();
+    // the field infos of renamed fields
+    private final Set<ResultNodeFieldInfo> renamedFieldInfos = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean overallResult;
+
+    /*
+     * how the nodes of a field are created
+     */
+    private static class FieldPlan {
+        private final ResultNodeFieldInfo fieldInfo;
+        private final NormalizedQueryField valueField;
+        private final List<NormalizedFieldAndError> removedFields;
+
+        private FieldPlan(ResultNodeFieldInfo fieldInfo, NormalizedQueryField valueField, List<NormalizedFieldAndError> removedFields) {
+            this.fieldInfo = fieldInfo;
+            this.valueField = valueField;
+            this.removedFields = removedFields;
+        }
+    }
+
+    private ServiceResultToOverallResultNodes(TransformationMetadata transformationMetadata, UnderlyingToOverallMapping underlyingToOverallMapping, NadelContext nadelContext) {
+        this.transformationMetadata = transformationMetadata;
+        this.underlyingToOverallMapping = underlyingToOverallMapping;
+        this.nadelContext = nadelContext;
+    }
+
+    /**
+     * @param transformationMetadata     what was transformed and removed in the query sent to the service
+     * @param underlyingToOverallMapping how the types of the service map to the overall schema
+     * @param nadelContext               the context of the execution
+     *
+     * @return the converter for the service call or null if the result nodes need to be converted by {@link ServiceResultNodesToOverallResult}
+     */
+    public static ServiceResultToOverallResultNodes forQuery(TransformationMetadata transformationMetadata,
+                                                             UnderlyingToOverallMapping underlyingToOverallMapping,
+                                                             NadelContext nadelContext) {
+        if (transformationMetadata.getUnapplyPlan().hasHydrations()) {
+            return null;
+        }
+        return new ServiceResultToOverallResultNodes(transformationMetadata, underlyingToOverallMapping, nadelContext);
+    }
+
+    @Override
+    public RootExecutionResultNode resultToResultNode(ExecutionContext executionContext,
+                                                      ExecutionStepInfo executionStepInfo,
+                                                      List<MergedField> mergedFields,
+                                                      ServiceExecutionResult serviceExecutionResult,
+                                                      ElapsedTime elapsedTimeForServiceCall,
+                                                      NormalizedQueryFromAst normalizedQueryFromAst) {
+        overallResult = planFields(normalizedQueryFromAst.getTopLevelFields(), null, ExecutionPath.rootPath(), normalizedQueryFromAst);
+        if (!overallResult) {
+            fieldPlans.clear();
+            return super.resultToResultNode(executionContext, executionStepInfo, mergedFields, serviceExecutionResult, elapsedTimeForServiceCall, normalizedQueryFromAst);
+        }
+        RootExecutionResultNode rootNode = super.resultToResultNode(executionContext, executionStepInfo, mergedFields, serviceExecutionResult, elapsedTimeForServiceCall, normalizedQueryFromAst);
+        int nodeCount = countNodes(rootNode);
+        return (RootExecutionResultNode) rootNode.transform(builder -> builder.totalNodeCount(nodeCount));
+    }
+
+    /**
+     * @return true if the created result nodes are for the overall schema, false if they are the underlying result nodes
+     * because the plan doesn't cover the query
+     */
+    public boolean isOverallResult() {
+        return overallResult;
+    }
+
+    private boolean planFields(List<NormalizedQueryField> fields,
+                               ResultNodeFieldInfo parentFieldInfo,
+                               ExecutionPath parentPath,
+                               NormalizedQueryFromAst normalizedQueryFromAst) {
+        for (NormalizedQueryField field : fields) {
+            if (ArtificialFieldUtils.isArtificialField(nadelContext, field.getAlias())) {
+                continue;
+            }
+            FieldPlan fieldPlan = planField(field, parentFieldInfo, parentPath, normalizedQueryFromAst);
+            if (fieldPlan == null) {
+                return false;
+            }
+            fieldPlans.put(field, fieldPlan);
+            fieldPlans.put(fieldPlan.valueField, fieldPlan);
+            if (!planFields(fieldPlan.valueField.getChildren(), fieldPlan.fieldInfo, parentPath.segment(fieldPlan.fieldInfo.getResultKey()), normalizedQueryFromAst)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private FieldPlan planField(NormalizedQueryField field,
+                                ResultNodeFieldInfo parentFieldInfo,
+                                ExecutionPath parentPath,
+                                NormalizedQueryFromAst normalizedQueryFromAst) {
+        ResultNodeFieldInfo underlyingFieldInfo = normalizedQueryFromAst.getResultNodeFieldInfo(field);
+        List<FieldTransformation> transformations = transformationMetadata.getUnapplyPlan().getNodePlan(underlyingFieldInfo.getFieldIds()).getTransformations();
+        if (transformations.isEmpty()) {
+            ResultNodeFieldInfo fieldInfo = executionResultNodeMapper.mapFieldInfo(underlyingFieldInfo, underlyingToOverallMapping);
+            return new FieldPlan(fieldInfo, field, getRemovedFields(fieldInfo));
+        }
+        // only renames are left, see forQuery: the node is only renamed if all its fields are renamed the same way
+        if (transformations.size() != underlyingFieldInfo.getFieldIds().size() || !isSameDefinition(transformations)) {
+            return null;
+        }
+        FieldRenameTransformation renameTransformation = (FieldRenameTransformation) transformations.get(0);
+        NormalizedQueryField overallField = renameTransformation.getMatchingNormalizedQueryField(parentFieldInfo, parentPath);
+        List<String> fieldIds = new ArrayList<>(transformations.size());
+        for (FieldTransformation transformation : transformations) {
+            fieldIds.add(NodeId.getId(transformation.getOriginalField()));
+        }
+        ResultNodeFieldInfo fieldInfo = new ResultNodeFieldInfo(overallField.getAlias(), fieldIds, overallField.getFieldDefinition(), overallField.getObjectType());
+
+        // all fields merged into this one are renamed from the same path, so the fields of the path aren't shared
+        NormalizedQueryField valueField = field;
+        List<String> inputPath = renameTransformation.getDefinition().getInputPath();
+        for (String fieldName : inputPath.subList(1, inputPath.size())) {
+            valueField = getChildNamed(valueField, fieldName);
+            if (valueField == null) {
+                return null;
+            }
+        }
+        renamedFieldInfos.add(fieldInfo);
+        return new FieldPlan(fieldInfo, valueField, getRemovedFields(fieldInfo));
+    }
+
+    private boolean isSameDefinition(List<FieldTransformation> transformations) {
+        for (FieldTransformation transformation : transformations) {
+            if (transformation.getDefinition() != transformations.get(0).getDefinition()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private NormalizedQueryField getChildNamed(NormalizedQueryField field, String fieldName) {
+        NormalizedQueryField childNamed = null;
+        for (NormalizedQueryField child : field.getChildren()) {
+            if (child.getName().equals(fieldName)) {
+                if (childNamed != null) {
+                    return null;
+                }
+                childNamed = child;
+            }
+        }
+        return childNamed;
+    }
+
+    private List<NormalizedFieldAndError> getRemovedFields(ResultNodeFieldInfo fieldInfo) {
+        if (!transformationMetadata.hasRemovedFields() || !(GraphQLTypeUtil.unwrapAll(fieldInfo.getFieldDefinition().getType()) instanceof GraphQLCompositeType)) {
+            return emptyList();
+        }
+        List<NormalizedQueryField> normalizedFields = nadelContext.getNormalizedOverallQuery().getNormalizedFieldsByFieldId(fieldInfo.getFieldIds().get(0));
+        for (NormalizedQueryField normalizedField : assertNotNull(normalizedFields)) {
+            if (normalizedField.getObjectType() == fieldInfo.getObjectType() && normalizedField.getFieldDefinition() == fieldInfo.getFieldDefinition()) {
+                return transformationMetadata.getRemovedFieldsForParent(normalizedField);
+            }
+        }
+        return assertShouldNeverHappen("Can't find normalized query field");
+    }
+
+    @Override
+    protected ResultNodeFieldInfo getFieldInfo(NormalizedQueryField field, NormalizedQueryFromAst normalizedQueryFromAst) {
+        FieldPlan fieldPlan = fieldPlans.get(field);
+        return fieldPlan != null ? fieldPlan.fieldInfo : super.getFieldInfo(field, normalizedQueryFromAst);
+    }
+
+    @Override
+    protected NormalizedQueryField getValueField(NormalizedQueryField field) {
+        FieldPlan fieldPlan = fieldPlans.get(field);
+        return fieldPlan != null ? fieldPlan.valueField : field;
+    }
+
+    @Override
+    protected void addRemovedFields(NormalizedQueryField field, ExecutionPath executionPath, List<ExecutionResultNode> children) {
+        FieldPlan fieldPlan = fieldPlans.get(field);
+        if (fieldPlan == null) {
+            return;
+        }
+        NormalizedQueryFromAst normalizedOverallQuery = nadelContext.getNormalizedOverallQuery();
+        for (NormalizedFieldAndError removedField : fieldPlan.removedFields) {
+            children.add(LeafExecutionResultNode.newLeafExecutionResultNode()
+                    .executionPath(executionPath.segment(removedField.getNormalizedField().getResultKey()))
+                    .fieldInfo(removedField.getFieldInfo(normalizedOverallQuery))
+                    .completedValue(null)
+                    .errors(removedField.getErrors())
+                    .build());
+        }
+    }
+
+    @Override
+    protected boolean isResultField(NormalizedQueryField field) {
+        return !overallResult || !ArtificialFieldUtils.isArtificialField(nadelContext, field.getAlias());
+    }
+
+    @Override
+    protected Object mapScalarValue(Object serialized, ResultNodeFieldInfo fieldInfo) {
+        if (overallResult && serialized instanceof String && UNDERSCORE_TYPENAME.equals(fieldInfo.getFieldDefinition().getName())) {
+            return underlyingToOverallMapping.getOverallTypeName((String) serialized);
+        }
+        return serialized;
+    }
+
+    /*
+     * like ServiceResultNodesToOverallResult, which doesn't count the nodes below renamed nodes
+     */
+    private int countNodes(ExecutionResultNode node) {
+        int count = 1;
+        if (renamedFieldInfos.contains(node.getFieldInfo())) {
+            return count;
+        }
+        for (ExecutionResultNode child : node.getChildren()) {
+            count += countNodes(child);
+        }
+        return count;
+    }
+}
@@ -8,6 +8,7 @@ import graphql.execution.ExecutionContext;
 import graphql.execution.ExecutionPath;
 import graphql.execution.ExecutionStepInfo;
 import graphql.execution.MergedField;
+import graphql.nadel.JsonServiceExecutionResult;
 import graphql.nadel.ServiceExecutionResult;
 import graphql.nadel.normalized.NormalizedQueryField;
 import graphql.nadel.normalized.NormalizedQueryFromAst;
@@ -17,8 +18,10 @@ import graphql.nadel.result.LeafExecutionResultNode;
 import graphql.nadel.result.ListExecutionResultNode;
 import graphql.nadel.result.NonNullableFieldWasNullError;
 import graphql.nadel.result.ObjectExecutionResultNode;
+import graphql.nadel.result.ResultNodeFieldInfo;
 import graphql.nadel.result.RootExecutionResultNode;
 import graphql.nadel.util.ErrorUtil;
+import graphql.nadel.util.JsonTokenReader;
 import graphql.schema.CoercingSerializeException;
 import graphql.schema.GraphQLEnumType;
 import graphql.schema.GraphQLList;
@@ -32,20 +35,35 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 
 import static graphql.Assert.assertNotNull;
 import static graphql.Assert.assertTrue;
 import static graphql.nadel.result.LeafExecutionResultNode.newLeafExecutionResultNode;
 import static graphql.nadel.result.ObjectExecutionResultNode.newObjectExecutionResultNode;
 import static graphql.schema.GraphQLTypeUtil.isList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
 
 public class ServiceResultToResultNodes {
 
 
     private static final Logger log = LoggerFactory.getLogger(ServiceResultToResultNodes.class);
 
+    /*
+     * the completed value of object and list nodes: the value is in the children. Keeping the raw map or list of the
+     * service response would keep the whole response reachable for as long as the result nodes.
+     */
+    static final Object VALUE_IN_CHILDREN = new Object() {
+        @Override
+        public String toString() {
+            return "<value in children>";
+        }
+    };
+
 
     public RootExecutionResultNode resultToResultNode(ExecutionContext executionContext,
                                                       ExecutionStepInfo executionStepInfo,
@@ -56,6 +74,13 @@ public class ServiceResultToResultNodes {
     ) {
         long startTime = System.currentTimeMillis();
 
+        if (serviceExecutionResult instanceof JsonServiceExecutionResult) {
+            RootExecutionResultNode rootExecutionResultNode = readJsonResult(executionContext, (JsonServiceExecutionResult) serviceExecutionResult, elapsedTimeForServiceCall, normalizedQueryFromAst);
+            long elapsedTime = System.currentTimeMillis() - startTime;
+            log.debug("ServiceResultToResultNodes (json) time: {} ms, executionId: {}", elapsedTime, executionContext.getExecutionId());
+            return rootExecutionResultNode;
+        }
+
         List<GraphQLError> errors = ErrorUtil.createGraphQlErrorsFromRawErrors(serviceExecutionResult.getErrors());
         Map<String, Object> extensions = serviceExecutionResult.getExtensions();
 
@@ -80,25 +105,231 @@ public class ServiceResultToResultNodes {
 
         List<ExecutionResultNode> children = new ArrayList<>(topLevelFields.size());
         for (NormalizedQueryField topLevelField : topLevelFields) {
-            ExecutionPath path = rootPath.segment(topLevelField.getResultKey());
-            List<String> fieldIds = normalizedQueryFromAst.getFieldIds(topLevelField);
+            ResultNodeFieldInfo fieldInfo = getFieldInfo(topLevelField, normalizedQueryFromAst);
+            ExecutionPath path = rootPath.segment(fieldInfo.getResultKey());
 
-            ExecutionResultNode executionResultNode = fetchAndAnalyzeField(executionContext, source, topLevelField, normalizedQueryFromAst, path, fieldIds, elapsedTime);
+            ExecutionResultNode executionResultNode = fetchAndAnalyzeField(executionContext, source, topLevelField, normalizedQueryFromAst, path, fieldInfo, elapsedTime);
             children.add(executionResultNode);
         }
         return (RootExecutionResultNode) rootNode.withNewChildren(children);
     }
 
 
+    /*
+     * Reads the raw JSON of the service response and creates the nodes straight from it. Objects of a known object type
+     * and lists are read field by field, everything else is read as a value and then analysed like in the map based code
+     * above.
+     */
+    @SuppressWarnings("unchecked")
+    private RootExecutionResultNode readJsonResult(ExecutionContext executionContext,
+                                                   JsonServiceExecutionResult serviceExecutionResult,
+                                                   ElapsedTime elapsedTime,
+                                                   NormalizedQueryFromAst normalizedQueryFromAst) {
+        List<NormalizedQueryField> topLevelFields = normalizedQueryFromAst.getTopLevelFields();
+        ExecutionPath rootPath = ExecutionPath.rootPath();
+
+        List<GraphQLError> errors = emptyList();
+        Map<String, Object> extensions = emptyMap();
+        ExecutionResultNode[] children = null;
+
+        JsonTokenReader reader = new JsonTokenReader(serviceExecutionResult.newReader());
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("data".equals(name) && reader.peek() == JsonTokenReader.Token.BEGIN_OBJECT) {
+                children = readObjectFields(executionContext, reader, topLevelFields, null, normalizedQueryFromAst, rootPath, elapsedTime);
+            } else if ("errors".equals(name) && reader.peek() == JsonTokenReader.Token.BEGIN_ARRAY) {
+                errors = ErrorUtil.createGraphQlErrorsFromRawErrors((List<Map<String, Object>>) reader.nextValue());
+            } else if ("extensions".equals(name) && reader.peek() == JsonTokenReader.Token.BEGIN_OBJECT) {
+                extensions = (Map<String, Object>) reader.nextValue();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (children == null) {
+            children = new ExecutionResultNode[topLevelFields.size()];
+            addMissingFields(executionContext, children, topLevelFields, normalizedQueryFromAst, rootPath, elapsedTime);
+        }
+        return RootExecutionResultNode.newRootExecutionResultNode()
+                .errors(errors)
+                .extensions(extensions)
+                .elapsedTime(elapsedTime)
+                .children(Arrays.asList(children))
+                .build();
+    }
+
+    private ExecutionResultNode readJsonValue(ExecutionContext executionContext,
+                                              JsonTokenReader reader,
+                                              NormalizedQueryField normalizedQueryField,
+                                              NormalizedQueryFromAst normalizedQueryFromAst,
+                                              GraphQLOutputType curType,
+                                              ExecutionPath executionPath,
+                                              ResultNodeFieldInfo fieldInfo,
+                                              ElapsedTime elapsedTime) {
+        GraphQLOutputType unwrappedType = (GraphQLOutputType) GraphQLTypeUtil.unwrapNonNull(curType);
+        JsonTokenReader.Token token = reader.peek();
+        boolean isListValue = token == JsonTokenReader.Token.BEGIN_ARRAY && isList(unwrappedType);
+        boolean isObjectValue = token == JsonTokenReader.Token.BEGIN_OBJECT && unwrappedType instanceof GraphQLObjectType;
+        if ((isListValue || isObjectValue) && !isWithinResultSizeBudget(executionContext, normalizedQueryField, executionPath, VALUE_IN_CHILDREN)) {
+            reader.skipValue();
+            return createOverResultSizeERN(curType, executionPath, fieldInfo, elapsedTime);
+        }
+        if (isListValue) {
+            GraphQLOutputType elementType = (GraphQLOutputType) GraphQLTypeUtil.unwrapOne(unwrappedType);
+            List<ExecutionResultNode> children = new ArrayList<>();
+            int index = 0;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                ExecutionPath indexedPath = executionPath.segment(index);
+                children.add(readJsonValue(executionContext, reader, normalizedQueryField, normalizedQueryFromAst, elementType, indexedPath, fieldInfo, elapsedTime));
+                index++;
+            }
+            reader.endArray();
+            return ListExecutionResultNode.newListExecutionResultNode()
+                    .executionPath(executionPath)
+                    .completedValue(VALUE_IN_CHILDREN)
+                    .fieldInfo(fieldInfo)
+                    .elapsedTime(elapsedTime)
+                    .children(children)
+                    .build();
+        }
+        if (isObjectValue) {
+            ExecutionResultNode[] children = readObjectFields(executionContext, reader, normalizedQueryField.getChildren(), (GraphQLObjectType) unwrappedType, normalizedQueryFromAst, executionPath, elapsedTime);
+            List<ExecutionResultNode> nodeChildren = new ArrayList<>(children.length);
+            for (ExecutionResultNode child : children) {
+                if (child != null) {
+                    nodeChildren.add(child);
+                }
+            }
+            addRemovedFields(normalizedQueryField, executionPath, nodeChildren);
+            return newObjectExecutionResultNode()
+                    .executionPath(executionPath)
+                    .fieldInfo(fieldInfo)
+                    .completedValue(VALUE_IN_CHILDREN)
+                    .children(nodeChildren)
+                    .elapsedTime(elapsedTime)
+                    .build();
+        }
+        // scalars, enums, interfaces and unions, nulls and values of the wrong shape
+        Object value = reader.nextValue();
+        return analyzeFetchedValueImpl(executionContext, value, normalizedQueryField, normalizedQueryFromAst, curType, executionPath, fieldInfo, elapsedTime);
+    }
+
+    /*
+     * the returned array has one slot per field in the order of the normalized fields, fields which don't apply to the
+     * object type are null
+     */
+    private ExecutionResultNode[] readObjectFields(ExecutionContext executionContext,
+                                                   JsonTokenReader reader,
+                                                   List<NormalizedQueryField> fields,
+                                                   GraphQLObjectType objectType,
+                                                   NormalizedQueryFromAst normalizedQueryFromAst,
+                                                   ExecutionPath executionPath,
+                                                   ElapsedTime elapsedTime) {
+        ExecutionResultNode[] children = new ExecutionResultNode[fields.size()];
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String resultKey = reader.nextName();
+            int index = indexOfField(fields, objectType, resultKey);
+            if (index < 0 || children[index] != null) {
+                reader.skipValue();
+                continue;
+            }
+            NormalizedQueryField field = fields.get(index);
+            if (!isResultField(field)) {
+                reader.skipValue();
+                continue;
+            }
+            ResultNodeFieldInfo fieldInfo = getFieldInfo(field, normalizedQueryFromAst);
+            children[index] = readJsonFieldValue(executionContext, reader, field, getValueField(field), normalizedQueryFromAst,
+                    executionPath.segment(fieldInfo.getResultKey()), fieldInfo, elapsedTime);
+        }
+        reader.endObject();
+        addMissingFields(executionContext, children, fields, objectType, normalizedQueryFromAst, executionPath, elapsedTime);
+        return children;
+    }
+
+    /*
+     * reads the value of a field which is nested in the objects of the fields down to the value field, see getValueField()
+     */
+    private ExecutionResultNode readJsonFieldValue(ExecutionContext executionContext,
+                                                   JsonTokenReader reader,
+                                                   NormalizedQueryField field,
+                                                   NormalizedQueryField valueField,
+                                                   NormalizedQueryFromAst normalizedQueryFromAst,
+                                                   ExecutionPath executionPath,
+                                                   ResultNodeFieldInfo fieldInfo,
+                                                   ElapsedTime elapsedTime) {
+        if (field == valueField) {
+            return readJsonValue(executionContext, reader, field, normalizedQueryFromAst, field.getFieldDefinition().getType(), executionPath, fieldInfo, elapsedTime);
+        }
+        if (reader.peek() != JsonTokenReader.Token.BEGIN_OBJECT) {
+            return analyzeFetchedValueImpl(executionContext, reader.nextValue(), field, normalizedQueryFromAst, field.getFieldDefinition().getType(), executionPath, fieldInfo, elapsedTime);
+        }
+        NormalizedQueryField child = getChildOnTheWayTo(field, valueField);
+        ExecutionResultNode node = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String resultKey = reader.nextName();
+            if (node == null && child.getResultKey().equals(resultKey)) {
+                node = readJsonFieldValue(executionContext, reader, child, valueField, normalizedQueryFromAst, executionPath, fieldInfo, elapsedTime);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (node == null) {
+            node = analyzeFetchedValueImpl(executionContext, null, child, normalizedQueryFromAst, child.getFieldDefinition().getType(), executionPath, fieldInfo, elapsedTime);
+        }
+        return node;
+    }
+
+    private void addMissingFields(ExecutionContext executionContext,
+                                  ExecutionResultNode[] children,
+                                  List<NormalizedQueryField> fields,
+                                  NormalizedQueryFromAst normalizedQueryFromAst,
+                                  ExecutionPath executionPath,
+                                  ElapsedTime elapsedTime) {
+        addMissingFields(executionContext, children, fields, null, normalizedQueryFromAst, executionPath, elapsedTime);
+    }
+
+    private void addMissingFields(ExecutionContext executionContext,
+                                  ExecutionResultNode[] children,
+                                  List<NormalizedQueryField> fields,
+                                  GraphQLObjectType objectType,
+                                  NormalizedQueryFromAst normalizedQueryFromAst,
+                                  ExecutionPath executionPath,
+                                  ElapsedTime elapsedTime) {
+        for (int i = 0; i < children.length; i++) {
+            NormalizedQueryField field = fields.get(i);
+            if (children[i] == null && (objectType == null || field.getObjectType() == objectType) && isResultField(field)) {
+                ResultNodeFieldInfo fieldInfo = getFieldInfo(field, normalizedQueryFromAst);
+                children[i] = analyseValue(executionContext, null, field, normalizedQueryFromAst, executionPath.segment(fieldInfo.getResultKey()), fieldInfo, elapsedTime);
+            }
+        }
+    }
+
+    private int indexOfField(List<NormalizedQueryField> fields, GraphQLObjectType objectType, String resultKey) {
+        for (int i = 0; i < fields.size(); i++) {
+            NormalizedQueryField field = fields.get(i);
+            if ((objectType == null || field.getObjectType() == objectType) && field.getResultKey().equals(resultKey)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     private ExecutionResultNode fetchAndAnalyzeField(ExecutionContext context,
                                                      Object source,
                                                      NormalizedQueryField normalizedQueryField,
                                                      NormalizedQueryFromAst normalizedQueryFromAst,
                                                      ExecutionPath executionPath,
-                                                     List<String> fieldIds,
+                                                     ResultNodeFieldInfo fieldInfo,
                                                      ElapsedTime elapsedTime) {
         Object fetchedValue = fetchValue(source, normalizedQueryField.getResultKey());
-        return analyseValue(context, fetchedValue, normalizedQueryField, normalizedQueryFromAst, executionPath, fieldIds, elapsedTime);
+        return analyseValue(context, fetchedValue, normalizedQueryField, normalizedQueryFromAst, executionPath, fieldInfo, elapsedTime);
     }
 
     private Object fetchValue(Object source, String key) {
@@ -115,9 +346,23 @@ public class ServiceResultToResultNodes {
                                              NormalizedQueryField normalizedQueryField,
                                              NormalizedQueryFromAst normalizedQueryFromAst,
                                              ExecutionPath executionPath,
-                                             List<String> fieldIds,
+                                             ResultNodeFieldInfo fieldInfo,
                                              ElapsedTime elapsedTime) {
-        return analyzeFetchedValueImpl(executionContext, fetchedValue, normalizedQueryField, normalizedQueryFromAst, normalizedQueryField.getFieldDefinition().getType(), executionPath, fieldIds, elapsedTime);
+        // the value of the value field is nested in the objects of the fields on the way to it
+        NormalizedQueryField valueField = getValueField(normalizedQueryField);
+        while (normalizedQueryField != valueField && fetchedValue instanceof Map) {
+            normalizedQueryField = getChildOnTheWayTo(normalizedQueryField, valueField);
+            fetchedValue = fetchValue(fetchedValue, normalizedQueryField.getResultKey());
+        }
+        return analyzeFetchedValueImpl(executionContext, fetchedValue, normalizedQueryField, normalizedQueryFromAst, normalizedQueryField.getFieldDefinition().getType(), executionPath, fieldInfo, elapsedTime);
+    }
+
+    private NormalizedQueryField getChildOnTheWayTo(NormalizedQueryField field, NormalizedQueryField descendant) {
+        NormalizedQueryField child = descendant;
+        while (child.getParent() != field) {
+            child = assertNotNull(child.getParent(), () -> "the value field must be below the field");
+        }
+        return child;
     }
 
     private ExecutionResultNode analyzeFetchedValueImpl(ExecutionContext executionContext,
@@ -126,34 +371,37 @@ public class ServiceResultToResultNodes {
                                                         NormalizedQueryFromAst normalizedQueryFromAst,
                                                         GraphQLOutputType curType,
                                                         ExecutionPath executionPath,
-                                                        List<String> fieldIds,
+                                                        ResultNodeFieldInfo fieldInfo,
                                                         ElapsedTime elapsedTime) {
+        if (!isWithinResultSizeBudget(executionContext, normalizedQueryField, executionPath, toAnalyze)) {
+            return createOverResultSizeERN(curType, executionPath, fieldInfo, elapsedTime);
+        }
 
         boolean isNonNull = GraphQLTypeUtil.isNonNull(curType);
         if (toAnalyze == null && isNonNull) {
             NonNullableFieldWasNullError nonNullableFieldWasNullError = new NonNullableFieldWasNullError((GraphQLNonNull) curType, executionPath);
-            return createNullERNWithNullableError(normalizedQueryField, executionPath, fieldIds, elapsedTime, nonNullableFieldWasNullError);
+            return createNullERNWithNullableError(normalizedQueryField, executionPath, fieldInfo, elapsedTime, nonNullableFieldWasNullError);
         } else if (toAnalyze == null) {
-            return createNullERN(normalizedQueryField, executionPath, fieldIds, elapsedTime);
+            return createNullERN(normalizedQueryField, executionPath, fieldInfo, elapsedTime);
         }
 
         curType = (GraphQLOutputType) GraphQLTypeUtil.unwrapNonNull(curType);
         if (isList(curType)) {
-            return analyzeList(executionContext, toAnalyze, (GraphQLList) curType, normalizedQueryField, normalizedQueryFromAst, executionPath, fieldIds, elapsedTime);
+            return analyzeList(executionContext, toAnalyze, (GraphQLList) curType, normalizedQueryField, normalizedQueryFromAst, executionPath, fieldInfo, elapsedTime);
         } else if (curType instanceof GraphQLScalarType) {
-            return analyzeScalarValue(toAnalyze, (GraphQLScalarType) curType, normalizedQueryField, executionPath, fieldIds, elapsedTime);
+            return analyzeScalarValue(toAnalyze, (GraphQLScalarType) curType, normalizedQueryField, executionPath, fieldInfo, elapsedTime);
         } else if (curType instanceof GraphQLEnumType) {
-            return analyzeEnumValue(toAnalyze, (GraphQLEnumType) curType, normalizedQueryField, executionPath, fieldIds, elapsedTime);
+            return analyzeEnumValue(toAnalyze, (GraphQLEnumType) curType, normalizedQueryField, executionPath, fieldInfo, elapsedTime);
         }
 
 
         GraphQLObjectType resolvedObjectType = resolveType(executionContext, toAnalyze, curType);
-        return resolveObject(executionContext, normalizedQueryField, fieldIds, normalizedQueryFromAst, resolvedObjectType, toAnalyze, executionPath, elapsedTime);
+        return resolveObject(executionContext, normalizedQueryField, fieldInfo, normalizedQueryFromAst, resolvedObjectType, toAnalyze, executionPath, elapsedTime);
     }
 
     private ObjectExecutionResultNode resolveObject(ExecutionContext context,
                                                     NormalizedQueryField normalizedField,
-                                                    List<String> objectFieldIds,
+                                                    ResultNodeFieldInfo objectFieldInfo,
                                                     NormalizedQueryFromAst normalizedQueryFromAst,
                                                     GraphQLObjectType resolvedType,
                                                     Object completedValue,
@@ -162,20 +410,18 @@ public class ServiceResultToResultNodes {
 
         List<ExecutionResultNode> nodeChildren = new ArrayList<>(normalizedField.getChildren().size());
         for (NormalizedQueryField child : normalizedField.getChildren()) {
-            if (child.getObjectType() == resolvedType) {
-                ExecutionPath pathForChild = executionPath.segment(child.getResultKey());
-                List<String> fieldIds = normalizedQueryFromAst.getFieldIds(child);
-                ExecutionResultNode childNode = fetchAndAnalyzeField(context, completedValue, child, normalizedQueryFromAst, pathForChild, fieldIds, elapsedTime);
+            if (child.getObjectType() == resolvedType && isResultField(child)) {
+                ResultNodeFieldInfo fieldInfo = getFieldInfo(child, normalizedQueryFromAst);
+                ExecutionPath pathForChild = executionPath.segment(fieldInfo.getResultKey());
+                ExecutionResultNode childNode = fetchAndAnalyzeField(context, completedValue, child, normalizedQueryFromAst, pathForChild, fieldInfo, elapsedTime);
                 nodeChildren.add(childNode);
             }
         }
+        addRemovedFields(normalizedField, executionPath, nodeChildren);
         return newObjectExecutionResultNode()
                 .executionPath(executionPath)
-                .alias(normalizedField.getAlias())
-                .fieldIds(objectFieldIds)
-                .objectType(normalizedField.getObjectType())
-                .fieldDefinition(normalizedField.getFieldDefinition())
-                .completedValue(completedValue)
+                .fieldInfo(objectFieldInfo)
+                .completedValue(VALUE_IN_CHILDREN)
                 .children(nodeChildren)
                 .elapsedTime(elapsedTime)
                 .build();
@@ -189,20 +435,17 @@ public class ServiceResultToResultNodes {
                                             NormalizedQueryField normalizedQueryField,
                                             NormalizedQueryFromAst normalizedQueryFromAst,
                                             ExecutionPath executionPath,
-                                            List<String> fieldIds,
+                                            ResultNodeFieldInfo fieldInfo,
                                             ElapsedTime elapsedTime) {
 
         if (toAnalyze instanceof List) {
-            return createListImpl(executionContext, toAnalyze, (List<Object>) toAnalyze, curType, normalizedQueryField, normalizedQueryFromAst, executionPath, fieldIds, elapsedTime);
+            return createListImpl(executionContext, (List<Object>) toAnalyze, curType, normalizedQueryField, normalizedQueryFromAst, executionPath, fieldInfo, elapsedTime);
         } else {
             TypeMismatchError error = new TypeMismatchError(executionPath, curType);
             return LeafExecutionResultNode.newLeafExecutionResultNode()
                     .executionPath(executionPath)
-                    .alias(normalizedQueryField.getAlias())
-                    .fieldDefinition(normalizedQueryField.getFieldDefinition())
-                    .objectType(normalizedQueryField.getObjectType())
                     .completedValue(null)
-                    .fieldIds(fieldIds)
+                    .fieldInfo(fieldInfo)
                     .elapsedTime(elapsedTime)
                     .addError(error)
                     .build();
@@ -211,16 +454,13 @@ public class ServiceResultToResultNodes {
 
     private LeafExecutionResultNode createNullERNWithNullableError(NormalizedQueryField normalizedQueryField,
                                                                    ExecutionPath executionPath,
-                                                                   List<String> fieldIds,
+                                                                   ResultNodeFieldInfo fieldInfo,
                                                                    ElapsedTime elapsedTime,
                                                                    NonNullableFieldWasNullError nonNullableFieldWasNullError) {
         return newLeafExecutionResultNode()
                 .executionPath(executionPath)
-                .alias(normalizedQueryField.getAlias())
-                .fieldDefinition(normalizedQueryField.getFieldDefinition())
-                .objectType(normalizedQueryField.getObjectType())
                 .completedValue(null)
-                .fieldIds(fieldIds)
+                .fieldInfo(fieldInfo)
                 .elapsedTime(elapsedTime)
                 .nonNullableFieldWasNullError(nonNullableFieldWasNullError)
                 .build();
@@ -228,42 +468,72 @@ public class ServiceResultToResultNodes {
 
     private LeafExecutionResultNode createNullERN(NormalizedQueryField normalizedQueryField,
                                                   ExecutionPath executionPath,
-                                                  List<String> fieldIds,
+                                                  ResultNodeFieldInfo fieldInfo,
                                                   ElapsedTime elapsedTime) {
         return newLeafExecutionResultNode()
                 .executionPath(executionPath)
-                .alias(normalizedQueryField.getAlias())
-                .fieldDefinition(normalizedQueryField.getFieldDefinition())
-                .objectType(normalizedQueryField.getObjectType())
                 .completedValue(null)
-                .fieldIds(fieldIds)
+                .fieldInfo(fieldInfo)
                 .elapsedTime(elapsedTime)
                 .build();
     }
 
+    /*
+     * the artificial fields are always added, the hydrations need them to match their results
+     */
+    private boolean isWithinResultSizeBudget(ExecutionContext executionContext, NormalizedQueryField normalizedQueryField, ExecutionPath executionPath, Object value) {
+        NadelContext nadelContext = executionContext.getContext();
+        ResultSizeBudget resultSizeBudget = nadelContext.getResultSizeBudget();
+        return resultSizeBudget == null
+                || ArtificialFieldUtils.isArtificialField(nadelContext, normalizedQueryField.getResultKey())
+                || resultSizeBudget.addNode(executionPath, value);
+    }
+
+    /*
+     * the nodes over the result size limits are null, the error for the result is added by the execution
+     */
+    private LeafExecutionResultNode createOverResultSizeERN(GraphQLOutputType curType,
+                                                            ExecutionPath executionPath,
+                                                            ResultNodeFieldInfo fieldInfo,
+                                                            ElapsedTime elapsedTime) {
+        LeafExecutionResultNode.Builder builder = newLeafExecutionResultNode()
+                .executionPath(executionPath)
+                .completedValue(null)
+                .fieldInfo(fieldInfo)
+                .elapsedTime(elapsedTime);
+        if (GraphQLTypeUtil.isNonNull(curType)) {
+            builder.nonNullableFieldWasNullError(new NonNullableFieldWasNullError((GraphQLNonNull) curType, executionPath));
+        }
+        return builder.build();
+    }
+
     private ExecutionResultNode createListImpl(ExecutionContext executionContext,
-                                               Object fetchedValue,
                                                List<Object> iterableValues,
                                                GraphQLList currentType,
                                                NormalizedQueryField normalizedQueryField,
                                                NormalizedQueryFromAst normalizedQueryFromAst,
                                                ExecutionPath executionPath,
-                                               List<String> fieldIds,
+                                               ResultNodeFieldInfo fieldInfo,
                                                ElapsedTime elapsedTime) {
-        List<ExecutionResultNode> children = new ArrayList<>();
-        int index = 0;
-        for (Object item : iterableValues) {
-            ExecutionPath indexedPath = executionPath.segment(index);
-            children.add(analyzeFetchedValueImpl(executionContext, item, normalizedQueryField, normalizedQueryFromAst, (GraphQLOutputType) GraphQLTypeUtil.unwrapOne(currentType), indexedPath, fieldIds, elapsedTime));
-            index++;
+        GraphQLOutputType elementType = (GraphQLOutputType) GraphQLTypeUtil.unwrapOne(currentType);
+        List<ExecutionResultNode> children;
+        ParallelListConversion parallelListConversion = ((NadelContext) executionContext.getContext()).getParallelListConversion();
+        if (iterableValues instanceof RandomAccess && parallelListConversion.isParallel(iterableValues.size())) {
+            children = parallelListConversion.convert(iterableValues.size(), () -> index ->
+                    analyzeFetchedValueImpl(executionContext, iterableValues.get(index), normalizedQueryField, normalizedQueryFromAst, elementType, executionPath.segment(index), fieldInfo, elapsedTime));
+        } else {
+            children = new ArrayList<>(iterableValues.size());
+            int index = 0;
+            for (Object item : iterableValues) {
+                ExecutionPath indexedPath = executionPath.segment(index);
+                children.add(analyzeFetchedValueImpl(executionContext, item, normalizedQueryField, normalizedQueryFromAst, elementType, indexedPath, fieldInfo, elapsedTime));
+                index++;
+            }
         }
         return ListExecutionResultNode.newListExecutionResultNode()
                 .executionPath(executionPath)
-                .alias(normalizedQueryField.getAlias())
-                .fieldDefinition(normalizedQueryField.getFieldDefinition())
-                .objectType(normalizedQueryField.getObjectType())
-                .completedValue(fetchedValue)
-                .fieldIds(fieldIds)
+                .completedValue(VALUE_IN_CHILDREN)
+                .fieldInfo(fieldInfo)
                 .elapsedTime(elapsedTime)
                 .children(children)
                 .build();
@@ -297,7 +567,7 @@ public class ServiceResultToResultNodes {
                                                    GraphQLScalarType scalarType,
                                                    NormalizedQueryField normalizedQueryField,
                                                    ExecutionPath executionPath,
-                                                   List<String> fieldIds,
+                                                   ResultNodeFieldInfo fieldInfo,
                                                    ElapsedTime elapsedTime) {
         Object serialized;
         try {
@@ -306,11 +576,8 @@ public class ServiceResultToResultNodes {
             SerializationError error = new SerializationError(executionPath, e);
             return newLeafExecutionResultNode()
                     .executionPath(executionPath)
-                    .alias(normalizedQueryField.getAlias())
-                    .fieldDefinition(normalizedQueryField.getFieldDefinition())
-                    .objectType(normalizedQueryField.getObjectType())
                     .completedValue(null)
-                    .fieldIds(fieldIds)
+                    .fieldInfo(fieldInfo)
                     .elapsedTime(elapsedTime)
                     .addError(error)
                     .build();
@@ -319,20 +586,60 @@ public class ServiceResultToResultNodes {
         // TODO: fix that: this should not be handled here
         //6.6.1 http://facebook.github.io/graphql/#sec-Field-entries
         if (serialized instanceof Double && ((Double) serialized).isNaN()) {
-            return createNullERN(normalizedQueryField, executionPath, fieldIds, elapsedTime);
+            return createNullERN(normalizedQueryField, executionPath, fieldInfo, elapsedTime);
         }
         return newLeafExecutionResultNode()
                 .executionPath(executionPath)
-                .alias(normalizedQueryField.getAlias())
-                .fieldDefinition(normalizedQueryField.getFieldDefinition())
-                .objectType(normalizedQueryField.getObjectType())
-                .completedValue(serialized)
-                .fieldIds(fieldIds)
+                .completedValue(mapScalarValue(serialized, fieldInfo))
+                .fieldInfo(fieldInfo)
                 .elapsedTime(elapsedTime)
                 .build();
 
     }
 
+    /**
+     * @param field                  the field of the query sent to the service
+     * @param normalizedQueryFromAst the query sent to the service
+     *
+     * @return the field info of the nodes created for the field
+     */
+    protected ResultNodeFieldInfo getFieldInfo(NormalizedQueryField field, NormalizedQueryFromAst normalizedQueryFromAst) {
+        return normalizedQueryFromAst.getResultNodeFieldInfo(field);
+    }
+
+    /**
+     * @param field the field of the query sent to the service
+     *
+     * @return false if no nodes should be created for the field
+     */
+    protected boolean isResultField(NormalizedQueryField field) {
+        return true;
+    }
+
+    /**
+     * @param field the field of the query sent to the service
+     *
+     * @return the field whose value and selection the nodes of the field are created from: the field itself or, for a
+     * field which is nested in the objects of other fields, the field furthest down
+     */
+    protected NormalizedQueryField getValueField(NormalizedQueryField field) {
+        return field;
+    }
+
+    /**
+     * Called for every object node created for the field
+     *
+     * @param field         the field of the query sent to the service
+     * @param executionPath the path of the object node
+     * @param children      the children of the object node, which nodes can be added to
+     */
+    protected void addRemovedFields(NormalizedQueryField field, ExecutionPath executionPath, List<ExecutionResultNode> children) {
+    }
+
+    protected Object mapScalarValue(Object serialized, ResultNodeFieldInfo fieldInfo) {
+        return serialized;
+    }
+
     protected Object serializeScalarValue(Object toAnalyze, GraphQLScalarType scalarType) throws CoercingSerializeException {
         if (scalarType == Scalars.GraphQLString) {
             if (toAnalyze instanceof String) {
@@ -348,7 +655,7 @@ public class ServiceResultToResultNodes {
                                                  GraphQLEnumType enumType,
                                                  NormalizedQueryField normalizedQueryField,
                                                  ExecutionPath executionPath,
-                                                 List<String> fieldIds,
+                                                 ResultNodeFieldInfo fieldInfo,
                                                  ElapsedTime elapsedTime) {
         Object serialized;
         try {
@@ -357,22 +664,16 @@ public class ServiceResultToResultNodes {
             SerializationError error = new SerializationError(executionPath, e);
             return newLeafExecutionResultNode()
                     .executionPath(executionPath)
-                    .alias(normalizedQueryField.getAlias())
-                    .fieldDefinition(normalizedQueryField.getFieldDefinition())
-                    .objectType(normalizedQueryField.getObjectType())
                     .completedValue(null)
-                    .fieldIds(fieldIds)
+                    .fieldInfo(fieldInfo)
                     .elapsedTime(elapsedTime)
                     .addError(error)
                     .build();
         }
         return newLeafExecutionResultNode()
                 .executionPath(executionPath)
-                .alias(normalizedQueryField.getAlias())
-                .fieldDefinition(normalizedQueryField.getFieldDefinition())
-                .objectType(normalizedQueryField.getObjectType())
                 .completedValue(serialized)
-                .fieldIds(fieldIds)
+                .fieldInfo(fieldInfo)
                 .elapsedTime(elapsedTime)
                 .build();
     }
@@ -0,0 +1,97 @@
+package graphql.nadel.engine;
+
+import graphql.Internal;
+import graphql.language.AstPrinter;
+import graphql.nadel.Service;
+import graphql.nadel.result.RootExecutionResultNode;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import static graphql.Assert.assertTrue;
+
+/**
+ * Keeps the converted results of top level fields, so that requests for the same field with the same arguments in the
+ * same partition don't call the service again. At most a given number of results are kept, each for a given time.
+ * <p>
+ * Only results without errors and without hydrations are cached: hydrations are resolved with the query of the
+ * request that created the result.
+ */
+@Internal
+public class TopLevelFieldCache {
+
+    private final int maxEntries;
+    private final long maxAgeNanos;
+    private final LongSupplier nanoTime;
+    private final Map<Object, Entry> entries;
+
+    private static class Entry {
+        final RootExecutionResultNode resultNode;
+        final long expiresAt;
+
+        Entry(RootExecutionResultNode resultNode, long expiresAt) {
+            this.resultNode = resultNode;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public TopLevelFieldCache(int maxEntries, Duration maxAge) {
+        this(maxEntries, maxAge, System::nanoTime);
+    }
+
+    TopLevelFieldCache(int maxEntries, Duration maxAge, LongSupplier nanoTime) {
+        assertTrue(maxEntries > 0, () -> "the cache needs room for at least one field");
+        assertTrue(!maxAge.isNegative() && !maxAge.isZero(), () -> "the max age must be longer than zero");
+        this.maxEntries = maxEntries;
+        this.maxAgeNanos = maxAge.toNanos();
+        this.nanoTime = nanoTime;
+        this.entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                return size() > TopLevelFieldCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param service                   the service of the field
+     * @param queryTransformationResult the query for the field
+     * @param variables                 the values of the variables the query references
+     * @param partition                 the partition from {@link graphql.nadel.hooks.ServiceExecutionHooks}
+     * @param nadelContext              the context of the request
+     *
+     * @return the key of the field, which is the same for all requests with the same query for the field
+     */
+    public Object createKey(Service service, QueryTransformationResult queryTransformationResult, Map<String, Object> variables, Object partition, NadelContext nadelContext) {
+        StringBuilder query = new StringBuilder(AstPrinter.printAst(queryTransformationResult.getOperationDefinition().transform(builder -> builder.name(null))));
+        queryTransformationResult.getTransformedFragments().values().forEach(fragment -> query.append(AstPrinter.printAst(fragment)));
+        String queryWithoutAliases = query.toString()
+                .replace(nadelContext.getUnderscoreTypeNameAlias(), "typename__")
+                .replace(nadelContext.getObjectIdentifierAlias(), "object_identifier__");
+        return Arrays.asList(service.getName(), queryWithoutAliases, variables, partition);
+    }
+
+    public synchronized RootExecutionResultNode get(Object key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (nanoTime.getAsLong() - entry.expiresAt >= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.resultNode;
+    }
+
+    public void put(Object key, RootExecutionResultNode resultNode) {
+        if (!resultNode.getErrors().isEmpty() || !StrategyUtil.getHydrationInputNodes(resultNode).isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            entries.put(key, new Entry(resultNode, nanoTime.getAsLong() + maxAgeNanos));
+        }
+    }
+}
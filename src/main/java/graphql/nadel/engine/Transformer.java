@@ -6,6 +6,7 @@ import graphql.execution.ExecutionContext;
 import graphql.execution.ValuesResolver;
 import graphql.introspection.Introspection;
 import graphql.language.Argument;
+import graphql.language.Directive;
 import graphql.language.Field;
 import graphql.language.FieldDefinition;
 import graphql.language.FragmentDefinition;
@@ -21,11 +22,15 @@ import graphql.language.VariableDefinition;
 import graphql.language.VariableReference;
 import graphql.nadel.Service;
 import graphql.nadel.dsl.ExtendedFieldDefinition;
+import graphql.nadel.dsl.NodeId;
 import graphql.nadel.dsl.TypeMappingDefinition;
+import graphql.nadel.dsl.UnderlyingServiceHydration;
 import graphql.nadel.engine.transformation.ApplyEnvironment;
 import graphql.nadel.engine.transformation.ApplyResult;
 import graphql.nadel.engine.transformation.FieldRenameTransformation;
 import graphql.nadel.engine.transformation.FieldTransformation;
+import graphql.nadel.engine.transformation.HydrationDescriptor;
+import graphql.nadel.engine.transformation.HydrationDescriptors;
 import graphql.nadel.engine.transformation.HydrationTransformation;
 import graphql.nadel.engine.transformation.OverallTypeInfo;
 import graphql.nadel.engine.transformation.OverallTypeInformation;
@@ -42,18 +47,17 @@ import graphql.schema.GraphQLFieldsContainer;
 import graphql.schema.GraphQLInputObjectField;
 import graphql.schema.GraphQLInputObjectType;
 import graphql.schema.GraphQLInputValueDefinition;
-import graphql.schema.GraphQLInterfaceType;
 import graphql.schema.GraphQLNamedOutputType;
 import graphql.schema.GraphQLOutputType;
 import graphql.schema.GraphQLSchema;
 import graphql.schema.GraphQLType;
 import graphql.schema.GraphQLTypeUtil;
-import graphql.schema.GraphQLUnionType;
 import graphql.schema.GraphQLUnmodifiedType;
 import graphql.util.TraversalControl;
 import graphql.util.TraverserContext;
 import graphql.util.TreeTransformerUtil;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -61,6 +65,7 @@ import java.util.Set;
 
 import static graphql.Assert.assertShouldNeverHappen;
 import static graphql.Assert.assertTrue;
+import static graphql.Directives.DeferDirective;
 import static graphql.introspection.Introspection.TypeNameMetaFieldDef;
 import static graphql.language.TypeName.newTypeName;
 import static graphql.nadel.dsl.NodeId.getId;
@@ -78,7 +83,6 @@ public class Transformer extends NodeVisitorStub {
     final ExecutionContext executionContext;
     final GraphQLSchema underlyingSchema;
     final Map<String, FieldTransformation> fieldIdToTransformation;
-    final Map<String, String> typeRenameMappings;
     final Set<String> referencedFragmentNames;
     final Map<String, VariableDefinition> referencedVariables;
     final NadelContext nadelContext;
@@ -86,6 +90,7 @@ public class Transformer extends NodeVisitorStub {
     final ServiceExecutionHooks serviceExecutionHooks;
     private OverallTypeInformation<?> overallTypeInformation;
     private TransformationMetadata transformationMetadata;
+    private final HydrationDescriptors hydrationDescriptors;
     private Service service;
     private Object serviceContext;
     private Map<String, Object> variableValues;
@@ -94,7 +99,6 @@ public class Transformer extends NodeVisitorStub {
     public Transformer(ExecutionContext executionContext,
                        GraphQLSchema underlyingSchema,
                        Map<String, FieldTransformation> fieldIdToTransformation,
-                       Map<String, String> typeRenameMappings,
                        Set<String> referencedFragmentNames,
                        Map<String, VariableDefinition> referencedVariables,
                        NadelContext nadelContext,
@@ -103,18 +107,19 @@ public class Transformer extends NodeVisitorStub {
                        Map<String, Object> variableValues,
                        Service service,
                        Object serviceContext,
-                       TransformationMetadata transformationMetadata
+                       TransformationMetadata transformationMetadata,
+                       HydrationDescriptors hydrationDescriptors
     ) {
         this.executionContext = executionContext;
         this.underlyingSchema = underlyingSchema;
         this.fieldIdToTransformation = fieldIdToTransformation;
-        this.typeRenameMappings = typeRenameMappings;
         this.referencedFragmentNames = referencedFragmentNames;
         this.referencedVariables = referencedVariables;
         this.nadelContext = nadelContext;
         this.serviceExecutionHooks = serviceExecutionHooks;
         this.overallTypeInformation = overallTypeInformation;
         this.transformationMetadata = transformationMetadata;
+        this.hydrationDescriptors = hydrationDescriptors;
         OperationDefinition operationDefinition = executionContext.getOperationDefinition();
         this.variableDefinitions = FpKit.getByName(operationDefinition.getVariableDefinitions(), VariableDefinition::getName);
         this.variableValues = variableValues;
@@ -197,6 +202,13 @@ public class Transformer extends NodeVisitorStub {
             return TraversalControl.CONTINUE;
         }
 
+        if (field.getDirective(DeferDirective.getName()) != null) {
+            //
+            // @defer is resolved by Nadel itself - the underlying services never see it
+            field = removeDeferDirective(field);
+            changeNode(context, field);
+        }
+
         UnderlyingTypeContext typeContext = context.getVarFromParents(UnderlyingTypeContext.class);
         OverallTypeInfo overallTypeInfo = overallTypeInformation.getOverallTypeInfo(getId(field));
         // this means we have a new field which was added by a transformation and we don't have overall type info about it
@@ -215,12 +227,13 @@ public class Transformer extends NodeVisitorStub {
         Optional<GraphQLError> isFieldAllowed = serviceExecutionHooks.isFieldAllowed(field, fieldDefinitionOverall, nadelContext.getUserSuppliedContext());
         if ((isFieldAllowed.isPresent())) {
             transformationMetadata.add(normalizedFields, isFieldAllowed.get());
+            recordTransformedField(context);
             return TreeTransformerUtil.deleteNode(context);
         }
 
-        extractAndRecordTypeMappingDefinition(fieldTypeOverall.getName());
         FieldTransformation transformation = createTransformation(fieldDefinitionOverall);
         if (transformation != null) {
+            recordTransformedField(context);
             //
             // major side effect alert - we are relying on transformation to call TreeTransformerUtil.changeNode
             // inside itself here
@@ -248,6 +261,30 @@ public class Transformer extends NodeVisitorStub {
         return TraversalControl.CONTINUE;
     }
 
+    /*
+     * The result nodes of all the parent fields need the full unapply, everything else can simply be mapped
+     */
+    private void recordTransformedField(TraverserContext<Node> context) {
+        List<String> parentFieldIds = new ArrayList<>();
+        TraverserContext<Node> parentContext = context.getParentContext();
+        while (parentContext != null && parentContext.thisNode() != null) {
+            Node parentNode = parentContext.thisNode();
+            if (parentNode instanceof FragmentDefinition) {
+                transformationMetadata.transformedDescendantsUnknown();
+                return;
+            }
+            if (parentNode instanceof Field && parentNode.getAdditionalData().containsKey(NodeId.ID)) {
+                parentFieldIds.add(getId(parentNode));
+            }
+            parentContext = parentContext.getParentContext();
+        }
+        transformationMetadata.addFieldIdsWithTransformedDescendants(parentFieldIds);
+    }
+
+    private Field removeDeferDirective(Field field) {
+        List<Directive> directives = FpKit.filter(field.getDirectives(), directive -> !directive.getName().equals(DeferDirective.getName()));
+        return field.transform(builder -> builder.directives(directives));
+    }
 
     private void updateTypeContext(TraverserContext<Node> context, GraphQLOutputType currentOutputTypeUnderlying) {
         Field newField = (Field) context.thisNode();
@@ -302,7 +339,6 @@ public class Transformer extends NodeVisitorStub {
         TypeMappingDefinition typeMappingDefinition = typeTransformationForFragment(executionContext, typeCondition);
         String underlyingTypeName = typeCondition.getName();
         if (typeMappingDefinition != null) {
-            recordTypeRename(typeMappingDefinition);
             InlineFragment changedFragment = inlineFragment.transform(f -> {
                 TypeName newTypeName = newTypeName(typeMappingDefinition.getUnderlyingName()).build();
                 f.typeCondition(newTypeName);
@@ -330,7 +366,6 @@ public class Transformer extends NodeVisitorStub {
         TypeMappingDefinition typeMappingDefinition = typeTransformationForFragment(executionContext, typeName);
         String underlyingTypeName = typeName.getName();
         if (typeMappingDefinition != null) {
-            recordTypeRename(typeMappingDefinition);
             FragmentDefinition changedFragment = fragment.transform(f -> {
                 TypeName newTypeName = newTypeName(typeMappingDefinition.getUnderlyingName()).build();
                 f.typeCondition(newTypeName);
@@ -357,47 +392,11 @@ public class Transformer extends NodeVisitorStub {
         return TraversalControl.CONTINUE;
     }
 
-    private TypeMappingDefinition recordTypeRename(TypeMappingDefinition typeMappingDefinition) {
-        if (typeMappingDefinition != null) {
-            typeRenameMappings.put(typeMappingDefinition.getUnderlyingName(), typeMappingDefinition.getOverallName());
-        }
-        return typeMappingDefinition;
-    }
-
     @SuppressWarnings("ConstantConditions")
     private TypeMappingDefinition typeTransformationForFragment(ExecutionContext executionContext, TypeName typeNameOverall) {
         GraphQLType type = executionContext.getGraphQLSchema().getType(typeNameOverall.getName());
         assertTrue(type instanceof GraphQLFieldsContainer, () -> String.format("Expected type '%s' to be an field container type", typeNameOverall));
-        return extractAndRecordTypeMappingDefinition(executionContext.getGraphQLSchema(), type);
-    }
-
-
-    @SuppressWarnings("ConstantConditions")
-    private TypeMappingDefinition extractAndRecordTypeMappingDefinition(String typeNameOverall) {
-        GraphQLType type = executionContext.getGraphQLSchema().getType(typeNameOverall);
-        return extractAndRecordTypeMappingDefinition(executionContext.getGraphQLSchema(), type);
-    }
-
-    @SuppressWarnings("UnnecessaryLocalVariable")
-    private TypeMappingDefinition extractAndRecordTypeMappingDefinition(GraphQLSchema graphQLSchema, GraphQLType type) {
-
-        TypeMappingDefinition typeMappingDefinition = getTypeMappingDefinitionFor(type);
-        recordTypeRename(typeMappingDefinition);
-
-        if (type instanceof GraphQLInterfaceType) {
-            GraphQLInterfaceType interfaceType = (GraphQLInterfaceType) type;
-
-            graphQLSchema.getImplementations(interfaceType).forEach(objectType -> {
-                extractAndRecordTypeMappingDefinition(graphQLSchema, objectType);
-            });
-        }
-        if (type instanceof GraphQLUnionType) {
-            GraphQLUnionType unionType = (GraphQLUnionType) type;
-            unionType.getTypes().forEach(typeMember -> {
-                extractAndRecordTypeMappingDefinition(graphQLSchema, typeMember);
-            });
-        }
-        return typeMappingDefinition;
+        return getTypeMappingDefinitionFor(type);
     }
 
     private graphql.nadel.dsl.FieldTransformation transformationDefinitionForField(FieldDefinition definition) {
@@ -417,10 +416,17 @@ public class Transformer extends NodeVisitorStub {
         if (definition.getFieldMappingDefinition() != null) {
             return new FieldRenameTransformation(definition.getFieldMappingDefinition());
         } else if (definition.getUnderlyingServiceHydration() != null) {
-            return new HydrationTransformation(definition.getUnderlyingServiceHydration());
+            return new HydrationTransformation(getHydrationDescriptor(definition.getUnderlyingServiceHydration()));
         } else {
             return assertShouldNeverHappen();
         }
     }
 
+    private HydrationDescriptor getHydrationDescriptor(UnderlyingServiceHydration underlyingServiceHydration) {
+        if (hydrationDescriptors == null) {
+            return HydrationDescriptor.compile(underlyingServiceHydration, null, executionContext.getGraphQLSchema());
+        }
+        return hydrationDescriptors.getDescriptor(underlyingServiceHydration);
+    }
+
 }
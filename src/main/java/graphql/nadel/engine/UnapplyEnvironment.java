@@ -2,6 +2,7 @@ package graphql.nadel.engine;
 
 import graphql.Internal;
 import graphql.nadel.result.ExecutionResultNode;
+import graphql.nadel.result.ResultNodeFieldInfo;
 import graphql.schema.GraphQLSchema;
 
 import java.util.Map;
@@ -13,12 +14,12 @@ public class UnapplyEnvironment {
     public UnapplyEnvironment(ExecutionResultNode parentNode,
                               boolean isHydrationTransformation,
                               boolean batched,
-                              Map<String, String> typeRenameMappings,
+                              UnderlyingToOverallMapping underlyingToOverallMapping,
                               GraphQLSchema overallSchema
     ) {
         this.isHydrationTransformation = isHydrationTransformation;
         this.batched = batched;
-        this.typeRenameMappings = typeRenameMappings;
+        this.underlyingToOverallMapping = underlyingToOverallMapping;
         this.overallSchema = overallSchema;
         this.parentNode = parentNode;
     }
@@ -26,7 +27,10 @@ public class UnapplyEnvironment {
     public ExecutionResultNode parentNode;
     public boolean isHydrationTransformation;
     public boolean batched;
-    public Map<String, String> typeRenameMappings;
+    public UnderlyingToOverallMapping underlyingToOverallMapping;
     public GraphQLSchema overallSchema;
 
+    // created by the ExecutionResultNodeMapper when first needed
+    Map<ResultNodeFieldInfo, ResultNodeFieldInfo> overallFieldInfoByUnderlying;
+
 }
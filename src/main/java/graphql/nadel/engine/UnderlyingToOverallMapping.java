@@ -0,0 +1,180 @@
+package graphql.nadel.engine;
+
+import graphql.Internal;
+import graphql.language.Definition;
+import graphql.language.NamedNode;
+import graphql.language.TypeDefinition;
+import graphql.nadel.Service;
+import graphql.nadel.dsl.TypeMappingDefinition;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLNamedType;
+import graphql.schema.GraphQLObjectType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.visibility.GraphqlFieldVisibility;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.introspection.Introspection.SchemaMetaFieldDef;
+import static graphql.introspection.Introspection.TypeMetaFieldDef;
+import static graphql.introspection.Introspection.TypeNameMetaFieldDef;
+import static graphql.nadel.util.Util.getTypeMappingDefinitionFor;
+import static java.util.Collections.unmodifiableMap;
+
+/**
+ * How the types and fields of the underlying schema of a service map to the overall schema.
+ * <p>
+ * Type renames are static per NSDL, so this is built once per service when Nadel is built instead of being worked out
+ * again for every request and every result node.
+ */
+@Internal
+public class UnderlyingToOverallMapping {
+
+    private final GraphQLSchema overallSchema;
+    private final Map<String, String> overallTypeNames;
+    private final Map<String, GraphQLObjectType> overallObjectTypes = new HashMap<>();
+    private final Map<String, Map<String, GraphQLFieldDefinition>> overallFieldDefinitions = new HashMap<>();
+
+    /**
+     * @param overallTypeNames the underlying type names to overall type names for the renamed types
+     * @param underlyingSchema the underlying schema of the service
+     * @param overallSchema    the overall schema
+     */
+    public UnderlyingToOverallMapping(Map<String, String> overallTypeNames, GraphQLSchema underlyingSchema, GraphQLSchema overallSchema) {
+        this.overallSchema = overallSchema;
+        this.overallTypeNames = unmodifiableMap(new HashMap<>(overallTypeNames));
+        for (GraphQLNamedType underlyingType : underlyingSchema.getAllTypesAsList()) {
+            if (!(underlyingType instanceof GraphQLObjectType)) {
+                continue;
+            }
+            GraphQLObjectType overallObjectType = overallSchema.getObjectType(getOverallTypeName(underlyingType.getName()));
+            if (overallObjectType == null) {
+                continue;
+            }
+            overallObjectTypes.put(underlyingType.getName(), overallObjectType);
+            overallFieldDefinitions.put(underlyingType.getName(), overallFieldDefinitions(overallObjectType));
+        }
+    }
+
+    /**
+     * Builds the mapping of every service.
+     *
+     * @param services      the services
+     * @param overallSchema the overall schema
+     *
+     * @return the mappings by service name
+     */
+    public static Map<String, UnderlyingToOverallMapping> forServices(List<Service> services, GraphQLSchema overallSchema) {
+        Map<Service, Set<String>> typeNamesByService = new HashMap<>();
+        Set<String> allServiceTypeNames = new HashSet<>();
+        for (Service service : services) {
+            Set<String> typeNames = definedTypeNames(service);
+            typeNamesByService.put(service, typeNames);
+            allServiceTypeNames.addAll(typeNames);
+        }
+        Map<String, UnderlyingToOverallMapping> result = new HashMap<>();
+        for (Service service : services) {
+            Map<String, String> overallTypeNames = overallTypeNames(service, typeNamesByService.get(service), allServiceTypeNames, overallSchema);
+            result.put(service.getName(), new UnderlyingToOverallMapping(overallTypeNames, service.getUnderlyingSchema(), overallSchema));
+        }
+        return unmodifiableMap(result);
+    }
+
+    /**
+     * A type is renamed for a service if it is defined by the service or is one of the common types. Renamed types of
+     * other services only count if the service has the underlying type but doesn't expose a type with that name itself.
+     */
+    private static Map<String, String> overallTypeNames(Service service, Set<String> serviceTypeNames, Set<String> allServiceTypeNames, GraphQLSchema overallSchema) {
+        GraphQLSchema underlyingSchema = service.getUnderlyingSchema();
+        Map<String, String> ownRenames = new HashMap<>();
+        Map<String, String> otherRenames = new HashMap<>();
+        for (GraphQLNamedType overallType : overallSchema.getAllTypesAsList()) {
+            TypeMappingDefinition typeMappingDefinition = getTypeMappingDefinitionFor(overallType);
+            if (typeMappingDefinition == null || underlyingSchema.getType(typeMappingDefinition.getUnderlyingName()) == null) {
+                continue;
+            }
+            String overallName = typeMappingDefinition.getOverallName();
+            String underlyingName = typeMappingDefinition.getUnderlyingName();
+            if (serviceTypeNames.contains(overallName) || !allServiceTypeNames.contains(overallName)) {
+                ownRenames.put(underlyingName, overallName);
+            } else if (!serviceTypeNames.contains(underlyingName)) {
+                otherRenames.putIfAbsent(underlyingName, overallName);
+            }
+        }
+        otherRenames.putAll(ownRenames);
+        return otherRenames;
+    }
+
+    private static Set<String> definedTypeNames(Service service) {
+        Set<String> typeNames = new HashSet<>();
+        for (Definition definition : service.getServiceDefinition().getTypeDefinitions()) {
+            if (definition instanceof TypeDefinition) {
+                typeNames.add(((NamedNode) definition).getName());
+            }
+        }
+        return typeNames;
+    }
+
+    private Map<String, GraphQLFieldDefinition> overallFieldDefinitions(GraphQLObjectType overallObjectType) {
+        GraphqlFieldVisibility fieldVisibility = overallSchema.getCodeRegistry().getFieldVisibility();
+        Map<String, GraphQLFieldDefinition> fieldDefinitions = new HashMap<>();
+        for (GraphQLFieldDefinition fieldDefinition : overallObjectType.getFieldDefinitions()) {
+            GraphQLFieldDefinition visibleFieldDefinition = fieldVisibility.getFieldDefinition(overallObjectType, fieldDefinition.getName());
+            if (visibleFieldDefinition != null) {
+                fieldDefinitions.put(fieldDefinition.getName(), visibleFieldDefinition);
+            }
+        }
+        fieldDefinitions.put(TypeNameMetaFieldDef.getName(), TypeNameMetaFieldDef);
+        if (overallSchema.getQueryType() == overallObjectType) {
+            fieldDefinitions.put(SchemaMetaFieldDef.getName(), SchemaMetaFieldDef);
+            fieldDefinitions.put(TypeMetaFieldDef.getName(), TypeMetaFieldDef);
+        }
+        return unmodifiableMap(fieldDefinitions);
+    }
+
+    /**
+     * @param underlyingTypeName the name of an underlying type
+     *
+     * @return the name of the type in the overall schema
+     */
+    public String getOverallTypeName(String underlyingTypeName) {
+        return overallTypeNames.getOrDefault(underlyingTypeName, underlyingTypeName);
+    }
+
+    /**
+     * @param underlyingObjectType an object type of the underlying schema
+     *
+     * @return the object type in the overall schema
+     */
+    public GraphQLObjectType getOverallObjectType(GraphQLObjectType underlyingObjectType) {
+        GraphQLObjectType overallObjectType = overallObjectTypes.get(underlyingObjectType.getName());
+        if (overallObjectType != null) {
+            return overallObjectType;
+        }
+        String objectTypeName = getOverallTypeName(underlyingObjectType.getName());
+        overallObjectType = overallSchema.getObjectType(objectTypeName);
+        return assertNotNull(overallObjectType, () -> String.format("object type %s not found in overall schema", objectTypeName));
+    }
+
+    /**
+     * @param underlyingObjectType an object type of the underlying schema
+     * @param overallObjectType    the object type in the overall schema
+     * @param fieldName            the name of a field of the type
+     *
+     * @return the field definition in the overall schema
+     */
+    public GraphQLFieldDefinition getOverallFieldDefinition(GraphQLObjectType underlyingObjectType, GraphQLObjectType overallObjectType, String fieldName) {
+        Map<String, GraphQLFieldDefinition> fieldDefinitions = overallFieldDefinitions.get(underlyingObjectType.getName());
+        if (fieldDefinitions != null) {
+            GraphQLFieldDefinition fieldDefinition = fieldDefinitions.get(fieldName);
+            if (fieldDefinition != null) {
+                return fieldDefinition;
+            }
+        }
+        return ExecutionResultNodeMapper.getFieldDef(overallSchema, overallObjectType, fieldName);
+    }
+}
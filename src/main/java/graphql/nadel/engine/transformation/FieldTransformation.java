@@ -9,6 +9,7 @@ import graphql.nadel.dsl.NodeId;
 import graphql.nadel.engine.UnapplyEnvironment;
 import graphql.nadel.normalized.NormalizedQueryField;
 import graphql.nadel.result.ExecutionResultNode;
+import graphql.nadel.result.ResultNodeFieldInfo;
 import graphql.nadel.result.RootExecutionResultNode;
 import graphql.schema.GraphQLFieldDefinition;
 import graphql.schema.GraphQLFieldsContainer;
@@ -16,7 +17,6 @@ import graphql.schema.GraphQLOutputType;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static graphql.Assert.assertShouldNeverHappen;
 import static graphql.Assert.assertTrue;
@@ -71,34 +71,53 @@ public abstract class FieldTransformation {
     }
 
     protected NormalizedQueryField getMatchingNormalizedQueryFieldBasedOnParent(ExecutionResultNode parent) {
-        List<NormalizedQueryField> normalizedFields = getApplyEnvironment().getNormalizedQueryFieldsOverall();
         if (parent instanceof RootExecutionResultNode) {
+            return getMatchingNormalizedQueryField(null, parent.getExecutionPath());
+        }
+        return getMatchingNormalizedQueryField(parent.getFieldInfo(), parent.getExecutionPath());
+    }
+
+    /**
+     * @param parentFieldInfo the overall field info of the parent of the transformed field or null at the top level
+     * @param parentPath      the overall path of the parent, list indexes are ignored
+     *
+     * @return the overall field the transformed field was created for at this place in the query
+     */
+    public NormalizedQueryField getMatchingNormalizedQueryField(ResultNodeFieldInfo parentFieldInfo, ExecutionPath parentPath) {
+        List<NormalizedQueryField> normalizedFields = getApplyEnvironment().getNormalizedQueryFieldsOverall();
+        if (parentFieldInfo == null) {
             Assert.assertTrue(normalizedFields.size() == 1, () -> "only one normalized field expected");
             return normalizedFields.get(0);
         }
-        ExecutionPath path = parent.getExecutionPath();
-        List<String> parentQueryPath = executionPathToQueryPath(path);
 
         for (NormalizedQueryField normalizedField : normalizedFields) {
             NormalizedQueryField parentNormalizedField = normalizedField.getParent();
-            if (!parentQueryPath.equals(parentNormalizedField.getPath())) {
-                continue;
-            }
-            if (parentNormalizedField.getObjectType() == parent.getObjectType() &&
-                    parentNormalizedField.getFieldDefinition() == parent.getFieldDefinition() &&
-                    parentNormalizedField.getResultKey().equals(parent.getResultKey())) {
+            if (parentNormalizedField.getObjectType() == parentFieldInfo.getObjectType() &&
+                    parentNormalizedField.getFieldDefinition() == parentFieldInfo.getFieldDefinition() &&
+                    parentNormalizedField.getResultKey().equals(parentFieldInfo.getResultKey()) &&
+                    isQueryPathOf(parentPath, parentNormalizedField.getPath())) {
                 return normalizedField;
             }
         }
-        return assertShouldNeverHappen("could not find matching normalized field for parent node %s ", parent);
+        return assertShouldNeverHappen("could not find matching normalized field for parent path %s ", parentPath);
     }
 
-    private static List<String> executionPathToQueryPath(ExecutionPath executionPath) {
-        return executionPath.toList()
-                .stream()
-                .filter(o -> o instanceof String)
-                .map(String.class::cast)
-                .collect(Collectors.toList());
+    /*
+     * compares the execution path without its list indexes to the query path, from the end and without creating lists:
+     * this is done for every transformed node
+     */
+    private static boolean isQueryPathOf(ExecutionPath executionPath, List<String> queryPath) {
+        int index = queryPath.size() - 1;
+        while (!executionPath.isRootPath()) {
+            if (!executionPath.isListSegment()) {
+                if (index < 0 || !queryPath.get(index).equals(executionPath.getSegmentName())) {
+                    return false;
+                }
+                index--;
+            }
+            executionPath = executionPath.getParent();
+        }
+        return index < 0;
     }
 
     protected ExecutionResultNode replaceFieldIdsWithOriginalValue(List<FieldTransformation> allTransformations,
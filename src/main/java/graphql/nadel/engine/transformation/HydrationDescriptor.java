@@ -0,0 +1,134 @@
+package graphql.nadel.engine.transformation;
+
+import graphql.Internal;
+import graphql.language.FieldDefinition;
+import graphql.nadel.Service;
+import graphql.nadel.dsl.ExtendedFieldDefinition;
+import graphql.nadel.dsl.RemoteArgumentDefinition;
+import graphql.nadel.dsl.RemoteArgumentSource;
+import graphql.nadel.dsl.UnderlyingServiceHydration;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLObjectType;
+import graphql.schema.GraphQLSchema;
+
+import java.util.List;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.Assert.assertTrue;
+import static graphql.nadel.util.FpKit.filter;
+import static graphql.schema.GraphQLTypeUtil.isList;
+import static graphql.schema.GraphQLTypeUtil.unwrapNonNull;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Everything about a hydration that doesn't change between requests: the service it calls, whether the inputs are
+ * batched and in which batch sizes and which arguments come from the source object and from the field.
+ */
+@Internal
+public class HydrationDescriptor {
+
+    private final UnderlyingServiceHydration underlyingServiceHydration;
+    private final Service service;
+    private final boolean batched;
+    private final Integer batchSize;
+    private final List<RemoteArgumentDefinition> arguments;
+    private final List<RemoteArgumentDefinition> sourceArguments;
+    private final List<RemoteArgumentDefinition> fieldArguments;
+
+    private HydrationDescriptor(UnderlyingServiceHydration underlyingServiceHydration, Service service, boolean batched, Integer batchSize) {
+        this.underlyingServiceHydration = underlyingServiceHydration;
+        this.service = service;
+        this.batched = batched;
+        this.batchSize = batchSize;
+        this.arguments = unmodifiableList(underlyingServiceHydration.getArguments());
+        this.sourceArguments = unmodifiableList(filter(arguments, argument -> argument.getRemoteArgumentSource().getSourceType() == RemoteArgumentSource.SourceType.OBJECT_FIELD));
+        this.fieldArguments = unmodifiableList(filter(arguments, argument -> argument.getRemoteArgumentSource().getSourceType() == RemoteArgumentSource.SourceType.FIELD_ARGUMENT));
+    }
+
+    /**
+     * @param underlyingServiceHydration the hydration
+     * @param service                    the service called by the hydration or null if there is no such service
+     * @param overallSchema              the overall schema
+     *
+     * @return the descriptor of the hydration
+     */
+    public static HydrationDescriptor compile(UnderlyingServiceHydration underlyingServiceHydration, Service service, GraphQLSchema overallSchema) {
+        String topLevelFieldName = underlyingServiceHydration.getTopLevelField();
+        boolean batched = false;
+        if (service != null) {
+            GraphQLFieldDefinition topLevelFieldDefinition = service.getUnderlyingSchema().getQueryType().getFieldDefinition(topLevelFieldName);
+            batched = topLevelFieldDefinition != null && isList(unwrapNonNull(topLevelFieldDefinition.getType()));
+        }
+        Integer batchSize = underlyingServiceHydration.getBatchSize();
+        if (batchSize == null) {
+            batchSize = getDefaultBatchSize(overallSchema.getQueryType(), topLevelFieldName);
+        }
+        return new HydrationDescriptor(underlyingServiceHydration, service, batched, batchSize);
+    }
+
+    private static Integer getDefaultBatchSize(GraphQLObjectType overallQueryType, String topLevelFieldName) {
+        GraphQLFieldDefinition graphQLFieldDefinition = overallQueryType.getFieldDefinition(topLevelFieldName);
+        // the field we use to hydrate doesn't need to be exposed, therefore can be null
+        if (graphQLFieldDefinition == null) {
+            return null;
+        }
+        FieldDefinition fieldDefinition = graphQLFieldDefinition.getDefinition();
+        if (!(fieldDefinition instanceof ExtendedFieldDefinition)) {
+            return null;
+        }
+        return ((ExtendedFieldDefinition) fieldDefinition).getDefaultBatchSize();
+    }
+
+    public UnderlyingServiceHydration getUnderlyingServiceHydration() {
+        return underlyingServiceHydration;
+    }
+
+    /**
+     * @return the service called by the hydration
+     */
+    public Service getService() {
+        return assertNotNull(service, () -> String.format("service '%s' for the hydration not found", underlyingServiceHydration.getServiceName()));
+    }
+
+    public String getTopLevelField() {
+        return underlyingServiceHydration.getTopLevelField();
+    }
+
+    /**
+     * @return true if the top level field of the hydration returns a list, so all the inputs are resolved with one call
+     */
+    public boolean isBatched() {
+        return batched;
+    }
+
+    /**
+     * @return the batch size of the hydration, the default batch size of the top level field or null if the inputs are not split up
+     */
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public String getObjectIdentifier() {
+        return underlyingServiceHydration.getObjectIdentifier();
+    }
+
+    public List<RemoteArgumentDefinition> getArguments() {
+        return arguments;
+    }
+
+    /**
+     * @return the argument whose value comes from the source object
+     */
+    public RemoteArgumentDefinition getSourceArgument() {
+        assertTrue(sourceArguments.size() == 1, () -> "exactly one object field source expected");
+        assertTrue(1 + fieldArguments.size() == arguments.size(), () -> "only $source and $argument values for arguments are supported");
+        return sourceArguments.get(0);
+    }
+
+    /**
+     * @return the arguments whose values come from the arguments of the hydrated field
+     */
+    public List<RemoteArgumentDefinition> getFieldArguments() {
+        return fieldArguments;
+    }
+}
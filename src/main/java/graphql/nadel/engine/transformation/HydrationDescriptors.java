@@ -0,0 +1,90 @@
+package graphql.nadel.engine.transformation;
+
+import graphql.Internal;
+import graphql.language.FieldDefinition;
+import graphql.nadel.Service;
+import graphql.nadel.dsl.ExtendedFieldDefinition;
+import graphql.nadel.dsl.FieldTransformation;
+import graphql.nadel.dsl.UnderlyingServiceHydration;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLFieldsContainer;
+import graphql.schema.GraphQLNamedType;
+import graphql.schema.GraphQLSchema;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link HydrationDescriptor}s of all the hydrations in the overall schema, compiled when Nadel is built.
+ */
+@Internal
+public class HydrationDescriptors {
+
+    private final Map<String, Service> servicesByName = new HashMap<>();
+    private final GraphQLSchema overallSchema;
+    private final Map<UnderlyingServiceHydration, HydrationDescriptor> descriptors = new ConcurrentHashMap<>();
+
+    private HydrationDescriptors(List<Service> services, GraphQLSchema overallSchema) {
+        for (Service service : services) {
+            servicesByName.putIfAbsent(service.getName(), service);
+        }
+        this.overallSchema = overallSchema;
+    }
+
+    /**
+     * @param services      the services
+     * @param overallSchema the overall schema
+     *
+     * @return the descriptors of all the hydrations in the overall schema
+     */
+    public static HydrationDescriptors compile(List<Service> services, GraphQLSchema overallSchema) {
+        HydrationDescriptors hydrationDescriptors = new HydrationDescriptors(services, overallSchema);
+        for (GraphQLNamedType type : overallSchema.getAllTypesAsList()) {
+            if (!(type instanceof GraphQLFieldsContainer)) {
+                continue;
+            }
+            for (GraphQLFieldDefinition fieldDefinition : ((GraphQLFieldsContainer) type).getFieldDefinitions()) {
+                UnderlyingServiceHydration underlyingServiceHydration = getUnderlyingServiceHydration(fieldDefinition.getDefinition());
+                if (underlyingServiceHydration != null) {
+                    hydrationDescriptors.getDescriptor(underlyingServiceHydration);
+                }
+            }
+        }
+        return hydrationDescriptors;
+    }
+
+    private static UnderlyingServiceHydration getUnderlyingServiceHydration(FieldDefinition definition) {
+        if (!(definition instanceof ExtendedFieldDefinition)) {
+            return null;
+        }
+        FieldTransformation fieldTransformation = ((ExtendedFieldDefinition) definition).getFieldTransformation();
+        return fieldTransformation != null ? fieldTransformation.getUnderlyingServiceHydration() : null;
+    }
+
+    /**
+     * @param underlyingServiceHydration a hydration of the overall schema
+     *
+     * @return the descriptor of the hydration
+     */
+    public HydrationDescriptor getDescriptor(UnderlyingServiceHydration underlyingServiceHydration) {
+        HydrationDescriptor descriptor = descriptors.get(underlyingServiceHydration);
+        if (descriptor == null) {
+            // only hydrations which are not part of the overall schema given to compile() end up here
+            descriptor = descriptors.computeIfAbsent(underlyingServiceHydration,
+                    hydration -> HydrationDescriptor.compile(hydration, servicesByName.get(hydration.getServiceName()), overallSchema));
+        }
+        return descriptor;
+    }
+
+    /**
+     * @param fieldDefinition a field of the overall schema
+     *
+     * @return the descriptor of the hydration of the field or null if the field is not hydrated
+     */
+    public HydrationDescriptor getDescriptor(GraphQLFieldDefinition fieldDefinition) {
+        UnderlyingServiceHydration underlyingServiceHydration = getUnderlyingServiceHydration(fieldDefinition.getDefinition());
+        return underlyingServiceHydration != null ? getDescriptor(underlyingServiceHydration) : null;
+    }
+}
@@ -5,7 +5,6 @@ import graphql.execution.ExecutionPath;
 import graphql.language.AbstractNode;
 import graphql.language.Field;
 import graphql.language.Node;
-import graphql.nadel.dsl.RemoteArgumentDefinition;
 import graphql.nadel.dsl.RemoteArgumentSource;
 import graphql.nadel.dsl.UnderlyingServiceHydration;
 import graphql.nadel.engine.ExecutionResultNodeMapper;
@@ -24,30 +23,28 @@ import java.util.Collections;
 import java.util.List;
 
 import static graphql.Assert.assertShouldNeverHappen;
-import static graphql.Assert.assertTrue;
 import static graphql.nadel.engine.HydrationInputNode.newHydrationInputNode;
 import static graphql.nadel.engine.transformation.FieldUtils.geFirstLeafNode;
 import static graphql.nadel.engine.transformation.FieldUtils.mapChildren;
-import static graphql.nadel.util.FpKit.filter;
 import static graphql.util.TreeTransformerUtil.changeNode;
 
 @Internal
 public class HydrationTransformation extends FieldTransformation {
 
 
-    private UnderlyingServiceHydration underlyingServiceHydration;
+    private final HydrationDescriptor hydrationDescriptor;
 
     ExecutionResultNodeMapper executionResultNodeMapper = new ExecutionResultNodeMapper();
     PathMapper pathMapper = new PathMapper();
 
 
-    public HydrationTransformation(UnderlyingServiceHydration underlyingServiceHydration) {
-        this.underlyingServiceHydration = underlyingServiceHydration;
+    public HydrationTransformation(HydrationDescriptor hydrationDescriptor) {
+        this.hydrationDescriptor = hydrationDescriptor;
     }
 
     @Override
     public AbstractNode getDefinition() {
-        return underlyingServiceHydration;
+        return hydrationDescriptor.getUnderlyingServiceHydration();
     }
 
     @Override
@@ -55,14 +52,7 @@ public class HydrationTransformation extends FieldTransformation {
         setEnvironment(environment);
 
         TraverserContext<Node> context = environment.getTraverserContext();
-        List<RemoteArgumentDefinition> arguments = underlyingServiceHydration.getArguments();
-
-        List<RemoteArgumentDefinition> sourceValues = filter(arguments, argument -> argument.getRemoteArgumentSource().getSourceType() == RemoteArgumentSource.SourceType.OBJECT_FIELD);
-        assertTrue(sourceValues.size() == 1, () -> "exactly one object field source expected");
-        List<RemoteArgumentDefinition> argumentValues = filter(arguments, argument -> argument.getRemoteArgumentSource().getSourceType() == RemoteArgumentSource.SourceType.FIELD_ARGUMENT);
-        assertTrue(1 + argumentValues.size() == arguments.size(), () -> "only $source and $argument values for arguments are supported");
-
-        RemoteArgumentSource remoteArgumentSource = sourceValues.get(0).getRemoteArgumentSource();
+        RemoteArgumentSource remoteArgumentSource = hydrationDescriptor.getSourceArgument().getRemoteArgumentSource();
         List<String> hydrationSourceName = remoteArgumentSource.getPath();
 
         Field newField = FieldUtils.pathToFields(hydrationSourceName, environment.getField(), getTransformationId(), Collections.emptyList(), true, environment.getMetadataByFieldId());
@@ -72,7 +62,11 @@ public class HydrationTransformation extends FieldTransformation {
     }
 
     public UnderlyingServiceHydration getUnderlyingServiceHydration() {
-        return underlyingServiceHydration;
+        return hydrationDescriptor.getUnderlyingServiceHydration();
+    }
+
+    public HydrationDescriptor getHydrationDescriptor() {
+        return hydrationDescriptor;
     }
 
     @Override
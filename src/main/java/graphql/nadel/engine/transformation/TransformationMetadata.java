@@ -2,27 +2,49 @@ package graphql.nadel.engine.transformation;
 
 import graphql.GraphQLError;
 import graphql.Internal;
+import graphql.execution.MergedField;
+import graphql.nadel.dsl.NodeId;
 import graphql.nadel.normalized.NormalizedQueryField;
+import graphql.nadel.normalized.NormalizedQueryFromAst;
+import graphql.nadel.result.ResultNodeFieldInfo;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import static graphql.Assert.assertNotNull;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 
 @Internal
 public class TransformationMetadata {
 
-    private final List<NormalizedFieldAndError> removedFields = new ArrayList<>();
+    // removed fields by the normalized field they are removed from, looked up for every object result node
+    private final Map<NormalizedQueryField, List<NormalizedFieldAndError>> removedFieldsByParent = new LinkedHashMap<>();
 
     private final Map<String, List<FieldMetadata>> metadataByFieldId = new LinkedHashMap<>();
 
+    // ids of the fields which have a transformed or removed field somewhere below them
+    private final Set<String> fieldIdsWithTransformedDescendants = new HashSet<>();
+    // a transformed or removed field inside a fragment definition: we don't know which fields it ends up below
+    private boolean transformedDescendantsUnknown;
+
+    private UnapplyPlan unapplyPlan;
+
     public static class NormalizedFieldAndError {
         private final NormalizedQueryField normalizedField;
         private final GraphQLError error;
+        private final List<GraphQLError> errors;
+
+        private volatile ResultNodeFieldInfo fieldInfo;
 
         public NormalizedFieldAndError(NormalizedQueryField normalizedField, GraphQLError error) {
             this.normalizedField = normalizedField;
             this.error = error;
+            this.errors = singletonList(error);
         }
 
         public NormalizedQueryField getNormalizedField() {
@@ -32,27 +54,89 @@ public class TransformationMetadata {
         public GraphQLError getError() {
             return error;
         }
+
+        /**
+         * @return the error as the errors of the result nodes of the removed field
+         */
+        public List<GraphQLError> getErrors() {
+            return errors;
+        }
+
+        /**
+         * @param normalizedOverallQuery the overall query
+         *
+         * @return the field info shared by all the result nodes of the removed field
+         */
+        public ResultNodeFieldInfo getFieldInfo(NormalizedQueryFromAst normalizedOverallQuery) {
+            if (fieldInfo == null) {
+                MergedField mergedField = normalizedOverallQuery.getMergedFieldByNormalizedFields().get(normalizedField);
+                fieldInfo = new ResultNodeFieldInfo(mergedField.getSingleField().getAlias(),
+                        NodeId.getIds(mergedField),
+                        normalizedField.getFieldDefinition(),
+                        normalizedField.getObjectType());
+            }
+            return fieldInfo;
+        }
     }
 
     public void add(List<NormalizedQueryField> fields, GraphQLError error) {
         for (NormalizedQueryField field : fields) {
-            removedFields.add(new NormalizedFieldAndError(field, error));
+            removedFieldsByParent.computeIfAbsent(field.getParent(), parent -> new ArrayList<>()).add(new NormalizedFieldAndError(field, error));
         }
     }
 
+    public boolean hasRemovedFields() {
+        return !removedFieldsByParent.isEmpty();
+    }
+
     public List<NormalizedFieldAndError> getRemovedFieldsForParent(NormalizedQueryField parent) {
-        List<NormalizedFieldAndError> result = new ArrayList<>();
-        for (NormalizedFieldAndError fieldAndError : removedFields) {
-            if (fieldAndError.normalizedField.getParent() == parent) {
-                result.add(fieldAndError);
-            }
-        }
-        return result;
+        return removedFieldsByParent.getOrDefault(parent, emptyList());
     }
 
     public Map<String, List<FieldMetadata>> getMetadataByFieldId() {
         return metadataByFieldId;
     }
 
+    /**
+     * Called once the query is transformed
+     *
+     * @param fieldIdToTransformation the transformations of the query by transformation id
+     */
+    public void compileUnapplyPlan(Map<String, FieldTransformation> fieldIdToTransformation) {
+        unapplyPlan = new UnapplyPlan(fieldIdToTransformation, metadataByFieldId);
+    }
+
+    public UnapplyPlan getUnapplyPlan() {
+        return assertNotNull(unapplyPlan, () -> "the unapply plan is compiled once the query is transformed");
+    }
+
+    public void addFieldIdsWithTransformedDescendants(List<String> fieldIds) {
+        fieldIdsWithTransformedDescendants.addAll(fieldIds);
+    }
+
+    public void transformedDescendantsUnknown() {
+        transformedDescendantsUnknown = true;
+    }
+
+    /**
+     * A result node for these field ids and everything below it only needs to be mapped onto the overall schema:
+     * there is no transformation to unapply and no removed field to add.
+     *
+     * @param fieldIds the field ids of a result node
+     *
+     * @return true if nothing below the fields was transformed or removed
+     */
+    public boolean isUntransformedSubtree(List<String> fieldIds) {
+        if (transformedDescendantsUnknown) {
+            return false;
+        }
+        for (String fieldId : fieldIds) {
+            if (metadataByFieldId.containsKey(fieldId) || fieldIdsWithTransformedDescendants.contains(fieldId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
 }
 
@@ -0,0 +1,135 @@
+package graphql.nadel.engine.transformation;
+
+import graphql.Internal;
+import graphql.language.AbstractNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.util.FpKit.groupingBy;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * What needs to be unapplied for the fields of a transformed query. Which transformations a result node has to unapply
+ * only depends on its field ids, not on the data, so it is worked out once per field id when the query is transformed
+ * and once per distinct list of field ids during the conversion, instead of for every result node.
+ */
+@Internal
+public class UnapplyPlan {
+
+    private final Map<String, FieldTransformation> fieldIdToTransformation;
+    private final Map<String, List<String>> transformationIdsByFieldId = new LinkedHashMap<>();
+    private final Map<String, List<String>> rootTransformationIdsByFieldId = new LinkedHashMap<>();
+
+    private final Map<List<String>, NodePlan> nodePlans = new ConcurrentHashMap<>();
+
+    /**
+     * The transformations of a result node with certain field ids
+     */
+    public static class NodePlan {
+        private final List<FieldTransformation> transformations;
+        private final Map<AbstractNode, List<FieldTransformation>> transformationsByDefinition;
+        private final Map<AbstractNode, Set<String>> transformationIdsByDefinition;
+
+        private NodePlan(List<FieldTransformation> transformations,
+                         Map<AbstractNode, List<FieldTransformation>> transformationsByDefinition,
+                         Map<AbstractNode, Set<String>> transformationIdsByDefinition) {
+            this.transformations = transformations;
+            this.transformationsByDefinition = transformationsByDefinition;
+            this.transformationIdsByDefinition = transformationIdsByDefinition;
+        }
+
+        /**
+         * @return the transformations the result node is the root of, without duplicates
+         */
+        public List<FieldTransformation> getTransformations() {
+            return transformations;
+        }
+
+        public Map<AbstractNode, List<FieldTransformation>> getTransformationsByDefinition() {
+            return transformationsByDefinition;
+        }
+
+        /**
+         * @return the ids of the transformations the result node is the root of, grouped by the definition of the transformation
+         */
+        public Map<AbstractNode, Set<String>> getTransformationIdsByDefinition() {
+            return transformationIdsByDefinition;
+        }
+    }
+
+    UnapplyPlan(Map<String, FieldTransformation> fieldIdToTransformation, Map<String, List<FieldMetadata>> metadataByFieldId) {
+        this.fieldIdToTransformation = fieldIdToTransformation;
+        metadataByFieldId.forEach((fieldId, fieldMetadata) -> {
+            List<String> transformationIds = new ArrayList<>(fieldMetadata.size());
+            List<String> rootTransformationIds = new ArrayList<>(1);
+            for (FieldMetadata metadata : fieldMetadata) {
+                transformationIds.add(metadata.getTransformationId());
+                if (metadata.isRootOfTransformation()) {
+                    rootTransformationIds.add(metadata.getTransformationId());
+                }
+            }
+            transformationIdsByFieldId.put(fieldId, unmodifiableList(transformationIds));
+            rootTransformationIdsByFieldId.put(fieldId, unmodifiableList(rootTransformationIds));
+        });
+    }
+
+    /**
+     * @return true if the query has hydrated fields, which need the result of further service calls
+     */
+    public boolean hasHydrations() {
+        for (FieldTransformation fieldTransformation : fieldIdToTransformation.values()) {
+            if (fieldTransformation instanceof HydrationTransformation) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param fieldId the underlying field id
+     *
+     * @return the ids of all the transformations the field is part of
+     */
+    public List<String> getTransformationIds(String fieldId) {
+        return transformationIdsByFieldId.getOrDefault(fieldId, emptyList());
+    }
+
+    /**
+     * @param fieldIds the field ids of a result node
+     *
+     * @return the transformations to unapply for a result node with these field ids
+     */
+    public NodePlan getNodePlan(List<String> fieldIds) {
+        NodePlan nodePlan = nodePlans.get(fieldIds);
+        if (nodePlan == null) {
+            nodePlan = compileNodePlan(fieldIds);
+            NodePlan existing = nodePlans.putIfAbsent(new ArrayList<>(fieldIds), nodePlan);
+            if (existing != null) {
+                nodePlan = existing;
+            }
+        }
+        return nodePlan;
+    }
+
+    private NodePlan compileNodePlan(List<String> fieldIds) {
+        Set<FieldTransformation> transformations = new LinkedHashSet<>();
+        Map<AbstractNode, Set<String>> transformationIdsByDefinition = new LinkedHashMap<>();
+        for (String fieldId : fieldIds) {
+            for (String transformationId : rootTransformationIdsByFieldId.getOrDefault(fieldId, emptyList())) {
+                FieldTransformation fieldTransformation = assertNotNull(fieldIdToTransformation.get(transformationId));
+                transformations.add(fieldTransformation);
+                transformationIdsByDefinition.computeIfAbsent(fieldTransformation.getDefinition(), definition -> new LinkedHashSet<>()).add(transformationId);
+            }
+        }
+        List<FieldTransformation> transformationList = unmodifiableList(new ArrayList<>(transformations));
+        return new NodePlan(transformationList, groupingBy(transformationList, FieldTransformation::getDefinition), transformationIdsByDefinition);
+    }
+}
@@ -0,0 +1,41 @@
+package graphql.nadel.hooks;
+
+import graphql.ExecutionInput;
+import graphql.PublicApi;
+
+/**
+ * The parameters of {@link ServiceExecutionHooks#getResponseCachePartition(ResponseCacheParams)}
+ */
+@PublicApi
+public class ResponseCacheParams {
+    private final ExecutionInput executionInput;
+
+
+    private ResponseCacheParams(Builder builder) {
+        this.executionInput = builder.executionInput;
+    }
+
+    /**
+     * @return the request, with the context given to {@link graphql.nadel.NadelExecutionInput.Builder#context(Object)}
+     */
+    public ExecutionInput getExecutionInput() {
+        return executionInput;
+    }
+
+    public static Builder newParameters() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private ExecutionInput executionInput;
+
+        public Builder executionInput(ExecutionInput executionInput) {
+            this.executionInput = executionInput;
+            return this;
+        }
+
+        public ResponseCacheParams build() {
+            return new ResponseCacheParams(this);
+        }
+    }
+}
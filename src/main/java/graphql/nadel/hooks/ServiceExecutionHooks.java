@@ -47,4 +47,36 @@ public interface ServiceExecutionHooks {
         return CompletableFuture.completedFuture(params.getResultNode());
     }
 
+    /**
+     * Called per top level field if Nadel has a top level field cache, see
+     * {@link graphql.nadel.Nadel.Builder#topLevelFieldCache(int, java.time.Duration)}. Fields are only cached if this
+     * returns a partition. The result of a field is shared by all the requests with the same partition, so fields
+     * whose result depends on the user need a partition per user, while fields that are the same for everybody can
+     * share one partition.
+     * <p>
+     * {@link #resultRewrite(ResultRewriteParams)} is still called for results from the cache.
+     *
+     * @param params the parameters to this call
+     *
+     * @return the partition of the cached result of the field or empty if the field must not be cached
+     */
+    default Optional<Object> getTopLevelFieldCachePartition(TopLevelFieldCacheParams params) {
+        return Optional.empty();
+    }
+
+    /**
+     * Called per query if Nadel has a response cache and these hooks are not the default ones, see
+     * {@link graphql.nadel.Nadel.Builder#responseCache(graphql.nadel.cache.ResponseCache, java.util.function.Function)}.
+     * The hooks can shape the result per user, for example with {@link #isFieldAllowed} or
+     * {@link #resultRewrite(ResultRewriteParams)}, so results are only cached if this returns a partition. Results are
+     * only served to requests with the same partition, so results that the hooks shape per user need a partition per user.
+     *
+     * @param params the parameters to this call
+     *
+     * @return the partition of the cached result of the query or empty if the result must not be cached
+     */
+    default Optional<Object> getResponseCachePartition(ResponseCacheParams params) {
+        return Optional.empty();
+    }
+
 }
@@ -0,0 +1,97 @@
+package graphql.nadel.hooks;
+
+import graphql.Internal;
+import graphql.PublicApi;
+import graphql.execution.ExecutionContext;
+import graphql.execution.ExecutionId;
+import graphql.execution.ExecutionStepInfo;
+import graphql.nadel.Service;
+import graphql.nadel.engine.NadelContext;
+import graphql.schema.GraphQLSchema;
+
+/**
+ * The parameters of {@link ServiceExecutionHooks#getTopLevelFieldCachePartition(TopLevelFieldCacheParams)}
+ */
+@PublicApi
+public class TopLevelFieldCacheParams {
+    private final Service service;
+    private final ExecutionStepInfo executionStepInfo;
+    private final ExecutionId executionId;
+    private final GraphQLSchema schema;
+    private final NadelContext nadelContext;
+    private final Object serviceContext;
+
+
+    private TopLevelFieldCacheParams(Builder builder) {
+        this.service = builder.service;
+        this.executionStepInfo = builder.executionStepInfo;
+        this.executionId = builder.executionId;
+        this.schema = builder.schema;
+        this.nadelContext = builder.nadelContext;
+        this.serviceContext = builder.serviceContext;
+    }
+
+    public Service getService() {
+        return service;
+    }
+
+    public ExecutionStepInfo getExecutionStepInfo() {
+        return executionStepInfo;
+    }
+
+    public ExecutionId getExecutionId() {
+        return executionId;
+    }
+
+    public GraphQLSchema getSchema() {
+        return schema;
+    }
+
+    public NadelContext getNadelContext() {
+        return nadelContext;
+    }
+
+    public Object getServiceContext() {
+        return serviceContext;
+    }
+
+    public static Builder newParameters() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private Service service;
+        private ExecutionStepInfo executionStepInfo;
+        private ExecutionId executionId;
+        private GraphQLSchema schema;
+        private Object serviceContext;
+        private NadelContext nadelContext;
+
+        public Builder service(Service service) {
+            this.service = service;
+            return this;
+        }
+
+        public Builder executionStepInfo(ExecutionStepInfo executionStepInfo) {
+            this.executionStepInfo = executionStepInfo;
+            return this;
+        }
+
+        public Builder serviceContext(Object serviceContext) {
+            this.serviceContext = serviceContext;
+            return this;
+        }
+
+        @Internal
+        public Builder from(ExecutionContext executionContext) {
+            this.executionId = executionContext.getExecutionId();
+            this.schema = executionContext.getGraphQLSchema();
+            this.nadelContext = (NadelContext) executionContext.getContext();
+            return this;
+        }
+
+        public TopLevelFieldCacheParams build() {
+            return new TopLevelFieldCacheParams(this);
+        }
+    }
+}
@@ -7,13 +7,21 @@ import graphql.execution.instrumentation.DocumentAndVariables;
 import graphql.execution.instrumentation.InstrumentationContext;
 import graphql.execution.instrumentation.InstrumentationState;
 import graphql.language.Document;
+import graphql.nadel.QueryCost;
 import graphql.nadel.ServiceExecution;
 import graphql.nadel.instrumentation.parameters.NadelInstrumentRootExecutionResultParameters;
 import graphql.nadel.instrumentation.parameters.NadelInstrumentationCreateStateParameters;
 import graphql.nadel.instrumentation.parameters.NadelInstrumentationExecuteOperationParameters;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationHydrationBatchParameters;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationHydrationWaveParameters;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationNormalizationParameters;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationPipelineStageParameters;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationQueryCostParameters;
 import graphql.nadel.instrumentation.parameters.NadelInstrumentationQueryExecutionParameters;
 import graphql.nadel.instrumentation.parameters.NadelInstrumentationServiceExecutionParameters;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationServicePhaseParameters;
 import graphql.nadel.instrumentation.parameters.NadelNadelInstrumentationQueryValidationParameters;
+import graphql.nadel.normalized.NormalizedQueryFromAst;
 import graphql.nadel.result.RootExecutionResultNode;
 import graphql.validation.ValidationError;
 
@@ -135,6 +143,95 @@ public class ChainedNadelInstrumentation implements NadelInstrumentation {
         return serviceExecution;
     }
 
+    @Override
+    public InstrumentationContext<Object> beginPipelineStage(NadelInstrumentationPipelineStageParameters parameters) {
+        return new ChainedInstrumentationContext<>(instrumentations.stream()
+                .map(instrumentation -> {
+                    InstrumentationState state = getStateFor(instrumentation, parameters.getInstrumentationState());
+                    return instrumentation.beginPipelineStage(parameters.withNewState(state));
+                })
+                .collect(toList()));
+    }
+
+    @Override
+    public InstrumentationContext<NormalizedQueryFromAst> beginNormalization(NadelInstrumentationNormalizationParameters parameters) {
+        return new ChainedInstrumentationContext<>(instrumentations.stream()
+                .map(instrumentation -> {
+                    InstrumentationState state = getStateFor(instrumentation, parameters.getInstrumentationState());
+                    return instrumentation.beginNormalization(parameters.withNewState(state));
+                })
+                .collect(toList()));
+    }
+
+    @Override
+    public InstrumentationContext<Object> beginQueryTransformation(NadelInstrumentationServicePhaseParameters parameters) {
+        return new ChainedInstrumentationContext<>(instrumentations.stream()
+                .map(instrumentation -> {
+                    InstrumentationState state = getStateFor(instrumentation, parameters.getInstrumentationState());
+                    return instrumentation.beginQueryTransformation(parameters.withNewState(state));
+                })
+                .collect(toList()));
+    }
+
+    @Override
+    public InstrumentationContext<Object> beginServiceResultConversion(NadelInstrumentationServicePhaseParameters parameters) {
+        return new ChainedInstrumentationContext<>(instrumentations.stream()
+                .map(instrumentation -> {
+                    InstrumentationState state = getStateFor(instrumentation, parameters.getInstrumentationState());
+                    return instrumentation.beginServiceResultConversion(parameters.withNewState(state));
+                })
+                .collect(toList()));
+    }
+
+    @Override
+    public InstrumentationContext<Object> beginOverallResultConversion(NadelInstrumentationServicePhaseParameters parameters) {
+        return new ChainedInstrumentationContext<>(instrumentations.stream()
+                .map(instrumentation -> {
+                    InstrumentationState state = getStateFor(instrumentation, parameters.getInstrumentationState());
+                    return instrumentation.beginOverallResultConversion(parameters.withNewState(state));
+                })
+                .collect(toList()));
+    }
+
+    @Override
+    public InstrumentationContext<Object> beginHydrationWave(NadelInstrumentationHydrationWaveParameters parameters) {
+        return new ChainedInstrumentationContext<>(instrumentations.stream()
+                .map(instrumentation -> {
+                    InstrumentationState state = getStateFor(instrumentation, parameters.getInstrumentationState());
+                    return instrumentation.beginHydrationWave(parameters.withNewState(state));
+                })
+                .collect(toList()));
+    }
+
+    @Override
+    public InstrumentationContext<Object> beginHydrationBatch(NadelInstrumentationHydrationBatchParameters parameters) {
+        return new ChainedInstrumentationContext<>(instrumentations.stream()
+                .map(instrumentation -> {
+                    InstrumentationState state = getStateFor(instrumentation, parameters.getInstrumentationState());
+                    return instrumentation.beginHydrationBatch(parameters.withNewState(state));
+                })
+                .collect(toList()));
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecutionResultCreation(NadelInstrumentationExecuteOperationParameters parameters) {
+        return new ChainedInstrumentationContext<>(instrumentations.stream()
+                .map(instrumentation -> {
+                    InstrumentationState state = getStateFor(instrumentation, parameters.getInstrumentationState());
+                    return instrumentation.beginExecutionResultCreation(parameters.withNewState(state));
+                })
+                .collect(toList()));
+    }
+
+    @Override
+    public QueryCost instrumentQueryCost(QueryCost queryCost, NadelInstrumentationQueryCostParameters parameters) {
+        for (NadelInstrumentation instrumentation : instrumentations) {
+            InstrumentationState state = getStateFor(instrumentation, parameters.getInstrumentationState());
+            queryCost = instrumentation.instrumentQueryCost(queryCost, parameters.withNewState(state));
+        }
+        return queryCost;
+    }
+
     @Override
     public RootExecutionResultNode instrumentRootExecutionResult(RootExecutionResultNode rootExecutionResultNode, NadelInstrumentRootExecutionResultParameters parameters) {
         for (NadelInstrumentation instrumentation : instrumentations) {
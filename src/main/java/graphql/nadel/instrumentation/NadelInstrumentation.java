@@ -7,13 +7,21 @@ import graphql.execution.instrumentation.DocumentAndVariables;
 import graphql.execution.instrumentation.InstrumentationContext;
 import graphql.execution.instrumentation.InstrumentationState;
 import graphql.language.Document;
+import graphql.nadel.QueryCost;
 import graphql.nadel.ServiceExecution;
 import graphql.nadel.instrumentation.parameters.NadelInstrumentRootExecutionResultParameters;
 import graphql.nadel.instrumentation.parameters.NadelInstrumentationCreateStateParameters;
 import graphql.nadel.instrumentation.parameters.NadelInstrumentationExecuteOperationParameters;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationHydrationBatchParameters;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationHydrationWaveParameters;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationNormalizationParameters;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationPipelineStageParameters;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationQueryCostParameters;
 import graphql.nadel.instrumentation.parameters.NadelInstrumentationQueryExecutionParameters;
 import graphql.nadel.instrumentation.parameters.NadelInstrumentationServiceExecutionParameters;
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationServicePhaseParameters;
 import graphql.nadel.instrumentation.parameters.NadelNadelInstrumentationQueryValidationParameters;
+import graphql.nadel.normalized.NormalizedQueryFromAst;
 import graphql.nadel.result.RootExecutionResultNode;
 import graphql.validation.ValidationError;
 
@@ -141,6 +149,119 @@ public interface NadelInstrumentation {
         return serviceExecution;
     }
 
+    /**
+     * This is called when a CPU bound stage of a service call starts running, see {@link NadelInstrumentationPipelineStageParameters.Stage}.
+     * The parameters tell how long the stage was queued for the executor, the returned context is completed when the
+     * stage has finished running.
+     *
+     * @param parameters the parameters to this step
+     *
+     * @return a non null {@link InstrumentationContext} object that will be called back when the step ends
+     */
+    default InstrumentationContext<Object> beginPipelineStage(NadelInstrumentationPipelineStageParameters parameters) {
+        return noOp();
+    }
+
+    /**
+     * This is called just before the overall query is normalized, which happens once per execution before any service
+     * is called.
+     *
+     * @param parameters the parameters to this step
+     *
+     * @return a non null {@link InstrumentationContext} object that will be called back when the step ends
+     */
+    default InstrumentationContext<NormalizedQueryFromAst> beginNormalization(NadelInstrumentationNormalizationParameters parameters) {
+        return noOp();
+    }
+
+    /**
+     * This is called just before the overall query of a top level field or of a hydration call is transformed into
+     * the query for the underlying service.
+     *
+     * @param parameters the parameters to this step
+     *
+     * @return a non null {@link InstrumentationContext} object that will be called back when the step ends
+     */
+    default InstrumentationContext<Object> beginQueryTransformation(NadelInstrumentationServicePhaseParameters parameters) {
+        return noOp();
+    }
+
+    /**
+     * This is called just before the result of a service call is converted into result nodes.
+     *
+     * @param parameters the parameters to this step
+     *
+     * @return a non null {@link InstrumentationContext} object that will be called back when the step ends
+     */
+    default InstrumentationContext<Object> beginServiceResultConversion(NadelInstrumentationServicePhaseParameters parameters) {
+        return noOp();
+    }
+
+    /**
+     * This is called just before the result nodes of a service call are converted into the result nodes of the
+     * overall schema. It is not called if nothing in the query of the service call was transformed, as the result
+     * nodes are then created for the overall schema straight away by the service result conversion.
+     *
+     * @param parameters the parameters to this step
+     *
+     * @return a non null {@link InstrumentationContext} object that will be called back when the step ends
+     */
+    default InstrumentationContext<Object> beginOverallResultConversion(NadelInstrumentationServicePhaseParameters parameters) {
+        return noOp();
+    }
+
+    /**
+     * This is called just before the hydrated fields of one level of the result are resolved. The step ends once all
+     * of the hydration calls of the wave are completed and their results are in the overall result, before the
+     * hydrated fields of the next level are resolved.
+     *
+     * @param parameters the parameters to this step
+     *
+     * @return a non null {@link InstrumentationContext} object that will be called back when the step ends
+     */
+    default InstrumentationContext<Object> beginHydrationWave(NadelInstrumentationHydrationWaveParameters parameters) {
+        return noOp();
+    }
+
+    /**
+     * This is called just before one hydration call of a wave is made. The step ends once its result is converted
+     * into the result nodes of the hydrated fields.
+     *
+     * @param parameters the parameters to this step
+     *
+     * @return a non null {@link InstrumentationContext} object that will be called back when the step ends
+     */
+    default InstrumentationContext<Object> beginHydrationBatch(NadelInstrumentationHydrationBatchParameters parameters) {
+        return noOp();
+    }
+
+    /**
+     * This is called just before the data of the overall result is created from the result nodes. This happens when
+     * the data of the result is first asked for, which can be after the execution has completed, and not at all if
+     * the result is written as JSON straight from the result nodes.
+     *
+     * @param parameters the parameters to this step
+     *
+     * @return a non null {@link InstrumentationContext} object that will be called back when the step ends
+     */
+    default InstrumentationContext<ExecutionResult> beginExecutionResultCreation(NadelInstrumentationExecuteOperationParameters parameters) {
+        return noOp();
+    }
+
+    /**
+     * This is called with the estimated cost of a query before it is checked against the
+     * {@link graphql.nadel.QueryCostLimits} given to {@link graphql.nadel.Nadel.Builder#queryCostLimits(graphql.nadel.QueryCostLimits)}
+     * and before any service is called, allowing you to record the estimate or to change it
+     *
+     * @param queryCost  the estimated cost of the query
+     * @param parameters the parameters to this step
+     *
+     * @return a non null cost to check against the limits, the default is to return the same object
+     */
+    default QueryCost instrumentQueryCost(QueryCost queryCost, NadelInstrumentationQueryCostParameters parameters) {
+        return queryCost;
+    }
+
     default RootExecutionResultNode instrumentRootExecutionResult(RootExecutionResultNode rootExecutionResultNode, NadelInstrumentRootExecutionResultParameters parameters) {
         return rootExecutionResultNode;
     }
@@ -3,6 +3,9 @@ package graphql.nadel.instrumentation.parameters;
 import graphql.PublicApi;
 import graphql.execution.ExecutionContext;
 import graphql.execution.instrumentation.InstrumentationState;
+import graphql.nadel.RequestTimings;
+
+import java.util.Map;
 
 /**
  * Parameters sent to {@link graphql.nadel.instrumentation.NadelInstrumentation} methods
@@ -11,10 +14,21 @@ import graphql.execution.instrumentation.InstrumentationState;
 public class NadelInstrumentRootExecutionResultParameters {
 
     private final ExecutionContext executionContext;
+    private final RequestTimings requestTimings;
+    private final Map<String, Object> resultComplexityDetails;
     private final InstrumentationState instrumentationState;
 
     public NadelInstrumentRootExecutionResultParameters(ExecutionContext executionContext, InstrumentationState instrumentationState) {
+        this(executionContext, null, null, instrumentationState);
+    }
+
+    public NadelInstrumentRootExecutionResultParameters(ExecutionContext executionContext,
+                                                        RequestTimings requestTimings,
+                                                        Map<String, Object> resultComplexityDetails,
+                                                        InstrumentationState instrumentationState) {
         this.executionContext = executionContext;
+        this.requestTimings = requestTimings;
+        this.resultComplexityDetails = resultComplexityDetails;
         this.instrumentationState = instrumentationState;
     }
 
@@ -25,13 +39,29 @@ public class NadelInstrumentRootExecutionResultParameters {
      * @return a new parameters object with the new state
      */
     public NadelInstrumentRootExecutionResultParameters withNewState(InstrumentationState instrumentationState) {
-        return new NadelInstrumentRootExecutionResultParameters(executionContext, instrumentationState);
+        return new NadelInstrumentRootExecutionResultParameters(executionContext, requestTimings, resultComplexityDetails, instrumentationState);
     }
 
     public ExecutionContext getExecutionContext() {
         return executionContext;
     }
 
+    /**
+     * @return where the time of the request went, which is complete apart from the deferred results
+     */
+    public RequestTimings getRequestTimings() {
+        return requestTimings;
+    }
+
+    /**
+     * @return the node counts per top level field ({@code fieldNodeCounts}) and per hydrated field
+     * ({@code hydrationNodeCounts}) and the calls, response bytes, total and max nanoseconds of the calls to each
+     * service ({@code serviceCalls}). Unlike the {@code resultComplexity} extension they are not part of the result.
+     */
+    public Map<String, Object> getResultComplexityDetails() {
+        return resultComplexityDetails;
+    }
+
     public <T extends InstrumentationState> T getInstrumentationState() {
         // noinspection unchecked
         return (T) instrumentationState;
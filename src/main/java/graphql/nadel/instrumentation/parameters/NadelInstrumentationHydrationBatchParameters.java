@@ -0,0 +1,84 @@
+package graphql.nadel.instrumentation.parameters;
+
+import graphql.PublicApi;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.nadel.Service;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLObjectType;
+
+/**
+ * Parameters sent to {@link graphql.nadel.instrumentation.NadelInstrumentation} methods
+ */
+@PublicApi
+public class NadelInstrumentationHydrationBatchParameters {
+
+    private final Service service;
+    private final GraphQLObjectType objectType;
+    private final GraphQLFieldDefinition fieldDefinition;
+    private final int batchSize;
+    private final ExecutionContext executionContext;
+    private final InstrumentationState instrumentationState;
+
+    public NadelInstrumentationHydrationBatchParameters(Service service,
+                                                        GraphQLObjectType objectType,
+                                                        GraphQLFieldDefinition fieldDefinition,
+                                                        int batchSize,
+                                                        ExecutionContext executionContext,
+                                                        InstrumentationState instrumentationState) {
+        this.service = service;
+        this.objectType = objectType;
+        this.fieldDefinition = fieldDefinition;
+        this.batchSize = batchSize;
+        this.executionContext = executionContext;
+        this.instrumentationState = instrumentationState;
+    }
+
+    /**
+     * Returns a cloned parameters object with the new state
+     *
+     * @param instrumentationState the new state for this parameters object
+     *
+     * @return a new parameters object with the new state
+     */
+    public NadelInstrumentationHydrationBatchParameters withNewState(InstrumentationState instrumentationState) {
+        return new NadelInstrumentationHydrationBatchParameters(service, objectType, fieldDefinition, batchSize, executionContext, instrumentationState);
+    }
+
+    /**
+     * @return the service that is called to resolve the hydrated fields
+     */
+    public Service getService() {
+        return service;
+    }
+
+    /**
+     * @return the overall type of the objects with the hydrated field
+     */
+    public GraphQLObjectType getObjectType() {
+        return objectType;
+    }
+
+    /**
+     * @return the overall definition of the hydrated field
+     */
+    public GraphQLFieldDefinition getFieldDefinition() {
+        return fieldDefinition;
+    }
+
+    /**
+     * @return the number of hydrated fields resolved by the call, 1 for a hydration that is not batched
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public ExecutionContext getExecutionContext() {
+        return executionContext;
+    }
+
+    public <T extends InstrumentationState> T getInstrumentationState() {
+        // noinspection unchecked
+        return (T) instrumentationState;
+    }
+}
@@ -0,0 +1,49 @@
+package graphql.nadel.instrumentation.parameters;
+
+import graphql.PublicApi;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationState;
+
+/**
+ * Parameters sent to {@link graphql.nadel.instrumentation.NadelInstrumentation} methods
+ */
+@PublicApi
+public class NadelInstrumentationHydrationWaveParameters {
+
+    private final int hydratedFieldCount;
+    private final ExecutionContext executionContext;
+    private final InstrumentationState instrumentationState;
+
+    public NadelInstrumentationHydrationWaveParameters(int hydratedFieldCount, ExecutionContext executionContext, InstrumentationState instrumentationState) {
+        this.hydratedFieldCount = hydratedFieldCount;
+        this.executionContext = executionContext;
+        this.instrumentationState = instrumentationState;
+    }
+
+    /**
+     * Returns a cloned parameters object with the new state
+     *
+     * @param instrumentationState the new state for this parameters object
+     *
+     * @return a new parameters object with the new state
+     */
+    public NadelInstrumentationHydrationWaveParameters withNewState(InstrumentationState instrumentationState) {
+        return new NadelInstrumentationHydrationWaveParameters(hydratedFieldCount, executionContext, instrumentationState);
+    }
+
+    /**
+     * @return the number of hydrated fields in the result that are resolved by the wave
+     */
+    public int getHydratedFieldCount() {
+        return hydratedFieldCount;
+    }
+
+    public ExecutionContext getExecutionContext() {
+        return executionContext;
+    }
+
+    public <T extends InstrumentationState> T getInstrumentationState() {
+        // noinspection unchecked
+        return (T) instrumentationState;
+    }
+}
@@ -0,0 +1,54 @@
+package graphql.nadel.instrumentation.parameters;
+
+import graphql.ExecutionInput;
+import graphql.PublicApi;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.language.Document;
+import graphql.schema.GraphQLSchema;
+
+/**
+ * Parameters sent to {@link graphql.nadel.instrumentation.NadelInstrumentation} methods
+ */
+@PublicApi
+public class NadelInstrumentationNormalizationParameters {
+
+    private final ExecutionInput executionInput;
+    private final Document document;
+    private final GraphQLSchema overallSchema;
+    private final InstrumentationState instrumentationState;
+
+    public NadelInstrumentationNormalizationParameters(ExecutionInput executionInput, Document document, GraphQLSchema overallSchema, InstrumentationState instrumentationState) {
+        this.executionInput = executionInput;
+        this.document = document;
+        this.overallSchema = overallSchema;
+        this.instrumentationState = instrumentationState;
+    }
+
+    /**
+     * Returns a cloned parameters object with the new state
+     *
+     * @param instrumentationState the new state for this parameters object
+     *
+     * @return a new parameters object with the new state
+     */
+    public NadelInstrumentationNormalizationParameters withNewState(InstrumentationState instrumentationState) {
+        return new NadelInstrumentationNormalizationParameters(executionInput, document, overallSchema, instrumentationState);
+    }
+
+    public ExecutionInput getExecutionInput() {
+        return executionInput;
+    }
+
+    public Document getDocument() {
+        return document;
+    }
+
+    public GraphQLSchema getOverallSchema() {
+        return overallSchema;
+    }
+
+    public <T extends InstrumentationState> T getInstrumentationState() {
+        // noinspection unchecked
+        return (T) instrumentationState;
+    }
+}
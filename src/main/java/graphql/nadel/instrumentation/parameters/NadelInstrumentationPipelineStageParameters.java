@@ -0,0 +1,78 @@
+package graphql.nadel.instrumentation.parameters;
+
+import graphql.PublicApi;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.nadel.Service;
+
+/**
+ * Parameters sent to {@link graphql.nadel.instrumentation.NadelInstrumentation} methods
+ */
+@PublicApi
+public class NadelInstrumentationPipelineStageParameters {
+
+    /**
+     * The CPU bound stages of the execution of a service call, which run on the executor given to
+     * {@link graphql.nadel.Nadel.Builder#executor(java.util.concurrent.Executor)} if there is one
+     */
+    public enum Stage {
+        /**
+         * the query for a service is created from the overall query
+         */
+        QUERY_TRANSFORMATION,
+        /**
+         * the result of a service is converted into result nodes of the overall schema
+         */
+        RESULT_CONVERSION
+    }
+
+    private final Stage stage;
+    private final Service service;
+    private final long queuedNanos;
+    private final ExecutionContext executionContext;
+    private final InstrumentationState instrumentationState;
+
+    public NadelInstrumentationPipelineStageParameters(Stage stage, Service service, long queuedNanos, ExecutionContext executionContext, InstrumentationState instrumentationState) {
+        this.stage = stage;
+        this.service = service;
+        this.queuedNanos = queuedNanos;
+        this.executionContext = executionContext;
+        this.instrumentationState = instrumentationState;
+    }
+
+    /**
+     * Returns a cloned parameters object with the new state
+     *
+     * @param instrumentationState the new state for this parameters object
+     *
+     * @return a new parameters object with the new state
+     */
+    public NadelInstrumentationPipelineStageParameters withNewState(InstrumentationState instrumentationState) {
+        return new NadelInstrumentationPipelineStageParameters(stage, service, queuedNanos, executionContext, instrumentationState);
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+
+    public Service getService() {
+        return service;
+    }
+
+    /**
+     * @return the nanoseconds the stage waited for a thread of the executor before it started running or 0 if it runs
+     * on the thread that completed the previous stage
+     */
+    public long getQueuedNanos() {
+        return queuedNanos;
+    }
+
+    public ExecutionContext getExecutionContext() {
+        return executionContext;
+    }
+
+    public <T extends InstrumentationState> T getInstrumentationState() {
+        // noinspection unchecked
+        return (T) instrumentationState;
+    }
+}
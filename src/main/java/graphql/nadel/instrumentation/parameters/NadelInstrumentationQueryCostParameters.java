@@ -0,0 +1,57 @@
+package graphql.nadel.instrumentation.parameters;
+
+import graphql.PublicApi;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.nadel.QueryCostLimits;
+import graphql.nadel.normalized.NormalizedQueryFromAst;
+
+/**
+ * Parameters sent to {@link graphql.nadel.instrumentation.NadelInstrumentation} methods
+ */
+@PublicApi
+public class NadelInstrumentationQueryCostParameters {
+
+    private final NormalizedQueryFromAst normalizedQuery;
+    private final QueryCostLimits queryCostLimits;
+    private final ExecutionContext executionContext;
+    private final InstrumentationState instrumentationState;
+
+    public NadelInstrumentationQueryCostParameters(NormalizedQueryFromAst normalizedQuery, QueryCostLimits queryCostLimits, ExecutionContext executionContext, InstrumentationState instrumentationState) {
+        this.normalizedQuery = normalizedQuery;
+        this.queryCostLimits = queryCostLimits;
+        this.executionContext = executionContext;
+        this.instrumentationState = instrumentationState;
+    }
+
+    /**
+     * Returns a cloned parameters object with the new state
+     *
+     * @param instrumentationState the new state for this parameters object
+     *
+     * @return a new parameters object with the new state
+     */
+    public NadelInstrumentationQueryCostParameters withNewState(InstrumentationState instrumentationState) {
+        return new NadelInstrumentationQueryCostParameters(normalizedQuery, queryCostLimits, executionContext, instrumentationState);
+    }
+
+    public NormalizedQueryFromAst getNormalizedQuery() {
+        return normalizedQuery;
+    }
+
+    /**
+     * @return the limits the estimate is checked against
+     */
+    public QueryCostLimits getQueryCostLimits() {
+        return queryCostLimits;
+    }
+
+    public ExecutionContext getExecutionContext() {
+        return executionContext;
+    }
+
+    public <T extends InstrumentationState> T getInstrumentationState() {
+        // noinspection unchecked
+        return (T) instrumentationState;
+    }
+}
@@ -0,0 +1,56 @@
+package graphql.nadel.instrumentation.parameters;
+
+import graphql.PublicApi;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.nadel.Service;
+
+/**
+ * Parameters sent to {@link graphql.nadel.instrumentation.NadelInstrumentation} methods
+ */
+@PublicApi
+public class NadelInstrumentationServicePhaseParameters {
+
+    private final Service service;
+    private final boolean hydrationCall;
+    private final ExecutionContext executionContext;
+    private final InstrumentationState instrumentationState;
+
+    public NadelInstrumentationServicePhaseParameters(Service service, boolean hydrationCall, ExecutionContext executionContext, InstrumentationState instrumentationState) {
+        this.service = service;
+        this.hydrationCall = hydrationCall;
+        this.executionContext = executionContext;
+        this.instrumentationState = instrumentationState;
+    }
+
+    /**
+     * Returns a cloned parameters object with the new state
+     *
+     * @param instrumentationState the new state for this parameters object
+     *
+     * @return a new parameters object with the new state
+     */
+    public NadelInstrumentationServicePhaseParameters withNewState(InstrumentationState instrumentationState) {
+        return new NadelInstrumentationServicePhaseParameters(service, hydrationCall, executionContext, instrumentationState);
+    }
+
+    public Service getService() {
+        return service;
+    }
+
+    /**
+     * @return true if the service call resolves hydrated fields, false if it resolves top level fields
+     */
+    public boolean isHydrationCall() {
+        return hydrationCall;
+    }
+
+    public ExecutionContext getExecutionContext() {
+        return executionContext;
+    }
+
+    public <T extends InstrumentationState> T getInstrumentationState() {
+        // noinspection unchecked
+        return (T) instrumentationState;
+    }
+}
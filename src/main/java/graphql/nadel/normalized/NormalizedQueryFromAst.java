@@ -3,9 +3,11 @@ package graphql.nadel.normalized;
 import graphql.Internal;
 import graphql.execution.MergedField;
 import graphql.nadel.dsl.NodeId;
+import graphql.nadel.result.ResultNodeFieldInfo;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Internal
 public class NormalizedQueryFromAst {
@@ -13,6 +15,7 @@ public class NormalizedQueryFromAst {
     private final List<NormalizedQueryField> topLevelFields;
     private final Map<String, List<NormalizedQueryField>> normalizedFieldsByFieldId;
     private final Map<NormalizedQueryField, MergedField> mergedFieldByNormalizedFields;
+    private final Map<NormalizedQueryField, ResultNodeFieldInfo> resultNodeFieldInfos = new ConcurrentHashMap<>();
 
     public NormalizedQueryFromAst(List<NormalizedQueryField> topLevelFields,
                                   Map<String, List<NormalizedQueryField>> normalizedFieldsByFieldId,
@@ -42,4 +45,17 @@ public class NormalizedQueryFromAst {
         MergedField mergedField = mergedFieldByNormalizedFields.get(normalizedQueryField);
         return NodeId.getIds(mergedField);
     }
+
+    /**
+     * @param normalizedQueryField the field
+     *
+     * @return the field info shared by all result nodes of this field
+     */
+    public ResultNodeFieldInfo getResultNodeFieldInfo(NormalizedQueryField normalizedQueryField) {
+        return resultNodeFieldInfos.computeIfAbsent(normalizedQueryField, field -> new ResultNodeFieldInfo(
+                field.getAlias(),
+                getFieldIds(field),
+                field.getFieldDefinition(),
+                field.getObjectType()));
+    }
 }
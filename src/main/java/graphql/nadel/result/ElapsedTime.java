@@ -4,21 +4,47 @@ package graphql.nadel.result;
 import graphql.Internal;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * The time a service call took, measured with {@link System#nanoTime()}. The wall clock time it started at is only
+ * worked out when it is asked for, from an anchor taken once per JVM, so it never goes backwards with clock changes
+ * during a call.
+ */
 @Internal
 public class ElapsedTime {
 
-    private final OffsetDateTime startTime;
-    private final Duration duration;
+    private static final long ANCHOR_EPOCH_NANOS = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    private static final long ANCHOR_NANO_TIME = System.nanoTime();
 
-    public ElapsedTime(OffsetDateTime startTime, Duration duration) {
-        this.startTime = startTime;
-        this.duration = duration;
+    private final long startNanos;
+    private final long durationNanos;
+
+    public ElapsedTime(long startNanos, long durationNanos) {
+        this.startNanos = startNanos;
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} the call started at
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
     }
 
+    /**
+     * @return the wall clock time the call started at, derived from the anchor of the JVM
+     */
     public OffsetDateTime getStartTime() {
-        return startTime;
+        long epochNanos = ANCHOR_EPOCH_NANOS + (startNanos - ANCHOR_NANO_TIME);
+        return OffsetDateTime.ofInstant(Instant.ofEpochSecond(0, epochNanos), ZoneId.systemDefault());
     }
 
     public static Builder newElapsedTime() {
@@ -26,26 +52,30 @@ public class ElapsedTime {
     }
 
     public Duration getDuration() {
-        return duration;
+        return Duration.ofNanos(durationNanos);
     }
 
+    /**
+     * The call is started and stopped on different threads. The stages of a call are chained through
+     * {@link java.util.concurrent.CompletableFuture}s, which publish the start to the thread that stops it, so
+     * the builder needs no locks.
+     */
     public static class Builder {
 
-        private OffsetDateTime start;
-        private Duration duration;
+        private long start;
+        private long duration;
 
-        public synchronized Builder start() {
-            start = OffsetDateTime.now();
+        public Builder start() {
+            start = System.nanoTime();
             return this;
         }
 
-        public synchronized Builder stop() {
-            OffsetDateTime stop = OffsetDateTime.now();
-            duration = Duration.between(start, stop);
+        public Builder stop() {
+            duration = System.nanoTime() - start;
             return this;
         }
 
-        public synchronized ElapsedTime build() {
+        public ElapsedTime build() {
             return new ElapsedTime(start, duration);
         }
     }
@@ -14,7 +14,9 @@ import java.util.Map;
 import java.util.function.Consumer;
 
 import static graphql.Assert.assertNotNull;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
 
 @Internal
 public abstract class ExecutionResultNode {
@@ -29,11 +31,8 @@ public abstract class ExecutionResultNode {
 
     private final ExecutionPath executionPath;
 
-    private final String alias;
-    private final List<String> fieldIds;
-
-    private final GraphQLFieldDefinition fieldDefinition;
-    private final GraphQLObjectType objectType;
+    // shared with all other nodes of the same field
+    private final ResultNodeFieldInfo fieldInfo;
 
 
     /*
@@ -41,18 +40,16 @@ public abstract class ExecutionResultNode {
      */
     protected ExecutionResultNode(BuilderBase builderBase) {
         this.completedValue = builderBase.completedValue;
-        this.children = Collections.unmodifiableList(assertNotNull(builderBase.children));
+        // most nodes are leaves without errors: don't keep an empty list for each of them
+        this.children = assertNotNull(builderBase.children).isEmpty() ? emptyList() : Collections.unmodifiableList(builderBase.children);
         children.forEach(Assert::assertNotNull);
-        this.errors = Collections.unmodifiableList(builderBase.errors);
+        this.errors = builderBase.errors.isEmpty() ? emptyList() : Collections.unmodifiableList(builderBase.errors);
         this.extensions = builderBase.extensions;
         this.elapsedTime = builderBase.elapsedTime;
         this.totalNodeCount = builderBase.totalNodeCount;
         this.executionPath = assertNotNull(builderBase.executionPath);
 
-        this.alias = builderBase.alias;
-        this.fieldIds = builderBase.fieldIds;
-        this.fieldDefinition = builderBase.fieldDefinition;
-        this.objectType = builderBase.objectType;
+        this.fieldInfo = builderBase.resolveFieldInfo();
         this.nonNullableFieldWasNullError = builderBase.nonNullableFieldWasNullError;
     }
 
@@ -80,27 +77,31 @@ public abstract class ExecutionResultNode {
     }
 
     public String getResultKey() {
-        return alias != null ? alias : fieldDefinition.getName();
+        return fieldInfo.getResultKey();
     }
 
     public String getAlias() {
-        return alias;
+        return fieldInfo.getAlias();
     }
 
     public List<String> getFieldIds() {
-        return fieldIds;
+        return fieldInfo.getFieldIds();
     }
 
     public String getFieldName() {
-        return fieldDefinition.getName();
+        return fieldInfo.getFieldDefinition().getName();
     }
 
     public GraphQLFieldDefinition getFieldDefinition() {
-        return fieldDefinition;
+        return fieldInfo.getFieldDefinition();
     }
 
     public GraphQLObjectType getObjectType() {
-        return objectType;
+        return fieldInfo.getObjectType();
+    }
+
+    public ResultNodeFieldInfo getFieldInfo() {
+        return fieldInfo;
     }
 
     public NonNullableFieldWasNullError getNonNullableFieldWasNullError() {
@@ -147,9 +148,9 @@ public abstract class ExecutionResultNode {
     public String toString() {
         return getClass().getSimpleName() + "{" +
                 "path=" + executionPath +
-                ", objectType=" + (objectType != null ? objectType.getName() : "null") +
-                ", name=" + (fieldDefinition != null ? fieldDefinition.getName() : "null") +
-                ", alias=" + alias +
+                ", objectType=" + (getObjectType() != null ? getObjectType().getName() : "null") +
+                ", name=" + (getFieldDefinition() != null ? getFieldDefinition().getName() : "null") +
+                ", alias=" + getAlias() +
                 ", completedValue=" + completedValue +
                 ", nonNullableFieldWasNullError=" + nonNullableFieldWasNullError +
                 ", children.size=" + children.size() +
@@ -166,8 +167,9 @@ public abstract class ExecutionResultNode {
         protected ElapsedTime elapsedTime;
         protected ExecutionPath executionPath;
 
+        private ResultNodeFieldInfo fieldInfo;
         private String alias;
-        private List<String> fieldIds = new ArrayList<>();
+        private List<String> fieldIds = emptyList();
         private GraphQLFieldDefinition fieldDefinition;
         private GraphQLObjectType objectType;
         private int totalNodeCount;
@@ -185,11 +187,7 @@ public abstract class ExecutionResultNode {
             this.extensions = existing.extensions;
             this.elapsedTime = existing.getElapsedTime();
             this.executionPath = existing.getExecutionPath();
-            this.alias = existing.getAlias();
-            this.fieldIds.addAll(existing.getFieldIds());
-
-            this.fieldDefinition = existing.fieldDefinition;
-            this.objectType = existing.objectType;
+            fieldInfo(existing.fieldInfo);
             this.totalNodeCount = existing.totalNodeCount;
         }
 
@@ -216,20 +214,35 @@ public abstract class ExecutionResultNode {
             return (T) this;
         }
 
+        /**
+         * Sets alias, field ids, field definition and object type at once. Nodes of the same field should share one
+         * {@link ResultNodeFieldInfo}.
+         *
+         * @param fieldInfo the field info
+         *
+         * @return this builder
+         */
+        public T fieldInfo(ResultNodeFieldInfo fieldInfo) {
+            this.fieldInfo = fieldInfo;
+            this.alias = fieldInfo.getAlias();
+            this.fieldIds = fieldInfo.getFieldIds();
+            this.fieldDefinition = fieldInfo.getFieldDefinition();
+            this.objectType = fieldInfo.getObjectType();
+            return (T) this;
+        }
+
         public T alias(String alias) {
             this.alias = alias;
             return (T) this;
         }
 
         public T fieldIds(List<String> fieldIds) {
-            this.fieldIds.clear();
-            this.fieldIds.addAll(fieldIds);
+            this.fieldIds = assertNotNull(fieldIds);
             return (T) this;
         }
 
         public T fieldId(String fieldId) {
-            this.fieldIds.clear();
-            this.fieldIds.add(fieldId);
+            this.fieldIds = singletonList(fieldId);
             return (T) this;
         }
 
@@ -274,5 +287,15 @@ public abstract class ExecutionResultNode {
             return (T) this;
         }
 
+        ResultNodeFieldInfo resolveFieldInfo() {
+            if (fieldInfo != null && fieldInfo.isFor(alias, fieldIds, fieldDefinition, objectType)) {
+                return fieldInfo;
+            }
+            if (ResultNodeFieldInfo.NO_FIELD.isFor(alias, fieldIds, fieldDefinition, objectType)) {
+                return ResultNodeFieldInfo.NO_FIELD;
+            }
+            return new ResultNodeFieldInfo(alias, fieldIds, fieldDefinition, objectType);
+        }
+
     }
 }
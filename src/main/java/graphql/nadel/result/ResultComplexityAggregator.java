@@ -4,45 +4,163 @@ import graphql.Internal;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 
+/**
+ * Counts the result nodes of a request per service, per top level field and per hydrated field, and the calls to the
+ * services with their bytes and latency.
+ * <p>
+ * The counts are added from the threads that complete the service calls, which can run at the same time, so all
+ * counters are striped and never block.
+ */
 @Internal
 public class ResultComplexityAggregator {
-    private int totalNodeCount = 0;
-    private Map<String, Integer> serviceNodeCounts = new LinkedHashMap<>();
+    private final LongAdder totalNodeCount = new LongAdder();
+    private final Map<String, LongAdder> serviceNodeCounts = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> fieldNodeCounts = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> hydrationNodeCounts = new ConcurrentHashMap<>();
+    private final Map<String, ServiceCallCounters> serviceCalls = new ConcurrentHashMap<>();
+
+    private static class ServiceCallCounters {
+        final LongAdder calls = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("calls", calls.sum());
+            snapshot.put("bytes", bytes.sum());
+            snapshot.put("totalNanos", totalNanos.sum());
+            snapshot.put("maxNanos", maxNanos.get());
+            return snapshot;
+        }
+    }
 
     public int getTotalNodeCount() {
-        return totalNodeCount;
+        return totalNodeCount.intValue();
     }
 
     public Map<String, Integer> getServiceNodeCounts() {
-        return serviceNodeCounts;
+        return snapshot(serviceNodeCounts);
     }
 
     public int getNodeCountsForService(String serviceName) {
-        return serviceNodeCounts.get(serviceName);
+        return getCount(serviceNodeCounts, serviceName);
+    }
+
+    /**
+     * @return the node counts of the top level fields by their name
+     */
+    public Map<String, Integer> getFieldNodeCounts() {
+        return snapshot(fieldNodeCounts);
+    }
+
+    public int getNodeCountsForField(String topLevelFieldName) {
+        return getCount(fieldNodeCounts, topLevelFieldName);
+    }
+
+    /**
+     * @return the node counts of the hydrated fields by their type and field name, for example {@code Issue.assignee}
+     */
+    public Map<String, Integer> getHydrationNodeCounts() {
+        return snapshot(hydrationNodeCounts);
+    }
+
+    public int getNodeCountsForHydration(String hydrationSite) {
+        return getCount(hydrationNodeCounts, hydrationSite);
     }
 
     public void incrementServiceNodeCount(String serviceFieldName, int nodeCount) {
-        serviceNodeCounts.compute(serviceFieldName, (k, v) -> (v == null) ? nodeCount : v + nodeCount);
-        totalNodeCount += nodeCount;
+        serviceNodeCounts.computeIfAbsent(serviceFieldName, key -> new LongAdder()).add(nodeCount);
+        totalNodeCount.add(nodeCount);
+    }
+
+    /**
+     * Counts the nodes of a top level field, which are counted for their service as well
+     *
+     * @param topLevelFieldName the name of the top level field
+     * @param nodeCount         the nodes of the field
+     */
+    public void incrementFieldNodeCount(String topLevelFieldName, int nodeCount) {
+        fieldNodeCounts.computeIfAbsent(topLevelFieldName, key -> new LongAdder()).add(nodeCount);
+    }
+
+    /**
+     * Counts the nodes of a hydrated field, which are counted for their service as well
+     *
+     * @param hydrationSite the type and the name of the hydrated field, for example {@code Issue.assignee}
+     * @param nodeCount     the nodes of the field
+     */
+    public void incrementHydrationNodeCount(String hydrationSite, int nodeCount) {
+        hydrationNodeCounts.computeIfAbsent(hydrationSite, key -> new LongAdder()).add(nodeCount);
+    }
+
+    /**
+     * @param serviceName the service that was called
+     * @param bytes       the bytes of the response or 0 if they are not known
+     * @param nanos       the time the call took
+     */
+    public void recordServiceCall(String serviceName, long bytes, long nanos) {
+        ServiceCallCounters counters = serviceCalls.computeIfAbsent(serviceName, key -> new ServiceCallCounters());
+        counters.calls.increment();
+        counters.bytes.add(bytes);
+        counters.totalNanos.add(nanos);
+        counters.maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * @return the calls, bytes, total and max nanoseconds of the calls to each service
+     */
+    public Map<String, Map<String, Object>> snapshotServiceCallData() {
+        Map<String, Map<String, Object>> snapshot = new TreeMap<>();
+        serviceCalls.forEach((serviceName, counters) -> snapshot.put(serviceName, counters.snapshot()));
+        return snapshot;
     }
 
     public Map<String, Object> snapshotResultComplexityData() {
 
         Map<String, Object> resultComplexityMap = new LinkedHashMap<>();
-        resultComplexityMap.put("totalNodeCount", totalNodeCount);
-        resultComplexityMap.put("serviceNodeCounts", serviceNodeCounts);
+        resultComplexityMap.put("totalNodeCount", getTotalNodeCount());
+        resultComplexityMap.put("serviceNodeCounts", getServiceNodeCounts());
 
         return resultComplexityMap;
     }
 
+    /**
+     * @return the node counts per top level and hydrated field and the calls to each service, which are for the
+     * operators of Nadel and not part of the result
+     */
+    public Map<String, Object> snapshotResultComplexityDetails() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("fieldNodeCounts", getFieldNodeCounts());
+        details.put("hydrationNodeCounts", getHydrationNodeCounts());
+        details.put("serviceCalls", snapshotServiceCallData());
+        return details;
+    }
+
+    private static int getCount(Map<String, LongAdder> counts, String key) {
+        LongAdder count = counts.get(key);
+        return count != null ? count.intValue() : 0;
+    }
+
+    private static Map<String, Integer> snapshot(Map<String, LongAdder> counts) {
+        // sorted so that the snapshot doesn't depend on the order in which the service calls completed
+        Map<String, Integer> snapshot = new TreeMap<>();
+        counts.forEach((key, count) -> snapshot.put(key, count.intValue()));
+        return snapshot;
+    }
+
 
     @Override
     public String toString() {
         return "ResultComplexityAggregator{" +
-                "totalNodeCount=" + totalNodeCount +
-                ", serviceNodeCountsMap=" + serviceNodeCounts +
+                "totalNodeCount=" + getTotalNodeCount() +
+                ", serviceNodeCountsMap=" + getServiceNodeCounts() +
                 '}';
     }
 }
@@ -0,0 +1,75 @@
+package graphql.nadel.result;
+
+import graphql.Internal;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLObjectType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * The part of an {@link ExecutionResultNode} which describes the field it is for. All the nodes of the same field,
+ * like the elements of a list and their children, share one instance instead of each node holding its own copy.
+ */
+@Internal
+public class ResultNodeFieldInfo {
+
+    static final ResultNodeFieldInfo NO_FIELD = new ResultNodeFieldInfo(null, emptyList(), null, null);
+
+    private final String alias;
+    private final List<String> fieldIds;
+    private final GraphQLFieldDefinition fieldDefinition;
+    private final GraphQLObjectType objectType;
+
+    public ResultNodeFieldInfo(String alias,
+                               List<String> fieldIds,
+                               GraphQLFieldDefinition fieldDefinition,
+                               GraphQLObjectType objectType) {
+        this.alias = alias;
+        this.fieldIds = copyOf(fieldIds);
+        this.fieldDefinition = fieldDefinition;
+        this.objectType = objectType;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public String getResultKey() {
+        return alias != null ? alias : fieldDefinition.getName();
+    }
+
+    public List<String> getFieldIds() {
+        return fieldIds;
+    }
+
+    public GraphQLFieldDefinition getFieldDefinition() {
+        return fieldDefinition;
+    }
+
+    public GraphQLObjectType getObjectType() {
+        return objectType;
+    }
+
+    boolean isFor(String alias, List<String> fieldIds, GraphQLFieldDefinition fieldDefinition, GraphQLObjectType objectType) {
+        return this.fieldDefinition == fieldDefinition
+                && this.objectType == objectType
+                && Objects.equals(this.alias, alias)
+                && (this.fieldIds == fieldIds || this.fieldIds.equals(fieldIds));
+    }
+
+    private static List<String> copyOf(List<String> fieldIds) {
+        if (fieldIds.isEmpty()) {
+            return emptyList();
+        }
+        if (fieldIds.size() == 1) {
+            return singletonList(fieldIds.get(0));
+        }
+        return unmodifiableList(new ArrayList<>(fieldIds));
+    }
+}
@@ -0,0 +1,127 @@
+package graphql.nadel.result;
+
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.GraphQLError;
+import graphql.Internal;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The overall result of a Nadel execution. The data maps are only created from the result nodes when they
+ * are asked for, so {@link ResultNodesJsonWriter} can write the result without them ever existing. The instrumentation
+ * context for the creation of the data is only begun when that happens.
+ */
+@Internal
+public class ResultNodesExecutionResult implements ExecutionResult {
+
+    private final RootExecutionResultNode rootResultNode;
+    private final Map<Object, Object> extensions;
+    private final Supplier<InstrumentationContext<ExecutionResult>> beginCreation;
+
+    private volatile ExecutionResult executionResult;
+    private volatile List<GraphQLError> errors;
+
+    public ResultNodesExecutionResult(RootExecutionResultNode rootResultNode) {
+        this(rootResultNode, SimpleInstrumentationContext::noOp);
+    }
+
+    /**
+     * @param rootResultNode the result nodes
+     * @param beginCreation  begins the instrumentation context for the creation of the data from the result nodes
+     */
+    public ResultNodesExecutionResult(RootExecutionResultNode rootResultNode, Supplier<InstrumentationContext<ExecutionResult>> beginCreation) {
+        this(rootResultNode, new LinkedHashMap<>(rootResultNode.getExtensions()), beginCreation);
+    }
+
+    private ResultNodesExecutionResult(RootExecutionResultNode rootResultNode, Map<Object, Object> extensions, Supplier<InstrumentationContext<ExecutionResult>> beginCreation) {
+        this.rootResultNode = rootResultNode;
+        this.extensions = extensions;
+        this.beginCreation = beginCreation;
+    }
+
+    public RootExecutionResultNode getRootResultNode() {
+        return rootResultNode;
+    }
+
+    public ResultNodesExecutionResult addExtension(String key, Object value) {
+        Map<Object, Object> newExtensions = new LinkedHashMap<>(extensions);
+        newExtensions.put(key, value);
+        return new ResultNodesExecutionResult(rootResultNode, newExtensions, beginCreation);
+    }
+
+    @Override
+    public List<GraphQLError> getErrors() {
+        if (errors == null) {
+            // the errors don't need the data to be created
+            errors = ResultNodesJsonWriter.propagateNulls(rootResultNode).errors;
+        }
+        return errors;
+    }
+
+    @Override
+    public <T> T getData() {
+        return toExecutionResult().getData();
+    }
+
+    @Override
+    public boolean isDataPresent() {
+        return true;
+    }
+
+    @Override
+    public Map<Object, Object> getExtensions() {
+        return extensions;
+    }
+
+    @Override
+    public Map<String, Object> toSpecification() {
+        return toExecutionResult().toSpecification();
+    }
+
+    /*
+     * a coalesced result can be read by several threads at once, but the data is only created and instrumented once
+     */
+    private ExecutionResult toExecutionResult() {
+        ExecutionResult result = executionResult;
+        if (result != null) {
+            return result;
+        }
+        synchronized (this) {
+            if (executionResult == null) {
+                executionResult = createExecutionResult();
+            }
+            return executionResult;
+        }
+    }
+
+    private ExecutionResult createExecutionResult() {
+        InstrumentationContext<ExecutionResult> instrumentationContext = beginCreation.get();
+        ExecutionResult result;
+        try {
+            result = ExecutionResultImpl.newExecutionResult()
+                    .from(ResultNodesUtil.toExecutionResult(rootResultNode))
+                    .extensions(extensions)
+                    .build();
+        } catch (RuntimeException e) {
+            instrumentationContext.onCompleted(null, e);
+            throw e;
+        }
+        instrumentationContext.onCompleted(result, null);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultNodesExecutionResult{" +
+                "errors=" + getErrors() +
+                ", data=" + getData() +
+                ", extensions=" + extensions +
+                '}';
+    }
+}
@@ -0,0 +1,287 @@
+package graphql.nadel.result;
+
+import graphql.Assert;
+import graphql.ExecutionResult;
+import graphql.GraphQLError;
+import graphql.PublicApi;
+import graphql.execution.ExecutionPath;
+import graphql.schema.GraphQLNonNull;
+import graphql.schema.GraphQLOutputType;
+import graphql.schema.GraphQLTypeUtil;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+
+/**
+ * Writes an {@link ExecutionResult} as JSON in the shape of {@link ExecutionResult#toSpecification()}.
+ * <p>
+ * Results produced by Nadel are written straight from the {@link RootExecutionResultNode} they are based on, without
+ * creating the maps and lists of {@link ExecutionResult#getData()} first. Non null propagation and error collection
+ * are done in a pass over the nodes before anything is written. Other results are written from their specification map.
+ * <p>
+ * Only the values JSON has are written: maps, lists and arrays, strings, numbers, booleans and null. Any other value,
+ * for example in the extensions, fails with an {@link IllegalArgumentException} so it isn't silently written as a string.
+ */
+@PublicApi
+public class ResultNodesJsonWriter {
+
+    public void write(ExecutionResult executionResult, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        write(executionResult, writer);
+        writer.flush();
+    }
+
+    public void write(ExecutionResult executionResult, Writer writer) throws IOException {
+        if (executionResult instanceof ResultNodesExecutionResult) {
+            ResultNodesExecutionResult resultNodesExecutionResult = (ResultNodesExecutionResult) executionResult;
+            write(resultNodesExecutionResult.getRootResultNode(), resultNodesExecutionResult.getExtensions(), writer);
+        } else {
+            writeValue(executionResult.toSpecification(), writer);
+        }
+    }
+
+    private void write(RootExecutionResultNode rootResultNode, Map<Object, Object> extensions, Writer writer) throws IOException {
+        NullPropagation nullPropagation = propagateNulls(rootResultNode);
+        writer.write('{');
+        boolean first = true;
+        if (!nullPropagation.errors.isEmpty()) {
+            writer.write("\"errors\":[");
+            for (int i = 0; i < nullPropagation.errors.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeValue(nullPropagation.errors.get(i).toSpecification(), writer);
+            }
+            writer.write(']');
+            first = false;
+        }
+        if (!first) {
+            writer.write(',');
+        }
+        writer.write("\"data\":");
+        if (nullPropagation.dataIsNull) {
+            writer.write("null");
+        } else {
+            writeNode(rootResultNode, nullPropagation.nullNodes, writer);
+        }
+        if (extensions != null) {
+            writer.write(",\"extensions\":");
+            writeValue(extensions, writer);
+        }
+        writer.write('}');
+    }
+
+    private void writeNode(ExecutionResultNode node, Set<ExecutionResultNode> nullNodes, Writer writer) throws IOException {
+        if (nullNodes.contains(node)) {
+            writer.write("null");
+            return;
+        }
+        if (node instanceof UnresolvedObjectResultNode) {
+            writeString("Not resolved : " + node.getExecutionPath() + " with field " + node.getFieldName(), writer);
+        } else if (node instanceof LeafExecutionResultNode) {
+            writeValue(node.getCompletedValue(), writer);
+        } else if (node instanceof ListExecutionResultNode) {
+            writer.write('[');
+            List<ExecutionResultNode> children = node.getChildren();
+            for (int i = 0; i < children.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeNode(children.get(i), nullNodes, writer);
+            }
+            writer.write(']');
+        } else if (node instanceof ObjectExecutionResultNode) {
+            writer.write('{');
+            List<ExecutionResultNode> children = node.getChildren();
+            for (int i = 0; i < children.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                ExecutionResultNode child = children.get(i);
+                writeString(child.getResultKey(), writer);
+                writer.write(':');
+                writeNode(child, nullNodes, writer);
+            }
+            writer.write('}');
+        } else {
+            Assert.assertShouldNeverHappen("An unexpected node type %s", node.getClass());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeValue(Object value, Writer writer) throws IOException {
+        if (value == null) {
+            writer.write("null");
+        } else if (value instanceof String) {
+            writeString((String) value, writer);
+        } else if (value instanceof Boolean) {
+            writer.write(value.toString());
+        } else if (value instanceof Number) {
+            writeNumber((Number) value, writer);
+        } else if (value instanceof Map) {
+            writer.write('{');
+            boolean first = true;
+            for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) value).entrySet()) {
+                if (!first) {
+                    writer.write(',');
+                }
+                first = false;
+                writeString(String.valueOf(entry.getKey()), writer);
+                writer.write(':');
+                writeValue(entry.getValue(), writer);
+            }
+            writer.write('}');
+        } else if (value instanceof Iterable) {
+            writer.write('[');
+            boolean first = true;
+            for (Object element : (Iterable<Object>) value) {
+                if (!first) {
+                    writer.write(',');
+                }
+                first = false;
+                writeValue(element, writer);
+            }
+            writer.write(']');
+        } else if (value instanceof Object[]) {
+            writeValue(Arrays.asList((Object[]) value), writer);
+        } else {
+            throw new IllegalArgumentException(String.format("Can't write a value of type %s as JSON: %s", value.getClass().getName(), value));
+        }
+    }
+
+    private void writeNumber(Number number, Writer writer) throws IOException {
+        if (number instanceof Double && !Double.isFinite(number.doubleValue())
+                || number instanceof Float && !Float.isFinite(number.floatValue())) {
+            // not representable in JSON
+            writeString(number.toString(), writer);
+            return;
+        }
+        writer.write(number.toString());
+    }
+
+    private void writeString(String value, Writer writer) throws IOException {
+        writer.write('"');
+        int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c == '"') {
+                replacement = "\\\"";
+            } else if (c == '\\') {
+                replacement = "\\\\";
+            } else if (c == '\n') {
+                replacement = "\\n";
+            } else if (c == '\r') {
+                replacement = "\\r";
+            } else if (c == '\t') {
+                replacement = "\\t";
+            } else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                replacement = String.format("\\u%04x", (int) c);
+            } else {
+                continue;
+            }
+            writer.write(value, start, i - start);
+            writer.write(replacement);
+            start = i + 1;
+        }
+        writer.write(value, start, length - start);
+        writer.write('"');
+    }
+
+    /*
+     * This follows exactly what ResultNodesUtil.toExecutionResult does, but only records which nodes end up as null
+     * and which errors are part of the result.
+     */
+    static NullPropagation propagateNulls(RootExecutionResultNode rootResultNode) {
+        NullPropagation nullPropagation = new NullPropagation();
+        NodeOutcome outcome = propagateNulls(rootResultNode, nullPropagation.nullNodes);
+        if (outcome.nonNullableFieldWasNullError != null) {
+            nullPropagation.dataIsNull = true;
+            nullPropagation.errors = singletonList(outcome.nonNullableFieldWasNullError);
+        } else {
+            nullPropagation.errors = outcome.errors;
+        }
+        return nullPropagation;
+    }
+
+    private static NodeOutcome propagateNulls(ExecutionResultNode node, Set<ExecutionResultNode> nullNodes) {
+        if (node instanceof UnresolvedObjectResultNode) {
+            return new NodeOutcome(emptyList());
+        }
+        if (node instanceof LeafExecutionResultNode) {
+            return node.getNonNullableFieldWasNullError() != null ? new NodeOutcome(node.getNonNullableFieldWasNullError()) : new NodeOutcome(node.getErrors());
+        }
+        boolean isObject = node instanceof ObjectExecutionResultNode;
+        Assert.assertTrue(isObject || node instanceof ListExecutionResultNode, () -> String.format("An unexpected node type %s", node.getClass()));
+
+        boolean isNonNull = node instanceof RootExecutionResultNode;
+        GraphQLOutputType actualType = null;
+        if (node.getFieldDefinition() != null) {
+            actualType = getActualType(node);
+            isNonNull = GraphQLTypeUtil.isNonNull(actualType);
+        }
+
+        List<GraphQLError> errors = new ArrayList<>();
+        for (ExecutionResultNode child : node.getChildren()) {
+            NodeOutcome childOutcome = propagateNulls(child, nullNodes);
+            if (isNonNull && (child.getNonNullableFieldWasNullError() != null || childOutcome.nonNullableFieldWasNullError != null)) {
+                GraphQLOutputType nonNullType = actualType != null || !isObject ? actualType : child.getFieldDefinition().getType();
+                return new NodeOutcome(new NonNullableFieldWasNullError((GraphQLNonNull) nonNullType, node.getExecutionPath()));
+            } else if (childOutcome.nonNullableFieldWasNullError != null) {
+                nullNodes.add(node);
+                return new NodeOutcome(singletonList(childOutcome.nonNullableFieldWasNullError));
+            }
+            errors.addAll(childOutcome.errors);
+        }
+        errors.addAll(node.getErrors());
+        return new NodeOutcome(errors);
+    }
+
+    private static GraphQLOutputType getActualType(ExecutionResultNode node) {
+        // example: field definition type: [[String]!]!, path: /foo/bar/type[3] => result is [String]!
+        GraphQLOutputType result = node.getFieldDefinition().getType();
+        ExecutionPath executionPath = node.getExecutionPath();
+        while (executionPath.isListSegment()) {
+            executionPath = executionPath.dropSegment();
+            result = (GraphQLOutputType) GraphQLTypeUtil.unwrapNonNull(result);
+            result = (GraphQLOutputType) GraphQLTypeUtil.unwrapOne(result);
+        }
+        return result;
+    }
+
+    static class NullPropagation {
+        final Set<ExecutionResultNode> nullNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<GraphQLError> errors;
+        boolean dataIsNull;
+    }
+
+    private static class NodeOutcome {
+        final List<GraphQLError> errors;
+        final NonNullableFieldWasNullError nonNullableFieldWasNullError;
+
+        NodeOutcome(List<GraphQLError> errors) {
+            this.errors = errors;
+            this.nonNullableFieldWasNullError = null;
+        }
+
+        NodeOutcome(NonNullableFieldWasNullError nonNullableFieldWasNullError) {
+            this.errors = emptyList();
+            this.nonNullableFieldWasNullError = nonNullableFieldWasNullError;
+        }
+    }
+}
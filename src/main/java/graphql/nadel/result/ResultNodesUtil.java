@@ -52,6 +52,27 @@ public class ResultNodesUtil {
                 .build();
     }
 
+    /**
+     * Creates the result for a node that is delivered separately from the main result, for example because of @defer.
+     *
+     * @param node the node which becomes the data of the result
+     *
+     * @return an execution result for that node
+     */
+    public static ExecutionResult toDeferredExecutionResult(ExecutionResultNode node) {
+        ExecutionResultData executionResultData = toDataImpl(node);
+        if (executionResultData.nonNullableFieldWasNullError != null) {
+            return ExecutionResultImpl.newExecutionResult()
+                    .data(null)
+                    .addError(executionResultData.nonNullableFieldWasNullError)
+                    .build();
+        }
+        return ExecutionResultImpl.newExecutionResult()
+                .data(executionResultData.data)
+                .errors(executionResultData.errors)
+                .build();
+    }
+
     private static class ExecutionResultData {
         Object data;
         List<GraphQLError> errors = emptyList();
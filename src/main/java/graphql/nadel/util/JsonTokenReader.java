@@ -0,0 +1,500 @@
+package graphql.nadel.util;
+
+import graphql.GraphQLException;
+import graphql.Internal;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A small pull parser for JSON which lets the caller decide value by value whether to read, skip or
+ * build generic maps and lists.
+ * <p>
+ * Numbers are read as Integer, Long or BigInteger if they have no fraction or exponent, otherwise as Double.
+ * <p>
+ * The separators (',' and ':') are checked against the object or array they are read in, so a missing, misplaced or
+ * trailing separator fails like any other malformed JSON.
+ */
+@Internal
+public class JsonTokenReader {
+
+    public enum Token {
+        BEGIN_OBJECT,
+        END_OBJECT,
+        BEGIN_ARRAY,
+        END_ARRAY,
+        STRING,
+        NUMBER,
+        BOOLEAN,
+        NULL,
+        END_DOCUMENT
+    }
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int pos;
+    private int limit;
+    private long consumed;
+    private final StringBuilder stringBuilder = new StringBuilder();
+
+    // what the next token can be in the innermost object or array, see nextTokenChar()
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+
+    private int[] scopes = new int[32];
+    private int depth = 1;
+    // whether the separator before the next token has already been read
+    private boolean separatorRead;
+
+    public JsonTokenReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    public Token peek() {
+        int c = nextTokenChar();
+        switch (c) {
+            case -1:
+                return Token.END_DOCUMENT;
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '}':
+                return Token.END_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case ']':
+                return Token.END_ARRAY;
+            case '"':
+                return Token.STRING;
+            case 't':
+            case 'f':
+                return Token.BOOLEAN;
+            case 'n':
+                return Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return Token.NUMBER;
+                }
+                throw malformed("unexpected character '" + (char) c + "'");
+        }
+    }
+
+    /**
+     * @return true if the current object or array has more entries
+     */
+    public boolean hasNext() {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    public void beginObject() {
+        expect('{');
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() {
+        close('}', EMPTY_OBJECT, NONEMPTY_OBJECT);
+    }
+
+    public void beginArray() {
+        expect('[');
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() {
+        close(']', EMPTY_ARRAY, NONEMPTY_ARRAY);
+    }
+
+    public String nextName() {
+        String name = readString();
+        nameRead();
+        return name;
+    }
+
+    public String nextString() {
+        String value = readString();
+        valueRead();
+        return value;
+    }
+
+    private String readString() {
+        expect('"');
+        // fast path: the whole string is in the buffer and has no escapes
+        for (int i = pos; i < limit; i++) {
+            char c = buffer[i];
+            if (c == '"') {
+                String result = new String(buffer, pos, i - pos);
+                advance(i + 1 - pos);
+                return result;
+            }
+            if (c == '\\') {
+                break;
+            }
+        }
+        stringBuilder.setLength(0);
+        while (true) {
+            char c = nextChar();
+            if (c == '"') {
+                return stringBuilder.toString();
+            }
+            if (c == '\\') {
+                stringBuilder.append(readEscape());
+            } else {
+                stringBuilder.append(c);
+            }
+        }
+    }
+
+    public boolean nextBoolean() {
+        if (nextTokenChar() == 't') {
+            expectLiteral("true");
+            return true;
+        }
+        expectLiteral("false");
+        return false;
+    }
+
+    public void nextNull() {
+        expectLiteral("null");
+    }
+
+    public Number nextNumber() {
+        nextTokenChar();
+        stringBuilder.setLength(0);
+        boolean decimal = false;
+        while (true) {
+            if (pos == limit && !fill()) {
+                break;
+            }
+            char c = buffer[pos];
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+') {
+                stringBuilder.append(c);
+            } else if (c == '.' || c == 'e' || c == 'E') {
+                stringBuilder.append(c);
+                decimal = true;
+            } else {
+                break;
+            }
+            advance(1);
+        }
+        String number = stringBuilder.toString();
+        valueRead();
+        try {
+            if (decimal) {
+                return Double.parseDouble(number);
+            }
+            if (number.length() < 10) {
+                return Integer.parseInt(number);
+            }
+            long longValue = Long.parseLong(number);
+            if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) {
+                return (int) longValue;
+            }
+            return longValue;
+        } catch (NumberFormatException e) {
+            if (!decimal && number.length() > 1) {
+                try {
+                    return new BigInteger(number);
+                } catch (NumberFormatException notAnInteger) {
+                    throw malformed("invalid number '" + number + "'");
+                }
+            }
+            throw malformed("invalid number '" + number + "'");
+        }
+    }
+
+    /**
+     * Reads the next value into maps, lists, strings, numbers, booleans or null
+     *
+     * @return the value
+     */
+    public Object nextValue() {
+        switch (peek()) {
+            case BEGIN_OBJECT:
+                Map<String, Object> map = new LinkedHashMap<>();
+                beginObject();
+                while (hasNext()) {
+                    String name = nextName();
+                    map.put(name, nextValue());
+                }
+                endObject();
+                return map;
+            case BEGIN_ARRAY:
+                List<Object> list = new ArrayList<>();
+                beginArray();
+                while (hasNext()) {
+                    list.add(nextValue());
+                }
+                endArray();
+                return list;
+            case STRING:
+                return nextString();
+            case NUMBER:
+                return nextNumber();
+            case BOOLEAN:
+                return nextBoolean();
+            case NULL:
+                nextNull();
+                return null;
+            default:
+                throw unexpected(peek());
+        }
+    }
+
+    public void skipValue() {
+        switch (peek()) {
+            case BEGIN_OBJECT:
+                beginObject();
+                while (hasNext()) {
+                    skipStringChars();
+                    nameRead();
+                    skipValue();
+                }
+                endObject();
+                break;
+            case BEGIN_ARRAY:
+                beginArray();
+                while (hasNext()) {
+                    skipValue();
+                }
+                endArray();
+                break;
+            case STRING:
+                skipStringChars();
+                valueRead();
+                break;
+            case NUMBER:
+                nextNumber();
+                break;
+            case BOOLEAN:
+                nextBoolean();
+                break;
+            case NULL:
+                nextNull();
+                break;
+            default:
+                throw unexpected(peek());
+        }
+    }
+
+    private void skipStringChars() {
+        expect('"');
+        while (true) {
+            char c = nextChar();
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                readEscape();
+            }
+        }
+    }
+
+    private char readEscape() {
+        char c = nextChar();
+        switch (c) {
+            case 'n':
+                return '\n';
+            case 't':
+                return '\t';
+            case 'r':
+                return '\r';
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(nextChar(), 16);
+                    if (digit < 0) {
+                        throw malformed("invalid unicode escape");
+                    }
+                    value = value * 16 + digit;
+                }
+                return (char) value;
+            default:
+                // '"', '\\' and '/'
+                return c;
+        }
+    }
+
+    private void expectLiteral(String literal) {
+        nextTokenChar();
+        for (int i = 0; i < literal.length(); i++) {
+            if (nextChar() != literal.charAt(i)) {
+                throw malformed("expected '" + literal + "'");
+            }
+        }
+        valueRead();
+    }
+
+    private void expect(char expected) {
+        int c = nextTokenChar();
+        if (c != expected) {
+            throw malformed(expectedButWas("'" + expected + "'", c));
+        }
+        advance(1);
+    }
+
+    /*
+     * reads the separator the innermost object or array expects before its next token and returns the first character
+     * of that token without consuming it, -1 at the end
+     */
+    private int nextTokenChar() {
+        int c = peekChar();
+        if (separatorRead) {
+            return c;
+        }
+        switch (scopes[depth - 1]) {
+            case NONEMPTY_ARRAY:
+                if (c == ',') {
+                    advance(1);
+                    c = peekChar();
+                    if (c == ']') {
+                        throw malformed("expected a value but was ']'");
+                    }
+                } else if (c != ']') {
+                    throw malformed(expectedButWas("',' or ']'", c));
+                }
+                break;
+            case EMPTY_OBJECT:
+                if (c != '"' && c != '}') {
+                    throw malformed(expectedButWas("a name or '}'", c));
+                }
+                break;
+            case NONEMPTY_OBJECT:
+                if (c == ',') {
+                    advance(1);
+                    c = peekChar();
+                    if (c != '"') {
+                        throw malformed(expectedButWas("a name", c));
+                    }
+                } else if (c != '}') {
+                    throw malformed(expectedButWas("',' or '}'", c));
+                }
+                break;
+            case DANGLING_NAME:
+                if (c != ':') {
+                    throw malformed(expectedButWas("':'", c));
+                }
+                advance(1);
+                c = peekChar();
+                if (c == '}' || c == ']' || c == ',') {
+                    throw malformed(expectedButWas("a value", c));
+                }
+                break;
+            case NONEMPTY_DOCUMENT:
+                if (c != -1) {
+                    throw malformed(expectedButWas("the end of the document", c));
+                }
+                break;
+            default:
+                // the first value of an array or the document, which peek() checks
+                break;
+        }
+        separatorRead = true;
+        return c;
+    }
+
+    private void push(int scope) {
+        if (depth == scopes.length) {
+            scopes = Arrays.copyOf(scopes, depth * 2);
+        }
+        scopes[depth++] = scope;
+        separatorRead = false;
+    }
+
+    private void close(char closing, int emptyScope, int nonEmptyScope) {
+        int c = nextTokenChar();
+        int scope = scopes[depth - 1];
+        if (c == closing && scope != emptyScope && scope != nonEmptyScope) {
+            throw malformed("unexpected '" + closing + "'");
+        }
+        expect(closing);
+        depth--;
+        valueRead();
+    }
+
+    private void nameRead() {
+        scopes[depth - 1] = DANGLING_NAME;
+        separatorRead = false;
+    }
+
+    private void valueRead() {
+        int scope = scopes[depth - 1];
+        if (scope == EMPTY_ARRAY) {
+            scopes[depth - 1] = NONEMPTY_ARRAY;
+        } else if (scope == DANGLING_NAME) {
+            scopes[depth - 1] = NONEMPTY_OBJECT;
+        } else if (scope == EMPTY_DOCUMENT) {
+            scopes[depth - 1] = NONEMPTY_DOCUMENT;
+        }
+        separatorRead = false;
+    }
+
+    /*
+     * skips whitespace and returns the next character without consuming it, -1 at the end
+     */
+    private int peekChar() {
+        while (true) {
+            if (pos == limit && !fill()) {
+                return -1;
+            }
+            char c = buffer[pos];
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                advance(1);
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private char nextChar() {
+        if (pos == limit && !fill()) {
+            throw malformed("unexpected end of document");
+        }
+        char c = buffer[pos];
+        advance(1);
+        return c;
+    }
+
+    private void advance(int count) {
+        pos += count;
+        consumed += count;
+    }
+
+    private boolean fill() {
+        try {
+            int read = reader.read(buffer, 0, buffer.length);
+            pos = 0;
+            limit = Math.max(read, 0);
+            return read > 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String expectedButWas(String expected, int c) {
+        return c == -1 ? "unexpected end of document, expected " + expected : "expected " + expected + " but was '" + (char) c + "'";
+    }
+
+    private GraphQLException unexpected(Token token) {
+        return malformed(token == Token.END_DOCUMENT ? "unexpected end of document" : "unexpected " + token);
+    }
+
+    private GraphQLException malformed(String message) {
+        return new GraphQLException("Malformed JSON at character " + consumed + ": " + message);
+    }
+}
@@ -0,0 +1,81 @@
+package graphql.nadel
+
+import graphql.language.OperationDefinition
+import graphql.nadel.testutils.TestUtil
+import spock.lang.Specification
+
+import java.util.concurrent.CompletionException
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import static graphql.nadel.BlockingServiceExecution.blocking
+import static graphql.nadel.ServiceExecutionParameters.newServiceExecutionParameters
+
+class BlockingServiceExecutionTest extends Specification {
+
+    def document = TestUtil.parseQuery("query { hello }")
+    def parameters = newServiceExecutionParameters()
+            .query(document)
+            .operationDefinition(document.getChildren()[0] as OperationDefinition)
+            .build()
+
+    def "runs the blocking call on another thread"() {
+        given:
+        def callerThread = Thread.currentThread()
+        Thread callThread = null
+        def serviceExecution = blocking({ params ->
+            callThread = Thread.currentThread()
+            new ServiceExecutionResult([hello: "world"])
+        })
+
+        when:
+        def result = serviceExecution.execute(parameters).join()
+
+        then:
+        result.data == [hello: "world"]
+        callThread != callerThread
+    }
+
+    def "exceptions of the blocking call complete the future exceptionally"() {
+        given:
+        def serviceExecution = blocking({ params -> throw new IOException("service down") })
+
+        when:
+        serviceExecution.execute(parameters).join()
+
+        then:
+        def e = thrown(CompletionException)
+        e.cause instanceof IOException
+        e.cause.message == "service down"
+    }
+
+    def "blocking calls don't run on more threads than the pool has"() {
+        given:
+        def pool = BlockingServiceExecution.newBoundedPool(2)
+        def started = new CountDownLatch(2)
+        def release = new CountDownLatch(1)
+        def serviceExecution = new BlockingServiceExecution({ params ->
+            started.countDown()
+            release.await()
+            new ServiceExecutionResult([:])
+        }, pool)
+
+        when:
+        def futures = (1..3).collect { serviceExecution.execute(parameters) }
+
+        then:
+        started.await(5, TimeUnit.SECONDS)
+        pool.activeCount == 2
+        pool.queue.size() == 1
+
+        when:
+        release.countDown()
+        futures*.join()
+
+        then:
+        futures.every { !it.completedExceptionally }
+
+        cleanup:
+        pool.shutdown()
+    }
+}
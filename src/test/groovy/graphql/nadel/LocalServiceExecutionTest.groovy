@@ -0,0 +1,121 @@
+package graphql.nadel
+
+import graphql.AssertException
+import graphql.execution.instrumentation.InstrumentationContext
+import graphql.execution.instrumentation.SimpleInstrumentation
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters
+import graphql.execution.instrumentation.parameters.InstrumentationValidationParameters
+import graphql.execution.preparsed.NoOpPreparsedDocumentProvider
+import graphql.language.Document
+import graphql.nadel.testutils.TestUtil
+import graphql.schema.DataFetcher
+import graphql.validation.ValidationError
+import spock.lang.Specification
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import static graphql.nadel.Nadel.newNadel
+import static graphql.nadel.NadelExecutionInput.newNadelExecutionInput
+import static graphql.nadel.testutils.TestUtil.typeDefinitions
+
+class LocalServiceExecutionTest extends Specification {
+
+    def nsdl = '''
+         service Pets {
+            type Query {
+                pets(kind: String): [Pet]
+            }
+            type Pet {
+                petName: String => renamed from name
+                kind: String
+            }
+         }
+        '''
+    def underlyingSpec = '''
+            type Query {
+                pets(kind: String): [Pet]
+            }
+            type Pet {
+                name: String
+                kind: String
+            }
+        '''
+
+    def parses = new AtomicInteger()
+    def validations = new AtomicInteger()
+
+    def countingInstrumentation = new SimpleInstrumentation() {
+        @Override
+        InstrumentationContext<Document> beginParse(InstrumentationExecutionParameters parameters) {
+            parses.incrementAndGet()
+            super.beginParse(parameters)
+        }
+
+        @Override
+        InstrumentationContext<List<ValidationError>> beginValidation(InstrumentationValidationParameters parameters) {
+            validations.incrementAndGet()
+            super.beginValidation(parameters)
+        }
+    }
+
+    LocalServiceExecution localServiceExecution() {
+        def allPets = [[name: "Rex", kind: "dog"], [name: "Tom", kind: "cat"], [name: "Fido", kind: "dog"]]
+        DataFetcher petsFetcher = { env -> allPets.findAll { env.getArgument("kind") == null || it.kind == env.getArgument("kind") } }
+        def schema = TestUtil.schema(underlyingSpec, [Query: [pets: petsFetcher]])
+        new LocalServiceExecution(schema, { builder -> builder.instrumentation(countingInstrumentation) })
+    }
+
+    Nadel nadel(ServiceExecution serviceExecution) {
+        newNadel()
+                .dsl(nsdl)
+                .serviceExecutionFactory(TestUtil.serviceFactory([Pets: new Tuple2(serviceExecution, typeDefinitions(underlyingSpec))]))
+                .build()
+    }
+
+    def "executes the query of the service without printing and parsing it"() {
+        given:
+        def nadel = nadel(localServiceExecution())
+        def query = '''
+            query Dogs($kind: String) {
+                pets(kind: $kind) { ...PetFields }
+            }
+            fragment PetFields on Pet { petName kind }
+        '''
+
+        when:
+        def result = nadel.execute(newNadelExecutionInput().query(query).variables([kind: "dog"]).build()).join()
+
+        then:
+        result.errors.isEmpty()
+        result.data == [pets: [[petName: "Rex", kind: "dog"], [petName: "Fido", kind: "dog"]]]
+        parses.get() == 0
+        validations.get() == 0
+    }
+
+    def "errors of the local schema are errors of the service call"() {
+        given:
+        DataFetcher failingFetcher = { env -> throw new RuntimeException("no pets today") }
+        def schema = TestUtil.schema(underlyingSpec, [Query: [pets: failingFetcher]])
+        def nadel = nadel(new LocalServiceExecution(schema))
+
+        when:
+        def result = nadel.execute(newNadelExecutionInput().query("{ pets { petName } }").build()).join()
+
+        then:
+        result.data == [pets: null]
+        result.errors.size() == 1
+        result.errors[0].message.contains("no pets today")
+    }
+
+    def "a preparsed document provider can't be set"() {
+        given:
+        def schema = TestUtil.schema(underlyingSpec, [:])
+
+        when:
+        new LocalServiceExecution(schema, { builder -> builder.preparsedDocumentProvider(NoOpPreparsedDocumentProvider.INSTANCE) })
+
+        then:
+        def e = thrown(AssertException)
+        e.message.contains("can't have a preparsed document provider")
+    }
+}
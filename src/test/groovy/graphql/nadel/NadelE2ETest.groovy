@@ -1,5 +1,6 @@
 package graphql.nadel
 
+import graphql.DeferredExecutionResult
 import graphql.ErrorType
 import graphql.GraphQLError
 import graphql.GraphqlErrorException
@@ -22,6 +23,9 @@ import graphql.schema.SchemaTransformer
 import graphql.schema.idl.TypeDefinitionRegistry
 import graphql.util.TraversalControl
 import graphql.util.TraverserContext
+import org.reactivestreams.Publisher
+import org.reactivestreams.Subscriber
+import org.reactivestreams.Subscription
 import spock.lang.Specification
 
 import java.util.concurrent.CompletableFuture
@@ -100,6 +104,38 @@ class NadelE2ETest extends Specification {
         result.join().data == data
     }
 
+    def "service results can be raw json"() {
+        given:
+        Nadel nadel = newNadel()
+                .dsl(simpleNDSL)
+                .serviceExecutionFactory(serviceFactory)
+                .build()
+
+        when:
+        def result = nadel.execute(newNadelExecutionInput().query("{ hello { id name } }")).join()
+
+        then:
+        1 * delegatedExecution.execute(_) >> completedFuture(new JsonServiceExecutionResult(json))
+        result.data == expectedData
+        result.errors*.message.collect { it.split(" - executionId")[0] } == expectedErrors
+
+        where:
+        json                                                                | expectedData                           | expectedErrors
+        '{"data":{"hello":{"name":"earth","id":"3"}}}'                      | [hello: [id: "3", name: "earth"]]      | []
+        '{"data":{"hello":null},"errors":[{"message":"not found"}]}'        | [hello: null]                          | ["not found"]
+        '{"data":{"hello":{"id":"3","name":'                                | [hello: null]                          | ["An exception occurred invoking the service 'MyService' : 'Malformed JSON at character 34: unexpected end of document'"]
+        '{"data":{"hello":{"id":1-2,"name":"earth"}}}'                      | [hello: null]                          | ["An exception occurred invoking the service 'MyService' : 'Malformed JSON at character 26: invalid number '1-2''"]
+        '{"data":{"hello":{"id":--12345678901,"name":"earth"}}}'            | [hello: null]                          | ["An exception occurred invoking the service 'MyService' : 'Malformed JSON at character 36: invalid number '--12345678901''"]
+        '{"data":{"hello":{"id" "3","name":"earth"}}}'                      | [hello: null]                          | ["An exception occurred invoking the service 'MyService' : 'Malformed JSON at character 23: expected ':' but was '\"''"]
+        '{"data":{"hello":{"id","3":"name"}}}'                              | [hello: null]                          | ["An exception occurred invoking the service 'MyService' : 'Malformed JSON at character 22: expected ':' but was ',''"]
+        '{"data":{"hello":{"id":"3" "name":"earth"}}}'                      | [hello: null]                          | ["An exception occurred invoking the service 'MyService' : 'Malformed JSON at character 27: expected ',' or '}' but was '\"''"]
+        '{"data":{"hello":{"id":"3","name":"earth",}}}'                     | [hello: null]                          | ["An exception occurred invoking the service 'MyService' : 'Malformed JSON at character 42: expected a name but was '}''"]
+        '{"data":{"hello":{,"id":"3","name":"earth"}}}'                     | [hello: null]                          | ["An exception occurred invoking the service 'MyService' : 'Malformed JSON at character 18: expected a name or '}' but was ',''"]
+        '{"data":{"hello":{"id":[1 2],"name":"earth"}}}'                    | [hello: null]                          | ["An exception occurred invoking the service 'MyService' : 'Malformed JSON at character 26: expected ',' or ']' but was '2''"]
+        '{"data":{"hello":{"id":[1,2,],"name":"earth"}}}'                   | [hello: null]                          | ["An exception occurred invoking the service 'MyService' : 'Malformed JSON at character 28: expected a value but was ']''"]
+        '{"data":{"hello":{"id":"3","name":"earth"}]}'                      | [hello: null]                          | ["An exception occurred invoking the service 'MyService' : 'Malformed JSON at character 42: expected ',' or '}' but was ']''"]
+    }
+
     def "graphql-java validation is invoked"() {
         given:
         def query = '''
@@ -921,6 +957,208 @@ class NadelE2ETest extends Specification {
         rootResultNode.getChildren()[0].getChildren()[0].elapsedTime.duration.toMillis() > 250
     }
 
+    def "hydrated field marked with @defer is delivered as deferred result"() {
+        def nsdl = '''
+         service service1 {
+            type Query {
+                foo: Foo
+            }
+            type Foo {
+                id: ID
+                bar: Bar => hydrated from service2.barById(id: $source.barId)
+            }
+        }
+        service service2 {
+            type Query {
+                barById(id: ID): Bar
+            }
+            type Bar {
+                id: ID
+                name: String
+            }
+        }
+        '''
+        def underlyingSchema1 = typeDefinitions("""
+        type Query {
+            foo : Foo
+        }
+        type Foo {
+            id: ID
+            barId: ID
+        }
+        """)
+
+        def underlyingSchema2 = typeDefinitions("""
+        type Query {
+            barById(id: ID): Bar
+        }
+        type Bar {
+            id: ID
+            name : String
+        }
+        """)
+
+        ServiceExecution execution1 = Mock(ServiceExecution)
+        ServiceExecution execution2 = Mock(ServiceExecution)
+        ServiceExecutionFactory serviceFactory = TestUtil.serviceFactory([
+                service1: new Tuple2(execution1, underlyingSchema1),
+                service2: new Tuple2(execution2, underlyingSchema2)]
+        )
+        Nadel nadel = newNadel()
+                .dsl(nsdl)
+                .serviceExecutionFactory(serviceFactory)
+                .build()
+
+        def query = """
+        { 
+            foo {
+                id
+                bar @defer { 
+                    name
+                }
+            }
+        }
+        """
+        NadelExecutionInput nadelExecutionInput = newNadelExecutionInput()
+                .query(query)
+                .build()
+
+        def expectedQuery1 = "query nadel_2_service1 {foo {id barId}}"
+        def response1 = new ServiceExecutionResult([foo: [id: "fooId1", barId: "barId1"]])
+
+        def expectedQuery2 = "query nadel_2_service2 {barById(id:\"barId1\") {name}}"
+        def response2 = new ServiceExecutionResult([barById: [name: "bar name"]])
+
+        when:
+        def result = nadel.execute(nadelExecutionInput).join()
+
+        List<DeferredExecutionResult> deferredResults = []
+        Publisher<DeferredExecutionResult> publisher = result.extensions["deferredResults"] as Publisher<DeferredExecutionResult>
+        publisher.subscribe(new Subscriber<DeferredExecutionResult>() {
+            @Override
+            void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE)
+            }
+
+            @Override
+            void onNext(DeferredExecutionResult deferredExecutionResult) {
+                deferredResults.add(deferredExecutionResult)
+            }
+
+            @Override
+            void onError(Throwable throwable) {
+            }
+
+            @Override
+            void onComplete() {
+            }
+        })
+
+        then:
+        1 * execution1.execute({ ServiceExecutionParameters sep ->
+            printAstCompact(sep.query) == expectedQuery1
+        }) >> completedFuture(response1)
+
+        1 * execution2.execute({ ServiceExecutionParameters sep ->
+            printAstCompact(sep.query) == expectedQuery2
+        }) >> completedFuture(response2)
+
+        result.data == [foo: [id: "fooId1", bar: null]]
+        deferredResults.size() == 1
+        deferredResults[0].path == ["foo", "bar"]
+        deferredResults[0].data == [name: "bar name"]
+    }
+
+    def "hydrated field marked with @defer that is non null in the object type is resolved in the initial result"() {
+        def nsdl = '''
+         service service1 {
+            type Query {
+                foo: Node
+            }
+            interface Node {
+                id: ID
+                bar: Bar => hydrated from service2.barById(id: $source.barId)
+            }
+            type Foo implements Node {
+                id: ID
+                bar: Bar!
+            }
+        }
+        service service2 {
+            type Query {
+                barById(id: ID): Bar
+            }
+            type Bar {
+                id: ID
+                name: String
+            }
+        }
+        '''
+        def underlyingSchema1 = typeDefinitions("""
+        type Query {
+            foo : Node
+        }
+        interface Node {
+            id: ID
+            barId: ID
+        }
+        type Foo implements Node {
+            id: ID
+            barId: ID
+        }
+        """)
+
+        def underlyingSchema2 = typeDefinitions("""
+        type Query {
+            barById(id: ID): Bar
+        }
+        type Bar {
+            id: ID
+            name : String
+        }
+        """)
+
+        ServiceExecution execution1 = Mock(ServiceExecution)
+        ServiceExecution execution2 = Mock(ServiceExecution)
+        ServiceExecutionFactory serviceFactory = TestUtil.serviceFactory([
+                service1: new Tuple2(execution1, underlyingSchema1),
+                service2: new Tuple2(execution2, underlyingSchema2)]
+        )
+        Nadel nadel = newNadel()
+                .dsl(nsdl)
+                .serviceExecutionFactory(serviceFactory)
+                .build()
+
+        def query = """
+        { 
+            foo {
+                id
+                bar @defer { 
+                    name
+                }
+            }
+        }
+        """
+        NadelExecutionInput nadelExecutionInput = newNadelExecutionInput()
+                .query(query)
+                .artificialFieldsUUID("UUID")
+                .build()
+
+        def response1 = new ServiceExecutionResult([foo: [typename__UUID: "Foo", id: "fooId1", barId: "barId1"]])
+        def response2 = new ServiceExecutionResult([barById: [name: "bar name"]])
+
+        when:
+        def result = nadel.execute(nadelExecutionInput).join()
+
+        then:
+        1 * execution1.execute(_) >> completedFuture(response1)
+        1 * execution2.execute(_) >> completedFuture(response2)
+
+        result.errors.isEmpty()
+        result.data == [foo: [id: "fooId1", bar: [name: "bar name"]]]
+        result.extensions["deferredResults"] == null
+    }
+
     def "can instrument root execution result"() {
         given:
         def query = """
@@ -10,15 +10,22 @@ import graphql.nadel.instrumentation.ChainedNadelInstrumentation
 import graphql.nadel.instrumentation.NadelInstrumentation
 import graphql.nadel.instrumentation.parameters.NadelInstrumentationCreateStateParameters
 import graphql.nadel.instrumentation.parameters.NadelInstrumentationExecuteOperationParameters
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationHydrationBatchParameters
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationHydrationWaveParameters
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationNormalizationParameters
 import graphql.nadel.instrumentation.parameters.NadelInstrumentationQueryExecutionParameters
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationServicePhaseParameters
 import graphql.nadel.instrumentation.parameters.NadelNadelInstrumentationQueryValidationParameters
+import graphql.nadel.normalized.NormalizedQueryFromAst
 import graphql.nadel.testutils.TestUtil
+import graphql.schema.DataFetcher
 import graphql.validation.ValidationError
 import spock.lang.Specification
 
 import java.util.concurrent.CompletableFuture
 
 import static graphql.execution.instrumentation.SimpleInstrumentationContext.noOp
+import static graphql.execution.instrumentation.SimpleInstrumentationContext.whenCompleted
 import static graphql.nadel.Nadel.newNadel
 import static graphql.nadel.NadelExecutionInput.newNadelExecutionInput
 import static graphql.nadel.testutils.TestUtil.typeDefinitions
@@ -215,6 +222,154 @@ class NadelInstrumentationTest extends Specification {
     }
 
 
+    class PhaseState implements InstrumentationState {
+        List<String> phases = Collections.synchronizedList([])
+
+        InstrumentationContext<Object> record(String phase) {
+            whenCompleted({ result, throwable -> phases.add(phase) })
+        }
+    }
+
+    class PhaseInstrumentation implements NadelInstrumentation {
+        List<PhaseState> states
+
+        PhaseInstrumentation(List<PhaseState> states) {
+            this.states = states
+        }
+
+        @Override
+        InstrumentationState createState(NadelInstrumentationCreateStateParameters parameters) {
+            def state = new PhaseState()
+            states.add(state)
+            return state
+        }
+
+        @Override
+        InstrumentationContext<NormalizedQueryFromAst> beginNormalization(NadelInstrumentationNormalizationParameters parameters) {
+            (parameters.instrumentationState as PhaseState).record("normalization")
+        }
+
+        @Override
+        InstrumentationContext<Object> beginQueryTransformation(NadelInstrumentationServicePhaseParameters parameters) {
+            (parameters.instrumentationState as PhaseState).record("queryTransformation ${parameters.service.name} ${parameters.hydrationCall}")
+        }
+
+        @Override
+        InstrumentationContext<Object> beginServiceResultConversion(NadelInstrumentationServicePhaseParameters parameters) {
+            (parameters.instrumentationState as PhaseState).record("serviceResultConversion ${parameters.service.name} ${parameters.hydrationCall}")
+        }
+
+        @Override
+        InstrumentationContext<Object> beginOverallResultConversion(NadelInstrumentationServicePhaseParameters parameters) {
+            (parameters.instrumentationState as PhaseState).record("overallResultConversion ${parameters.service.name} ${parameters.hydrationCall}")
+        }
+
+        @Override
+        InstrumentationContext<Object> beginHydrationWave(NadelInstrumentationHydrationWaveParameters parameters) {
+            (parameters.instrumentationState as PhaseState).record("hydrationWave ${parameters.hydratedFieldCount}")
+        }
+
+        @Override
+        InstrumentationContext<Object> beginHydrationBatch(NadelInstrumentationHydrationBatchParameters parameters) {
+            (parameters.instrumentationState as PhaseState).record("hydrationBatch ${parameters.service.name} ${parameters.objectType.name}.${parameters.fieldDefinition.name} ${parameters.batchSize}")
+        }
+
+        @Override
+        InstrumentationContext<ExecutionResult> beginExecutionResultCreation(NadelInstrumentationExecuteOperationParameters parameters) {
+            (parameters.instrumentationState as PhaseState).record("executionResultCreation")
+        }
+    }
+
+    def "phases are instrumented through the chained instrumentation"() {
+
+        given:
+        def nsdl = '''
+         service Issues {
+            type Query {
+                issues: [Issue]
+            }
+            type Issue {
+                name: String
+                assignee: User => hydrated from Users.usersById(id: $source.assigneeId) object identified by id, batch size 2
+            }
+         }
+         service Users {
+            type Query {
+                user(id: ID): User
+            }
+            type User {
+                id: ID
+                name: String
+            }
+         }
+        '''
+        def issuesSpec = """
+            type Query {
+                issues: [Issue]
+            }
+            type Issue {
+                name: String
+                assigneeId: ID
+            }
+        """
+        def usersSpec = """
+            type Query {
+                user(id: ID): User
+                usersById(id: [ID]): [User]
+            }
+            type User {
+                id: ID
+                name: String
+            }
+        """
+        def users = [[id: "1", name: "One"], [id: "2", name: "Two"], [id: "3", name: "Three"]]
+        DataFetcher issuesFetcher = { env -> [[name: "a", assigneeId: "1"], [name: "b", assigneeId: "2"], [name: "c", assigneeId: "3"]] }
+        DataFetcher usersByIdFetcher = { env -> env.getArgument("id").collect { id -> users.find { it.id == id } } }
+        def issuesExecution = new LocalServiceExecution(TestUtil.schema(issuesSpec, [Query: [issues: issuesFetcher]]))
+        def usersExecution = new LocalServiceExecution(TestUtil.schema(usersSpec, [Query: [usersById: usersByIdFetcher]]))
+
+        List<PhaseState> states = []
+
+        Nadel nadel = newNadel()
+                .dsl(nsdl)
+                .serviceExecutionFactory(TestUtil.serviceFactory([
+                        Issues: new Tuple2(issuesExecution, typeDefinitions(issuesSpec)),
+                        Users : new Tuple2(usersExecution, typeDefinitions(usersSpec))]))
+                .instrumentation(new ChainedNadelInstrumentation([new PhaseInstrumentation(states), new PhaseInstrumentation(states)]))
+                .build()
+
+        when:
+        def result = nadel.execute(newNadelExecutionInput().query("{ issues { name assignee { name } } }").build()).join()
+
+        then:
+        states.size() == 2
+        states.every { state ->
+            state.phases.sort() == [
+                    "hydrationBatch Users Issue.assignee 1",
+                    "hydrationBatch Users Issue.assignee 2",
+                    "hydrationWave 3",
+                    "normalization",
+                    "overallResultConversion Issues false",
+                    "overallResultConversion Users true",
+                    "overallResultConversion Users true",
+                    "queryTransformation Issues false",
+                    "queryTransformation Users true",
+                    "queryTransformation Users true",
+                    "serviceResultConversion Issues false",
+                    "serviceResultConversion Users true",
+                    "serviceResultConversion Users true",
+            ]
+        }
+
+        when: "the data of the result is only created when it is asked for"
+        def data = result.data
+
+        then:
+        data == [issues: [[name: "a", assignee: [name: "One"]], [name: "b", assignee: [name: "Two"]], [name: "c", assignee: [name: "Three"]]]]
+        states.every { state -> state.phases.count { it == "executionResultCreation" } == 1 }
+    }
+
+
     def "abort execution within instrumentation will still call enhancing instrumentation methods"() {
 
         given:
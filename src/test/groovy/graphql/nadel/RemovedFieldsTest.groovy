@@ -128,6 +128,34 @@ class RemovedFieldsTest extends StrategyTestHelper {
         result.data == [commentById: null]
     }
 
+    def "field is removed from every element of a list"() {
+        given:
+        def query = """
+        {
+            issues {
+                key
+                summary
+            }
+        }
+        """
+        def serviceExecutionFactory = IssuesCommentsUsersHarness.serviceFactoryWithDelay(2)
+
+        Nadel nadel = newNadel()
+                .dsl(IssuesCommentsUsersHarness.ndsl)
+                .serviceExecutionFactory(serviceExecutionFactory)
+                .serviceExecutionHooks(createServiceExecutionHooksWithFieldRemoval(["summary"]))
+                .build()
+
+        when:
+        def result = nadel.execute(newNadelExecutionInput().query(query)).join()
+
+        then:
+        result.data.issues.size() > 1
+        result.data.issues.every { it.keySet() == ["key", "summary"] as Set && it.summary == null && it.key != null }
+        result.errors.size() == result.data.issues.size()
+        result.errors.every { it.message.contains("removed field") }
+    }
+
     def "top level field is removed"() {
         given:
         def query = """
@@ -0,0 +1,118 @@
+package graphql.nadel
+
+import graphql.nadel.instrumentation.NadelInstrumentation
+import graphql.nadel.instrumentation.parameters.NadelInstrumentRootExecutionResultParameters
+import graphql.nadel.result.ElapsedTime
+import graphql.nadel.result.RootExecutionResultNode
+import graphql.nadel.testutils.TestUtil
+import graphql.schema.DataFetcher
+import spock.lang.Specification
+
+import java.time.OffsetDateTime
+import java.util.concurrent.Executors
+
+import static graphql.nadel.Nadel.newNadel
+import static graphql.nadel.NadelExecutionInput.newNadelExecutionInput
+import static graphql.nadel.RequestTimings.Timing.QUEUED
+import static graphql.nadel.RequestTimings.Timing.RESULT_CONVERSION
+import static graphql.nadel.RequestTimings.Timing.SERVICE_CALL
+
+class RequestTimingsTest extends Specification {
+
+    def "records the timings per service"() {
+        given:
+        def timings = new RequestTimings()
+
+        when:
+        timings.record("Foo", SERVICE_CALL, 100)
+        timings.record("Foo", SERVICE_CALL, 50)
+        timings.record("Bar", QUEUED, 10)
+        def result = timings.time("Bar", RESULT_CONVERSION, { "converted" })
+
+        then:
+        result == "converted"
+        timings.getNanos("Foo", SERVICE_CALL) == 150
+        timings.getNanos("Foo", QUEUED) == 0
+        timings.getNanos("Baz", SERVICE_CALL) == 0
+        timings.getNanos("Bar", RESULT_CONVERSION) > 0
+        timings.getTotalNanos(QUEUED) == 10
+        timings.toSpecification().keySet() as List == ["Bar", "Foo"]
+        timings.toSpecification()["Foo"] == [SERVICE_CALL: 150L, QUEUED: 0L, RESULT_CONVERSION: 0L]
+    }
+
+    def "the elapsed time is measured in nanoseconds with a wall clock start time"() {
+        given:
+        def before = OffsetDateTime.now().minusSeconds(1)
+
+        when:
+        def builder = ElapsedTime.newElapsedTime().start()
+        Thread.sleep(5)
+        def elapsedTime = builder.stop().build()
+
+        then:
+        elapsedTime.durationNanos >= 5_000_000
+        elapsedTime.duration.toNanos() == elapsedTime.durationNanos
+        elapsedTime.startTime.isAfter(before)
+        elapsedTime.startTime.isBefore(OffsetDateTime.now().plusSeconds(1))
+    }
+
+    def "the timings of a request are given to the instrumentation"() {
+        given:
+        def nsdl = '''
+         service Foo {
+            type Query {
+                foos: [Foo]
+            }
+            type Foo {
+                name: String
+            }
+         }
+        '''
+        def fooSpec = '''
+            type Query {
+                foos: [Foo]
+            }
+            type Foo {
+                name: String
+            }
+        '''
+        DataFetcher foosFetcher = { env -> [[name: "a"], [name: "b"]] }
+        def fooExecution = new LocalServiceExecution(TestUtil.schema(fooSpec, [Query: [foos: foosFetcher]]))
+        RequestTimings requestTimings = null
+        Map<String, Object> resultComplexityDetails = null
+        def instrumentation = new NadelInstrumentation() {
+            @Override
+            RootExecutionResultNode instrumentRootExecutionResult(RootExecutionResultNode rootExecutionResultNode, NadelInstrumentRootExecutionResultParameters parameters) {
+                requestTimings = parameters.requestTimings
+                resultComplexityDetails = parameters.resultComplexityDetails
+                return rootExecutionResultNode
+            }
+        }
+        def executor = Executors.newSingleThreadExecutor()
+        def nadel = newNadel()
+                .dsl(nsdl)
+                .serviceExecutionFactory(TestUtil.serviceFactory([Foo: new Tuple2(fooExecution, TestUtil.typeDefinitions(fooSpec))]))
+                .instrumentation(instrumentation)
+                .executor(executor)
+                .build()
+
+        when:
+        def result = nadel.execute(newNadelExecutionInput().query('{ foos { name } }').build()).join()
+
+        then:
+        result.data == [foos: [[name: "a"], [name: "b"]]]
+        requestTimings.toSpecification().keySet() == ["Foo"] as Set
+        requestTimings.getNanos("Foo", SERVICE_CALL) > 0
+        requestTimings.getNanos("Foo", QUEUED) > 0
+        requestTimings.getNanos("Foo", RESULT_CONVERSION) > 0
+
+        // the service calls are for the instrumentation only, the result is the same for every run
+        resultComplexityDetails.fieldNodeCounts == [foos: 6]
+        resultComplexityDetails.serviceCalls.Foo.calls == 1L
+        resultComplexityDetails.serviceCalls.Foo.totalNanos > 0
+        result.extensions == [resultComplexity: [totalNodeCount: 6, serviceNodeCounts: [Foo: 6]]]
+
+        cleanup:
+        executor.shutdown()
+    }
+}
@@ -0,0 +1,64 @@
+package graphql.nadel.cache
+
+import graphql.ExecutionResultImpl
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+import java.util.function.LongSupplier
+
+class InMemoryResponseCacheTest extends Specification {
+
+    long now = 0
+    def cache = new InMemoryResponseCache(2, { now } as LongSupplier)
+
+    static ResponseCacheKey key(String query) {
+        new ResponseCacheKey(query, null, [:], null)
+    }
+
+    static result(String value) {
+        ExecutionResultImpl.newExecutionResult().data([value: value]).build()
+    }
+
+    def "results are dropped once they are older than their max age"() {
+        given:
+        cache.put(key("a"), result("a"), 10)
+
+        when:
+        now = TimeUnit.SECONDS.toNanos(9)
+
+        then:
+        cache.get(key("a")).data == [value: "a"]
+
+        when:
+        now = TimeUnit.SECONDS.toNanos(10)
+
+        then:
+        cache.get(key("a")) == null
+        cache.size() == 0
+    }
+
+    def "the least recently used result is dropped when the cache is full"() {
+        given:
+        cache.put(key("a"), result("a"), 10)
+        cache.put(key("b"), result("b"), 10)
+        cache.get(key("a"))
+
+        when:
+        cache.put(key("c"), result("c"), 10)
+
+        then:
+        cache.get(key("a")) != null
+        cache.get(key("b")) == null
+        cache.get(key("c")) != null
+    }
+
+    def "keys with different partitions are different"() {
+        when:
+        cache.put(new ResponseCacheKey("q", null, [:], "user-a"), result("a"), 10)
+
+        then:
+        cache.get(new ResponseCacheKey("q", null, [:], "user-a")) != null
+        cache.get(new ResponseCacheKey("q", null, [:], "user-b")) == null
+        cache.get(key("q")) == null
+    }
+}
@@ -0,0 +1,216 @@
+package graphql.nadel.engine
+
+import graphql.GraphQLError
+import graphql.GraphqlErrorBuilder
+import graphql.execution.DataFetcherResult
+import graphql.nadel.LocalServiceExecution
+import graphql.nadel.Nadel
+import graphql.nadel.testutils.TestUtil
+import graphql.schema.DataFetcher
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+import java.util.function.Function
+
+import static graphql.nadel.Nadel.newNadel
+import static graphql.nadel.NadelExecutionInput.newNadelExecutionInput
+
+class HydrationBatchWindowTest extends Specification {
+
+    static String nsdl(String batchSize) {
+        """
+         service Foo {
+            type Query {
+                foos(group: String): [Foo]
+            }
+            type Foo {
+                name: String
+                bar: Bar => hydrated from Bar.barsById(id: \$source.barId) object identified by barId${batchSize}
+            }
+         }
+         service Bar {
+            type Query {
+                bar(id: ID): Bar
+            }
+            type Bar {
+                barId: ID
+                name: String
+            }
+         }
+        """
+    }
+
+    def fooSpec = '''
+            type Query {
+                foos(group: String): [Foo]
+            }
+            type Foo {
+                name: String
+                barId: ID
+            }
+        '''
+    def barSpec = '''
+            type Query {
+                bar(id: ID): Bar
+                barsById(id: [ID]): [Bar]
+            }
+            type Bar {
+                barId: ID
+                name: String
+            }
+        '''
+
+    def foos = [
+            a: [[name: "a1", barId: "1"], [name: "a2", barId: "2"]],
+            b: [[name: "b2", barId: "2"], [name: "b3", barId: "3"]],
+            c: [[name: "c1", barId: "1"]],
+            d: [[name: "d3", barId: "3"]]
+    ]
+    def bars = [[barId: "1", name: "One"], [barId: "2", name: "Two"], [barId: "3", name: "Three"]]
+
+    List<List<String>> barCalls = Collections.synchronizedList([])
+
+    String failingBarId
+
+    Function<Object, Object> byUser = { context -> context instanceof Map ? context.user : "anonymous" }
+
+    Nadel.Builder nadelBuilder(String batchSize = "", List<GraphQLError> barErrors = []) {
+        DataFetcher foosFetcher = { env -> foos[env.getArgument("group")] }
+        DataFetcher barsByIdFetcher = { env ->
+            List<String> ids = env.getArgument("id")
+            barCalls.add(ids)
+            DataFetcherResult.newResult()
+                    .data(ids.collect { id -> bars.find { it.barId == id } })
+                    .errors(barErrors)
+                    .build()
+        }
+        DataFetcher barNameFetcher = { env ->
+            if (failingBarId == env.source.barId) {
+                throw new RuntimeException("Bar ${failingBarId} has no name")
+            }
+            env.source.name
+        }
+        def fooExecution = new LocalServiceExecution(TestUtil.schema(fooSpec, [Query: [foos: foosFetcher]]))
+        def barExecution = new LocalServiceExecution(TestUtil.schema(barSpec, [Query: [barsById: barsByIdFetcher], Bar: [name: barNameFetcher]]))
+        newNadel()
+                .dsl(nsdl(batchSize))
+                .serviceExecutionFactory(TestUtil.serviceFactory([
+                        Foo: new Tuple2(fooExecution, TestUtil.typeDefinitions(fooSpec)),
+                        Bar: new Tuple2(barExecution, TestUtil.typeDefinitions(barSpec))]))
+    }
+
+    def "batch hydrations of concurrent requests are merged into one call"() {
+        given:
+        def nadel = nadelBuilder().hydrationBatchWindow(Duration.ofMillis(200), byUser).build()
+
+        when:
+        def resultA = nadel.execute(newNadelExecutionInput().query('{ foos(group: "a") { name bar { name } } }').build())
+        def resultB = nadel.execute(newNadelExecutionInput().query('{ foos(group: "b") { name bar { name } } }').build())
+
+        then:
+        resultA.join().data == [foos: [[name: "a1", bar: [name: "One"]], [name: "a2", bar: [name: "Two"]]]]
+        resultB.join().data == [foos: [[name: "b2", bar: [name: "Two"]], [name: "b3", bar: [name: "Three"]]]]
+        barCalls == [["1", "2", "3"]]
+
+        def statistics = nadel.hydrationBatchingStatistics
+        statistics.hydrationCalls == 2
+        statistics.downstreamCalls == 1
+        statistics.batchingRatio == 2.0d
+        statistics.windowNanos > 0
+    }
+
+    def "batch hydrations with different selection sets are not merged"() {
+        given:
+        def nadel = nadelBuilder().hydrationBatchWindow(Duration.ofMillis(200), byUser).build()
+
+        when:
+        def resultA = nadel.execute(newNadelExecutionInput().query('{ foos(group: "a") { name bar { name } } }').build())
+        def resultB = nadel.execute(newNadelExecutionInput().query('{ foos(group: "b") { name bar { barId name } } }').build())
+
+        then:
+        resultA.join().data == [foos: [[name: "a1", bar: [name: "One"]], [name: "a2", bar: [name: "Two"]]]]
+        resultB.join().data == [foos: [[name: "b2", bar: [barId: "2", name: "Two"]], [name: "b3", bar: [barId: "3", name: "Three"]]]]
+        barCalls as Set == [["1", "2"], ["2", "3"]] as Set
+        nadel.hydrationBatchingStatistics.batchingRatio == 1.0d
+    }
+
+    def "a window is sent once it holds as many ids as the batch size"() {
+        given:
+        def nadel = nadelBuilder(", batch size 2").hydrationBatchWindow(Duration.ofMinutes(1), byUser).build()
+
+        when:
+        def resultC = nadel.execute(newNadelExecutionInput().query('{ foos(group: "c") { name bar { name } } }').build())
+        def resultD = nadel.execute(newNadelExecutionInput().query('{ foos(group: "d") { name bar { name } } }').build())
+
+        then:
+        resultC.get(5, TimeUnit.SECONDS).data == [foos: [[name: "c1", bar: [name: "One"]]]]
+        resultD.get(5, TimeUnit.SECONDS).data == [foos: [[name: "d3", bar: [name: "Three"]]]]
+        barCalls == [["1", "3"]]
+    }
+
+    def "batch hydrations of requests of different users are not merged"() {
+        given:
+        def nadel = nadelBuilder().hydrationBatchWindow(Duration.ofMillis(200), byUser).build()
+
+        when:
+        def resultA = nadel.execute(newNadelExecutionInput().query('{ foos(group: "a") { name bar { name } } }').context([user: "ann"]).build())
+        def resultB = nadel.execute(newNadelExecutionInput().query('{ foos(group: "b") { name bar { name } } }').context([user: "bob"]).build())
+
+        then:
+        resultA.join().data == [foos: [[name: "a1", bar: [name: "One"]], [name: "a2", bar: [name: "Two"]]]]
+        resultB.join().data == [foos: [[name: "b2", bar: [name: "Two"]], [name: "b3", bar: [name: "Three"]]]]
+        barCalls as Set == [["1", "2"], ["2", "3"]] as Set
+        nadel.hydrationBatchingStatistics.batchingRatio == 1.0d
+    }
+
+    def "batch hydrations of requests without a partition are not merged"() {
+        given:
+        def nadel = nadelBuilder().hydrationBatchWindow(Duration.ofMillis(200), { context -> null }).build()
+
+        when:
+        nadel.execute(newNadelExecutionInput().query('{ foos(group: "a") { name bar { name } } }').build()).join()
+        nadel.execute(newNadelExecutionInput().query('{ foos(group: "b") { name bar { name } } }').build()).join()
+
+        then:
+        barCalls == [["1", "2"], ["2", "3"]]
+        nadel.hydrationBatchingStatistics.hydrationCalls == 2
+        nadel.hydrationBatchingStatistics.downstreamCalls == 2
+    }
+
+    def "each request of a merged call only gets the errors about its own ids"() {
+        given:
+        failingBarId = "3"
+        def barErrors = [
+                GraphqlErrorBuilder.newError().message("Bar 1 is archived").extensions([barId: "1"]).build(),
+                GraphqlErrorBuilder.newError().message("Bars are slow today").build()
+        ]
+        def nadel = nadelBuilder("", barErrors).hydrationBatchWindow(Duration.ofMillis(200), byUser).build()
+
+        when:
+        def resultC = nadel.execute(newNadelExecutionInput().query('{ foos(group: "c") { name bar { name } } }').build())
+        def resultD = nadel.execute(newNadelExecutionInput().query('{ foos(group: "d") { name bar { name } } }').build())
+        def errorsC = resultC.join().errors.collect { it.message }
+        def errorsD = resultD.join().errors.collect { it.message }
+
+        then:
+        barCalls == [["1", "3"]]
+        errorsC == ["Bar 1 is archived", "Bars are slow today"]
+        errorsD.size() == 2
+        errorsD[0] == "Bars are slow today"
+        errorsD[1].contains("Bar 3 has no name")
+    }
+
+    def "batch hydrations are not merged without a window"() {
+        given:
+        def nadel = nadelBuilder().build()
+
+        when:
+        nadel.execute(newNadelExecutionInput().query('{ foos(group: "a") { name bar { name } } }').build()).join()
+        nadel.execute(newNadelExecutionInput().query('{ foos(group: "b") { name bar { name } } }').build()).join()
+
+        then:
+        barCalls == [["1", "2"], ["2", "3"]]
+        nadel.hydrationBatchingStatistics.hydrationCalls == 0
+    }
+}
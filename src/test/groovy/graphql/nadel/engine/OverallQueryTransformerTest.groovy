@@ -12,6 +12,7 @@ import graphql.language.Field
 import graphql.nadel.Operation
 import graphql.nadel.Service
 import graphql.nadel.dsl.NodeId
+import graphql.nadel.engine.transformation.FieldRenameTransformation
 import graphql.nadel.hooks.ServiceExecutionHooks
 import graphql.nadel.testutils.TestUtil
 import graphql.schema.GraphQLSchema
@@ -275,6 +276,106 @@ class OverallQueryTransformerTest extends Specification {
     }
 
 
+    def "records which fields have no transformed fields below them"() {
+        given:
+        def query = TestUtil.parseQuery(
+                '''
+            {
+                foo(id: "12") {
+                    id
+                    barId
+                }
+                bar(id: "1") {
+                    id
+                }
+            }
+            ''')
+
+        FieldSubSelection fieldSubSelection
+        ExecutionContext executionContext
+        (executionContext, fieldSubSelection) = TestUtil.executionData(schema, query)
+
+        List<MergedField> fields = new ArrayList<>(fieldSubSelection.getSubFields().values())
+        def transformer = new OverallQueryTransformer()
+        def serviceExecutionHooks = new ServiceExecutionHooks() {}
+
+        when:
+        def transformationResult = transformer.transformMergedFields(executionContext, underlyingSchemaExampleService, null, Operation.QUERY, fields, serviceExecutionHooks, null, null)
+        def transformationMetadata = transformationResult.removedFieldMap
+
+        then:
+        !transformationMetadata.isUntransformedSubtree(NodeId.getIds(fieldSubSelection.getSubFields()["foo"]))
+        transformationMetadata.isUntransformedSubtree(NodeId.getIds(fieldSubSelection.getSubFields()["bar"]))
+    }
+
+    def "transformed fields in fragment definitions mark every field as transformed"() {
+        given:
+        def query = TestUtil.parseQuery(
+                '''
+            {
+                foo(id: "12") {
+                    ...FooFragment
+                }
+                bar(id: "1") {
+                    id
+                }
+            }
+            fragment FooFragment on Foo {
+                barId
+            }
+            ''')
+
+        FieldSubSelection fieldSubSelection
+        ExecutionContext executionContext
+        (executionContext, fieldSubSelection) = TestUtil.executionData(schema, query)
+
+        List<MergedField> fields = new ArrayList<>(fieldSubSelection.getSubFields().values())
+        def transformer = new OverallQueryTransformer()
+        def serviceExecutionHooks = new ServiceExecutionHooks() {}
+
+        when:
+        def transformationResult = transformer.transformMergedFields(executionContext, underlyingSchemaExampleService, null, Operation.QUERY, fields, serviceExecutionHooks, null, null)
+        def transformationMetadata = transformationResult.removedFieldMap
+
+        then:
+        !transformationMetadata.isUntransformedSubtree(NodeId.getIds(fieldSubSelection.getSubFields()["foo"]))
+        !transformationMetadata.isUntransformedSubtree(NodeId.getIds(fieldSubSelection.getSubFields()["bar"]))
+    }
+
+    def "compiles which transformations to unapply for the transformed fields"() {
+        given:
+        def query = TestUtil.parseQuery(
+                '''
+            {
+                foo(id: "12") {
+                    id
+                    barId
+                }
+            }
+            ''')
+
+        FieldSubSelection fieldSubSelection
+        ExecutionContext executionContext
+        (executionContext, fieldSubSelection) = TestUtil.executionData(schema, query)
+
+        List<MergedField> fields = new ArrayList<>(fieldSubSelection.getSubFields().values())
+        def transformer = new OverallQueryTransformer()
+        def serviceExecutionHooks = new ServiceExecutionHooks() {}
+
+        when:
+        def transformationResult = transformer.transformMergedFields(executionContext, underlyingSchemaExampleService, null, Operation.QUERY, fields, serviceExecutionHooks, null, null)
+        def unapplyPlan = transformationResult.removedFieldMap.unapplyPlan
+        def renameTransformation = transformationResult.fieldIdToTransformation.values().find { it instanceof FieldRenameTransformation }
+        def renamedFieldId = transformationResult.removedFieldMap.metadataByFieldId.find { id, metadata -> metadata.any { it.rootOfTransformation } }.key
+
+        then:
+        unapplyPlan.getNodePlan([renamedFieldId]).transformations == [renameTransformation]
+        unapplyPlan.getNodePlan([renamedFieldId]).transformationIdsByDefinition == [(renameTransformation.definition): [renameTransformation.transformationId] as Set]
+        unapplyPlan.getNodePlan([renamedFieldId]).is(unapplyPlan.getNodePlan([renamedFieldId]))
+        unapplyPlan.getTransformationIds(renamedFieldId) == [renameTransformation.transformationId]
+        unapplyPlan.getNodePlan(NodeId.getIds(fieldSubSelection.getSubFields()["foo"])).transformations.isEmpty()
+    }
+
     private static Document doTransform(GraphQLSchema overallSchema,
                                         GraphQLSchema underlyingSchema,
                                         Document query,
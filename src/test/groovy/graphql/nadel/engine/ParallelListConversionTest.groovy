@@ -0,0 +1,168 @@
+package graphql.nadel.engine
+
+import graphql.execution.instrumentation.InstrumentationContext
+import graphql.nadel.Nadel
+import graphql.nadel.ServiceExecution
+import graphql.nadel.ServiceExecutionResult
+import graphql.nadel.instrumentation.NadelInstrumentation
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationPipelineStageParameters
+import graphql.nadel.testutils.TestUtil
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.ForkJoinWorkerThread
+import java.util.function.IntFunction
+import java.util.function.Supplier
+
+import static graphql.execution.instrumentation.SimpleInstrumentationContext.noOp
+import static graphql.nadel.Nadel.newNadel
+import static graphql.nadel.NadelExecutionInput.newNadelExecutionInput
+import static graphql.nadel.testutils.TestUtil.typeDefinitions
+import static java.util.concurrent.CompletableFuture.completedFuture
+
+class ParallelListConversionTest extends Specification {
+
+    @Shared
+    ForkJoinPool pool = new ForkJoinPool(4)
+
+    def cleanupSpec() {
+        pool.shutdown()
+    }
+
+    def nsdl = '''
+         service Pets {
+            type Query {
+                pets: [Pet]
+                owners: [Owner]
+            }
+            type Pet {
+                name: String
+                tags: [String]
+            }
+            type Owner => renamed from Person {
+                fullName: String => renamed from name
+                pets: [Pet]
+            }
+         }
+        '''
+    def underlyingSchema = typeDefinitions('''
+            type Query {
+                pets: [Pet]
+                owners: [Person]
+            }
+            type Pet {
+                name: String
+                tags: [String]
+            }
+            type Person {
+                name: String
+                pets: [Pet]
+            }
+        ''')
+
+    static List pets(int count) {
+        (0..<count).collect { [name: "pet" + it, tags: ["a" + it, null, "b" + it]] }
+    }
+
+    static Map petsData = [pets: pets(100)]
+    static Map ownersData = [owners: (0..<50).collect { [name: "owner" + it, pets: pets(10)] }]
+
+    Nadel nadel(Map data, boolean parallel) {
+        ServiceExecution serviceExecution = { params -> completedFuture(new ServiceExecutionResult(data)) } as ServiceExecution
+        def builder = newNadel()
+                .dsl(nsdl)
+                .serviceExecutionFactory(TestUtil.serviceFactory([Pets: new Tuple2(serviceExecution, underlyingSchema)]))
+        if (parallel) {
+            builder.listConversionPool(pool).parallelListConversionThreshold(4)
+        }
+        builder.build()
+    }
+
+    def "converts the elements in the order of the list"() {
+        given:
+        def parallelListConversion = new ParallelListConversion(pool, 10)
+        def threads = ConcurrentHashMap.newKeySet()
+
+        when:
+        def result = parallelListConversion.convert(1000, { { index -> threads.add(Thread.currentThread()); index * 2 } as IntFunction } as Supplier)
+
+        then:
+        result == (0..<1000).collect { it * 2 }
+        threads.size() > 1
+    }
+
+    def "lists below the threshold or without a pool are converted on the calling thread"() {
+        given:
+        def threads = ConcurrentHashMap.newKeySet()
+
+        when:
+        def result = parallelListConversion.convert(size, { { index -> threads.add(Thread.currentThread()); index } as IntFunction } as Supplier)
+
+        then:
+        !parallelListConversion.isParallel(size)
+        result == (0..<size).collect { it }
+        threads == [Thread.currentThread()] as Set
+
+        where:
+        parallelListConversion                    | size
+        new ParallelListConversion(pool, 10)      | 9
+        ParallelListConversion.SEQUENTIAL         | 1000
+        new ParallelListConversion(null, 1)       | 5
+    }
+
+    def "parallel conversion gives the same result and node counts as sequential conversion"() {
+        given:
+        def input = newNadelExecutionInput().query(query).build()
+
+        when:
+        def sequential = nadel(data, false).execute(input).join()
+        def parallel = nadel(data, true).execute(input).join()
+
+        then:
+        parallel.errors.isEmpty()
+        parallel.data == sequential.data
+        parallel.extensions["resultComplexity"] == sequential.extensions["resultComplexity"]
+
+        where:
+        query                                        | data
+        "{ pets { name tags } }"                     | petsData
+        "{ owners { fullName pets { name tags } } }" | ownersData
+    }
+
+    def "the results of the service calls are converted on the pool instead of the thread that completed the call"() {
+        given:
+        def ioThread = Executors.newSingleThreadExecutor()
+        def conversionThreads = ConcurrentHashMap.newKeySet()
+        ServiceExecution serviceExecution = { params -> CompletableFuture.supplyAsync({ new ServiceExecutionResult(petsData) }, ioThread) } as ServiceExecution
+        def instrumentation = new NadelInstrumentation() {
+            @Override
+            InstrumentationContext<Object> beginPipelineStage(NadelInstrumentationPipelineStageParameters parameters) {
+                if (parameters.stage == NadelInstrumentationPipelineStageParameters.Stage.RESULT_CONVERSION) {
+                    conversionThreads.add(Thread.currentThread())
+                }
+                noOp()
+            }
+        }
+        def nadel = newNadel()
+                .dsl(nsdl)
+                .serviceExecutionFactory(TestUtil.serviceFactory([Pets: new Tuple2(serviceExecution, underlyingSchema)]))
+                .instrumentation(instrumentation)
+                .listConversionPool(pool)
+                .parallelListConversionThreshold(4)
+                .build()
+
+        when:
+        def result = nadel.execute(newNadelExecutionInput().query("{ pets { name tags } }").build()).join()
+        ioThread.shutdown()
+
+        then:
+        result.errors.isEmpty()
+        result.data.pets.size() == 100
+        conversionThreads.size() == 1
+        conversionThreads.every { it instanceof ForkJoinWorkerThread && it.pool == pool }
+    }
+}
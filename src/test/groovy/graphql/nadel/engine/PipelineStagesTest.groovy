@@ -0,0 +1,104 @@
+package graphql.nadel.engine
+
+import graphql.execution.instrumentation.InstrumentationContext
+import graphql.nadel.Nadel
+import graphql.nadel.ServiceExecution
+import graphql.nadel.ServiceExecutionResult
+import graphql.nadel.instrumentation.NadelInstrumentation
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationPipelineStageParameters
+import graphql.nadel.testutils.TestUtil
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+import static graphql.execution.instrumentation.SimpleInstrumentationContext.noOp
+import static graphql.nadel.Nadel.newNadel
+import static graphql.nadel.NadelExecutionInput.newNadelExecutionInput
+import static graphql.nadel.instrumentation.parameters.NadelInstrumentationPipelineStageParameters.Stage.QUERY_TRANSFORMATION
+import static graphql.nadel.instrumentation.parameters.NadelInstrumentationPipelineStageParameters.Stage.RESULT_CONVERSION
+import static graphql.nadel.testutils.TestUtil.typeDefinitions
+
+class PipelineStagesTest extends Specification {
+
+    def nsdl = '''
+         service Pets {
+            type Query {
+                pet: Pet
+            }
+            type Pet {
+                name: String
+            }
+         }
+        '''
+    def underlyingSchema = typeDefinitions('''
+            type Query {
+                pet: Pet
+            }
+            type Pet {
+                name: String
+            }
+        ''')
+
+    ExecutorService serviceThread = Executors.newSingleThreadExecutor({ runnable -> new Thread(runnable, "service-io") })
+    ExecutorService cpuThread = Executors.newSingleThreadExecutor({ runnable -> new Thread(runnable, "nadel-cpu") })
+
+    def stages = new ConcurrentLinkedQueue<Map>()
+    def serviceResult = new CompletableFuture<ServiceExecutionResult>()
+
+    def instrumentation = new NadelInstrumentation() {
+        @Override
+        InstrumentationContext<Object> beginPipelineStage(NadelInstrumentationPipelineStageParameters parameters) {
+            stages.add([stage: parameters.stage, service: parameters.service.name, queuedNanos: parameters.queuedNanos, thread: Thread.currentThread().name])
+            noOp()
+        }
+    }
+
+    def cleanup() {
+        serviceThread.shutdown()
+        cpuThread.shutdown()
+    }
+
+    Nadel.Builder nadelBuilder() {
+        ServiceExecution serviceExecution = { params -> serviceResult } as ServiceExecution
+        newNadel()
+                .dsl(nsdl)
+                .serviceExecutionFactory(TestUtil.serviceFactory([Pets: new Tuple2(serviceExecution, underlyingSchema)]))
+                .instrumentation(instrumentation)
+    }
+
+    def "cpu bound stages run on the executor and report the time they were queued"() {
+        given:
+        def nadel = nadelBuilder().executor(cpuThread).build()
+
+        when:
+        def resultCF = nadel.execute(newNadelExecutionInput().query("{ pet { name } }").build())
+        serviceThread.submit({ serviceResult.complete(new ServiceExecutionResult([pet: [name: "Rex"]])) } as Runnable)
+        def result = resultCF.join()
+
+        then:
+        result.data == [pet: [name: "Rex"]]
+        stages*.stage == [QUERY_TRANSFORMATION, RESULT_CONVERSION]
+        stages*.service == ["Pets", "Pets"]
+        stages*.thread == ["nadel-cpu", "nadel-cpu"]
+        stages.every { it.queuedNanos >= 0 }
+    }
+
+    def "without an executor the result is converted on the thread that completed the service call"() {
+        given:
+        def nadel = nadelBuilder().build()
+
+        when:
+        def resultCF = nadel.execute(newNadelExecutionInput().query("{ pet { name } }").build())
+        serviceThread.submit({ serviceResult.complete(new ServiceExecutionResult([pet: [name: "Rex"]])) } as Runnable)
+        def result = resultCF.join()
+
+        then:
+        result.data == [pet: [name: "Rex"]]
+        stages*.stage == [QUERY_TRANSFORMATION, RESULT_CONVERSION]
+        stages*.thread[1] == "service-io"
+        stages*.queuedNanos == [0L, 0L]
+    }
+}
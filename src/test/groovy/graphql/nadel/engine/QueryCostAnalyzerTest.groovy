@@ -0,0 +1,211 @@
+package graphql.nadel.engine
+
+import graphql.nadel.LocalServiceExecution
+import graphql.nadel.Nadel
+import graphql.nadel.QueryCost
+import graphql.nadel.QueryCostLimits
+import graphql.nadel.instrumentation.NadelInstrumentation
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationQueryCostParameters
+import graphql.nadel.testutils.TestUtil
+import graphql.schema.DataFetcher
+import graphql.schema.TypeResolver
+import graphql.schema.idl.RuntimeWiring
+import spock.lang.Specification
+
+import static graphql.nadel.Nadel.newNadel
+import static graphql.nadel.NadelExecutionInput.newNadelExecutionInput
+import static graphql.nadel.QueryCostLimits.newQueryCostLimits
+import static graphql.schema.idl.TypeRuntimeWiring.newTypeWiring
+
+class QueryCostAnalyzerTest extends Specification {
+
+    def nsdl = '''
+         service Foo {
+            directive @cost(weight: Int, listSize: Int) on FIELD_DEFINITION
+            type Query {
+                foos: [Foo]
+                smallFoos: [Foo] @cost(listSize: 2)
+                pets: [Pet]
+            }
+            type Foo {
+                name: String
+                bar: Bar => hydrated from Bar.barsById(id: $source.barId) object identified by barId, batch size 3
+            }
+            interface Pet {
+                name: String
+            }
+            type Cat implements Pet {
+                name: String
+                lives: Int
+            }
+            type Dog implements Pet {
+                name: String
+                tricks: [String]
+            }
+         }
+         service Bar {
+            type Query {
+                bar(id: ID): Bar
+            }
+            type Bar {
+                barId: ID
+                name: String @cost(weight: 3)
+            }
+         }
+        '''
+
+    def fooSpec = '''
+            type Query {
+                foos: [Foo]
+                smallFoos: [Foo]
+                pets: [Pet]
+            }
+            type Foo {
+                name: String
+                barId: ID
+            }
+            interface Pet {
+                name: String
+            }
+            type Cat implements Pet {
+                name: String
+                lives: Int
+            }
+            type Dog implements Pet {
+                name: String
+                tricks: [String]
+            }
+        '''
+    def barSpec = '''
+            type Query {
+                bar(id: ID): Bar
+                barsById(id: [ID]): [Bar]
+            }
+            type Bar {
+                barId: ID
+                name: String
+            }
+        '''
+
+    def foos = [[name: "a", barId: "1"], [name: "b", barId: "2"]]
+    def bars = [[barId: "1", name: "One"], [barId: "2", name: "Two"]]
+    def pets = [[name: "Tom", lives: 9], [name: "Rex", tricks: ["sit"]]]
+
+    int fooCalls = 0
+    int barCalls = 0
+    List<QueryCost> queryCosts = []
+
+    Nadel nadel(QueryCostLimits queryCostLimits) {
+        DataFetcher foosFetcher = { env -> fooCalls++; foos }
+        DataFetcher petsFetcher = { env -> pets }
+        DataFetcher barsByIdFetcher = { env ->
+            barCalls++
+            env.getArgument("id").collect { id -> bars.find { it.barId == id } }
+        }
+        def fooWiring = RuntimeWiring.newRuntimeWiring()
+                .type(newTypeWiring("Query").dataFetchers([foos: foosFetcher, smallFoos: foosFetcher, pets: petsFetcher]))
+                .type(newTypeWiring("Pet").typeResolver({ env -> env.schema.getObjectType(env.object.lives != null ? "Cat" : "Dog") } as TypeResolver))
+        def fooExecution = new LocalServiceExecution(TestUtil.schema(fooSpec, fooWiring))
+        def barExecution = new LocalServiceExecution(TestUtil.schema(barSpec, [Query: [barsById: barsByIdFetcher]]))
+        def instrumentation = new NadelInstrumentation() {
+            @Override
+            QueryCost instrumentQueryCost(QueryCost queryCost, NadelInstrumentationQueryCostParameters parameters) {
+                queryCosts.add(queryCost)
+                return queryCost
+            }
+        }
+        newNadel()
+                .dsl(nsdl)
+                .serviceExecutionFactory(TestUtil.serviceFactory([
+                        Foo: new Tuple2(fooExecution, TestUtil.typeDefinitions(fooSpec)),
+                        Bar: new Tuple2(barExecution, TestUtil.typeDefinitions(barSpec))]))
+                .instrumentation(instrumentation)
+                .queryCostLimits(queryCostLimits)
+                .build()
+    }
+
+    def "estimates the downstream calls and nodes of a query"() {
+        given:
+        def nadel = nadel(newQueryCostLimits().build())
+
+        when:
+        def result = nadel.execute(newNadelExecutionInput().query(query).build()).join()
+
+        then:
+        result.errors.isEmpty()
+        queryCosts.size() == 1
+        queryCosts[0].downstreamCalls == downstreamCalls
+        queryCosts[0].hydrationCalls == hydrationCalls
+        queryCosts[0].nodes == nodes
+
+        where:
+        query                                          | downstreamCalls | hydrationCalls | nodes
+        '{ foos { name } }'                            | 1               | 0              | 1 + 10
+        // 10 assumed foos with a bar each, in batches of 3
+        '{ foos { name bar { barId } } }'              | 5               | 4              | 1 + 10 + 10 + 10
+        // the listSize and weight of the @cost directives
+        '{ smallFoos { bar { name } } }'               | 2               | 1              | 1 + 2 + 2 * 3
+        '{ foos { name } smallFoos { bar { name } } }' | 3               | 1              | 1 + 10 + 1 + 2 + 2 * 3
+    }
+
+    def "fields selected on an interface are counted once per object, not once per object type"() {
+        given:
+        def nadel = nadel(newQueryCostLimits().build())
+
+        when:
+        def result = nadel.execute(newNadelExecutionInput().query(query).build()).join()
+
+        then:
+        result.errors.isEmpty()
+        result.data == data
+        queryCosts.size() == 1
+        queryCosts[0].downstreamCalls == 1
+        queryCosts[0].nodes == nodes
+
+        where:
+        query                                                          | data                                                              | nodes
+        '{ pets { name } }'                                            | [pets: [[name: "Tom"], [name: "Rex"]]]                            | 1 + 10
+        // the object type with the most expensive selection counts
+        '{ pets { name ... on Cat { lives } ... on Dog { tricks } } }' | [pets: [[name: "Tom", lives: 9], [name: "Rex", tricks: ["sit"]]]] | 1 + 10 * 2
+        '{ pets { ... on Cat { name lives } ... on Dog { name } } }'   | [pets: [[name: "Tom", lives: 9], [name: "Rex"]]]                  | 1 + 10 * 2
+    }
+
+    def "queries over the limits are rejected before any service is called"() {
+        given:
+        def nadel = nadel(newQueryCostLimits().maxDownstreamCalls(4).maxNodes(1000).build())
+
+        when:
+        def result = nadel.execute(newNadelExecutionInput().query('{ foos { name bar { name } } }').build()).join()
+
+        then:
+        result.data == null
+        result.errors.size() == 1
+        result.errors[0].message == "The estimated cost of the query is over the limits: 5 downstream calls (max 4), 51 nodes (max 1000)"
+        result.errors[0].extensions.queryCost == [downstreamCalls: 5L, hydrationCalls: 4L, nodes: 51L]
+        fooCalls == 0
+        barCalls == 0
+
+        when:
+        result = nadel.execute(newNadelExecutionInput().query('{ foos { name } }').build()).join()
+
+        then:
+        result.errors.isEmpty()
+        result.data == [foos: [[name: "a"], [name: "b"]]]
+    }
+
+    def "queries over the limits can be executed without their hydrations"() {
+        given:
+        def nadel = nadel(newQueryCostLimits().maxDownstreamCalls(4).action(QueryCostLimits.Action.SKIP_HYDRATIONS).build())
+
+        when:
+        def result = nadel.execute(newNadelExecutionInput().query('{ foos { name bar { name } } }').build()).join()
+
+        then:
+        result.data == [foos: [[name: "a", bar: null], [name: "b", bar: null]]]
+        result.errors.size() == 2
+        result.errors.every { it.message == "The hydrated field was not resolved because the estimated cost of the query is over the limits" }
+        result.errors.collect { it.path } as Set == [["foos", 0, "bar"], ["foos", 1, "bar"]] as Set
+        fooCalls == 1
+        barCalls == 0
+    }
+}
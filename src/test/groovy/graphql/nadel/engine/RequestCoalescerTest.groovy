@@ -0,0 +1,115 @@
+package graphql.nadel.engine
+
+import graphql.nadel.Nadel
+import graphql.nadel.RequestCoalescingKey
+import graphql.nadel.ServiceExecution
+import graphql.nadel.ServiceExecutionResult
+import graphql.nadel.testutils.TestUtil
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+
+import static graphql.nadel.Nadel.newNadel
+import static graphql.nadel.NadelExecutionInput.newNadelExecutionInput
+import static graphql.nadel.testutils.TestUtil.typeDefinitions
+
+class RequestCoalescerTest extends Specification {
+
+    def nsdl = '''
+         service Pets {
+            type Query {
+                pet(name: String): Pet
+            }
+            type Pet {
+                name: String
+            }
+         }
+        '''
+    def underlyingSchema = typeDefinitions('''
+            type Query {
+                pet(name: String): Pet
+            }
+            type Pet {
+                name: String
+            }
+        ''')
+
+    List<CompletableFuture<ServiceExecutionResult>> serviceCalls = []
+
+    Nadel nadel(RequestCoalescingKey coalescingKey) {
+        ServiceExecution serviceExecution = { params ->
+            def result = new CompletableFuture<ServiceExecutionResult>()
+            serviceCalls.add(result)
+            result
+        } as ServiceExecution
+        newNadel()
+                .dsl(nsdl)
+                .serviceExecutionFactory(TestUtil.serviceFactory([Pets: new Tuple2(serviceExecution, underlyingSchema)]))
+                .requestCoalescing(coalescingKey)
+                .build()
+    }
+
+    def completeServiceCalls() {
+        serviceCalls.each { it.complete(new ServiceExecutionResult([pet: [name: "Rex"]])) }
+    }
+
+    def "identical requests in flight share one execution"() {
+        given:
+        def nadel = nadel(RequestCoalescingKey.DEFAULT)
+        def query = 'query Pet($name: String) { pet(name: $name) { name } }'
+
+        when:
+        def first = nadel.execute(newNadelExecutionInput().query(query).variables([name: "Rex"]).context([user: "a"]).build())
+        def second = nadel.execute(newNadelExecutionInput().query(query).variables([name: "Rex"]).context([user: "a"]).build())
+        completeServiceCalls()
+
+        then:
+        serviceCalls.size() == 1
+        first.join().data == [pet: [name: "Rex"]]
+        second.join().is(first.join())
+
+        when: "the first execution is over"
+        def third = nadel.execute(newNadelExecutionInput().query(query).variables([name: "Rex"]).context([user: "a"]).build())
+        completeServiceCalls()
+
+        then:
+        serviceCalls.size() == 2
+        third.join().data == [pet: [name: "Rex"]]
+    }
+
+    def "requests with different variables or contexts are executed separately"() {
+        given:
+        def nadel = nadel(RequestCoalescingKey.DEFAULT)
+        def query = 'query Pet($name: String) { pet(name: $name) { name } }'
+
+        when:
+        def results = [
+                nadel.execute(newNadelExecutionInput().query(query).variables([name: "Rex"]).context([user: "a"]).build()),
+                nadel.execute(newNadelExecutionInput().query(query).variables([name: "Tom"]).context([user: "a"]).build()),
+                nadel.execute(newNadelExecutionInput().query(query).variables([name: "Rex"]).context([user: "b"]).build())
+        ]
+        completeServiceCalls()
+
+        then:
+        serviceCalls.size() == 3
+        results.every { it.join().data == [pet: [name: "Rex"]] }
+    }
+
+    def "requests are shared within the partition of their context"() {
+        given:
+        def nadel = nadel(RequestCoalescingKey.byQueryAndPartition({ context -> context.tenant }))
+
+        when:
+        def results = [
+                nadel.execute(newNadelExecutionInput().query('{ pet { name } }').context([tenant: "t1", user: "a"]).build()),
+                nadel.execute(newNadelExecutionInput().query('{ pet { name } }').context([tenant: "t1", user: "b"]).build()),
+                nadel.execute(newNadelExecutionInput().query('{ pet { name } }').context([tenant: null, user: "c"]).build())
+        ]
+        completeServiceCalls()
+
+        then:
+        // the request without a partition is not shared
+        serviceCalls.size() == 2
+        results.every { it.join().data == [pet: [name: "Rex"]] }
+    }
+}
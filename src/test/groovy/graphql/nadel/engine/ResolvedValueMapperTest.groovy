@@ -15,7 +15,7 @@ class ResolvedValueMapperTest extends Specification {
     def "changes __typename field value accordingly"(String given, String expected) {
         given:
         def mapping = ["Underlying": "Exposed", "A": "B", "C": "D"]
-        def unapplyEnvironment = new UnapplyEnvironment(Mock(ExecutionResultNode), false, false, mapping, Mock(GraphQLSchema))
+        def unapplyEnvironment = new UnapplyEnvironment(Mock(ExecutionResultNode), false, false, new UnderlyingToOverallMapping(mapping, Stub(GraphQLSchema), Stub(GraphQLSchema)), Mock(GraphQLSchema))
         def node = LeafExecutionResultNode.newLeafExecutionResultNode()
                 .executionPath(ExecutionPath.rootPath())
                 .completedValue(given)
@@ -41,7 +41,7 @@ class ResolvedValueMapperTest extends Specification {
     def "leaves non __typename fields alone"() {
         given:
         def mapping = ["Underlying": "Exposed", "A": "B", "C": "D"]
-        def unapplyEnvironment = new UnapplyEnvironment(Mock(ExecutionResultNode), false, false, mapping, Mock(GraphQLSchema))
+        def unapplyEnvironment = new UnapplyEnvironment(Mock(ExecutionResultNode), false, false, new UnderlyingToOverallMapping(mapping, Stub(GraphQLSchema), Stub(GraphQLSchema)), Mock(GraphQLSchema))
         def node = LeafExecutionResultNode.newLeafExecutionResultNode()
                 .executionPath(ExecutionPath.rootPath())
                 .completedValue("Underlying")
@@ -0,0 +1,221 @@
+package graphql.nadel.engine
+
+import graphql.cachecontrol.CacheControl
+import graphql.execution.ExecutionPath
+import graphql.ExecutionResult
+import graphql.ExecutionResultImpl
+import graphql.execution.instrumentation.InstrumentationContext
+import graphql.nadel.Nadel
+import graphql.nadel.ServiceExecution
+import graphql.nadel.ServiceExecutionResult
+import graphql.nadel.cache.InMemoryResponseCache
+import graphql.nadel.hooks.ResponseCacheParams
+import graphql.nadel.hooks.ServiceExecutionHooks
+import graphql.nadel.instrumentation.NadelInstrumentation
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationExecuteOperationParameters
+import graphql.nadel.instrumentation.parameters.NadelInstrumentationQueryExecutionParameters
+import graphql.nadel.testutils.TestUtil
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+
+import static graphql.nadel.Nadel.newNadel
+import static graphql.nadel.NadelExecutionInput.newNadelExecutionInput
+import static graphql.nadel.testutils.TestUtil.typeDefinitions
+import static graphql.execution.instrumentation.SimpleInstrumentationContext.noOp
+import static java.util.concurrent.CompletableFuture.completedFuture
+
+class ResponseCachingTest extends Specification {
+
+    def nsdl = '''
+         service Pets {
+            type Query {
+                pet: Pet
+            }
+            type Mutation {
+                renamePet(name: String): Pet
+            }
+            type Pet {
+                name: String
+            }
+         }
+        '''
+    def underlyingSchema = typeDefinitions('''
+            type Query {
+                pet: Pet
+            }
+            type Mutation {
+                renamePet(name: String): Pet
+            }
+            type Pet {
+                name: String
+            }
+        ''')
+
+    int serviceCalls = 0
+
+    List<Map<String, Object>> serviceErrors = []
+
+    Nadel nadel(Closure hint, ServiceExecutionHooks hooks = null, NadelInstrumentation instrumentation = null) {
+        ServiceExecution serviceExecution = { params ->
+            serviceCalls++
+            if (params.cacheControl != null) {
+                hint(params.cacheControl)
+            }
+            def field = params.operationDefinition.operation.name() == "MUTATION" ? "renamePet" : "pet"
+            completedFuture(new ServiceExecutionResult([(field): [name: "Rex " + serviceCalls]], serviceErrors))
+        } as ServiceExecution
+        def builder = newNadel()
+                .dsl(nsdl)
+                .serviceExecutionFactory(TestUtil.serviceFactory([Pets: new Tuple2(serviceExecution, underlyingSchema)]))
+                .responseCache(new InMemoryResponseCache(10), { context -> context.user })
+        if (hooks != null) {
+            builder.serviceExecutionHooks(hooks)
+        }
+        if (instrumentation != null) {
+            builder.instrumentation(instrumentation)
+        }
+        builder.build()
+    }
+
+    def execute(Nadel nadel, String query, String user = "a") {
+        nadel.execute(newNadelExecutionInput().query(query).context([user: user]).build()).join()
+    }
+
+    def "results are served from the cache within the max age of the hints"() {
+        given:
+        def nadel = nadel({ CacheControl cacheControl -> cacheControl.hint(ExecutionPath.parse("/pet"), 60, CacheControl.Scope.PUBLIC) })
+
+        when:
+        def first = execute(nadel, "{ pet { name } }", "a")
+        def second = execute(nadel, "{ pet { name } }", "b")
+
+        then:
+        serviceCalls == 1
+        first.data == [pet: [name: "Rex 1"]]
+        second.data == [pet: [name: "Rex 1"]]
+    }
+
+    def "results without a max age are not cached"() {
+        given:
+        def nadel = nadel({ CacheControl cacheControl -> cacheControl.hint(ExecutionPath.parse("/pet"), CacheControl.Scope.PUBLIC) })
+
+        when:
+        execute(nadel, "{ pet { name } }")
+        def second = execute(nadel, "{ pet { name } }")
+
+        then:
+        serviceCalls == 2
+        second.data == [pet: [name: "Rex 2"]]
+    }
+
+    def "private results are only served to the same partition"() {
+        given:
+        def nadel = nadel({ CacheControl cacheControl -> cacheControl.hint(ExecutionPath.parse("/pet"), 60, CacheControl.Scope.PRIVATE) })
+
+        when:
+        execute(nadel, "{ pet { name } }", "a")
+        def sameUser = execute(nadel, "{ pet { name } }", "a")
+        def otherUser = execute(nadel, "{ pet { name } }", "b")
+
+        then:
+        serviceCalls == 2
+        sameUser.data == [pet: [name: "Rex 1"]]
+        otherUser.data == [pet: [name: "Rex 2"]]
+    }
+
+    def "mutations are never served from the cache"() {
+        given:
+        def nadel = nadel({ CacheControl cacheControl -> cacheControl.hint(ExecutionPath.parse("/renamePet"), 60, CacheControl.Scope.PUBLIC) })
+
+        when:
+        execute(nadel, 'mutation { renamePet(name: "Rex") { name } }')
+        def second = execute(nadel, 'mutation { renamePet(name: "Rex") { name } }')
+
+        then:
+        serviceCalls == 2
+        second.data == [renamePet: [name: "Rex 2"]]
+    }
+
+    def "results with errors are not cached"() {
+        given:
+        serviceErrors = [[message: "Rex is asleep"]]
+        def nadel = nadel({ CacheControl cacheControl -> cacheControl.hint(ExecutionPath.parse("/pet"), 60, CacheControl.Scope.PUBLIC) })
+
+        when:
+        execute(nadel, "{ pet { name } }")
+        def second = execute(nadel, "{ pet { name } }")
+
+        then:
+        serviceCalls == 2
+        second.data == [pet: [name: "Rex 2"]]
+        second.errors.size() == 1
+    }
+
+    def "results are not cached if the service execution hooks give no partition"() {
+        given:
+        def hooks = new ServiceExecutionHooks() {}
+        def nadel = nadel({ CacheControl cacheControl -> cacheControl.hint(ExecutionPath.parse("/pet"), 60, CacheControl.Scope.PUBLIC) }, hooks)
+
+        when:
+        execute(nadel, "{ pet { name } }", "a")
+        def second = execute(nadel, "{ pet { name } }", "a")
+
+        then:
+        serviceCalls == 2
+        second.data == [pet: [name: "Rex 2"]]
+    }
+
+    def "public results are only served to the same partition of the service execution hooks"() {
+        given:
+        def hooks = new ServiceExecutionHooks() {
+            @Override
+            Optional<Object> getResponseCachePartition(ResponseCacheParams params) {
+                Optional.of(params.executionInput.context.user == "admin" ? "admins" : "users")
+            }
+        }
+        def nadel = nadel({ CacheControl cacheControl -> cacheControl.hint(ExecutionPath.parse("/pet"), 60, CacheControl.Scope.PUBLIC) }, hooks)
+
+        when:
+        execute(nadel, "{ pet { name } }", "admin")
+        def otherUser = execute(nadel, "{ pet { name } }", "a")
+        def sameHooksPartition = execute(nadel, "{ pet { name } }", "b")
+
+        then:
+        serviceCalls == 2
+        otherUser.data == [pet: [name: "Rex 2"]]
+        sameHooksPartition.data == [pet: [name: "Rex 2"]]
+    }
+
+    def "plain results are cached once they have been instrumented"() {
+        given:
+        int resultCreations = 0
+        int instrumentedResults = 0
+        def instrumentation = new NadelInstrumentation() {
+            @Override
+            InstrumentationContext<ExecutionResult> beginExecutionResultCreation(NadelInstrumentationExecuteOperationParameters parameters) {
+                resultCreations++
+                noOp()
+            }
+
+            @Override
+            CompletableFuture<ExecutionResult> instrumentExecutionResult(ExecutionResult executionResult, NadelInstrumentationQueryExecutionParameters parameters) {
+                instrumentedResults++
+                completedFuture(ExecutionResultImpl.newExecutionResult().from(executionResult).addExtension("instrumented", instrumentedResults).build())
+            }
+        }
+        def nadel = nadel({ CacheControl cacheControl -> cacheControl.hint(ExecutionPath.parse("/pet"), 60, CacheControl.Scope.PUBLIC) }, null, instrumentation)
+
+        when:
+        def first = execute(nadel, "{ pet { name } }", "a")
+        def second = execute(nadel, "{ pet { name } }", "b")
+
+        then:
+        serviceCalls == 1
+        resultCreations == 1
+        instrumentedResults == 2
+        first.extensions.instrumented == 1
+        second.extensions.instrumented == 2
+        second.data == [pet: [name: "Rex 1"]]
+    }
+}
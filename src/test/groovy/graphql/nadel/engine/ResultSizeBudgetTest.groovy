@@ -0,0 +1,127 @@
+package graphql.nadel.engine
+
+import graphql.nadel.LocalServiceExecution
+import graphql.nadel.Nadel
+import graphql.nadel.ResultSizeLimits
+import graphql.nadel.testutils.TestUtil
+import graphql.schema.DataFetcher
+import spock.lang.Specification
+
+import static graphql.nadel.Nadel.newNadel
+import static graphql.nadel.NadelExecutionInput.newNadelExecutionInput
+import static graphql.nadel.ResultSizeLimits.newResultSizeLimits
+
+class ResultSizeBudgetTest extends Specification {
+
+    def nsdl = '''
+         service Foo {
+            type Query {
+                foos: [Foo]
+            }
+            type Foo {
+                name: String
+                bar: Bar => hydrated from Bar.barsById(id: $source.barId) object identified by barId, batch size 10
+            }
+         }
+         service Bar {
+            type Query {
+                bar(id: ID): Bar
+            }
+            type Bar {
+                barId: ID
+                name: String
+                bar: Bar => hydrated from Bar.barsById(id: $source.barId) object identified by barId, batch size 10
+            }
+         }
+        '''
+
+    def fooSpec = '''
+            type Query {
+                foos: [Foo]
+            }
+            type Foo {
+                name: String
+                barId: ID
+            }
+        '''
+    def barSpec = '''
+            type Query {
+                bar(id: ID): Bar
+                barsById(id: [ID]): [Bar]
+            }
+            type Bar {
+                barId: ID
+                name: String
+            }
+        '''
+
+    def foos = [[name: "a", barId: "1"], [name: "b", barId: "2"], [name: "c", barId: "3"]]
+    def bars = [[barId: "1", name: "One"], [barId: "2", name: "Two"], [barId: "3", name: "Three"]]
+
+    int barCalls = 0
+
+    Nadel nadel(ResultSizeLimits resultSizeLimits) {
+        DataFetcher foosFetcher = { env -> foos }
+        DataFetcher barsByIdFetcher = { env ->
+            barCalls++
+            env.getArgument("id").collect { id -> bars.find { it.barId == id } }
+        }
+        def fooExecution = new LocalServiceExecution(TestUtil.schema(fooSpec, [Query: [foos: foosFetcher]]))
+        def barExecution = new LocalServiceExecution(TestUtil.schema(barSpec, [Query: [barsById: barsByIdFetcher]]))
+        newNadel()
+                .dsl(nsdl)
+                .serviceExecutionFactory(TestUtil.serviceFactory([
+                        Foo: new Tuple2(fooExecution, TestUtil.typeDefinitions(fooSpec)),
+                        Bar: new Tuple2(barExecution, TestUtil.typeDefinitions(barSpec))]))
+                .resultSizeLimits(resultSizeLimits)
+                .build()
+    }
+
+    def "results within the limits are complete"() {
+        given:
+        def nadel = nadel(newResultSizeLimits().maxNodes(100).maxBytes(1000).build())
+
+        when:
+        def result = nadel.execute(newNadelExecutionInput().query('{ foos { name bar { name } } }').build()).join()
+
+        then:
+        result.errors.isEmpty()
+        result.data == [foos: [[name: "a", bar: [name: "One"]], [name: "b", bar: [name: "Two"]], [name: "c", bar: [name: "Three"]]]]
+    }
+
+    def "the fields over the node limit are null and the hydrations are not resolved"() {
+        given:
+        def nadel = nadel(newResultSizeLimits().maxNodes(6).build())
+
+        when:
+        def result = nadel.execute(newNadelExecutionInput().query('{ foos { name bar { name } } }').build()).join()
+
+        then:
+        result.data == [foos: [[name: "a", bar: null], [name: "b", bar: null], null]]
+        result.errors.collect { it.message } as Set == [
+                "The hydrated field was not resolved because the result is over the size limits",
+                "The result is over the size limits of 6 nodes and 9223372036854775807 bytes, the remaining fields are null"
+        ] as Set
+        // the id for the hydration of the second foo is already over the limit
+        result.errors.find { it.message.startsWith("The hydrated field") }.path == ["foos", 0, "bar"]
+        barCalls == 0
+    }
+
+    def "hydrations stop at the wave after the byte limit is reached"() {
+        given:
+        def nadel = nadel(newResultSizeLimits().maxBytes(130).build())
+
+        when:
+        def result = nadel.execute(newNadelExecutionInput().query('{ foos { bar { name bar { name } } } }').build()).join()
+
+        then:
+        result.data == [foos: [[bar: [name: "One", bar: null]], [bar: [name: "Two", bar: null]], [bar: [name: "Three", bar: null]]]]
+        // the id for the hydration of the last bar is already over the limit
+        result.errors.collect { it.message } == [
+                "The hydrated field was not resolved because the result is over the size limits",
+                "The hydrated field was not resolved because the result is over the size limits",
+                "The result is over the size limits of 9223372036854775807 nodes and 130 bytes, the remaining fields are null"
+        ]
+        barCalls == 1
+    }
+}
@@ -0,0 +1,157 @@
+package graphql.nadel.engine
+
+import graphql.nadel.BatchingServiceExecution
+import graphql.nadel.LocalServiceExecution
+import graphql.nadel.Nadel
+import graphql.nadel.ServiceExecution
+import graphql.nadel.ServiceExecutionParameters
+import graphql.nadel.ServiceExecutionResult
+import graphql.nadel.testutils.TestUtil
+import graphql.schema.DataFetcher
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+
+import static graphql.nadel.Nadel.newNadel
+import static graphql.nadel.NadelExecutionInput.newNadelExecutionInput
+import static graphql.nadel.testutils.TestUtil.typeDefinitions
+import static java.util.concurrent.CompletableFuture.completedFuture
+
+class ServiceCallBatcherTest extends Specification {
+
+    def nsdl = '''
+         service Foo {
+            type Query {
+                foos: [Foo]
+            }
+            type Foo {
+                name: String
+                bar: Bar => hydrated from Bar.barsById(id: $source.barId) object identified by barId, batch size 2
+            }
+         }
+         service Bar {
+            type Query {
+                bar(id: ID): Bar
+            }
+            type Bar {
+                barId: ID
+                name: String
+            }
+         }
+        '''
+    def fooSchema = typeDefinitions('''
+            type Query {
+                foos: [Foo]
+            }
+            type Foo {
+                name: String
+                barId: ID
+            }
+        ''')
+    def barSpec = '''
+            type Query {
+                bar(id: ID): Bar
+                barsById(id: [ID]): [Bar]
+            }
+            type Bar {
+                barId: ID
+                name: String
+            }
+        '''
+
+    def bars = [[barId: "1", name: "One"], [barId: "2", name: "Two"], [barId: "3", name: "Three"]]
+
+    List<Integer> batchSizes = []
+
+    BatchingServiceExecution barServiceExecution() {
+        DataFetcher barFetcher = { env -> bars.find { it.barId == env.getArgument("id") } }
+        DataFetcher barsByIdFetcher = { env -> env.getArgument("id").collect { id -> bars.find { it.barId == id } } }
+        def local = new LocalServiceExecution(TestUtil.schema(barSpec, [Query: [bar: barFetcher, barsById: barsByIdFetcher]]))
+        new BatchingServiceExecution() {
+            @Override
+            CompletableFuture<List<ServiceExecutionResult>> executeBatch(List<ServiceExecutionParameters> parameters) {
+                batchSizes.add(parameters.size())
+                completedFuture(parameters.collect { local.execute(it).join() })
+            }
+        }
+    }
+
+    Nadel nadel(ServiceExecution barServiceExecution) {
+        ServiceExecution fooServiceExecution = { params ->
+            completedFuture(new ServiceExecutionResult([foos: [[name: "a", barId: "1"], [name: "b", barId: "2"], [name: "c", barId: "3"]]]))
+        } as ServiceExecution
+        newNadel()
+                .dsl(nsdl)
+                .serviceExecutionFactory(TestUtil.serviceFactory([
+                        Foo: new Tuple2(fooServiceExecution, fooSchema),
+                        Bar: new Tuple2(barServiceExecution, typeDefinitions(barSpec))]))
+                .build()
+    }
+
+    def "calls for the top level fields of a request are sent together"() {
+        when:
+        def result = nadel(barServiceExecution()).execute(newNadelExecutionInput().query('{ one: bar(id: "1") { name } two: bar(id: "2") { name } }').build()).join()
+
+        then:
+        result.errors.isEmpty()
+        result.data == [one: [name: "One"], two: [name: "Two"]]
+        batchSizes == [2]
+    }
+
+    def "hydration calls of one level are sent together"() {
+        when:
+        def result = nadel(barServiceExecution()).execute(newNadelExecutionInput().query('{ foos { name bar { name } } }').build()).join()
+
+        then:
+        result.errors.isEmpty()
+        result.data == [foos: [[name: "a", bar: [name: "One"]], [name: "b", bar: [name: "Two"]], [name: "c", bar: [name: "Three"]]]]
+        // two hydration batches because of the batch size
+        batchSizes == [2]
+    }
+
+    def "a single call is made with execute"() {
+        when:
+        def result = nadel(barServiceExecution()).execute(newNadelExecutionInput().query('{ bar(id: "3") { name } }').build()).join()
+
+        then:
+        result.data == [bar: [name: "Three"]]
+        // the default execute sends a batch of one
+        batchSizes == [1]
+    }
+
+    def "a failed batch fails all of its calls"() {
+        given:
+        def failing = new BatchingServiceExecution() {
+            @Override
+            CompletableFuture<List<ServiceExecutionResult>> executeBatch(List<ServiceExecutionParameters> parameters) {
+                CompletableFuture.supplyAsync({ throw new RuntimeException("batch failed") })
+            }
+        }
+
+        when:
+        def result = nadel(failing).execute(newNadelExecutionInput().query('{ one: bar(id: "1") { name } two: bar(id: "2") { name } }').build()).join()
+
+        then:
+        result.data == [one: null, two: null]
+        result.errors.size() == 2
+        result.errors.every { it.message.contains("batch failed") }
+    }
+
+    def "results are matched to the calls by position"() {
+        given:
+        def batcher = new ServiceCallBatcher()
+        def serviceExecution = new BatchingServiceExecution() {
+            @Override
+            CompletableFuture<List<ServiceExecutionResult>> executeBatch(List<ServiceExecutionParameters> parameters) {
+                completedFuture([new ServiceExecutionResult([n: 1]), new ServiceExecutionResult([n: 2])])
+            }
+        }
+        def parameters = Mock(ServiceExecutionParameters)
+
+        when:
+        def results = batcher.batchCalls({ [batcher.execute(serviceExecution, parameters), batcher.execute(serviceExecution, parameters)] })
+
+        then:
+        results*.join()*.data == [[n: 1], [n: 2]]
+    }
+}
@@ -0,0 +1,403 @@
+package graphql.nadel.engine
+
+import graphql.GraphQLError
+import graphql.execution.AbortExecutionException
+import graphql.language.Field
+import graphql.nadel.BenchmarkContext
+import graphql.nadel.JsonServiceExecutionResult
+import graphql.nadel.Nadel
+import graphql.nadel.ServiceExecution
+import graphql.nadel.ServiceExecutionResult
+import graphql.nadel.hooks.ServiceExecutionHooks
+import graphql.nadel.result.ExecutionResultNode
+import graphql.nadel.result.ResultNodesUtil
+import graphql.nadel.result.RootExecutionResultNode
+import graphql.nadel.testutils.TestUtil
+import graphql.schema.GraphQLFieldDefinition
+import groovy.json.JsonBuilder
+import spock.lang.Specification
+
+import static graphql.nadel.Nadel.newNadel
+import static graphql.nadel.NadelExecutionInput.newNadelExecutionInput
+import static graphql.nadel.testutils.TestUtil.typeDefinitions
+import static java.util.concurrent.CompletableFuture.completedFuture
+
+class ServiceResultToOverallResultNodesTest extends Specification {
+
+    def nsdl = '''
+         service Pets {
+            type Query {
+                pets: [Pet]
+                owner: Owner
+                ownerById(id: ID): Owner
+            }
+            interface Pet {
+                name: String
+            }
+            type Dog implements Pet {
+                name: String
+                barks: Boolean
+            }
+            type Cat implements Pet {
+                name: String
+                lives: Int!
+            }
+            type Owner => renamed from Person {
+                name: String
+                pet: Pet
+                nicknames: [String]
+                fullName: String => renamed from name
+                aliases: [String] => renamed from nicknames
+                buddy: Pet => renamed from pet
+                friend: Owner => renamed from bestFriend
+                friendName: String => renamed from bestFriend.name
+            }
+         }
+        '''
+    def underlyingSchema = typeDefinitions('''
+            type Query {
+                pets: [Pet]
+                owner: Person
+                ownerById(id: ID): Person
+            }
+            interface Pet {
+                name: String
+            }
+            type Dog implements Pet {
+                name: String
+                barks: Boolean
+            }
+            type Cat implements Pet {
+                name: String
+                lives: Int!
+            }
+            type Person {
+                name: String
+                pet: Pet
+                nicknames: [String]
+                bestFriend: Person
+                friendId: ID
+            }
+        ''')
+
+    static petsQuery = '''
+        {
+            pets {
+                __typename
+                name
+                ... on Dog { barks }
+                ... on Cat { lives nine: lives }
+            }
+        }
+    '''
+    static petsData = [pets: [
+            [__typename: "Dog", name: "Rex", barks: true, typename__UUID: "Dog"],
+            [__typename: "Cat", name: "Tom", lives: null, nine: 9, typename__UUID: "Cat"],
+            null
+    ]]
+
+    static ownerQuery = '''
+        {
+            owner {
+                __typename
+                name
+                nicknames
+                pet { name }
+            }
+        }
+    '''
+    static ownerData = [owner: [__typename: "Person", name: "Ann", nicknames: ["A", null], pet: [name: "Rex", typename__UUID: "Dog"]]]
+
+    static renamesQuery = '''
+        {
+            owner {
+                fullName
+                aliases
+                buddy { name ... on Dog { barks } }
+                friendName
+            }
+        }
+    '''
+    static renamesData = [owner: [
+            name          : "Ann",
+            nicknames     : ["A", null],
+            pet           : [name: "Rex", barks: true, typename__UUID: "Dog"],
+            bestFriend    : [name: "Bob"],
+            typename__UUID: "Person"
+    ]]
+
+    static nestedRenamesQuery = "{ owner { friend { fullName friend { name } } } }"
+    static nestedRenamesData = [owner: [bestFriend: [name: "Bob", bestFriend: [name: "Cid"]]]]
+
+    static aliasedRenamesQuery = "{ o: owner { n: fullName f: friend { fullName } fn: friendName } }"
+    static aliasedRenamesData = [o: [n: "Ann", f: [name: "Bob"], fn: [name: "Cid"]]]
+
+    static missingRenamedPathQuery = "{ owner { friendName fullName } }"
+    static missingRenamedPathData = [owner: [bestFriend: null, name: "Ann"]]
+
+    BenchmarkContext execute(String nsdl, String query, ServiceExecutionResult serviceExecutionResult, ServiceExecutionHooks hooks = new ServiceExecutionHooks() {}) {
+        ServiceExecution serviceExecution = { params -> completedFuture(serviceExecutionResult) } as ServiceExecution
+        Nadel nadel = newNadel()
+                .dsl(nsdl)
+                .serviceExecutionFactory(TestUtil.serviceFactory([Pets: new Tuple2(serviceExecution, underlyingSchema)]))
+                .serviceExecutionHooks(hooks)
+                .build()
+        def benchmarkContext = new BenchmarkContext()
+        nadel.execute(newNadelExecutionInput()
+                .query(query)
+                .context(benchmarkContext)
+                .artificialFieldsUUID("UUID")
+                .build()).join()
+        benchmarkContext
+    }
+
+    RootExecutionResultNode twoPasses(BenchmarkContext benchmarkContext) {
+        def resultToResultNodesArgs = benchmarkContext.serviceResultToResultNodesArgs
+        def args = benchmarkContext.serviceResultNodesToOverallResult
+        def resultNode = new ServiceResultToResultNodes().resultToResultNode(
+                resultToResultNodesArgs.executionContextForService,
+                resultToResultNodesArgs.underlyingRootStepInfo,
+                resultToResultNodesArgs.transformedMergedFields,
+                resultToResultNodesArgs.serviceExecutionResult,
+                resultToResultNodesArgs.elapsedTime,
+                resultToResultNodesArgs.normalizedQuery)
+        new ServiceResultNodesToOverallResult().convert(args.executionId, resultNode, args.overallSchema, resultNode,
+                args.fieldIdToTransformation, args.underlyingToOverallMapping, args.nadelContext, args.transformationMetadata) as RootExecutionResultNode
+    }
+
+    ServiceResultToOverallResultNodes onePassConverter(BenchmarkContext benchmarkContext) {
+        def args = benchmarkContext.serviceResultNodesToOverallResult
+        ServiceResultToOverallResultNodes.forQuery(args.transformationMetadata, args.underlyingToOverallMapping, args.nadelContext)
+    }
+
+    RootExecutionResultNode onePass(BenchmarkContext benchmarkContext) {
+        def resultToResultNodesArgs = benchmarkContext.serviceResultToResultNodesArgs
+        onePassConverter(benchmarkContext).resultToResultNode(
+                resultToResultNodesArgs.executionContextForService,
+                resultToResultNodesArgs.underlyingRootStepInfo,
+                resultToResultNodesArgs.transformedMergedFields,
+                resultToResultNodesArgs.serviceExecutionResult,
+                resultToResultNodesArgs.elapsedTime,
+                resultToResultNodesArgs.normalizedQuery)
+    }
+
+    void assertSameNodes(ExecutionResultNode expected, ExecutionResultNode actual) {
+        assert actual.getClass() == expected.getClass()
+        assert actual.executionPath == expected.executionPath
+        assert actual.alias == expected.alias
+        assert actual.fieldIds == expected.fieldIds
+        assert actual.fieldDefinition.is(expected.fieldDefinition)
+        assert actual.objectType.is(expected.objectType)
+        assert actual.completedValue == expected.completedValue
+        assert actual.errors*.message == expected.errors*.message
+        assert actual.nonNullableFieldWasNullError?.message == expected.nonNullableFieldWasNullError?.message
+        assert actual.children.size() == expected.children.size()
+        for (int i = 0; i < expected.children.size(); i++) {
+            assertSameNodes(expected.children[i], actual.children[i])
+        }
+    }
+
+    def "creates the same overall nodes as converting the underlying nodes"() {
+        given:
+        def benchmarkContext = execute(nsdl, query, new ServiceExecutionResult(data))
+
+        when:
+        def expected = twoPasses(benchmarkContext)
+        def actual = onePass(benchmarkContext)
+
+        then:
+        onePassConverter(benchmarkContext) != null
+        actual.totalNodeCount == expected.totalNodeCount
+        assertSameNodes(expected, actual)
+
+        where:
+        query                   | data
+        petsQuery               | petsData
+        ownerQuery              | ownerData
+    }
+
+    /*
+     * the nodes below renamed nodes differ: ServiceResultNodesToOverallResult keeps the underlying paths there
+     */
+    def "creates the same result for renamed fields as converting the underlying nodes"() {
+        given:
+        def benchmarkContext = execute(nsdl, query, serviceExecutionResult)
+
+        when:
+        def expected = twoPasses(benchmarkContext)
+        def actual = onePass(benchmarkContext)
+
+        then:
+        onePassConverter(benchmarkContext) != null
+        actual.totalNodeCount == expected.totalNodeCount
+        ResultNodesUtil.toExecutionResult(actual).toSpecification() == ResultNodesUtil.toExecutionResult(expected).toSpecification()
+
+        where:
+        query                   | serviceExecutionResult
+        renamesQuery            | new ServiceExecutionResult(renamesData)
+        nestedRenamesQuery      | new ServiceExecutionResult(nestedRenamesData)
+        aliasedRenamesQuery     | new ServiceExecutionResult(aliasedRenamesData)
+        missingRenamedPathQuery | new ServiceExecutionResult(missingRenamedPathData)
+        renamesQuery            | new JsonServiceExecutionResult(new JsonBuilder([data: renamesData]).toString())
+        nestedRenamesQuery      | new JsonServiceExecutionResult(new JsonBuilder([data: nestedRenamesData]).toString())
+        aliasedRenamesQuery     | new JsonServiceExecutionResult(new JsonBuilder([data: aliasedRenamesData]).toString())
+        missingRenamedPathQuery | new JsonServiceExecutionResult(new JsonBuilder([data: missingRenamedPathData]).toString())
+    }
+
+    def "renamed fields and their children get the overall paths"() {
+        given:
+        def benchmarkContext = execute(nsdl, nestedRenamesQuery, new ServiceExecutionResult(nestedRenamesData))
+
+        when:
+        def friend = onePass(benchmarkContext).children[0].children[0]
+
+        then:
+        friend.executionPath.toString() == "/owner/friend"
+        friend.children*.executionPath*.toString() == ["/owner/friend/fullName", "/owner/friend/friend"]
+        friend.children[1].children[0].executionPath.toString() == "/owner/friend/friend/name"
+        friend.children[1].children[0].completedValue == "Cid"
+    }
+
+    def "renamed fields are created in one pass"() {
+        given:
+        def benchmarkContext = execute(nsdl, renamesQuery, new ServiceExecutionResult(renamesData))
+        def converter = onePassConverter(benchmarkContext)
+        def resultToResultNodesArgs = benchmarkContext.serviceResultToResultNodesArgs
+
+        when:
+        def owner = converter.resultToResultNode(
+                resultToResultNodesArgs.executionContextForService,
+                resultToResultNodesArgs.underlyingRootStepInfo,
+                resultToResultNodesArgs.transformedMergedFields,
+                resultToResultNodesArgs.serviceExecutionResult,
+                resultToResultNodesArgs.elapsedTime,
+                resultToResultNodesArgs.normalizedQuery).children[0]
+
+        then:
+        converter.isOverallResult()
+        benchmarkContext.serviceResultNodesToOverallResult.resultNode == null
+        owner.children*.resultKey == ["fullName", "aliases", "buddy", "friendName"]
+        owner.children*.executionPath*.toString() == ["/owner/fullName", "/owner/aliases", "/owner/buddy", "/owner/friendName"]
+        owner.children*.fieldInfo*.fieldDefinition*.name == ["fullName", "aliases", "buddy", "friendName"]
+        owner.children[0].completedValue == "Ann"
+        owner.children[2].children*.resultKey == ["name", "barks"]
+        owner.children[2].children*.executionPath*.toString() == ["/owner/buddy/name", "/owner/buddy/barks"]
+        owner.children[3].completedValue == "Bob"
+    }
+
+    def "removed fields are added in one pass"() {
+        given:
+        def hooks = new ServiceExecutionHooks() {
+            @Override
+            Optional<GraphQLError> isFieldAllowed(Field field, GraphQLFieldDefinition fieldDefinitionOverall, Object userSuppliedContext) {
+                fieldDefinitionOverall.name == "nicknames" ? Optional.of(new AbortExecutionException("removed field")) : Optional.empty()
+            }
+        }
+        def query = "{ owner { name nicknames friend { fullName nicknames } } }"
+        def data = [owner: [name: "Ann", bestFriend: [name: "Bob"]]]
+        def benchmarkContext = execute(nsdl, query, new ServiceExecutionResult(data), hooks)
+
+        when:
+        def expected = twoPasses(benchmarkContext)
+        def actual = onePass(benchmarkContext)
+        def owner = actual.children[0]
+
+        then:
+        onePassConverter(benchmarkContext) != null
+        actual.totalNodeCount == expected.totalNodeCount
+        ResultNodesUtil.toExecutionResult(actual).data == ResultNodesUtil.toExecutionResult(expected).data
+        // ServiceResultNodesToOverallResult adds the removed fields below renamed nodes twice
+        ResultNodesUtil.toExecutionResult(actual).errors*.message == ["removed field", "removed field"]
+        owner.children*.resultKey == ["name", "friend", "nicknames"]
+        owner.children[2].errors*.message == ["removed field"]
+        owner.children[1].children*.resultKey == ["fullName", "nicknames"]
+    }
+
+    def "creates the same overall nodes from a json service result"() {
+        given:
+        def json = new JsonBuilder([data: ownerData, errors: [[message: "problem"]]]).toString()
+        def benchmarkContext = execute(nsdl, ownerQuery, new JsonServiceExecutionResult(json))
+
+        when:
+        def expected = twoPasses(benchmarkContext)
+        def actual = onePass(benchmarkContext)
+
+        then:
+        actual.totalNodeCount == expected.totalNodeCount
+        actual.errors*.message == ["problem"]
+        assertSameNodes(expected, actual)
+    }
+
+    def "renamed types are renamed in __typename values and artificial fields are left out"() {
+        given:
+        def benchmarkContext = execute(nsdl, ownerQuery, new ServiceExecutionResult(ownerData))
+
+        when:
+        def owner = onePass(benchmarkContext).children[0]
+
+        then:
+        owner.objectType.name == "Query"
+        owner.children*.resultKey == ["__typename", "name", "nicknames", "pet"]
+        owner.children[0].completedValue == "Owner"
+        owner.children[3].children*.resultKey == ["name"]
+    }
+
+    def "hydrated queries are not converted in one pass"() {
+        given:
+        def nsdl = '''
+         service Pets {
+            type Query {
+                owner: Owner
+                ownerById(id: ID): Owner
+            }
+            type Owner => renamed from Person {
+                name: String
+                friend: Owner => hydrated from Pets.ownerById(id: $source.friendId)
+            }
+         }
+        '''
+        def benchmarkContext = execute(nsdl, "{ owner { friend { name } } }", new ServiceExecutionResult([owner: [friendId: "2"]]))
+
+        expect:
+        onePassConverter(benchmarkContext) == null
+    }
+
+    def "a field merging different renames is converted in a second pass"() {
+        given:
+        def nsdl = '''
+         service Pets {
+            type Query {
+                owner: Owner
+            }
+            type Owner => renamed from Person {
+                friendName: String => renamed from bestFriend.name
+                buddyName: String => renamed from bestFriend.name
+            }
+         }
+        '''
+        def data = [owner: [bestFriend: [name: "Bob"]]]
+        def benchmarkContext = execute(nsdl, "{ owner { friendName buddyName } }", new ServiceExecutionResult(data))
+
+        when:
+        def converter = onePassConverter(benchmarkContext)
+        def expected = new ServiceResultToResultNodes().resultToResultNode(
+                benchmarkContext.serviceResultToResultNodesArgs.executionContextForService,
+                benchmarkContext.serviceResultToResultNodesArgs.underlyingRootStepInfo,
+                benchmarkContext.serviceResultToResultNodesArgs.transformedMergedFields,
+                benchmarkContext.serviceResultToResultNodesArgs.serviceExecutionResult,
+                benchmarkContext.serviceResultToResultNodesArgs.elapsedTime,
+                benchmarkContext.serviceResultToResultNodesArgs.normalizedQuery)
+        def actual = converter.resultToResultNode(
+                benchmarkContext.serviceResultToResultNodesArgs.executionContextForService,
+                benchmarkContext.serviceResultToResultNodesArgs.underlyingRootStepInfo,
+                benchmarkContext.serviceResultToResultNodesArgs.transformedMergedFields,
+                benchmarkContext.serviceResultToResultNodesArgs.serviceExecutionResult,
+                benchmarkContext.serviceResultToResultNodesArgs.elapsedTime,
+                benchmarkContext.serviceResultToResultNodesArgs.normalizedQuery)
+
+        then:
+        !converter.isOverallResult()
+        assertSameNodes(expected, actual)
+        benchmarkContext.serviceResultNodesToOverallResult.resultNode != null
+    }
+}
@@ -2,6 +2,7 @@ package graphql.nadel.engine
 
 import graphql.execution.ExecutionContext
 import graphql.execution.nextgen.FieldSubSelection
+import graphql.nadel.JsonServiceExecutionResult
 import graphql.nadel.ServiceExecutionResult
 import graphql.nadel.result.ElapsedTime
 import graphql.nadel.result.ResultNodesUtil
@@ -68,6 +69,88 @@ class ServiceResultToResultNodesTest extends Specification {
         executionResult.data == data
     }
 
+    def "nodes of the same field share their field info"() {
+
+        def data = ["foos": [["id": "1", "tags": ["a", "b"]], ["id": "2", "tags": []]]]
+        def schema = TestUtil.schema("""
+        type Query{ 
+            foos: [Foo]
+        }
+        type Foo {
+            id: ID
+            tags: [String]
+        }
+        """)
+        def query = TestUtil.parseQuery("{foos {id tags}}")
+        def normalizedQuery = TestUtil.createNormalizedQuery(schema, query)
+
+        FieldSubSelection fieldSubSelection
+        ExecutionContext executionContext
+        (executionContext, fieldSubSelection) = TestUtil.executionData(schema, query)
+
+        ServiceResultToResultNodes resultToNodes = new ServiceResultToResultNodes()
+        ServiceExecutionResult delegatedResult = new ServiceExecutionResult(data)
+
+        when:
+        def node = resultToNodes.resultToResultNode(executionContext,
+                fieldSubSelection.getExecutionStepInfo(),
+                fieldSubSelection.getMergedSelectionSet().getSubFieldsList(),
+                delegatedResult,
+                elapsedTime,
+                normalizedQuery
+        )
+        def foos = node.children[0]
+        def foo1 = foos.children[0]
+        def foo2 = foos.children[1]
+
+        then:
+        foo1.fieldInfo.is(foos.fieldInfo)
+        foo2.fieldInfo.is(foos.fieldInfo)
+        foo1.children[0].fieldInfo.is(foo2.children[0].fieldInfo)
+        foo1.children[1].children[0].fieldInfo.is(foo2.children[1].fieldInfo)
+        foo1.children[0].errors.is(foo2.children[0].errors)
+        ResultNodesUtil.toExecutionResult(node).data == data
+    }
+
+    def "object and list nodes don't keep the raw service values"() {
+
+        def data = ["foos": [["id": "1"], ["id": "2"]]]
+        def schema = TestUtil.schema("""
+        type Query{ 
+            foos: [Foo]
+        }
+        type Foo {
+            id: ID
+        }
+        """)
+        def query = TestUtil.parseQuery("{foos {id}}")
+        def normalizedQuery = TestUtil.createNormalizedQuery(schema, query)
+
+        FieldSubSelection fieldSubSelection
+        ExecutionContext executionContext
+        (executionContext, fieldSubSelection) = TestUtil.executionData(schema, query)
+
+        ServiceResultToResultNodes resultToNodes = new ServiceResultToResultNodes()
+        ServiceExecutionResult delegatedResult = new ServiceExecutionResult(data)
+
+        when:
+        def node = resultToNodes.resultToResultNode(executionContext,
+                fieldSubSelection.getExecutionStepInfo(),
+                fieldSubSelection.getMergedSelectionSet().getSubFieldsList(),
+                delegatedResult,
+                elapsedTime,
+                normalizedQuery
+        )
+        def foos = node.children[0]
+
+        then:
+        foos.completedValue.is(ServiceResultToResultNodes.VALUE_IN_CHILDREN)
+        foos.children.every { it.completedValue.is(ServiceResultToResultNodes.VALUE_IN_CHILDREN) }
+        !foos.nullValue
+        foos.children[1].children[0].completedValue == "2"
+        ResultNodesUtil.toExecutionResult(node).data == data
+    }
+
     def "bigger query"() {
 
         def data = ["foo": ["bar": ["name": "myName", "id": "myId"]], "foo2": ["bar": ["name": "myName2", "id": "myId2"]]]
@@ -235,5 +318,75 @@ class ServiceResultToResultNodesTest extends Specification {
 
     }
 
+    def "raw json result creates the same result as the map result"() {
+        def schema = TestUtil.schema("""
+        type Query{ 
+            foos: [Foo]
+            foo: Foo
+            matrix: [[Int]]
+            count: Int
+        }
+        type Foo {
+            id: ID!
+            name: String
+            kind: Kind
+            bars: [Bar!]
+            score: Float
+        }
+        type Bar {
+            name: String
+        }
+        enum Kind {
+            A
+            B
+        }
+        """)
+        def query = TestUtil.parseQuery("""
+        {
+            foos { id name kind bars { name } score }
+            foo { id renamed: name }
+            matrix
+            count
+        }
+        """)
+        def normalizedQuery = TestUtil.createNormalizedQuery(schema, query)
+        FieldSubSelection fieldSubSelection
+        ExecutionContext executionContext
+        (executionContext, fieldSubSelection) = TestUtil.executionData(schema, query)
+
+        ServiceResultToResultNodes resultToNodes = new ServiceResultToResultNodes()
 
+        when:
+        def mapNode = resultToNodes.resultToResultNode(executionContext,
+                fieldSubSelection.getExecutionStepInfo(),
+                fieldSubSelection.getMergedSelectionSet().getSubFieldsList(),
+                new JsonServiceExecutionResult(json).with { new ServiceExecutionResult(data, errors, extensions) },
+                elapsedTime,
+                normalizedQuery
+        )
+        def jsonNode = resultToNodes.resultToResultNode(executionContext,
+                fieldSubSelection.getExecutionStepInfo(),
+                fieldSubSelection.getMergedSelectionSet().getSubFieldsList(),
+                new JsonServiceExecutionResult(json),
+                elapsedTime,
+                normalizedQuery
+        )
+        def mapResult = ResultNodesUtil.toExecutionResult(mapNode)
+        def jsonResult = ResultNodesUtil.toExecutionResult(jsonNode)
+
+        then:
+        jsonResult.data == mapResult.data
+        jsonResult.errors*.message == mapResult.errors*.message
+        jsonResult.extensions == mapResult.extensions
+        jsonNode.getTotalNodeCount() == mapNode.getTotalNodeCount()
+
+        where:
+        json << [
+                '''{"data":{"foos":[{"id":"1","name":"a \\"quoted\\" \\u00e9","kind":"A","bars":[{"name":"x"},{"name":null}],"score":1.5}],"foo":{"renamed":"r","id":"2"},"matrix":[[1,2],[3000000000]],"count":-3}}''',
+                '''{"errors":[{"message":"boom","path":["foo"]}],"data":{"foos":null,"foo":null,"matrix":null,"count":null},"extensions":{"cost":7}}''',
+                '''{"data":{"foos":[{"id":null,"name":"a","unknown":{"nested":[1,true,null]}}],"foo":{"id":"2","renamed":"r"}}}''',
+                '''{"data":{"foos":[{"id":"1","bars":[null]}],"foo":{"id":"1","renamed":5},"count":"wrong","matrix":7}}''',
+                '''{"data":null,"errors":[{"message":"all gone"}]}''',
+        ]
+    }
 }
@@ -0,0 +1,137 @@
+package graphql.nadel.engine
+
+import graphql.nadel.Nadel
+import graphql.nadel.ServiceExecution
+import graphql.nadel.ServiceExecutionResult
+import graphql.nadel.hooks.ServiceExecutionHooks
+import graphql.nadel.hooks.TopLevelFieldCacheParams
+import graphql.nadel.result.RootExecutionResultNode
+import graphql.nadel.testutils.TestUtil
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.function.LongSupplier
+
+import static graphql.nadel.Nadel.newNadel
+import static graphql.nadel.NadelExecutionInput.newNadelExecutionInput
+import static graphql.nadel.testutils.TestUtil.typeDefinitions
+import static java.util.concurrent.CompletableFuture.completedFuture
+
+class TopLevelFieldCacheTest extends Specification {
+
+    def nsdl = '''
+         service Config {
+            type Query {
+                flag(name: String): Flag
+            }
+            type Flag {
+                enabled: Boolean
+            }
+         }
+         service Users {
+            type Query {
+                me: User
+            }
+            type User {
+                name: String
+            }
+         }
+        '''
+    def configSchema = typeDefinitions('''
+            type Query {
+                flag(name: String): Flag
+            }
+            type Flag {
+                enabled: Boolean
+            }
+        ''')
+    def usersSchema = typeDefinitions('''
+            type Query {
+                me: User
+            }
+            type User {
+                name: String
+            }
+        ''')
+
+    int configCalls = 0
+    int usersCalls = 0
+
+    def hooks = new ServiceExecutionHooks() {
+        @Override
+        Optional<Object> getTopLevelFieldCachePartition(TopLevelFieldCacheParams params) {
+            // flags are the same for everybody
+            params.service.name == "Config" ? Optional.of("everybody") : Optional.empty()
+        }
+    }
+
+    Nadel nadel() {
+        ServiceExecution configExecution = { params ->
+            configCalls++
+            completedFuture(new ServiceExecutionResult([flag: [enabled: true]]))
+        } as ServiceExecution
+        ServiceExecution usersExecution = { params ->
+            usersCalls++
+            completedFuture(new ServiceExecutionResult([me: [name: params.context.user]]))
+        } as ServiceExecution
+        newNadel()
+                .dsl(nsdl)
+                .serviceExecutionFactory(TestUtil.serviceFactory([
+                        Config: new Tuple2(configExecution, configSchema),
+                        Users : new Tuple2(usersExecution, usersSchema)]))
+                .serviceExecutionHooks(hooks)
+                .topLevelFieldCache(100, Duration.ofMinutes(1))
+                .build()
+    }
+
+    def execute(Nadel nadel, String query, String user, Map variables = [:]) {
+        nadel.execute(newNadelExecutionInput().query(query).variables(variables).context([user: user]).build()).join()
+    }
+
+    def "fields with a partition are served from the cache"() {
+        given:
+        def nadel = nadel()
+        def query = '{ flag(name: "dark-mode") { enabled } me { name } }'
+
+        when:
+        def first = execute(nadel, query, "a")
+        def second = execute(nadel, query, "b")
+
+        then:
+        first.data == [flag: [enabled: true], me: [name: "a"]]
+        second.data == [flag: [enabled: true], me: [name: "b"]]
+        configCalls == 1
+        usersCalls == 2
+    }
+
+    def "fields with different argument values are cached separately"() {
+        given:
+        def nadel = nadel()
+        def query = 'query Flag($name: String) { flag(name: $name) { enabled } }'
+
+        when:
+        execute(nadel, query, "a", [name: "dark-mode"])
+        execute(nadel, query, "a", [name: "dark-mode"])
+        execute(nadel, query, "a", [name: "beta"])
+
+        then:
+        configCalls == 2
+    }
+
+    def "cached fields expire after the max age"() {
+        given:
+        long now = 0
+        def cache = new TopLevelFieldCache(10, Duration.ofSeconds(5), { now } as LongSupplier)
+        def resultNode = RootExecutionResultNode.newRootExecutionResultNode().build()
+        cache.put("key", resultNode)
+
+        expect:
+        cache.get("key").is(resultNode)
+
+        when:
+        now = Duration.ofSeconds(5).toNanos()
+
+        then:
+        cache.get("key") == null
+    }
+}
@@ -0,0 +1,95 @@
+package graphql.nadel.engine
+
+import graphql.nadel.Nadel
+import graphql.nadel.ServiceExecution
+import graphql.nadel.testutils.TestUtil
+import spock.lang.Specification
+
+import static graphql.nadel.Nadel.newNadel
+import static graphql.nadel.testutils.TestUtil.typeDefinitions
+
+class UnderlyingToOverallMappingTest extends Specification {
+
+    def nsdl = '''
+         common {
+            type Address => renamed from Location {
+                street: String
+            }
+         }
+         service Owners {
+            type Query {
+                owner: Owner
+            }
+            type Owner => renamed from Person {
+                name: String
+                address: Address
+            }
+         }
+         service People {
+            type Query {
+                person: Person
+            }
+            type Person {
+                name: String
+            }
+         }
+        '''
+
+    def ownersSchema = typeDefinitions('''
+            type Query {
+                owner: Person
+            }
+            type Person {
+                name: String
+                address: Location
+            }
+            type Location {
+                street: String
+            }
+        ''')
+    def peopleSchema = typeDefinitions('''
+            type Query {
+                person: Person
+            }
+            type Person {
+                name: String
+            }
+        ''')
+
+    Nadel nadel = newNadel()
+            .dsl(nsdl)
+            .serviceExecutionFactory(TestUtil.serviceFactory([
+                    Owners: new Tuple2(Mock(ServiceExecution), ownersSchema),
+                    People: new Tuple2(Mock(ServiceExecution), peopleSchema)]))
+            .build()
+
+    def mappings = UnderlyingToOverallMapping.forServices(nadel.services, nadel.overallSchema)
+
+    def underlyingType(String serviceName, String typeName) {
+        nadel.services.find { it.name == serviceName }.underlyingSchema.getObjectType(typeName)
+    }
+
+    def "types are renamed per service"() {
+        expect:
+        mappings["Owners"].getOverallTypeName("Person") == "Owner"
+        mappings["Owners"].getOverallTypeName("Location") == "Address"
+        mappings["Owners"].getOverallTypeName("Query") == "Query"
+        mappings["People"].getOverallTypeName("Person") == "Person"
+    }
+
+    def "maps underlying object types and fields to the overall schema"() {
+        given:
+        def mapping = mappings["Owners"]
+        def person = underlyingType("Owners", "Person")
+
+        when:
+        def overallType = mapping.getOverallObjectType(person)
+        def fieldDefinition = mapping.getOverallFieldDefinition(person, overallType, "address")
+
+        then:
+        overallType.is(nadel.overallSchema.getObjectType("Owner"))
+        fieldDefinition.is(nadel.overallSchema.getObjectType("Owner").getFieldDefinition("address"))
+        mapping.getOverallFieldDefinition(person, overallType, "__typename").name == "__typename"
+        mappings["People"].getOverallObjectType(underlyingType("People", "Person")).is(nadel.overallSchema.getObjectType("Person"))
+    }
+}
@@ -0,0 +1,102 @@
+package graphql.nadel.engine.transformation
+
+import graphql.AssertException
+import graphql.nadel.DefinitionRegistry
+import graphql.nadel.Service
+import graphql.nadel.ServiceExecution
+import graphql.nadel.dsl.ExtendedFieldDefinition
+import graphql.nadel.dsl.ServiceDefinition
+import graphql.nadel.testutils.TestUtil
+import graphql.schema.GraphQLSchema
+import spock.lang.Specification
+
+class HydrationDescriptorsTest extends Specification {
+
+    def issueSchema = TestUtil.schema("""
+        type Query {
+            issues : [Issue]
+        }
+        type Issue {
+            id: ID
+            authorIds: [ID]
+            ownerId: ID
+        }
+        """)
+    def userServiceSchema = TestUtil.schema("""
+        type Query {
+            usersByIds(id: [ID], active: Boolean): [User]
+            userById(id: ID): User
+        }
+        type User {
+            id: ID
+        }
+        """)
+
+    def overallSchema = TestUtil.schemaFromNdsl('''
+        service Issues {
+            type Query {
+                issues: [Issue]
+            }
+            type Issue {
+                id: ID
+                authors(active: Boolean): [User] => hydrated from UserService.usersByIds(id: $source.authorIds, active: $argument.active) object identified by id
+                reviewers: [User] => hydrated from UserService.usersByIds(id: $source.authorIds) object identified by id, batch size 2
+                owner: User => hydrated from UserService.userById(id: $source.ownerId)
+            }
+        }
+        service UserService {
+            type Query {
+                usersByIds(id: [ID], active: Boolean): [User] default batch size 3
+                userById(id: ID): User
+            }
+            type User {
+                id: ID
+            }
+        }
+        ''')
+
+    def userService = new Service("UserService", userServiceSchema, Mock(ServiceExecution), ServiceDefinition.newServiceDefinition().build(), Mock(DefinitionRegistry))
+    def issueService = new Service("Issues", issueSchema, Mock(ServiceExecution), ServiceDefinition.newServiceDefinition().build(), Mock(DefinitionRegistry))
+
+    def hydration(GraphQLSchema schema, String fieldName) {
+        def definition = schema.getObjectType("Issue").getFieldDefinition(fieldName).definition as ExtendedFieldDefinition
+        definition.fieldTransformation.underlyingServiceHydration
+    }
+
+    def "hydrations are compiled when built"() {
+        given:
+        def descriptors = HydrationDescriptors.compile([issueService, userService], overallSchema)
+
+        when:
+        def authors = descriptors.getDescriptor(hydration(overallSchema, "authors"))
+        def reviewers = descriptors.getDescriptor(hydration(overallSchema, "reviewers"))
+        def owner = descriptors.getDescriptor(hydration(overallSchema, "owner"))
+
+        then:
+        authors.is(descriptors.getDescriptor(hydration(overallSchema, "authors")))
+        authors.service.is(userService)
+        authors.batched
+        authors.batchSize == 3
+        authors.sourceArgument.name == "id"
+        authors.sourceArgument.remoteArgumentSource.path == ["authorIds"]
+        authors.fieldArguments*.name == ["active"]
+
+        reviewers.batched
+        reviewers.batchSize == 2
+
+        !owner.batched
+        owner.batchSize == null
+        owner.topLevelField == "userById"
+    }
+
+    def "the service of a hydration has to exist when it is called"() {
+        given:
+        def descriptors = HydrationDescriptors.compile([issueService], overallSchema)
+
+        when:
+        descriptors.getDescriptor(hydration(overallSchema, "owner")).service
+
+        then:
+        thrown(AssertException)
+    }
+}
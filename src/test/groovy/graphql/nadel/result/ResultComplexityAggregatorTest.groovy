@@ -3,6 +3,9 @@ package graphql.nadel.result
 
 import spock.lang.Specification
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+
 class ResultComplexityAggregatorTest extends Specification {
     def resultComplexityAggregator = new ResultComplexityAggregator();
 
@@ -81,6 +84,70 @@ class ResultComplexityAggregatorTest extends Specification {
         complexityMap == [totalNodeCount:24, serviceNodeCounts:[service1:14, service2:10]]
     }
 
+    def "test field and hydration counts"() {
+        when:
+        resultComplexityAggregator.incrementServiceNodeCount("service1", 3)
+        resultComplexityAggregator.incrementFieldNodeCount("issues", 3)
+        resultComplexityAggregator.incrementServiceNodeCount("service2", 5)
+        resultComplexityAggregator.incrementHydrationNodeCount("Issue.assignee", 5)
+        resultComplexityAggregator.incrementServiceNodeCount("service2", 2)
+        resultComplexityAggregator.incrementHydrationNodeCount("Issue.assignee", 2)
+
+        then:
+        resultComplexityAggregator.getNodeCountsForField("issues") == 3
+        resultComplexityAggregator.getNodeCountsForHydration("Issue.assignee") == 7
+        resultComplexityAggregator.getNodeCountsForHydration("Issue.reporter") == 0
+        resultComplexityAggregator.snapshotResultComplexityData() == [
+                totalNodeCount   : 10,
+                serviceNodeCounts: [service1: 3, service2: 7]
+        ]
+        resultComplexityAggregator.snapshotResultComplexityDetails() == [
+                fieldNodeCounts    : [issues: 3],
+                hydrationNodeCounts: ["Issue.assignee": 7],
+                serviceCalls       : [:]
+        ]
+    }
+
+    def "test service calls"() {
+        when:
+        resultComplexityAggregator.recordServiceCall("service1", 100, 2000)
+        resultComplexityAggregator.recordServiceCall("service1", 50, 5000)
+        resultComplexityAggregator.recordServiceCall("service2", 0, 1000)
+
+        then:
+        resultComplexityAggregator.snapshotServiceCallData() == [
+                service1: [calls: 2L, bytes: 150L, totalNanos: 7000L, maxNanos: 5000L],
+                service2: [calls: 1L, bytes: 0L, totalNanos: 1000L, maxNanos: 1000L]
+        ]
+    }
+
+    def "test counts added from many threads at the same time"() {
+        given:
+        def pool = Executors.newFixedThreadPool(8)
+        def start = new CountDownLatch(1)
+
+        when:
+        def futures = (0..<8).collect { thread ->
+            pool.submit {
+                start.await()
+                1000.times {
+                    resultComplexityAggregator.incrementServiceNodeCount("service" + (thread % 2), 1)
+                    resultComplexityAggregator.incrementFieldNodeCount("field", 1)
+                    resultComplexityAggregator.recordServiceCall("service" + (thread % 2), 1, 1)
+                }
+            }
+        }
+        start.countDown()
+        futures*.get()
+        pool.shutdown()
+
+        then:
+        resultComplexityAggregator.getTotalNodeCount() == 8000
+        resultComplexityAggregator.getServiceNodeCounts() == [service0: 4000, service1: 4000]
+        resultComplexityAggregator.getNodeCountsForField("field") == 8000
+        resultComplexityAggregator.snapshotServiceCallData().service0.calls == 4000L
+    }
+
 
 
 
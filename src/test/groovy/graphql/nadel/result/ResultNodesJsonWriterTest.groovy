@@ -0,0 +1,172 @@
+package graphql.nadel.result
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import graphql.ExecutionResultImpl
+import graphql.GraphqlErrorException
+import graphql.execution.instrumentation.SimpleInstrumentationContext
+import graphql.nadel.Nadel
+import graphql.nadel.ServiceExecution
+import graphql.nadel.ServiceExecutionFactory
+import graphql.nadel.ServiceExecutionResult
+import graphql.nadel.testutils.TestUtil
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import static graphql.nadel.Nadel.newNadel
+import static graphql.nadel.NadelExecutionInput.newNadelExecutionInput
+import static graphql.nadel.testutils.TestUtil.typeDefinitions
+import static java.util.concurrent.CompletableFuture.completedFuture
+
+class ResultNodesJsonWriterTest extends Specification {
+
+    def nsdl = '''
+         service Foo {
+            type Query {
+                foos: [Foo]
+                foo: Foo
+            }
+            type Foo {
+                id: ID!
+                name: String
+                count: Int
+                tags: [String]
+            }
+         }
+        '''
+    def underlyingSchema = typeDefinitions('''
+            type Query {
+                foos: [Foo]
+                foo: Foo
+            }
+            type Foo {
+                id: ID!
+                name: String
+                count: Int
+                tags: [String]
+            }
+        ''')
+
+    def objectMapper = new ObjectMapper()
+
+    Nadel nadel(ServiceExecution serviceExecution) {
+        ServiceExecutionFactory serviceFactory = TestUtil.serviceFactory([
+                Foo: new Tuple2(serviceExecution, underlyingSchema)]
+        )
+        newNadel()
+                .dsl(nsdl)
+                .serviceExecutionFactory(serviceFactory)
+                .build()
+    }
+
+    String write(def executionResult) {
+        def out = new ByteArrayOutputStream()
+        new ResultNodesJsonWriter().write(executionResult, out)
+        out.toString("UTF-8")
+    }
+
+    def "writes the same json as the specification of the result"() {
+        given:
+        ServiceExecution serviceExecution = Mock(ServiceExecution)
+        def data = [foos: [
+                [id: "1", name: "quote \" backslash \\ newline \n tab \t", count: 3, tags: ["a", null]],
+                [id: "2", name: null, count: -7, tags: null]
+        ]]
+        def error = GraphqlErrorException.newErrorException().message("downstream problem").build()
+        serviceExecution.execute(_) >> completedFuture(new ServiceExecutionResult(data, [error.toSpecification()]))
+
+        when:
+        def result = nadel(serviceExecution).execute(newNadelExecutionInput()
+                .query("{ foos { id name count tags } }")
+                .build()).join()
+        def json = write(result)
+
+        then:
+        result instanceof ResultNodesExecutionResult
+        objectMapper.readValue(json, Map) == result.toSpecification()
+        json.startsWith('{"errors":[')
+    }
+
+    def "non null fields which are null are propagated to the parent"() {
+        given:
+        ServiceExecution serviceExecution = Mock(ServiceExecution)
+        serviceExecution.execute(_) >> completedFuture(new ServiceExecutionResult([foo: [id: null, name: "name"]]))
+
+        when:
+        def result = nadel(serviceExecution).execute(newNadelExecutionInput()
+                .query("{ foo { id name } }")
+                .build()).join()
+        def json = write(result)
+        def writtenResult = objectMapper.readValue(json, Map)
+
+        then:
+        writtenResult.data == [foo: null]
+        writtenResult.errors.size() == 1
+        writtenResult == result.toSpecification()
+        result.errors.size() == 1
+    }
+
+    def "results not created by nadel are written from their specification"() {
+        given:
+        def result = ExecutionResultImpl.newExecutionResult().data([hello: "world", list: [1, 2.5, true]]).build()
+
+        when:
+        def json = write(result)
+
+        then:
+        json == '{"data":{"hello":"world","list":[1,2.5,true]}}'
+    }
+
+    def "values which are not json fail instead of being written as strings"() {
+        given:
+        def result = ExecutionResultImpl.newExecutionResult().data([hello: "world"]).extensions(extensions).build()
+
+        when:
+        write(result)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Can't write a value of type java.util.UUID as JSON: 6f0e5a4e-21a4-4f2a-9a55-0c43b5b1e4a1"
+
+        where:
+        extensions << [
+                [id: UUID.fromString("6f0e5a4e-21a4-4f2a-9a55-0c43b5b1e4a1")],
+                [ids: [UUID.fromString("6f0e5a4e-21a4-4f2a-9a55-0c43b5b1e4a1")]],
+        ]
+    }
+
+    def "the data of a result read by several threads at once is only created once"() {
+        given:
+        ServiceExecution serviceExecution = Mock(ServiceExecution)
+        serviceExecution.execute(_) >> completedFuture(new ServiceExecutionResult([foos: [[id: "1", name: "one"]]]))
+        def nadelResult = nadel(serviceExecution).execute(newNadelExecutionInput()
+                .query("{ foos { id name } }")
+                .build()).join() as ResultNodesExecutionResult
+        def creations = new AtomicInteger()
+        def result = new ResultNodesExecutionResult(nadelResult.rootResultNode, {
+            creations.incrementAndGet()
+            SimpleInstrumentationContext.noOp()
+        })
+        def start = new CountDownLatch(1)
+        def executor = Executors.newFixedThreadPool(8)
+
+        when:
+        def reads = (1..8).collect {
+            executor.submit({
+                start.await()
+                result.getData()
+            } as Callable)
+        }
+        start.countDown()
+        def data = reads.collect { it.get(5, TimeUnit.SECONDS) }
+        executor.shutdown()
+
+        then:
+        creations.get() == 1
+        data.every { it == [foos: [[id: "1", name: "one"]]] }
+    }
+}
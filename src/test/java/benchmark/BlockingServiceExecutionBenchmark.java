@@ -0,0 +1,99 @@
+package benchmark;
+
+import graphql.language.Document;
+import graphql.language.OperationDefinition;
+import graphql.nadel.BlockingServiceExecution;
+import graphql.nadel.ServiceExecution;
+import graphql.nadel.ServiceExecutionParameters;
+import graphql.nadel.ServiceExecutionResult;
+import graphql.parser.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static graphql.nadel.ServiceExecutionParameters.newServiceExecutionParameters;
+
+/**
+ * Measures how long it takes until 10k concurrent service calls, which each block for 10 ms, are all answered.
+ * <p>
+ * "default" is {@link BlockingServiceExecution#blocking(BlockingServiceExecution.BlockingCall)}, which uses virtual threads
+ * when the benchmark runs on Java 21 or later, "pool" is a pool with {@link BlockingServiceExecution#DEFAULT_MAX_POOL_THREADS} threads.
+ */
+public class BlockingServiceExecutionBenchmark {
+
+    private static final int CONCURRENT_CALLS = 10_000;
+    private static final long CALL_MILLIS = 10;
+
+    @State(Scope.Benchmark)
+    public static class BlockingService {
+        @Param({"default", "pool"})
+        String executor;
+
+        ExecutorService pool;
+        ServiceExecution serviceExecution;
+        ServiceExecutionParameters parameters;
+
+        @Setup
+        public void setup() {
+            Document query = new Parser().parseDocument("query { hello }");
+            parameters = newServiceExecutionParameters()
+                    .query(query)
+                    .operationDefinition((OperationDefinition) query.getDefinitions().get(0))
+                    .build();
+            ServiceExecutionResult result = new ServiceExecutionResult(Collections.singletonMap("hello", "world"));
+            BlockingServiceExecution.BlockingCall slowCall = serviceExecutionParameters -> {
+                Thread.sleep(CALL_MILLIS);
+                return result;
+            };
+            if (executor.equals("default")) {
+                serviceExecution = BlockingServiceExecution.blocking(slowCall);
+            } else {
+                pool = BlockingServiceExecution.newBoundedPool(BlockingServiceExecution.DEFAULT_MAX_POOL_THREADS);
+                serviceExecution = new BlockingServiceExecution(slowCall, pool);
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Benchmark
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    @Fork(1)
+    @Threads(1)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<ServiceExecutionResult> benchMarkConcurrentSlowCalls(BlockingService blockingService) {
+        List<CompletableFuture<ServiceExecutionResult>> futures = new ArrayList<>(CONCURRENT_CALLS);
+        for (int i = 0; i < CONCURRENT_CALLS; i++) {
+            futures.add(blockingService.serviceExecution.execute(blockingService.parameters));
+        }
+        List<ServiceExecutionResult> results = new ArrayList<>(CONCURRENT_CALLS);
+        for (CompletableFuture<ServiceExecutionResult> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+}
@@ -101,7 +101,7 @@ public class ExecutionStrategyBenchmark {
     @OutputTimeUnit(TimeUnit.MILLISECONDS)
     public ExecutionResultNode benchMarkAvgTime(NadelInstance nadelInstance) throws ExecutionException, InterruptedException {
         BenchmarkContext.NadelExecutionStrategyArgs args = nadelInstance.benchmarkContext.nadelExecutionStrategyArgs;
-        NadelExecutionStrategy nadelExecutionStrategy = new NadelExecutionStrategy(args.services, args.fieldInfos, args.overallSchema, args.instrumentation, args.serviceExecutionHooks);
+        NadelExecutionStrategy nadelExecutionStrategy = new NadelExecutionStrategy(args.services, args.fieldInfos, args.overallSchema, args.instrumentation, args.serviceExecutionHooks, args.underlyingToOverallMappings, args.hydrationDescriptors);
         return nadelExecutionStrategy.execute(args.executionContext, args.fieldSubSelection, args.resultComplexityAggregator).get();
     }
 
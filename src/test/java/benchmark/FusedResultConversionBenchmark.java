@@ -0,0 +1,146 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import graphql.nadel.BenchmarkContext;
+import graphql.nadel.Nadel;
+import graphql.nadel.NadelExecutionInput;
+import graphql.nadel.ServiceExecution;
+import graphql.nadel.ServiceExecutionFactory;
+import graphql.nadel.ServiceExecutionResult;
+import graphql.nadel.engine.ServiceResultNodesToOverallResult;
+import graphql.nadel.engine.ServiceResultToOverallResultNodes;
+import graphql.nadel.engine.ServiceResultToResultNodes;
+import graphql.nadel.result.ExecutionResultNode;
+import graphql.nadel.result.RootExecutionResultNode;
+import graphql.schema.idl.SchemaParser;
+import graphql.schema.idl.TypeDefinitionRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares creating the overall result nodes of the large service result in one pass with creating the underlying
+ * result nodes and converting them, which is what {@link ServiceResultToResultNodesBenchmark} and
+ * {@link ServiceResultNodesToOverallBenchmark} measure separately.
+ */
+public class FusedResultConversionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class NadelInstance {
+        BenchmarkContext benchmarkContext;
+
+        // renaming ActivityItem.timestamp means every item has a transformation to unapply in the second pass, the one
+        // pass conversion plans it once for the query
+        @Param({"true", "false"})
+        boolean renameFree;
+
+        ServiceResultToResultNodes serviceResultToResultNodes = new ServiceResultToResultNodes();
+        ServiceResultNodesToOverallResult serviceResultNodesToOverallResult = new ServiceResultNodesToOverallResult();
+
+        @Setup
+        @SuppressWarnings("unchecked")
+        public void setup() throws IOException, ExecutionException, InterruptedException {
+            ObjectMapper objectMapper = new ObjectMapper();
+            String schemaString = readFromClasspath("large_response_benchmark_schema.graphqls");
+            TypeDefinitionRegistry typeDefinitionRegistry = new SchemaParser().parse(schemaString);
+
+            Map<String, Object> responseMap = objectMapper.readValue(readFromClasspath("large_underlying_service_result.json"), Map.class);
+            ServiceExecutionResult serviceExecutionResult = new ServiceExecutionResult((Map<String, Object>) responseMap.get("data"));
+            ServiceExecutionFactory serviceExecutionFactory = new ServiceExecutionFactory() {
+                @Override
+                public ServiceExecution getServiceExecution(String serviceName) {
+                    return serviceExecutionParameters -> CompletableFuture.completedFuture(serviceExecutionResult);
+                }
+
+                @Override
+                public TypeDefinitionRegistry getUnderlyingTypeDefinitions(String serviceName) {
+                    return typeDefinitionRegistry;
+                }
+            };
+            String overallSchemaString = renameFree ? schemaString
+                    : schemaString.replace("    timestamp: String\n", "    timestamp: String => renamed from timestamp\n");
+            String nsdl = "service activity{" + overallSchemaString + "}";
+            Nadel nadel = Nadel.newNadel().dsl(nsdl).serviceExecutionFactory(serviceExecutionFactory).build();
+            benchmarkContext = new BenchmarkContext();
+            NadelExecutionInput nadelExecutionInput = NadelExecutionInput.newNadelExecutionInput()
+                    .context(benchmarkContext)
+                    .query(readFromClasspath("large_response_benchmark_query.graphql"))
+                    .build();
+            nadel.execute(nadelExecutionInput).get();
+        }
+
+        private String readFromClasspath(String file) throws IOException {
+            URL url = Resources.getResource(file);
+            return Resources.toString(url, Charsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3, time = 10)
+    @Fork(3)
+    @Threads(1)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ExecutionResultNode benchMarkTwoPasses(NadelInstance nadelInstance) {
+        BenchmarkContext.ServiceResultToResultNodesArgs resultToResultNodesArgs = nadelInstance.benchmarkContext.serviceResultToResultNodesArgs;
+        BenchmarkContext.ServiceResultNodesToOverallResultArgs args = nadelInstance.benchmarkContext.serviceResultNodesToOverallResult;
+        RootExecutionResultNode resultNode = nadelInstance.serviceResultToResultNodes.resultToResultNode(
+                resultToResultNodesArgs.executionContextForService,
+                resultToResultNodesArgs.underlyingRootStepInfo,
+                resultToResultNodesArgs.transformedMergedFields,
+                resultToResultNodesArgs.serviceExecutionResult,
+                resultToResultNodesArgs.elapsedTime,
+                resultToResultNodesArgs.normalizedQuery);
+        return nadelInstance.serviceResultNodesToOverallResult.convert(
+                args.executionId,
+                resultNode,
+                args.overallSchema,
+                resultNode,
+                args.fieldIdToTransformation,
+                args.underlyingToOverallMapping,
+                args.nadelContext,
+                args.transformationMetadata);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3, time = 10)
+    @Fork(3)
+    @Threads(1)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ExecutionResultNode benchMarkOnePass(NadelInstance nadelInstance) {
+        BenchmarkContext.ServiceResultToResultNodesArgs resultToResultNodesArgs = nadelInstance.benchmarkContext.serviceResultToResultNodesArgs;
+        BenchmarkContext.ServiceResultNodesToOverallResultArgs args = nadelInstance.benchmarkContext.serviceResultNodesToOverallResult;
+        ServiceResultToOverallResultNodes resultToOverallResultNodes = ServiceResultToOverallResultNodes.forQuery(
+                args.transformationMetadata,
+                args.underlyingToOverallMapping,
+                args.nadelContext);
+        return resultToOverallResultNodes.resultToResultNode(
+                resultToResultNodesArgs.executionContextForService,
+                resultToResultNodesArgs.underlyingRootStepInfo,
+                resultToResultNodesArgs.transformedMergedFields,
+                resultToResultNodesArgs.serviceExecutionResult,
+                resultToResultNodesArgs.elapsedTime,
+                resultToResultNodesArgs.normalizedQuery);
+    }
+}
@@ -13,14 +13,18 @@ import graphql.nadel.ServiceExecutionFactory;
 import graphql.nadel.ServiceExecutionResult;
 import graphql.schema.idl.SchemaParser;
 import graphql.schema.idl.TypeDefinitionRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 
@@ -29,6 +33,7 @@ import java.net.URL;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -42,6 +47,7 @@ import java.util.concurrent.TimeUnit;
 
 public class LargeResponseBenchmark {
 
+    private static final int PARALLEL_LIST_CONVERSION_THRESHOLD = 32;
 
     @State(Scope.Benchmark)
     public static class NadelInstance {
@@ -70,10 +76,14 @@ public class LargeResponseBenchmark {
                 }
             };
             String nsdl = "service activity{" + schemaString + "}";
-            nadel = Nadel.newNadel().dsl(nsdl).serviceExecutionFactory(serviceExecutionFactory).build();
+            nadel = configure(Nadel.newNadel().dsl(nsdl).serviceExecutionFactory(serviceExecutionFactory)).build();
             query = readFromClasspath("large_response_benchmark_query.graphql");
         }
 
+        Nadel.Builder configure(Nadel.Builder builder) {
+            return builder;
+        }
+
         private String readFromClasspath(String file) throws IOException {
             URL url = Resources.getResource(file);
             return Resources.toString(url, Charsets.UTF_8);
@@ -81,6 +91,28 @@ public class LargeResponseBenchmark {
     }
 
 
+    /**
+     * Converts the large lists of the service result on a pool with the given number of threads
+     */
+    @State(Scope.Benchmark)
+    public static class ParallelNadelInstance extends NadelInstance {
+        @Param({"1", "4", "16"})
+        int poolThreads;
+
+        ForkJoinPool pool;
+
+        @Override
+        Nadel.Builder configure(Nadel.Builder builder) {
+            pool = new ForkJoinPool(poolThreads);
+            return builder.listConversionPool(pool).parallelListConversionThreshold(PARALLEL_LIST_CONVERSION_THRESHOLD);
+        }
+
+        @TearDown
+        public void tearDown() {
+            pool.shutdown();
+        }
+    }
+
     @Benchmark
     @Warmup(iterations = 2)
     @Measurement(iterations = 3, time = 10)
@@ -97,5 +129,53 @@ public class LargeResponseBenchmark {
         return executionResult;
     }
 
+    @Benchmark
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3, time = 10)
+    @Threads(1)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ExecutionResult benchMarkParallelListConversion(ParallelNadelInstance nadelInstance) throws ExecutionException, InterruptedException {
+        NadelExecutionInput nadelExecutionInput = NadelExecutionInput.newNadelExecutionInput()
+                .query(nadelInstance.query)
+                .build();
+        ExecutionResult executionResult = nadelInstance.nadel.execute(nadelExecutionInput).get();
+        Assert.assertTrue(executionResult.getErrors().size() == 0);
+        return executionResult;
+    }
+
+    /**
+     * The heap retained by one execution result (mostly its result nodes) shows up as the "retainedBytes" counter
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long retainedBytes;
+    }
+
+    @Benchmark
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    @Fork(1)
+    @Threads(1)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ExecutionResult benchMarkResultFootprint(NadelInstance nadelInstance, Footprint footprint) throws ExecutionException, InterruptedException {
+        long usedBefore = usedHeapAfterGc();
+        NadelExecutionInput nadelExecutionInput = NadelExecutionInput.newNadelExecutionInput()
+                .query(nadelInstance.query)
+                .build();
+        ExecutionResult executionResult = nadelInstance.nadel.execute(nadelExecutionInput).get();
+        footprint.retainedBytes = usedHeapAfterGc() - usedBefore;
+        return executionResult;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
 
 }
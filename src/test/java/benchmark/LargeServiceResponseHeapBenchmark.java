@@ -0,0 +1,154 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import graphql.Assert;
+import graphql.ExecutionResult;
+import graphql.nadel.Nadel;
+import graphql.nadel.NadelExecutionInput;
+import graphql.nadel.ServiceExecution;
+import graphql.nadel.ServiceExecutionFactory;
+import graphql.nadel.ServiceExecutionResult;
+import graphql.nadel.hooks.ResultRewriteParams;
+import graphql.nadel.hooks.ServiceExecutionHooks;
+import graphql.nadel.result.RootExecutionResultNode;
+import graphql.schema.idl.SchemaParser;
+import graphql.schema.idl.TypeDefinitionRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the heap retained while a request with a ~5 MB service response is executed. The service response is parsed
+ * for every request, so the only way for it to stay reachable is through the result nodes.
+ * <p>
+ * "peakRetainedBytes" is measured when the service result has been converted into overall result nodes,
+ * "retainedBytes" once the execution result is complete.
+ */
+public class LargeServiceResponseHeapBenchmark {
+
+    // the 300 KB response in large_underlying_service_result.json repeated to get to about 5 MB
+    private static final int RESPONSE_COPIES = 17;
+
+    @State(Scope.Benchmark)
+    public static class NadelInstance {
+        Nadel nadel;
+        String query;
+        byte[] response;
+        long usedBefore;
+        long peakRetainedBytes;
+
+        @Setup
+        @SuppressWarnings("unchecked")
+        public void setup() throws IOException {
+            ObjectMapper objectMapper = new ObjectMapper();
+            String schemaString = readFromClasspath("large_response_benchmark_schema.graphqls");
+            TypeDefinitionRegistry typeDefinitionRegistry = new SchemaParser().parse(schemaString);
+
+            Map<String, Object> responseMap = objectMapper.readValue(readFromClasspath("large_underlying_service_result.json"), Map.class);
+            Map<String, Object> myActivities = (Map<String, Object>) ((Map<String, Object>) responseMap.get("data")).get("myActivities");
+            for (Object connection : myActivities.values()) {
+                List<Object> nodes = (List<Object>) ((Map<String, Object>) connection).get("nodes");
+                List<Object> copies = new ArrayList<>();
+                for (int i = 0; i < RESPONSE_COPIES; i++) {
+                    copies.addAll(nodes);
+                }
+                ((Map<String, Object>) connection).put("nodes", copies);
+            }
+            response = objectMapper.writeValueAsBytes(responseMap);
+
+            ServiceExecution serviceExecution = serviceExecutionParameters -> {
+                try {
+                    Map<String, Object> parsedResponse = objectMapper.readValue(response, Map.class);
+                    return CompletableFuture.completedFuture(new ServiceExecutionResult((Map<String, Object>) parsedResponse.get("data")));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+            ServiceExecutionFactory serviceExecutionFactory = new ServiceExecutionFactory() {
+                @Override
+                public ServiceExecution getServiceExecution(String serviceName) {
+                    return serviceExecution;
+                }
+
+                @Override
+                public TypeDefinitionRegistry getUnderlyingTypeDefinitions(String serviceName) {
+                    return typeDefinitionRegistry;
+                }
+            };
+            ServiceExecutionHooks measuringHooks = new ServiceExecutionHooks() {
+                @Override
+                public CompletableFuture<RootExecutionResultNode> resultRewrite(ResultRewriteParams params) {
+                    peakRetainedBytes = usedHeapAfterGc() - usedBefore;
+                    return CompletableFuture.completedFuture(params.getResultNode());
+                }
+            };
+            String nsdl = "service activity{" + schemaString + "}";
+            nadel = Nadel.newNadel()
+                    .dsl(nsdl)
+                    .serviceExecutionFactory(serviceExecutionFactory)
+                    .serviceExecutionHooks(measuringHooks)
+                    .build();
+            query = readFromClasspath("large_response_benchmark_query.graphql");
+        }
+
+        private String readFromClasspath(String file) throws IOException {
+            URL url = Resources.getResource(file);
+            return Resources.toString(url, Charsets.UTF_8);
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long peakRetainedBytes;
+        public long retainedBytes;
+    }
+
+    @Benchmark
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    @Fork(1)
+    @Threads(1)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ExecutionResult benchMarkRetainedHeap(NadelInstance nadelInstance, Footprint footprint) throws ExecutionException, InterruptedException {
+        nadelInstance.usedBefore = usedHeapAfterGc();
+        NadelExecutionInput nadelExecutionInput = NadelExecutionInput.newNadelExecutionInput()
+                .query(nadelInstance.query)
+                .build();
+        ExecutionResult executionResult = nadelInstance.nadel.execute(nadelExecutionInput).get();
+        Assert.assertTrue(executionResult.getErrors().size() == 0);
+        footprint.retainedBytes = usedHeapAfterGc() - nadelInstance.usedBefore;
+        footprint.peakRetainedBytes = nadelInstance.peakRetainedBytes;
+        return executionResult;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}